@@ -0,0 +1,116 @@
+package org.linkeddatafragments.config;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+
+/**
+ * Watches a configuration file and notifies a listener whenever the file
+ * has been changed.
+ */
+public class ConfigWatcher implements Closeable
+{
+    /**
+     * Time to wait after a change before notifying the listener, because
+     * editors often write a file in several steps.
+     */
+    public final static long SETTLE_MILLIS = 500L;
+
+    private final Path file;
+    private final Runnable listener;
+    private final WatchService watchService;
+    private final Thread thread;
+
+    /**
+     * Starts watching the given file.
+     *
+     * @param file the configuration file
+     * @param listener called (on the watcher thread) after the file changed;
+     *                 it is expected to report its own errors
+     * @throws IOException if the file cannot be watched
+     */
+    public ConfigWatcher( final File file, final Runnable listener )
+                                                            throws IOException
+    {
+        this.file = file.getAbsoluteFile().toPath();
+        this.listener = listener;
+
+        watchService = FileSystems.getDefault().newWatchService();
+        // directories are watched rather than files, which also catches
+        // editors that replace the file instead of writing to it
+        this.file.getParent().register( watchService,
+                                        StandardWatchEventKinds.ENTRY_CREATE,
+                                        StandardWatchEventKinds.ENTRY_MODIFY );
+
+        thread = new Thread( new Runnable() {
+            @Override
+            public void run() { watch(); }
+        }, "ldf-config-watcher" );
+        thread.setDaemon( true );
+        thread.start();
+    }
+
+    private void watch()
+    {
+        try {
+            while ( true ) {
+                if ( ! isChange(watchService.take()) )
+                    continue;
+
+                Thread.sleep( SETTLE_MILLIS );
+                WatchKey key;
+                while ( (key = watchService.poll()) != null ) {
+                    isChange( key );
+                }
+
+                try {
+                    listener.run();
+                }
+                catch ( RuntimeException e ) {
+                    // the listener reports its own errors; anything else
+                    // goes to the handler of the thread, which keeps
+                    // watching
+                    thread.getUncaughtExceptionHandler()
+                          .uncaughtException( thread, e );
+                }
+            }
+        }
+        catch ( InterruptedException | ClosedWatchServiceException e ) {
+            // the watcher has been closed
+        }
+    }
+
+    private boolean isChange( final WatchKey key )
+    {
+        boolean changed = false;
+        for ( WatchEvent<?> event : key.pollEvents() ) {
+            if ( file.getFileName().equals(event.context()) )
+                changed = true;
+        }
+        key.reset();
+        return changed;
+    }
+
+    /**
+     * Stops watching the file.
+     */
+    @Override
+    public void close()
+    {
+        try {
+            watchService.close();
+        }
+        catch ( IOException e ) {
+            // ignore
+        }
+        thread.interrupt();
+    }
+
+}
@@ -1,12 +1,31 @@
 package org.linkeddatafragments.datasource;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
 import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.Property;
 import org.linkeddatafragments.fragments.ILinkedDataFragment;
 import org.linkeddatafragments.fragments.ILinkedDataFragmentRequest;
+import org.linkeddatafragments.fragments.tpf.FragmentOrder;
+import org.linkeddatafragments.fragments.tpf.IBindingsRestrictedTPFRequest;
+import org.linkeddatafragments.fragments.tpf.IOrderedFragmentRequest;
+import org.linkeddatafragments.fragments.tpf.IRangeFragmentRequest;
+import org.linkeddatafragments.fragments.tpf.IStarPatternFragmentRequest;
+import org.linkeddatafragments.fragments.tpf.ITextSearchFragmentRequest;
 import org.linkeddatafragments.fragments.tpf.ITriplePatternElement;
 import org.linkeddatafragments.fragments.tpf.ITriplePatternFragment;
+import org.linkeddatafragments.fragments.tpf.TriplePatternElementFactory;
 import org.linkeddatafragments.fragments.tpf.TriplePatternFragmentImpl;
+import org.linkeddatafragments.fragments.tpf.TriplePatternFragmentOptions;
 import org.linkeddatafragments.fragments.tpf.ITriplePatternFragmentRequest;
+import org.linkeddatafragments.fragments.tpf.MembershipFilter;
+import org.linkeddatafragments.fragments.tpf.TriplePatternSearchForm;
+import org.linkeddatafragments.util.CommonResources;
 
 /**
  * Base class for implementations of {@link IFragmentRequestProcessor} that
@@ -28,6 +47,63 @@ public abstract class
         extends AbstractRequestProcessor
 {
 
+    /**
+     * The page size of the fragments
+     */
+    protected final PageSize pageSize;
+
+    /**
+     * The approximate membership filters of the triple patterns, or null
+     * if there are none
+     */
+    protected final MembershipFilterCache membershipFilters;
+
+    /**
+     * Creates a processor with the default options.
+     */
+    public AbstractRequestProcessorForTriplePatterns()
+    {
+        this( DataSourceOptions.DEFAULT );
+    }
+
+    /**
+     * Creates a processor with the page size of the given options and, if it
+     * exports triples, approximate membership filters in the metadata.
+     *
+     * @param options the options of the data source
+     */
+    public AbstractRequestProcessorForTriplePatterns(
+                            final DataSourceOptions options )
+    {
+        this.pageSize = options.getPageSize();
+        final MembershipFilterSettings filterSettings =
+                                        options.getMembershipFilterSettings();
+        this.membershipFilters =
+                filterSettings != null && this instanceof ITriplePatternExporter
+                ? new MembershipFilterCache( filterSettings,
+                                             (ITriplePatternExporter) this )
+                : null;
+    }
+
+    /**
+     *
+     * @return the page size of the fragments
+     */
+    public PageSize getPageSize()
+    {
+        return pageSize;
+    }
+
+    /**
+     *
+     * @return the approximate membership filters of the triple patterns, or
+     *         null if there are none
+     */
+    public MembershipFilterCache getMembershipFilters()
+    {
+        return membershipFilters;
+    }
+
     /**
      *
      * @param request
@@ -38,12 +114,25 @@ public abstract class
     protected final Worker<CTT,NVT,AVT> getWorker(
             final ILinkedDataFragmentRequest request )
                                                 throws IllegalArgumentException
+    {
+        return getTPFSpecificWorker( asTPFRequest(request) );
+    }
+
+    /**
+     *
+     * @param request
+     * @return the request as a triple pattern fragment request
+     * @throws IllegalArgumentException if it is not one
+     */
+    protected ITriplePatternFragmentRequest<CTT,NVT,AVT> asTPFRequest(
+            final ILinkedDataFragmentRequest request )
+                                                throws IllegalArgumentException
     {
         if ( request instanceof ITriplePatternFragmentRequest<?,?,?> ) {
             @SuppressWarnings("unchecked")
             final ITriplePatternFragmentRequest<CTT,NVT,AVT> tpfRequest =
                       (ITriplePatternFragmentRequest<CTT,NVT,AVT>) request;
-            return getTPFSpecificWorker( tpfRequest );
+            return tpfRequest;
         }
         else
             throw new IllegalArgumentException( request.getClass().getName() );
@@ -59,6 +148,55 @@ public abstract class
             final ITriplePatternFragmentRequest<CTT,NVT,AVT> request )
                     throws IllegalArgumentException;
 
+    /**
+     * Returns whether the matches of a triple pattern that are read
+     * from an index are in the order of the terms at a position, which
+     * is the case if that position is the first variable one in the
+     * order of the index, or not variable at all.
+     *
+     * @param subj
+     * @param pred
+     * @param obj
+     * @param order the position
+     * @param index the positions in the order of the index, such as
+     *              "SPO" or "POS"
+     * @return true if the matches are in order
+     */
+    protected static <CTT,NVT,AVT> boolean isInIndexOrder(
+                    final ITriplePatternElement<CTT,NVT,AVT> subj,
+                    final ITriplePatternElement<CTT,NVT,AVT> pred,
+                    final ITriplePatternElement<CTT,NVT,AVT> obj,
+                    final Property order,
+                    final String index )
+    {
+        for ( int i = 0; i < index.length(); i++ ) {
+            final Property position;
+            final ITriplePatternElement<CTT,NVT,AVT> element;
+            switch ( index.charAt(i) ) {
+                case 'S':
+                    position = CommonResources.RDF_SUBJECT;
+                    element = subj;
+                    break;
+                case 'P':
+                    position = CommonResources.RDF_PREDICATE;
+                    element = pred;
+                    break;
+                default:
+                    position = CommonResources.RDF_OBJECT;
+                    element = obj;
+            }
+            if ( position.equals(order) )
+                return true;
+            // the order of the terms at a later position is only kept
+            // within runs of the same term at this one
+            if ( element.isVariable() )
+                return ! ( order.equals(CommonResources.RDF_SUBJECT) ? subj
+                         : order.equals(CommonResources.RDF_PREDICATE) ? pred
+                         : obj ).isVariable();
+        }
+        return true;
+    }
+
     /**
      *
      * @param <CTT>
@@ -69,14 +207,54 @@ public abstract class
         extends AbstractRequestProcessor.Worker
     {        
 
+        /**
+         * The number of triples per page of the requested fragment
+         */
+        public final long pageSize;
+
+        /**
+         * The approximate membership filters of the triple patterns, or
+         * null if there are none
+         */
+        protected final MembershipFilterCache membershipFilters;
+
         /**
          *
          * @param request
          */
         public Worker(
                  final ITriplePatternFragmentRequest<CTT,NVT,AVT> request )
+        {
+            this( request, PageSize.DEFAULT );
+        }
+
+        /**
+         *
+         * @param request
+         * @param pageSize the page size of the data source
+         */
+        public Worker(
+                 final ITriplePatternFragmentRequest<CTT,NVT,AVT> request,
+                 final PageSize pageSize )
+        {
+            this( request, pageSize, null );
+        }
+
+        /**
+         *
+         * @param request
+         * @param pageSize the page size of the data source
+         * @param membershipFilters the approximate membership filters of the
+         *                          data source, or null if there are none
+         */
+        public Worker(
+                 final ITriplePatternFragmentRequest<CTT,NVT,AVT> request,
+                 final PageSize pageSize,
+                 final MembershipFilterCache membershipFilters )
         {
             super( request );
+            this.pageSize = pageSize.getPageSize( request );
+            this.membershipFilters = membershipFilters;
         }
 
         /**
@@ -88,7 +266,7 @@ public abstract class
         public ILinkedDataFragment createRequestedFragment()
                                                 throws IllegalArgumentException
         {
-            final long limit = ILinkedDataFragmentRequest.TRIPLESPERPAGE;
+            final long limit = pageSize;
             final long offset;
             if ( request.isPageRequest() )
                 offset = limit * ( request.getPageNumber() - 1L );
@@ -99,6 +277,91 @@ public abstract class
             final ITriplePatternFragmentRequest<CTT,NVT,AVT> tpfRequest =
                       (ITriplePatternFragmentRequest<CTT,NVT,AVT>) request;
 
+            if ( request instanceof IStarPatternFragmentRequest<?,?,?> ) {
+                @SuppressWarnings("unchecked")
+                final IStarPatternFragmentRequest<CTT,NVT,AVT> spfRequest =
+                      (IStarPatternFragmentRequest<CTT,NVT,AVT>) request;
+                final int n = spfRequest.getNumberOfTriplePatterns();
+                if ( n > 1 ) {
+                    if ( ! supportsStarPatterns() )
+                        throw new IllegalArgumentException(
+                                "Star patterns are not supported." );
+
+                    final List<ITriplePatternElement<CTT,NVT,AVT>> predicates =
+                                                        new ArrayList<>( n );
+                    final List<ITriplePatternElement<CTT,NVT,AVT>> objects =
+                                                        new ArrayList<>( n );
+                    for ( int i = 0; i < n; i++ ) {
+                        predicates.add( spfRequest.getPredicate(i) );
+                        objects.add( spfRequest.getObject(i) );
+                    }
+                    return createFragment( spfRequest.getSubject(),
+                                           predicates, objects,
+                                           offset, limit );
+                }
+            }
+
+            if ( request instanceof ITextSearchFragmentRequest<?,?,?> ) {
+                if ( ! supportsTextSearch() )
+                    throw new IllegalArgumentException(
+                            "Text search is not supported." );
+
+                return createFragment( tpfRequest.getSubject(),
+                                       tpfRequest.getPredicate(),
+                                       tpfRequest.getObject(),
+                                       ( (ITextSearchFragmentRequest<?,?,?>) request )
+                                                              .getSearchText(),
+                                       offset, limit );
+            }
+
+            if ( request instanceof IRangeFragmentRequest<?,?,?> ) {
+                if ( ! supportsRanges() )
+                    throw new IllegalArgumentException(
+                            "Range fragments are not supported." );
+
+                @SuppressWarnings("unchecked")
+                final IRangeFragmentRequest<CTT,NVT,AVT> rangeRequest =
+                      (IRangeFragmentRequest<CTT,NVT,AVT>) request;
+                return createFragment( tpfRequest.getSubject(),
+                                       tpfRequest.getPredicate(),
+                                       tpfRequest.getObject(),
+                                       rangeRequest.getMinimum(),
+                                       rangeRequest.getMaximum(),
+                                       offset, limit );
+            }
+
+            if ( request instanceof IOrderedFragmentRequest<?,?,?> ) {
+                if ( ! supportsOrder() )
+                    throw new IllegalArgumentException(
+                            "Ordered fragments are not supported." );
+
+                return createFragment( tpfRequest.getSubject(),
+                                       tpfRequest.getPredicate(),
+                                       tpfRequest.getObject(),
+                                       ( (IOrderedFragmentRequest<?,?,?>) request )
+                                                                   .getOrder(),
+                                       offset, limit );
+            }
+
+            if ( request instanceof IBindingsRestrictedTPFRequest<?,?,?> ) {
+                if ( ! supportsBindings() )
+                    throw new IllegalArgumentException(
+                            "Bindings-restricted requests are not supported." );
+
+                @SuppressWarnings("unchecked")
+                final List<Map<NVT,CTT>> mappings =
+                      ( (IBindingsRestrictedTPFRequest<CTT,NVT,AVT>) request )
+                                                       .getSolutionMappings();
+                // no solution mapping is compatible with any triple
+                if ( mappings.isEmpty() )
+                    return createEmptyTriplePatternFragment();
+
+                return createFragment( tpfRequest.getSubject(),
+                                       tpfRequest.getPredicate(),
+                                       tpfRequest.getObject(),
+                                       mappings, offset, limit );
+            }
+
             return createFragment( tpfRequest.getSubject(),
                                    tpfRequest.getPredicate(),
                                    tpfRequest.getObject(),
@@ -123,14 +386,267 @@ public abstract class
                             final long limit )
                                                throws IllegalArgumentException;
 
+        /**
+         * Returns whether the worker supports bindings-restricted requests,
+         * which is announced in the search form of its fragments. Workers
+         * that do override
+         * {@link #createFragment(ITriplePatternElement, ITriplePatternElement, ITriplePatternElement, List, long, long)}
+         * as well.
+         *
+         * @return false by default
+         */
+        protected boolean supportsBindings()
+        {
+            return false;
+        }
+
+        /**
+         * Creates the page of the union of the fragments of the triple
+         * pattern with the variables of each solution mapping substituted,
+         * in the order of the solution mappings and without duplicates.
+         *
+         * @param subj
+         * @param pred
+         * @param obj
+         * @param solutionMappings at least one solution mapping
+         * @param offset
+         * @param limit
+         * @return
+         * @throws IllegalArgumentException if bindings are not supported
+         */
+        protected ILinkedDataFragment createFragment(
+                            final ITriplePatternElement<CTT,NVT,AVT> subj,
+                            final ITriplePatternElement<CTT,NVT,AVT> pred,
+                            final ITriplePatternElement<CTT,NVT,AVT> obj,
+                            final List<Map<NVT,CTT>> solutionMappings,
+                            final long offset,
+                            final long limit )
+                                               throws IllegalArgumentException
+        {
+            throw new IllegalArgumentException(
+                    "Bindings-restricted requests are not supported." );
+        }
+
+        /**
+         * Returns whether the worker supports star patterns of more than one
+         * triple pattern. Workers that do override
+         * {@link #createFragment(ITriplePatternElement, List, List, long, long)}
+         * as well.
+         *
+         * @return false by default
+         */
+        protected boolean supportsStarPatterns()
+        {
+            return false;
+        }
+
+        /**
+         * Creates the page of the fragment of a star pattern, which contains
+         * the triples of the requested page of solutions; the offset and
+         * the limit count solutions, not triples.
+         *
+         * @param subj the shared subject
+         * @param preds the predicates of the triple patterns
+         * @param objs the objects of the triple patterns
+         * @param offset
+         * @param limit
+         * @return
+         * @throws IllegalArgumentException if star patterns are not supported
+         */
+        protected ILinkedDataFragment createFragment(
+                            final ITriplePatternElement<CTT,NVT,AVT> subj,
+                            final List<ITriplePatternElement<CTT,NVT,AVT>> preds,
+                            final List<ITriplePatternElement<CTT,NVT,AVT>> objs,
+                            final long offset,
+                            final long limit )
+                                               throws IllegalArgumentException
+        {
+            throw new IllegalArgumentException(
+                    "Star patterns are not supported." );
+        }
+
+        /**
+         * Returns whether the worker supports text search requests. Workers
+         * that do override
+         * {@link #createFragment(ITriplePatternElement, ITriplePatternElement, ITriplePatternElement, String, long, long)}
+         * as well.
+         *
+         * @return false by default
+         */
+        protected boolean supportsTextSearch()
+        {
+            return false;
+        }
+
+        /**
+         * Creates the page of the fragment of the triples that match the
+         * triple pattern and of which the object is a literal that contains
+         * the given text, ignoring case.
+         *
+         * @param subj
+         * @param pred
+         * @param obj a variable
+         * @param searchText the text
+         * @param offset
+         * @param limit
+         * @return
+         * @throws IllegalArgumentException if text search is not supported
+         */
+        protected ILinkedDataFragment createFragment(
+                            final ITriplePatternElement<CTT,NVT,AVT> subj,
+                            final ITriplePatternElement<CTT,NVT,AVT> pred,
+                            final ITriplePatternElement<CTT,NVT,AVT> obj,
+                            final String searchText,
+                            final long offset,
+                            final long limit )
+                                               throws IllegalArgumentException
+        {
+            throw new IllegalArgumentException(
+                    "Text search is not supported." );
+        }
+
+        /**
+         * Returns whether the worker supports range fragments. Workers that
+         * do override
+         * {@link #createFragment(ITriplePatternElement, ITriplePatternElement, ITriplePatternElement, Object, Object, long, long)}
+         * as well.
+         *
+         * @return false by default
+         */
+        protected boolean supportsRanges()
+        {
+            return false;
+        }
+
+        /**
+         * Creates the page of the fragment of the triples that match the
+         * triple pattern and of which the object is a numeric or a date/time
+         * literal with a value within the given bounds.
+         *
+         * @param subj
+         * @param pred a constant
+         * @param obj a variable
+         * @param min the inclusive minimum, or null if there is none
+         * @param max the inclusive maximum, or null if there is none
+         * @param offset
+         * @param limit
+         * @return
+         * @throws IllegalArgumentException if range fragments are not
+         *         supported or the bounds are not comparable
+         */
+        protected ILinkedDataFragment createFragment(
+                            final ITriplePatternElement<CTT,NVT,AVT> subj,
+                            final ITriplePatternElement<CTT,NVT,AVT> pred,
+                            final ITriplePatternElement<CTT,NVT,AVT> obj,
+                            final CTT min,
+                            final CTT max,
+                            final long offset,
+                            final long limit )
+                                               throws IllegalArgumentException
+        {
+            throw new IllegalArgumentException(
+                    "Range fragments are not supported." );
+        }
+
+        /**
+         * Returns whether the worker supports ordered fragments, which is
+         * announced in the search form of its fragments. Workers that do
+         * override
+         * {@link #createFragment(ITriplePatternElement, ITriplePatternElement, ITriplePatternElement, Property, long, long)}
+         * as well.
+         *
+         * @return false by default
+         */
+        protected boolean supportsOrder()
+        {
+            return false;
+        }
+
+        /**
+         * Creates the page of the fragment of the triple pattern in the
+         * order of the terms at the given position, with the sort keys of
+         * these terms. The order must be that of an index, such that no
+         * triples have to be sorted.
+         *
+         * @param subj
+         * @param pred
+         * @param obj
+         * @param order the position to order by
+         * @param offset
+         * @param limit
+         * @return
+         * @throws IllegalArgumentException if ordered fragments are not
+         *         supported, or not in the given order for the pattern
+         */
+        protected ILinkedDataFragment createFragment(
+                            final ITriplePatternElement<CTT,NVT,AVT> subj,
+                            final ITriplePatternElement<CTT,NVT,AVT> pred,
+                            final ITriplePatternElement<CTT,NVT,AVT> obj,
+                            final Property order,
+                            final long offset,
+                            final long limit )
+                                               throws IllegalArgumentException
+        {
+            throw new IllegalArgumentException(
+                    "Ordered fragments are not supported." );
+        }
+
+        /**
+         * Substitutes a named variable by the term that it is bound to in
+         * the given solution mapping.
+         *
+         * @param element an element of the requested triple pattern
+         * @param solutionMapping a solution mapping
+         * @return the bound term, or the element itself if it is not a
+         *         named variable that is bound in the solution mapping
+         */
+        protected ITriplePatternElement<CTT,NVT,AVT> bind(
+                            final ITriplePatternElement<CTT,NVT,AVT> element,
+                            final Map<NVT,CTT> solutionMapping )
+        {
+            if ( ! element.isNamedVariable() )
+                return element;
+
+            final CTT term = solutionMapping.get( element.asNamedVariable() );
+            if ( term == null )
+                return element;
+            return new TriplePatternElementFactory<CTT,NVT,AVT>()
+                                               .createConstantRDFTerm( term );
+        }
+
+        /**
+         *
+         * @return the search form of the fragments
+         */
+        protected TriplePatternSearchForm getSearchForm()
+        {
+            return TriplePatternSearchForm.get( request.getDatasetURL(),
+                                                supportsBindings(),
+                                                supportsOrder() );
+        }
+
+        /**
+         *
+         * @return the page size and search form of the fragments
+         */
+        protected TriplePatternFragmentOptions getFragmentOptions()
+        {
+            return TriplePatternFragmentOptions.DEFAULT
+                                               .withMaxPageSize( pageSize )
+                                               .withSearchForm( getSearchForm() );
+        }
+
         /**
          *
          * @return
          */
         protected ITriplePatternFragment createEmptyTriplePatternFragment()
         {
-            return new TriplePatternFragmentImpl( request.getFragmentURL(),
-                                                  request.getDatasetURL() );
+            return new TriplePatternFragmentImpl( Collections.<Triple>emptyList(), 0L,
+                                                  request.getFragmentURL(),
+                                                  request.getDatasetURL(),
+                                                  1L, true,
+                                                  getFragmentOptions() );
         }
 
         /**
@@ -145,12 +661,43 @@ public abstract class
                                                      final long totalSize,
                                                      final boolean isLastPage )
         {
+            return createTriplePatternFragment(
+                    triples.getGraph().find( Node.ANY, Node.ANY, Node.ANY ).toList(),
+                    totalSize, isLastPage, null );
+        }
+
+        /**
+         *
+         * @param triples the triples, which are written in the order of
+         *                the list
+         * @param totalSize
+         * @param isLastPage
+         * @param order the order of the triples, or null if they are not
+         *              ordered
+         * @return
+         */
+        protected ITriplePatternFragment createTriplePatternFragment(
+                                                     final List<Triple> triples,
+                                                     final long totalSize,
+                                                     final boolean isLastPage,
+                                                     final FragmentOrder order )
+        {
+            @SuppressWarnings("unchecked")
+            final List<MembershipFilter> filters = membershipFilters == null
+                    ? Collections.<MembershipFilter>emptyList()
+                    : membershipFilters.get(
+                          (ITriplePatternFragmentRequest<CTT,NVT,AVT>) request,
+                          totalSize, pageSize );
+
             return new TriplePatternFragmentImpl( triples,
                                                   totalSize,
                                                   request.getFragmentURL(),
                                                   request.getDatasetURL(),
                                                   request.getPageNumber(),
-                                                  isLastPage );
+                                                  isLastPage,
+                                                  getFragmentOptions()
+                                                      .withMembershipFilters( filters )
+                                                      .withOrder( order ) );
         }
 
     } // end of class Worker
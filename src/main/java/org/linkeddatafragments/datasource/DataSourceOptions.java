@@ -0,0 +1,122 @@
+package org.linkeddatafragments.datasource;
+
+import com.google.gson.JsonObject;
+
+/**
+ * The options of a data source, as given by its settings in the
+ * configuration file:
+ *
+ * <pre>
+ * "settings": {
+ *     "pageSize": 100, "maxPageSize": 1000,
+ *     "membershipFilters": { "maxTriples": 10000 },
+ *     "textIndex": true,
+ *     "rangeIndex": true,
+ *     "prefetch": { "maxCursors": 32 }
+ * }
+ * </pre>
+ *
+ * Options that a type of data source does not support are ignored.
+ */
+public class DataSourceOptions
+{
+    /**
+     * The options of data sources without settings
+     */
+    public final static DataSourceOptions DEFAULT = create( null );
+
+    private final PageSize pageSize;
+    private final MembershipFilterSettings filterSettings;
+    private final boolean textIndex;
+    private final boolean rangeIndex;
+    private final JsonObject prefetchSettings;
+
+    private DataSourceOptions( final JsonObject settings )
+    {
+        pageSize = PageSize.create( settings );
+        if ( settings == null ) {
+            filterSettings = null;
+            textIndex = false;
+            rangeIndex = false;
+            prefetchSettings = null;
+            return;
+        }
+
+        // membership filters are added to the metadata by a "membershipFilters" object
+        filterSettings = settings.has("membershipFilters")
+                ? MembershipFilterSettings.create( settings.getAsJsonObject("membershipFilters") )
+                : null;
+
+        // text search is enabled by "textIndex": true
+        textIndex = settings.has("textIndex")
+                && settings.getAsJsonPrimitive("textIndex").getAsBoolean();
+
+        // range fragments are enabled by "rangeIndex": true
+        rangeIndex = settings.has("rangeIndex")
+                && settings.getAsJsonPrimitive("rangeIndex").getAsBoolean();
+
+        // prefetching of next pages is enabled by a "prefetch" object
+        prefetchSettings = settings.has("prefetch")
+                ? settings.getAsJsonObject("prefetch")
+                : null;
+    }
+
+    /**
+     * Creates the options from the settings of a data source.
+     *
+     * @param settings the settings of a data source, or null for none
+     * @return the options
+     */
+    public static DataSourceOptions create( final JsonObject settings )
+    {
+        return new DataSourceOptions( settings );
+    }
+
+    /**
+     *
+     * @return the page size of the fragments
+     */
+    public PageSize getPageSize()
+    {
+        return pageSize;
+    }
+
+    /**
+     *
+     * @return the settings of the approximate membership filters, or null
+     *         if there are none
+     */
+    public MembershipFilterSettings getMembershipFilterSettings()
+    {
+        return filterSettings;
+    }
+
+    /**
+     *
+     * @return whether text search is enabled
+     */
+    public boolean hasTextIndex()
+    {
+        return textIndex;
+    }
+
+    /**
+     *
+     * @return whether range fragments are enabled
+     */
+    public boolean hasRangeIndex()
+    {
+        return rangeIndex;
+    }
+
+    /**
+     *
+     * @return the settings of the prefetching of next pages, or null if
+     *         prefetching is disabled
+     */
+    public JsonObject getPrefetchSettings()
+    {
+        return prefetchSettings;
+    }
+
+}
@@ -0,0 +1,269 @@
+package org.linkeddatafragments.datasource;
+
+import java.io.Closeable;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.linkeddatafragments.exceptions.DataSourceCreationException;
+
+import com.google.gson.JsonObject;
+
+/**
+ * A registry of the {@link IDataSource}s served under their names, which can
+ * be loaded, unloaded and swapped while requests are being served.
+ *
+ * Lookups are lock-free. Requests hold a {@link Lease} on the data source
+ * they use; a data source that is unloaded or swapped out is closed only
+ * after the last lease on it has been released, so in-flight requests are
+ * drained rather than dropped.
+ *
+ * The registry is only a Java API: there is no HTTP endpoint for it.
+ */
+public class DataSourceRegistry implements Closeable
+{
+    private final ConcurrentHashMap<String, Entry> entries =
+                                                   new ConcurrentHashMap<>();
+
+    // copy-on-write view of the data sources, replaced on every change
+    private volatile Map<String, IDataSource> dataSources =
+                                                  Collections.emptyMap();
+
+    /**
+     * Acquires a lease on the data source with the given name. The lease
+     * must be closed once the request that uses the data source is done.
+     *
+     * @param name the name of the data source
+     * @return the lease, or null if there is no data source with that name
+     */
+    public Lease acquire( final String name )
+    {
+        while ( true ) {
+            final Entry entry = entries.get( name );
+            if ( entry == null )
+                return null;
+            if ( entry.tryAcquire() )
+                return new Lease( entry.dataSource, entry );
+            // the entry was retired concurrently; look up its replacement
+        }
+    }
+
+    /**
+     * Returns an immutable snapshot of the registered data sources, in the
+     * order in which they were loaded.
+     *
+     * @return a mapping of names to data sources
+     */
+    public Map<String, IDataSource> getDataSources()
+    {
+        return dataSources;
+    }
+
+    /**
+     * Returns the data source with the given name without acquiring a lease.
+     *
+     * @param name the name of the data source
+     * @return the data source, or null if there is none with that name
+     */
+    public IDataSource get( final String name )
+    {
+        final Entry entry = entries.get( name );
+        return entry == null ? null : entry.dataSource;
+    }
+
+    /**
+     * Creates a data source from its JSON configuration and loads it.
+     *
+     * @param name the name of the data source
+     * @param config the configuration of the data source
+     * @throws DataSourceCreationException if the data source cannot be created
+     * @throws IllegalArgumentException if the name is already taken
+     */
+    public void load( final String name, final JsonObject config )
+                                            throws DataSourceCreationException
+    {
+        final IDataSource dataSource = DataSourceFactory.create( config );
+        try {
+            load( name, dataSource );
+        }
+        catch ( IllegalArgumentException e ) {
+            closeQuietly( dataSource );
+            throw e;
+        }
+    }
+
+    /**
+     * Loads a data source under the given name.
+     *
+     * @param name the name of the data source
+     * @param dataSource the data source
+     * @throws IllegalArgumentException if the name is already taken
+     */
+    public synchronized void load( final String name,
+                                   final IDataSource dataSource )
+    {
+        if ( entries.putIfAbsent(name, new Entry(dataSource)) != null ) {
+            throw new IllegalArgumentException( "The registry already " +
+                       "contains a data source with the name '" + name + "'." );
+        }
+        updateView();
+    }
+
+    /**
+     * Unloads the data source with the given name. It is closed as soon as
+     * the requests that currently use it are done.
+     *
+     * @param name the name of the data source
+     * @return the unloaded data source, or null if there was none
+     */
+    public synchronized IDataSource unload( final String name )
+    {
+        final Entry entry = entries.remove( name );
+        if ( entry == null )
+            return null;
+        updateView();
+        entry.release();
+        return entry.dataSource;
+    }
+
+    /**
+     * Atomically replaces the data source with the given name, or loads it
+     * if there is none with that name yet. New requests immediately use the
+     * new data source; the old one is closed as soon as the requests that
+     * currently use it are done.
+     *
+     * @param name the name of the data source
+     * @param dataSource the new data source
+     * @return the replaced data source, or null if there was none
+     */
+    public synchronized IDataSource swap( final String name,
+                                          final IDataSource dataSource )
+    {
+        final Entry entry = entries.put( name, new Entry(dataSource) );
+        updateView();
+        if ( entry == null )
+            return null;
+        entry.release();
+        return entry.dataSource;
+    }
+
+    /**
+     * Unloads all data sources.
+     */
+    @Override
+    public synchronized void close()
+    {
+        for ( String name : entries.keySet() )
+            unload( name );
+    }
+
+    // must be called while holding the lock
+    private void updateView()
+    {
+        final Map<String, IDataSource> view =
+                                new LinkedHashMap<>( dataSources );
+        view.keySet().retainAll( entries.keySet() );
+        for ( Map.Entry<String, Entry> entry : entries.entrySet() )
+            view.put( entry.getKey(), entry.getValue().dataSource );
+        dataSources = Collections.unmodifiableMap( view );
+    }
+
+    private static void closeQuietly( final IDataSource dataSource )
+    {
+        try {
+            dataSource.close();
+        }
+        catch ( Exception e ) {
+            // ignore
+        }
+    }
+
+    /**
+     * A registered data source together with the number of references to it.
+     */
+    private static class Entry
+    {
+        final IDataSource dataSource;
+
+        // one reference is held by the registry itself until the data
+        // source is unloaded or swapped out; once zero, it is closed
+        private final AtomicInteger references = new AtomicInteger( 1 );
+
+        Entry( final IDataSource dataSource )
+        {
+            this.dataSource = dataSource;
+        }
+
+        boolean tryAcquire()
+        {
+            while ( true ) {
+                final int n = references.get();
+                if ( n == 0 )
+                    return false;
+                if ( references.compareAndSet(n, n + 1) )
+                    return true;
+            }
+        }
+
+        void release()
+        {
+            if ( references.decrementAndGet() == 0 )
+                closeQuietly( dataSource );
+        }
+    }
+
+    /**
+     * A reference to a data source that keeps it open while it is being used.
+     */
+    public static class Lease implements Closeable
+    {
+        private final IDataSource dataSource;
+        private Entry entry;
+
+        private Lease( final IDataSource dataSource, final Entry entry )
+        {
+            this.dataSource = dataSource;
+            this.entry = entry;
+        }
+
+        /**
+         * Creates a lease on a data source that is not managed by a
+         * registry; closing the lease does not affect the data source.
+         *
+         * @param dataSource the data source
+         * @return the lease
+         */
+        public static Lease unmanaged( final IDataSource dataSource )
+        {
+            return new Lease( dataSource, null );
+        }
+
+        /**
+         * Returns the leased data source.
+         *
+         * @return the data source
+         */
+        public IDataSource getDataSource()
+        {
+            return dataSource;
+        }
+
+        /**
+         * Releases the lease; further calls have no effect.
+         */
+        @Override
+        public void close()
+        {
+            final Entry e;
+            synchronized ( this ) {
+                e = entry;
+                entry = null;
+            }
+            if ( e != null )
+                e.release();
+        }
+    }
+
+}
@@ -1,7 +1,6 @@
 package org.linkeddatafragments.datasource;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * A registry of {@link IDataSourceType}s.
@@ -10,15 +9,15 @@ import java.util.Map;
  */
 public class DataSourceTypesRegistry
 {
-    private static Map<String, IDataSourceType> registry =
-                                        new HashMap<String, IDataSourceType>();
+    private static final ConcurrentHashMap<String, IDataSourceType> registry =
+                              new ConcurrentHashMap<String, IDataSourceType>();
 
     /**
      *
      * @param typeName
      * @return
      */
-    public static synchronized IDataSourceType getType( final String typeName )
+    public static IDataSourceType getType( final String typeName )
     {
         return registry.get( typeName );
     }
@@ -28,7 +27,7 @@ public class DataSourceTypesRegistry
      * @param typeName
      * @return
      */
-    public static synchronized boolean isRegistered( final String typeName )
+    public static boolean isRegistered( final String typeName )
     {
         return registry.containsKey( typeName );
     }
@@ -38,14 +37,13 @@ public class DataSourceTypesRegistry
      * @param typeName
      * @param type
      */
-    public static synchronized void register( final String typeName,
+    public static void register( final String typeName,
                                               final IDataSourceType type )
     {
-        if ( registry.containsKey(typeName) ) {
+        if ( registry.putIfAbsent(typeName, type) != null ) {
             throw new IllegalArgumentException( "The registry already " +
                        "contains a type with the name '" + typeName + "'." );
         }
-        registry.put( typeName, type );
     }
 
 }
@@ -0,0 +1,34 @@
+package org.linkeddatafragments.datasource;
+
+import org.apache.jena.graph.Triple;
+import org.apache.jena.util.iterator.ExtendedIterator;
+import org.linkeddatafragments.fragments.ILinkedDataFragmentRequest;
+import org.linkeddatafragments.fragments.tpf.ITriplePatternFragmentRequest;
+
+/**
+ * An {@link IFragmentRequestProcessor} that can export all triples that
+ * match the triple pattern of an {@link ITriplePatternFragmentRequest} as a
+ * single stream, read from one open iterator instead of page by page.
+ */
+public interface ITriplePatternExporter
+{
+    /**
+     * The parameter by which a client requests an export of all matches
+     */
+    public final static String PARAMETERNAME_EXPORT = "export";
+
+    /**
+     * Returns the triples that match the triple pattern of the given request,
+     * in the same order for every export of an unchanged data source.
+     *
+     * @param request a triple pattern fragment request
+     * @param offset the number of matching triples to skip
+     * @return the matching triples; the iterator must be closed
+     * @throws IllegalArgumentException if the request is not a triple
+     *         pattern fragment request
+     */
+    ExtendedIterator<Triple> exportTriples(
+            final ILinkedDataFragmentRequest request,
+            final long offset )
+                    throws IllegalArgumentException;
+}
@@ -0,0 +1,151 @@
+package org.linkeddatafragments.datasource;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.jena.graph.Triple;
+import org.apache.jena.util.iterator.ExtendedIterator;
+import org.linkeddatafragments.fragments.FragmentRequestKey;
+import org.linkeddatafragments.fragments.tpf.IBindingsRestrictedTPFRequest;
+import org.linkeddatafragments.fragments.tpf.IRangeFragmentRequest;
+import org.linkeddatafragments.fragments.tpf.IStarPatternFragmentRequest;
+import org.linkeddatafragments.fragments.tpf.ITextSearchFragmentRequest;
+import org.linkeddatafragments.fragments.tpf.ITriplePatternFragmentRequest;
+import org.linkeddatafragments.fragments.tpf.MembershipFilter;
+import org.linkeddatafragments.fragments.tpf.TriplePatternFragmentRequestImpl;
+import org.linkeddatafragments.util.BloomFilter;
+import org.linkeddatafragments.util.CommonResources;
+
+/**
+ * The approximate membership filters of the triple patterns of a request
+ * processor. The filters of a triple pattern are built from an export of
+ * all of its matches when one of its fragments is requested first, and
+ * kept for later requests, as the data does not change.
+ */
+public class MembershipFilterCache
+{
+    /**
+     * Maximum number of triple patterns of which filters are cached
+     */
+    public final static int MAX_CACHED = 1024;
+
+    private final static List<MembershipFilter> NONE = Collections.emptyList();
+
+    private final MembershipFilterSettings settings;
+
+    private final ITriplePatternExporter exporter;
+
+    private final ConcurrentHashMap<FragmentRequestKey, List<MembershipFilter>>
+                                         filters = new ConcurrentHashMap<>();
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param settings the settings of the filters
+     * @param exporter the processor that exports the matches of a pattern
+     */
+    public MembershipFilterCache( final MembershipFilterSettings settings,
+                                  final ITriplePatternExporter exporter )
+    {
+        this.settings = settings;
+        this.exporter = exporter;
+    }
+
+    /**
+     * Gets the filters of the variable subject and object of the triple
+     * pattern of a request. There are none for fragments that fit on a
+     * single page, which a client can check itself, for fragments with more
+     * matches than the maximum of the settings, and for requests that are
+     * restricted further than by their triple pattern.
+     *
+     * @param <CTT>
+     * @param <NVT>
+     * @param <AVT>
+     * @param request the request
+     * @param totalSize the (estimated) number of matches
+     * @param pageSize the number of triples per page
+     * @return the filters, possibly none
+     */
+    public <CTT,NVT,AVT> List<MembershipFilter> get(
+                      final ITriplePatternFragmentRequest<CTT,NVT,AVT> request,
+                      final long totalSize,
+                      final long pageSize )
+    {
+        if ( totalSize <= pageSize
+                || request instanceof IBindingsRestrictedTPFRequest
+                || request instanceof ITextSearchFragmentRequest
+                || request instanceof IRangeFragmentRequest
+                || ( request instanceof IStarPatternFragmentRequest
+                     && ((IStarPatternFragmentRequest<?,?,?>) request)
+                                         .getNumberOfTriplePatterns() > 1 ) )
+            return NONE;
+
+        // the request of the first page with the default page size, of
+        // which the key is the same for all pages
+        final ITriplePatternFragmentRequest<CTT,NVT,AVT> pattern =
+                new TriplePatternFragmentRequestImpl<CTT,NVT,AVT>(
+                        request.getDatasetURL(), request.getDatasetURL(),
+                        false, 1L, 0L,
+                        request.getSubject(), request.getPredicate(),
+                        request.getObject() );
+        final FragmentRequestKey key = pattern.getKey();
+
+        List<MembershipFilter> cached = filters.get( key );
+        if ( cached == null ) {
+            cached = build( pattern );
+            if ( filters.size() < MAX_CACHED )
+                filters.put( key, cached );
+        }
+        return cached;
+    }
+
+    private List<MembershipFilter> build(
+                        final ITriplePatternFragmentRequest<?,?,?> pattern )
+    {
+        final boolean subjects = pattern.getSubject().isVariable();
+        final boolean objects = pattern.getObject().isVariable();
+        if ( ! subjects && ! objects )
+            return NONE;
+
+        final HashSet<String> subjectTerms = new HashSet<>();
+        final HashSet<String> objectTerms = new HashSet<>();
+        final ExtendedIterator<Triple> matches = exporter.exportTriples( pattern, 0L );
+        try {
+            for ( long i = 0; matches.hasNext(); i++ ) {
+                if ( i == settings.getMaxTriples() )
+                    return NONE;
+
+                final Triple match = matches.next();
+                if ( subjects )
+                    subjectTerms.add( MembershipFilter.toElement(match.getSubject()) );
+                if ( objects )
+                    objectTerms.add( MembershipFilter.toElement(match.getObject()) );
+            }
+        }
+        finally {
+            matches.close();
+        }
+
+        final List<MembershipFilter> built = new ArrayList<>( 2 );
+        if ( subjects )
+            built.add( new MembershipFilter( CommonResources.RDF_SUBJECT,
+                                             createFilter(subjectTerms) ) );
+        if ( objects )
+            built.add( new MembershipFilter( CommonResources.RDF_OBJECT,
+                                             createFilter(objectTerms) ) );
+        return Collections.unmodifiableList( built );
+    }
+
+    private BloomFilter createFilter( final HashSet<String> terms )
+    {
+        final BloomFilter filter = new BloomFilter(
+                terms.size(), settings.getFalsePositiveProbability() );
+        for ( String term : terms )
+            filter.add( term );
+        return filter;
+    }
+
+}
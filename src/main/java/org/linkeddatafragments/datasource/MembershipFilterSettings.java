@@ -0,0 +1,83 @@
+package org.linkeddatafragments.datasource;
+
+import com.google.gson.JsonObject;
+
+/**
+ * The settings of the approximate membership filters of a data source,
+ * which are added to the metadata of Triple Pattern Fragments that do not
+ * fit on a single page.
+ */
+public class MembershipFilterSettings
+{
+    /**
+     * The default maximum number of matches of a triple pattern
+     */
+    public final static long DEFAULT_MAXTRIPLES = 10000L;
+
+    /**
+     * The default false positive probability
+     */
+    public final static double DEFAULT_FALSEPOSITIVEPROBABILITY = 0.01;
+
+    private final long maxTriples;
+    private final double falsePositiveProbability;
+
+    /**
+     * Creates the settings.
+     *
+     * @param maxTriples the maximum number of matches of a triple pattern
+     *        for which filters are built, which bounds the size of the
+     *        filters in the metadata
+     * @param falsePositiveProbability the probability that a filter reports
+     *        a term that does not occur as one that may occur
+     */
+    public MembershipFilterSettings( final long maxTriples,
+                                     final double falsePositiveProbability )
+    {
+        if ( maxTriples < 1L || falsePositiveProbability <= 0.0
+                             || falsePositiveProbability >= 1.0 )
+            throw new IllegalArgumentException(
+                    "The number of triples must be positive and the false"
+                    + " positive probability between 0 and 1." );
+
+        this.maxTriples = maxTriples;
+        this.falsePositiveProbability = falsePositiveProbability;
+    }
+
+    /**
+     * Creates the settings from the "membershipFilters" settings of a data
+     * source.
+     *
+     * @param settings the membership filter settings
+     * @return the settings
+     */
+    public static MembershipFilterSettings create( final JsonObject settings )
+    {
+        final long maxTriples = settings.has("maxTriples")
+                ? settings.getAsJsonPrimitive("maxTriples").getAsLong()
+                : DEFAULT_MAXTRIPLES;
+        final double falsePositiveProbability = settings.has("falsePositiveProbability")
+                ? settings.getAsJsonPrimitive("falsePositiveProbability").getAsDouble()
+                : DEFAULT_FALSEPOSITIVEPROBABILITY;
+        return new MembershipFilterSettings( maxTriples, falsePositiveProbability );
+    }
+
+    /**
+     *
+     * @return the maximum number of matches of a triple pattern
+     */
+    public long getMaxTriples()
+    {
+        return maxTriples;
+    }
+
+    /**
+     *
+     * @return the false positive probability
+     */
+    public double getFalsePositiveProbability()
+    {
+        return falsePositiveProbability;
+    }
+
+}
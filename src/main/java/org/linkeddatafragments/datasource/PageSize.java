@@ -0,0 +1,96 @@
+package org.linkeddatafragments.datasource;
+
+import org.linkeddatafragments.fragments.ILinkedDataFragmentRequest;
+
+import com.google.gson.JsonObject;
+
+/**
+ * The page size of a data source: the number of triples per page that is
+ * used if a client does not request a page size, and the maximum number of
+ * triples per page that a client can request.
+ */
+public class PageSize
+{
+    /**
+     * The page size of data sources without page size settings
+     */
+    public final static PageSize DEFAULT =
+            new PageSize( ILinkedDataFragmentRequest.TRIPLESPERPAGE,
+                          ILinkedDataFragmentRequest.TRIPLESPERPAGE );
+
+    private final long defaultSize;
+    private final long maxSize;
+
+    /**
+     * Creates a page size.
+     *
+     * @param defaultSize number of triples per page if none is requested
+     * @param maxSize maximum number of triples per page
+     */
+    public PageSize( final long defaultSize, final long maxSize )
+    {
+        if ( defaultSize < 1L || maxSize < defaultSize )
+            throw new IllegalArgumentException(
+                    "The page size must be positive and at most the maximum page size." );
+
+        this.defaultSize = defaultSize;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Creates the page size from the "pageSize" and "maxPageSize" settings
+     * of a data source. Without "maxPageSize", clients can request pages
+     * up to the default size only.
+     *
+     * @param settings the settings of a data source
+     * @return the page size
+     */
+    public static PageSize create( final JsonObject settings )
+    {
+        if ( settings == null
+                || ( ! settings.has("pageSize") && ! settings.has("maxPageSize") ) )
+            return DEFAULT;
+
+        final long defaultSize = settings.has("pageSize")
+                ? settings.getAsJsonPrimitive("pageSize").getAsLong()
+                : ILinkedDataFragmentRequest.TRIPLESPERPAGE;
+        final long maxSize = settings.has("maxPageSize")
+                ? settings.getAsJsonPrimitive("maxPageSize").getAsLong()
+                : defaultSize;
+        return new PageSize( defaultSize, maxSize );
+    }
+
+    /**
+     *
+     * @return number of triples per page if none is requested
+     */
+    public long getDefaultSize()
+    {
+        return defaultSize;
+    }
+
+    /**
+     *
+     * @return maximum number of triples per page
+     */
+    public long getMaxSize()
+    {
+        return maxSize;
+    }
+
+    /**
+     * Returns the page size for the given request, which is the requested
+     * page size bounded by the maximum, or the default if none is requested.
+     *
+     * @param request the request
+     * @return number of triples per page
+     */
+    public long getPageSize( final ILinkedDataFragmentRequest request )
+    {
+        final long requested = request.getPageSize();
+        if ( requested <= 0L )
+            return defaultSize;
+        return Math.min( requested, maxSize );
+    }
+
+}
@@ -0,0 +1,413 @@
+package org.linkeddatafragments.datasource;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.TimeZone;
+
+import javax.xml.datatype.DatatypeConstants;
+import javax.xml.datatype.XMLGregorianCalendar;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.out.NodeFmtLib;
+import org.apache.jena.sparql.expr.NodeValue;
+import org.apache.jena.sparql.util.NodeFactoryExtra;
+
+/**
+ * A sidecar index of the triples of one predicate of which the object is a
+ * numeric or a date/time literal, sorted by the value of the object. The
+ * triples of a range of values are found by binary search, so that they can
+ * be paged and counted exactly without reading the other triples.
+ *
+ * Values are compared as doubles; dates and date/times are compared by
+ * their instant, where those without a timezone are taken as UTC.
+ */
+public class RangeIndex
+{
+    /**
+     * The kind of numeric values
+     */
+    public final static int NUMERIC = 0;
+
+    /**
+     * The kind of date and date/time values
+     */
+    public final static int TEMPORAL = 1;
+
+    private final static int MAGIC = 0x4c444652; // "LDFR"
+    private final static int VERSION = 1;
+
+    // number of entries per mapped chunk of the values and offsets
+    private final static int CHUNK_BITS = 26;
+
+    private final FileChannel channel;
+    private final Node predicate;
+    private final long[] starts = new long[3];
+    private final long records;
+    private final MappedByteBuffer[] entries;
+
+    /**
+     * Builds an index file.
+     *
+     * @param file the index file, which is replaced once it is complete
+     * @param predicate the predicate of the triples
+     * @param triples the triples of the predicate, of which those with a
+     *                numeric or date/time object are indexed
+     * @throws IOException if the index file cannot be written
+     */
+    public static void build( final File file, final Node predicate,
+                              final Iterator<Triple> triples )
+                                                            throws IOException
+    {
+        final File directory = file.getAbsoluteFile().getParentFile();
+        final File records = File.createTempFile( file.getName(), ".records", directory );
+        final File index = File.createTempFile( file.getName(), ".tmp", directory );
+        try {
+            // the values and record offsets of each kind
+            final double[][] values = { new double[1024], new double[1024] };
+            final long[][] offsets = { new long[1024], new long[1024] };
+            final int[] sizes = new int[2];
+
+            long offset = 0;
+            final DataOutputStream out = new DataOutputStream( new BufferedOutputStream(
+                                              new FileOutputStream(records), 1 << 16) );
+            try {
+                while ( triples.hasNext() ) {
+                    final Triple triple = triples.next();
+                    final Node object = triple.getObject();
+                    final int kind = getKind( object );
+                    if ( kind < 0 )
+                        continue;
+
+                    if ( sizes[kind] == values[kind].length ) {
+                        values[kind] = Arrays.copyOf( values[kind], 2 * sizes[kind] );
+                        offsets[kind] = Arrays.copyOf( offsets[kind], 2 * sizes[kind] );
+                    }
+                    values[kind][sizes[kind]] = getValue( object );
+                    offsets[kind][sizes[kind]] = offset;
+                    sizes[kind]++;
+
+                    final byte[] subject = toString( triple.getSubject() )
+                                                     .getBytes( StandardCharsets.UTF_8 );
+                    final byte[] term = toString( object )
+                                                  .getBytes( StandardCharsets.UTF_8 );
+                    out.writeInt( subject.length );
+                    out.write( subject );
+                    out.writeInt( term.length );
+                    out.write( term );
+                    offset += 8 + subject.length + term.length;
+                }
+            }
+            finally {
+                out.close();
+            }
+
+            final byte[] name = predicate.getURI().getBytes( StandardCharsets.UTF_8 );
+            final DataOutputStream header = new DataOutputStream( new BufferedOutputStream(
+                                              new FileOutputStream(index), 1 << 16) );
+            try {
+                header.writeInt( MAGIC );
+                header.writeInt( VERSION );
+                header.writeInt( name.length );
+                header.write( name );
+                header.writeLong( sizes[NUMERIC] );
+                header.writeLong( sizes[TEMPORAL] );
+                for ( int kind = NUMERIC; kind <= TEMPORAL; kind++ ) {
+                    sort( values[kind], offsets[kind], 0, sizes[kind] );
+                    for ( int i = 0; i < sizes[kind]; i++ ) {
+                        header.writeDouble( values[kind][i] );
+                        header.writeLong( offsets[kind][i] );
+                    }
+                }
+                Files.copy( records.toPath(), header );
+            }
+            finally {
+                header.close();
+            }
+            Files.move( index.toPath(), file.toPath(),
+                        StandardCopyOption.REPLACE_EXISTING );
+        }
+        finally {
+            records.delete();
+            index.delete();
+        }
+    }
+
+    /**
+     * Formats a term as in N-Triples, but keeps the labels of blank nodes.
+     */
+    private static String toString( final Node term )
+    {
+        if ( term.isBlank() )
+            return "_:" + term.getBlankNodeLabel();
+        return NodeFmtLib.str( term );
+    }
+
+    /**
+     * Sorts entries by value, and entries with the same value in the order
+     * of their records.
+     */
+    private static void sort( final double[] values, final long[] offsets,
+                              int from, int to )
+    {
+        while ( to - from > 16 ) {
+            // median of three as pivot
+            final int middle = ( from + to ) >>> 1;
+            if ( compare(values, offsets, middle, from) < 0 )
+                swap( values, offsets, middle, from );
+            if ( compare(values, offsets, to - 1, from) < 0 )
+                swap( values, offsets, to - 1, from );
+            if ( compare(values, offsets, to - 1, middle) < 0 )
+                swap( values, offsets, to - 1, middle );
+            final double pivotValue = values[middle];
+            final long pivotOffset = offsets[middle];
+
+            int i = from;
+            int j = to - 1;
+            while ( i <= j ) {
+                while ( compare(values[i], offsets[i], pivotValue, pivotOffset) < 0 )
+                    i++;
+                while ( compare(values[j], offsets[j], pivotValue, pivotOffset) > 0 )
+                    j--;
+                if ( i <= j )
+                    swap( values, offsets, i++, j-- );
+            }
+            // recurse into the smaller part only
+            if ( j + 1 - from < to - i ) {
+                sort( values, offsets, from, j + 1 );
+                from = i;
+            }
+            else {
+                sort( values, offsets, i, to );
+                to = j + 1;
+            }
+        }
+        for ( int i = from + 1; i < to; i++ ) {
+            for ( int j = i; j > from && compare(values, offsets, j, j - 1) < 0; j-- )
+                swap( values, offsets, j, j - 1 );
+        }
+    }
+
+    private static int compare( final double[] values, final long[] offsets,
+                                final int i, final int j )
+    {
+        return compare( values[i], offsets[i], values[j], offsets[j] );
+    }
+
+    private static int compare( final double value1, final long offset1,
+                                final double value2, final long offset2 )
+    {
+        final int c = Double.compare( value1, value2 );
+        return c != 0 ? c : Long.compare( offset1, offset2 );
+    }
+
+    private static void swap( final double[] values, final long[] offsets,
+                              final int i, final int j )
+    {
+        final double value = values[i];
+        values[i] = values[j];
+        values[j] = value;
+        final long offset = offsets[i];
+        offsets[i] = offsets[j];
+        offsets[j] = offset;
+    }
+
+    /**
+     * Opens an index file.
+     *
+     * @param file the index file
+     * @param predicate the predicate of the triples
+     * @throws IOException if the file cannot be read or belongs to
+     *         another predicate
+     */
+    public RangeIndex( final File file, final Node predicate )
+                                                            throws IOException
+    {
+        channel = FileChannel.open( file.toPath(), StandardOpenOption.READ );
+        try {
+            final ByteBuffer header = ByteBuffer.allocate( 12 );
+            channel.read( header, 0 );
+            if ( header.getInt(0) != MAGIC || header.getInt(4) != VERSION )
+                throw new IOException( "The file is no range index." );
+
+            final ByteBuffer rest = ByteBuffer.allocate( header.getInt(8) + 16 );
+            channel.read( rest, 12 );
+            final String name = new String( rest.array(), 0, header.getInt(8),
+                                            StandardCharsets.UTF_8 );
+            if ( ! name.equals(predicate.getURI()) )
+                throw new IOException( "The range index belongs to another predicate." );
+
+            this.predicate = predicate;
+            starts[NUMERIC] = 0;
+            starts[TEMPORAL] = rest.getLong( header.getInt(8) );
+            starts[TEMPORAL + 1] = starts[TEMPORAL] + rest.getLong( header.getInt(8) + 8 );
+
+            final long first = 12 + rest.capacity();
+            records = first + 16 * starts[TEMPORAL + 1];
+            if ( channel.size() < records )
+                throw new IOException( "The range index is incomplete." );
+
+            final int chunks = (int) ( ( starts[TEMPORAL + 1] + (1L << CHUNK_BITS) - 1 )
+                                       >>> CHUNK_BITS );
+            entries = new MappedByteBuffer[chunks];
+            for ( int i = 0; i < chunks; i++ ) {
+                final long start = (long) i << CHUNK_BITS;
+                entries[i] = channel.map( FileChannel.MapMode.READ_ONLY,
+                                          first + 16 * start,
+                                          16 * Math.min(1L << CHUNK_BITS,
+                                                        starts[TEMPORAL + 1] - start) );
+            }
+        }
+        catch ( IOException | RuntimeException e ) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Closes the index file.
+     */
+    public void close()
+    {
+        try {
+            channel.close();
+        }
+        catch ( IOException e ) {
+            // ignore
+        }
+    }
+
+    /**
+     * Gets the kind of the value of a literal.
+     *
+     * @param term an RDF term
+     * @return {@link #NUMERIC}, {@link #TEMPORAL}, or -1 if the term is not
+     *         a valid numeric or date/time literal
+     */
+    public static int getKind( final Node term )
+    {
+        if ( ! term.isLiteral() || term.getLiteralDatatypeURI() == null
+                || ! term.getLiteral().isWellFormed() )
+            return -1;
+        final NodeValue value;
+        try {
+            value = NodeValue.makeNode( term );
+        }
+        catch ( RuntimeException e ) {
+            return -1;
+        }
+        if ( value.isNumber() )
+            return NUMERIC;
+        if ( value.isDateTime() || value.isDate() )
+            return TEMPORAL;
+        return -1;
+    }
+
+    /**
+     * Gets the value of a numeric or date/time literal, which is the number
+     * or the instant in milliseconds since the epoch.
+     *
+     * @param term a literal of which the kind is not -1
+     * @return the value
+     */
+    public static double getValue( final Node term )
+    {
+        final NodeValue value = NodeValue.makeNode( term );
+        if ( value.isNumber() )
+            return value.getDouble();
+        final XMLGregorianCalendar calendar = value.getDateTime();
+        final TimeZone timeZone =
+                calendar.getTimezone() == DatatypeConstants.FIELD_UNDEFINED
+                ? TimeZone.getTimeZone( "UTC" ) : null;
+        return calendar.toGregorianCalendar( timeZone, null, null ).getTimeInMillis();
+    }
+
+    /**
+     * Gets the positions of the entries of a kind within bounds.
+     *
+     * @param kind the kind of the values
+     * @param min the minimum value
+     * @param max the maximum value
+     * @return the first position and the position after the last one
+     */
+    public long[] getRange( final int kind, final double min, final double max )
+    {
+        return new long[] { find( kind, min, false ), find( kind, max, true ) };
+    }
+
+    /**
+     * Finds the first entry of a kind with a value at least (or, if after
+     * is true, more than) the given value.
+     */
+    private long find( final int kind, final double value, final boolean after )
+    {
+        long low = starts[kind];
+        long high = starts[kind + 1];
+        while ( low < high ) {
+            final long middle = ( low + high ) >>> 1;
+            final int c = Double.compare( getEntry(middle).getDouble(getPosition(middle)),
+                                          value );
+            if ( c < 0 || ( after && c == 0 ) )
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        return low;
+    }
+
+    /**
+     * Reads the triple of an entry.
+     *
+     * @param i the position of the entry
+     * @return the triple
+     * @throws IOException if the index file cannot be read
+     */
+    public Triple get( final long i ) throws IOException
+    {
+        final long offset = records + getEntry( i ).getLong( getPosition(i) + 8 );
+        final Node subject = readNode( offset );
+        final int length = readLength( offset );
+        return new Triple( subject, predicate, readNode(offset + 4 + length) );
+    }
+
+    private int readLength( final long offset ) throws IOException
+    {
+        final ByteBuffer length = ByteBuffer.allocate( 4 );
+        channel.read( length, offset );
+        return length.getInt( 0 );
+    }
+
+    private Node readNode( final long offset ) throws IOException
+    {
+        final ByteBuffer bytes = ByteBuffer.allocate( readLength(offset) );
+        channel.read( bytes, offset + 4 );
+        final String term = new String( bytes.array(), StandardCharsets.UTF_8 );
+        if ( term.startsWith("_:") )
+            return NodeFactory.createBlankNode( term.substring(2) );
+        return NodeFactoryExtra.parseNode( term, null );
+    }
+
+    private MappedByteBuffer getEntry( final long i )
+    {
+        return entries[(int) ( i >>> CHUNK_BITS )];
+    }
+
+    private static int getPosition( final long i )
+    {
+        return (int) ( i & ((1L << CHUNK_BITS) - 1) ) << 4;
+    }
+
+}
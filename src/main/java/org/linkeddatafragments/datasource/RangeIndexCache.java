@@ -0,0 +1,245 @@
+package org.linkeddatafragments.datasource;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.RDFNode;
+import org.apache.jena.util.iterator.ExtendedIterator;
+import org.linkeddatafragments.fragments.tpf.IRangeFragmentRequest;
+import org.linkeddatafragments.fragments.tpf.ITriplePatternFragmentRequest;
+import org.linkeddatafragments.fragments.tpf.TriplePatternElementFactory;
+import org.linkeddatafragments.fragments.tpf.TriplePatternFragmentRequestImpl;
+
+/**
+ * The {@link RangeIndex}es of the predicates of a request processor. The
+ * index of a predicate is built from an export of all of its triples when
+ * one of its range fragments is requested first, and stored in a directory
+ * for later requests, until the data is modified.
+ */
+public class RangeIndexCache
+{
+    /**
+     * Maximum number of indexes that are kept open
+     */
+    public final static int MAX_OPEN = 256;
+
+    /**
+     * The suffix of the index files
+     */
+    public final static String SUFFIX = ".range";
+
+    private final File directory;
+
+    private final ITriplePatternExporter exporter;
+
+    private final long dataModified;
+
+    private final ConcurrentHashMap<Node, RangeIndex> indexes =
+                                                    new ConcurrentHashMap<>();
+
+    private boolean closed = false;
+
+    /**
+     * Creates a cache without open indexes.
+     *
+     * @param directory the directory of the index files, which is created
+     *                  if it does not exist
+     * @param exporter the processor that exports the triples of a predicate
+     * @param dataModified the time at which the data was modified last;
+     *                     older index files are rebuilt
+     */
+    public RangeIndexCache( final File directory,
+                            final ITriplePatternExporter exporter,
+                            final long dataModified )
+    {
+        this.directory = directory;
+        this.exporter = exporter;
+        this.dataModified = dataModified;
+    }
+
+    /**
+     * Adds a page of the triples of a range fragment to a model.
+     *
+     * @param request the request of the range fragment
+     * @param offset the number of triples to skip
+     * @param limit the maximum number of triples to add
+     * @param page the model to add the triples to
+     * @return the number of triples of the fragment
+     * @throws IllegalArgumentException if the bounds are not both numeric
+     *         or both date/time literals
+     */
+    public long getPage( final IRangeFragmentRequest<RDFNode,String,String> request,
+                         final long offset,
+                         final long limit,
+                         final Model page )
+                                                throws IllegalArgumentException
+    {
+        final Node min = request.getMinimum() == null
+                                    ? null : request.getMinimum().asNode();
+        final Node max = request.getMaximum() == null
+                                    ? null : request.getMaximum().asNode();
+        final int kind = RangeIndex.getKind( min != null ? min : max );
+        if ( kind < 0 || ( min != null && max != null
+                           && RangeIndex.getKind(max) != kind ) )
+            throw new IllegalArgumentException(
+                    "The bounds of a range must both be numeric or date/time literals." );
+        final double low = min == null ? Double.NEGATIVE_INFINITY
+                                       : RangeIndex.getValue( min );
+        final double high = max == null ? Double.POSITIVE_INFINITY
+                                        : RangeIndex.getValue( max );
+
+        // the triples of a single subject are few enough to be filtered
+        if ( ! request.getSubject().isVariable() )
+            return filter( request, kind, low, high, offset, limit, page );
+
+        final Node predicate = request.getPredicate().asConstantTerm().asNode();
+        if ( ! predicate.isURI() )
+            return 0L;
+
+        RangeIndex index = indexes.get( predicate );
+        if ( index == null )
+            index = open( request, predicate );
+        try {
+            final long[] range = index.getRange( kind, low, high );
+            for ( long i = range[0] + offset;
+                  i < range[1] && i < range[0] + offset + limit; i++ )
+                page.getGraph().add( index.get(i) );
+            return range[1] - range[0];
+        }
+        catch ( IOException e ) {
+            throw new IllegalStateException( e );
+        }
+        finally {
+            if ( indexes.get(predicate) != index )
+                index.close();
+        }
+    }
+
+    private long filter( final ITriplePatternFragmentRequest<RDFNode,String,String> request,
+                         final int kind,
+                         final double low,
+                         final double high,
+                         final long offset,
+                         final long limit,
+                         final Model page )
+    {
+        long count = 0;
+        final ExtendedIterator<Triple> triples = exporter.exportTriples(
+                                                        getPattern(request), 0L );
+        try {
+            while ( triples.hasNext() ) {
+                final Node object = triples.next().getObject();
+                if ( RangeIndex.getKind(object) != kind )
+                    continue;
+                final double value = RangeIndex.getValue( object );
+                if ( value < low || value > high )
+                    continue;
+                if ( count >= offset && count < offset + limit )
+                    page.getGraph().add( new Triple(
+                            request.getSubject().asConstantTerm().asNode(),
+                            request.getPredicate().asConstantTerm().asNode(),
+                            object ) );
+                count++;
+            }
+        }
+        finally {
+            triples.close();
+        }
+        return count;
+    }
+
+    /**
+     * Opens the index of a predicate, which is built first if needed.
+     */
+    private synchronized RangeIndex open(
+                    final ITriplePatternFragmentRequest<RDFNode,String,String> request,
+                    final Node predicate )
+    {
+        if ( closed )
+            throw new IllegalStateException( "The range indexes have been closed." );
+
+        final RangeIndex cached = indexes.get( predicate );
+        if ( cached != null )
+            return cached;
+
+        final File file = new File( directory, getFileName(predicate) );
+        try {
+            RangeIndex index = null;
+            if ( file.exists() && file.lastModified() >= dataModified ) {
+                try {
+                    index = new RangeIndex( file, predicate );
+                }
+                catch ( IOException e ) {
+                    // the file is rebuilt below
+                }
+            }
+            if ( index == null ) {
+                directory.mkdirs();
+                final ExtendedIterator<Triple> triples = exporter.exportTriples(
+                                                 getPattern(request), 0L );
+                try {
+                    RangeIndex.build( file, predicate, triples );
+                }
+                finally {
+                    triples.close();
+                }
+                index = new RangeIndex( file, predicate );
+            }
+            if ( indexes.size() < MAX_OPEN )
+                indexes.put( predicate, index );
+            return index;
+        }
+        catch ( IOException e ) {
+            throw new IllegalStateException( e );
+        }
+    }
+
+    /**
+     * Gets the request of all triples with the predicate (and the subject)
+     * of the given request.
+     */
+    private static ITriplePatternFragmentRequest<RDFNode,String,String> getPattern(
+                 final ITriplePatternFragmentRequest<RDFNode,String,String> request )
+    {
+        return new TriplePatternFragmentRequestImpl<RDFNode,String,String>(
+                        request.getDatasetURL(), request.getDatasetURL(),
+                        false, 1L, 0L,
+                        request.getSubject(), request.getPredicate(),
+                        new TriplePatternElementFactory<RDFNode,String,String>()
+                                                .createUnspecifiedVariable() );
+    }
+
+    private static String getFileName( final Node predicate )
+    {
+        try {
+            final byte[] digest = MessageDigest.getInstance( "MD5" ).digest(
+                    predicate.getURI().getBytes(StandardCharsets.UTF_8) );
+            final StringBuilder name = new StringBuilder();
+            for ( byte b : digest )
+                name.append( String.format("%02x", b) );
+            return name.append( SUFFIX ).toString();
+        }
+        catch ( NoSuchAlgorithmException e ) {
+            throw new IllegalStateException( e );
+        }
+    }
+
+    /**
+     * Closes the open indexes; the requests that use one must be done.
+     */
+    public synchronized void close()
+    {
+        closed = true;
+        for ( RangeIndex index : indexes.values() )
+            index.close();
+        indexes.clear();
+    }
+
+}
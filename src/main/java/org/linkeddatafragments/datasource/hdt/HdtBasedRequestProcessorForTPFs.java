@@ -1,16 +1,45 @@
 package org.linkeddatafragments.datasource.hdt;
 
+import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import org.apache.jena.graph.Node;
 import org.apache.jena.graph.Triple;
 import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.Property;
 import org.apache.jena.rdf.model.RDFNode;
+import org.apache.jena.util.iterator.ExtendedIterator;
+import org.apache.jena.util.iterator.NiceIterator;
+import org.apache.jena.util.iterator.NullIterator;
 
 import org.linkeddatafragments.datasource.AbstractRequestProcessorForTriplePatterns;
+import org.linkeddatafragments.datasource.DataSourceOptions;
 import org.linkeddatafragments.datasource.IFragmentRequestProcessor;
+import org.linkeddatafragments.datasource.ITriplePatternExporter;
+import org.linkeddatafragments.datasource.RangeIndexCache;
 import org.linkeddatafragments.fragments.ILinkedDataFragment;
+import org.linkeddatafragments.fragments.ILinkedDataFragmentRequest;
+import org.linkeddatafragments.fragments.tpf.FragmentOrder;
+import org.linkeddatafragments.fragments.tpf.IOrderedFragmentRequest;
+import org.linkeddatafragments.fragments.tpf.IRangeFragmentRequest;
 import org.linkeddatafragments.fragments.tpf.ITriplePatternElement;
+import org.linkeddatafragments.fragments.tpf.ITextSearchFragmentRequest;
 import org.linkeddatafragments.fragments.tpf.ITriplePatternFragmentRequest;
+import org.linkeddatafragments.util.CommonResources;
+import org.linkeddatafragments.util.LruCache;
+import org.rdfhdt.hdt.dictionary.Dictionary;
+import org.rdfhdt.hdt.enums.ResultEstimationType;
 import org.rdfhdt.hdt.enums.TripleComponentRole;
 import org.rdfhdt.hdt.hdt.HDT;
 import org.rdfhdt.hdt.hdt.HDTManager;
@@ -29,6 +58,7 @@ import org.rdfhdt.hdtjena.NodeDictionary;
  */
 public class HdtBasedRequestProcessorForTPFs
     extends AbstractRequestProcessorForTriplePatterns<RDFNode,String,String>
+    implements ITriplePatternExporter
 {
 
     /**
@@ -41,6 +71,47 @@ public class HdtBasedRequestProcessorForTPFs
      */
     protected final NodeDictionary dictionary;
 
+    /**
+     * Maximum number of dictionary IDs that are cached per role
+     */
+    private final static int MAX_CACHED_IDS = 16 * 1024;
+
+    // the IDs of the bound terms of recent requests, by role
+    private final EnumMap<TripleComponentRole, LruCache<Node, Long>>
+            ids = new EnumMap<>( TripleComponentRole.class );
+
+    /**
+     * The suffix of the file name of the text index of an HDT file
+     */
+    public final static String TEXTINDEX_SUFFIX = ".literals";
+
+    /**
+     * Maximum number of texts of which the matching literals are cached
+     */
+    private final static int MAX_CACHED_SEARCHES = 256;
+
+    /**
+     * The text index of the literals, or null if text search is disabled
+     */
+    protected final LiteralTextIndex textIndex;
+
+    // the IDs of the literals that contain the texts of recent requests,
+    // by text in lower case
+    private final LruCache<String, int[]> literals =
+                                        new LruCache<>( MAX_CACHED_SEARCHES );
+
+    /**
+     * The suffix of the name of the directory of the range indexes of an
+     * HDT file
+     */
+    public final static String RANGEINDEX_SUFFIX = ".ranges";
+
+    /**
+     * The range indexes of the predicates, or null if range fragments are
+     * disabled
+     */
+    protected final RangeIndexCache rangeIndexes;
+
     /**
      * Creates the request processor.
      *
@@ -49,8 +120,76 @@ public class HdtBasedRequestProcessorForTPFs
      */
     public HdtBasedRequestProcessorForTPFs( String hdtFile ) throws IOException
     {
+        this( hdtFile, DataSourceOptions.DEFAULT );
+    }
+
+    /**
+     * Creates the request processor with the given options. If text search
+     * is enabled, the text index is built next to the HDT file if it is
+     * missing; if range fragments are enabled, the range index of a
+     * predicate is built in a directory next to the HDT file when it is
+     * needed first.
+     *
+     * @param hdtFile the HDT datafile
+     * @param options the options of the data source
+     * @throws IOException if the file cannot be loaded
+     */
+    public HdtBasedRequestProcessorForTPFs( String hdtFile,
+                                            DataSourceOptions options )
+                                                            throws IOException
+    {
+        super( options );
+        rangeIndexes = options.hasRangeIndex()
+                ? new RangeIndexCache( new File(hdtFile + RANGEINDEX_SUFFIX), this,
+                                       new File(hdtFile).lastModified() )
+                : null;
         datasource = HDTManager.mapIndexedHDT( hdtFile, null ); // listener=null
         dictionary = new NodeDictionary( datasource.getDictionary() );
+        for ( TripleComponentRole role : TripleComponentRole.values() )
+            ids.put( role, new LruCache<Node, Long>(MAX_CACHED_IDS) );
+
+        try {
+            textIndex = options.hasTextIndex()
+                    ? LiteralTextIndex.open( new File(hdtFile + TEXTINDEX_SUFFIX),
+                                             new File(hdtFile),
+                                             datasource.getDictionary() )
+                    : null;
+        }
+        catch ( IOException e ) {
+            datasource.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads the dictionary entries of the first triples of the HDT file, such
+     * that the first requests after opening it do not hit cold pages only.
+     *
+     * @param maxTriples the maximum number of triples to read
+     */
+    public void warmUp( final long maxTriples )
+    {
+        final IteratorTripleID triples =
+                        datasource.getTriples().search( new TripleID(0, 0, 0) );
+        for ( long i = 0; i < maxTriples && triples.hasNext(); i++ ) {
+            toTriple( triples.next() );
+        }
+    }
+
+    /**
+     * Closes the HDT file and the range indexes.
+     */
+    @Override
+    public void close()
+    {
+        if ( rangeIndexes != null )
+            rangeIndexes.close();
+        try {
+            datasource.close();
+        }
+        catch ( IOException e ) {
+            // ignore
+        }
     }
 
     /**
@@ -82,7 +221,7 @@ public class HdtBasedRequestProcessorForTPFs
         public Worker(
                 final ITriplePatternFragmentRequest<RDFNode,String,String> req )
         {
-            super( req );
+            super( req, getPageSize(), getMembershipFilters() );
         }
 
         /**
@@ -102,6 +241,67 @@ public class HdtBasedRequestProcessorForTPFs
                    final ITriplePatternElement<RDFNode,String,String> object,
                    final long offset,
                    final long limit )
+        {
+            return createPage( subject, predicate, object, offset, limit, null );
+        }
+
+        /**
+         *
+         * @return true
+         */
+        @Override
+        protected boolean supportsOrder()
+        {
+            return true;
+        }
+
+        /**
+         * Creates a page of an ordered fragment from the HDT index that is
+         * used for the pattern, that is, SPO if the subject is given, else
+         * OPS if the object is given, else PSO if the predicate is given,
+         * and SPO otherwise. The sort keys are the dictionary IDs of the
+         * position, so they only compare with the keys of fragments that
+         * are ordered by the same position: the IDs of terms that only
+         * occur as subject and of those that only occur as object overlap,
+         * and predicates have IDs of their own.
+         *
+         * @param subject
+         * @param predicate
+         * @param object
+         * @param order
+         * @param offset
+         * @param limit
+         * @return
+         * @throws IllegalArgumentException if the matches are not in the
+         *         order of the index
+         */
+        @Override
+        protected ILinkedDataFragment createFragment(
+                   final ITriplePatternElement<RDFNode,String,String> subject,
+                   final ITriplePatternElement<RDFNode,String,String> predicate,
+                   final ITriplePatternElement<RDFNode,String,String> object,
+                   final Property order,
+                   final long offset,
+                   final long limit )
+                                               throws IllegalArgumentException
+        {
+            if ( ! isInIndexOrder(subject, predicate, object, order,
+                                  getIndex(subject, predicate, object)) )
+                throw new IllegalArgumentException(
+                        "The fragment cannot be ordered by its "
+                        + order.getLocalName() + " without sorting." );
+
+            return createPage( subject, predicate, object, offset, limit,
+                               new FragmentOrder(order) );
+        }
+
+        private ILinkedDataFragment createPage(
+                   final ITriplePatternElement<RDFNode,String,String> subject,
+                   final ITriplePatternElement<RDFNode,String,String> predicate,
+                   final ITriplePatternElement<RDFNode,String,String> object,
+                   final long offset,
+                   final long limit,
+                   final FragmentOrder order )
         {
             // FIXME: The following algorithm is incorrect for cases in which
             //        the requested triple pattern contains a specific variable
@@ -110,15 +310,16 @@ public class HdtBasedRequestProcessorForTPFs
             // see https://github.com/LinkedDataFragments/Server.Java/issues/23
 
             // look up the result from the HDT datasource)
-            int subjectId = subject.isVariable() ? 0 : dictionary.getIntID(subject.asConstantTerm().asNode(), TripleComponentRole.SUBJECT);
-            int predicateId = predicate.isVariable() ? 0 : dictionary.getIntID(predicate.asConstantTerm().asNode(), TripleComponentRole.PREDICATE);
-            int objectId = object.isVariable() ? 0 : dictionary.getIntID(object.asConstantTerm().asNode(), TripleComponentRole.OBJECT);
+            long subjectId = getID(subject, TripleComponentRole.SUBJECT);
+            long predicateId = getID(predicate, TripleComponentRole.PREDICATE);
+            long objectId = getID(object, TripleComponentRole.OBJECT);
         
             if (subjectId < 0 || predicateId < 0 || objectId < 0) {
                 return createEmptyTriplePatternFragment();
             }
         
-            final Model triples = ModelFactory.createDefaultModel();
+            // a list rather than a model, which keeps the order of the index
+            final List<Triple> triples = new ArrayList<>();
             IteratorTripleID matches = datasource.getTriples().search(new TripleID(subjectId, predicateId, objectId));
             boolean hasMatches = matches.hasNext();
 		
@@ -143,7 +344,12 @@ public class HdtBasedRequestProcessorForTPFs
                 // try to add `limit` triples to the result model
                 if (atOffset) {
                     for (int i = 0; i < limit && matches.hasNext(); i++) {
-                        triples.add(triples.asStatement(toTriple(matches.next())));
+                        final TripleID match = matches.next();
+                        final Triple triple = toTriple(match);
+                        triples.add(triple);
+                        if (order != null) {
+                            setKey(order, triple, match);
+                        }
                     }
                 }
             }
@@ -158,11 +364,754 @@ public class HdtBasedRequestProcessorForTPFs
 
             // create the fragment
             final boolean isLastPage = ( estimatedTotal < offset + limit );
-            return createTriplePatternFragment( triples, estimatedTotal, isLastPage );
+            return createTriplePatternFragment( triples, estimatedTotal, isLastPage,
+                                                order );
+        }
+
+        /**
+         *
+         * @return true
+         */
+        @Override
+        protected boolean supportsBindings()
+        {
+            return true;
+        }
+
+        /**
+         * Creates a page of a bindings-restricted fragment from the HDT. The
+         * solution mappings are substituted on the level of dictionary IDs,
+         * and the matches of the resulting patterns are paged as one
+         * sequence, in the order of the solution mappings; matches of a
+         * pattern that also match an earlier pattern are left out.
+         *
+         * @param subject
+         * @param predicate
+         * @param object
+         * @param solutionMappings
+         * @param offset
+         * @param limit
+         * @return
+         */
+        @Override
+        protected ILinkedDataFragment createFragment(
+                   final ITriplePatternElement<RDFNode,String,String> subject,
+                   final ITriplePatternElement<RDFNode,String,String> predicate,
+                   final ITriplePatternElement<RDFNode,String,String> object,
+                   final List<Map<String,RDFNode>> solutionMappings,
+                   final long offset,
+                   final long limit )
+        {
+            // the patterns of the solution mappings, without patterns that
+            // cannot match or only match triples of an earlier pattern
+            final List<TripleID> patterns = new ArrayList<>();
+            for (Map<String,RDFNode> mapping : solutionMappings) {
+                final TripleID pattern = new TripleID(
+                        getID(bind(subject, mapping), TripleComponentRole.SUBJECT),
+                        getID(bind(predicate, mapping), TripleComponentRole.PREDICATE),
+                        getID(bind(object, mapping), TripleComponentRole.OBJECT));
+                if (pattern.getSubject() >= 0 && pattern.getPredicate() >= 0
+                        && pattern.getObject() >= 0
+                        && ! matchesAny(patterns, patterns.size(), pattern)) {
+                    patterns.add(pattern);
+                }
+            }
+
+            final Model triples = ModelFactory.createDefaultModel();
+            long estimate = 0;
+            long skipped = 0;
+            boolean hasMore = false;
+            for (int i = 0; i < patterns.size(); i++) {
+                final IteratorTripleID matches = datasource.getTriples().search(patterns.get(i));
+                estimate += matches.estimatedNumResults();
+                while (! hasMore && matches.hasNext()) {
+                    final TripleID match = matches.next();
+                    if (matchesAny(patterns, i, match)) {
+                        continue;
+                    }
+                    if (skipped < offset) {
+                        skipped++;
+                    } else if (triples.size() < limit) {
+                        triples.add(triples.asStatement(toTriple(match)));
+                    } else {
+                        hasMore = true;
+                    }
+                }
+            }
+
+            // all matches up to this page have been counted; estimates
+            // are only used for the matches after it
+            final long seen = skipped + triples.size();
+            final long estimatedTotal = hasMore ? Math.max(seen + 1, estimate) : seen;
+            return createTriplePatternFragment( triples, estimatedTotal, ! hasMore );
+        }
+
+        /**
+         *
+         * @return true
+         */
+        @Override
+        protected boolean supportsStarPatterns()
+        {
+            return true;
+        }
+
+        /**
+         * Creates a page of a star pattern fragment from the HDT by a
+         * merge-join of the matches of the triple patterns in the order of
+         * their subject IDs. The matches of all triple patterns are
+         * advanced to the next subject that they have in common, and the
+         * solutions for that subject are the combinations of the runs of
+         * matches with that subject.
+         *
+         * The HDT returns the matches in subject order, except for those of
+         * a triple pattern with a variable subject and predicate and a
+         * given object, which come from the OPS index in predicate order.
+         * Such a triple pattern is not merged but probed with each subject
+         * of the join of the others, which reads only the matches with that
+         * subject. If all triple patterns are of this kind, the matches of
+         * the first one are read in the order of the index and the others
+         * are probed with their subjects.
+         *
+         * The total size is an estimate: it is at least the number of
+         * solutions up to this page plus one if there are more, and
+         * otherwise the smallest number of matches of a triple pattern,
+         * which is not an upper bound because a subject with several
+         * matches of each triple pattern has more solutions.
+         *
+         * @param subject
+         * @param predicates
+         * @param objects
+         * @param offset
+         * @param limit
+         * @return
+         * @throws IllegalArgumentException if a variable occurs both as
+         *         subject or predicate and elsewhere in the star pattern
+         */
+        @Override
+        protected ILinkedDataFragment createFragment(
+                   final ITriplePatternElement<RDFNode,String,String> subject,
+                   final List<ITriplePatternElement<RDFNode,String,String>> predicates,
+                   final List<ITriplePatternElement<RDFNode,String,String>> objects,
+                   final long offset,
+                   final long limit )
+                                               throws IllegalArgumentException
+        {
+            final int n = predicates.size();
+
+            // only object variables are joined; any other variable that
+            // occurs more than once is rejected rather than ignored
+            final Set<String> variables = new HashSet<>();
+            final int[] sameObject = new int[n];
+            if (getVariable(subject) != null) {
+                variables.add(getVariable(subject));
+            }
+            for (int i = 0; i < n; i++) {
+                final String variable = getVariable(predicates.get(i));
+                if (variable != null && ! variables.add(variable)) {
+                    throw new IllegalArgumentException(
+                            "The variable " + variable + " occurs more than once in the star pattern.");
+                }
+            }
+            for (int i = 0; i < n; i++) {
+                sameObject[i] = -1;
+                final String variable = getVariable(objects.get(i));
+                for (int j = 0; j < i && variable != null && sameObject[i] < 0; j++) {
+                    if (variable.equals(getVariable(objects.get(j)))) {
+                        sameObject[i] = j;
+                    }
+                }
+                if (variable != null && sameObject[i] < 0 && variables.contains(variable)) {
+                    throw new IllegalArgumentException(
+                            "The variable " + variable + " occurs more than once in the star pattern.");
+                }
+            }
+
+            final long subjectId = getID(subject, TripleComponentRole.SUBJECT);
+            if (subjectId < 0) {
+                return createEmptyTriplePatternFragment();
+            }
+
+            final SubjectRuns[] runs = new SubjectRuns[n];
+            // the object IDs of the probed triple patterns, and 0 for the
+            // merged ones
+            final long[] probed = new long[n];
+            final List<SubjectRuns> merged = new ArrayList<>();
+            IteratorTripleID first = null;
+            long estimate = Long.MAX_VALUE;
+            for (int i = 0; i < n; i++) {
+                final long predicateId = getID(predicates.get(i), TripleComponentRole.PREDICATE);
+                final long objectId = getID(objects.get(i), TripleComponentRole.OBJECT);
+                if (predicateId < 0 || objectId < 0) {
+                    return createEmptyTriplePatternFragment();
+                }
+                final IteratorTripleID matches = datasource.getTriples().search(
+                        new TripleID(subjectId, predicateId, objectId));
+                estimate = Math.min(estimate, matches.estimatedNumResults());
+                if (subjectId == 0 && predicateId == 0 && objectId != 0) {
+                    probed[i] = objectId;
+                    runs[i] = new SubjectRuns(Collections.<TripleID>emptyIterator());
+                    first = i == 0 ? matches : first;
+                } else {
+                    runs[i] = new SubjectRuns(matches);
+                    merged.add(runs[i]);
+                }
+            }
+            if (merged.isEmpty()) {
+                probed[0] = 0;
+                runs[0] = new SubjectRuns(first);
+                merged.add(runs[0]);
+            }
+            final SubjectRuns[] join = merged.toArray(new SubjectRuns[merged.size()]);
+
+            final Model triples = ModelFactory.createDefaultModel();
+            final int[] combination = new int[n];
+            long skipped = 0;
+            long solutions = 0;
+            boolean hasMore = false;
+            while (! hasMore && SubjectRuns.join(join)) {
+                if (! probe(runs, probed, join[0].run.get(0).getSubject())) {
+                    continue;
+                }
+                Arrays.fill(combination, 0);
+                do {
+                    if (! isJoinable(runs, combination, sameObject)) {
+                        continue;
+                    }
+                    if (skipped < offset) {
+                        skipped++;
+                    } else if (solutions < limit) {
+                        for (int i = 0; i < n; i++) {
+                            triples.add(triples.asStatement(toTriple(runs[i].run.get(combination[i]))));
+                        }
+                        solutions++;
+                    } else {
+                        hasMore = true;
+                        break;
+                    }
+                } while (SubjectRuns.next(runs, combination));
+            }
+
+            final long seen = skipped + solutions;
+            final long estimatedTotal = hasMore ? Math.max(seen + 1, estimate) : seen;
+            return createTriplePatternFragment( triples, estimatedTotal, ! hasMore );
+        }
+
+        /**
+         *
+         * @return true if range fragments are enabled
+         */
+        @Override
+        protected boolean supportsRanges()
+        {
+            return rangeIndexes != null;
+        }
+
+        /**
+         * Creates a page of a range fragment from the range index of the
+         * predicate, of which the total size is exact.
+         *
+         * @param subject
+         * @param predicate
+         * @param object
+         * @param min
+         * @param max
+         * @param offset
+         * @param limit
+         * @return
+         */
+        @Override
+        protected ILinkedDataFragment createFragment(
+                   final ITriplePatternElement<RDFNode,String,String> subject,
+                   final ITriplePatternElement<RDFNode,String,String> predicate,
+                   final ITriplePatternElement<RDFNode,String,String> object,
+                   final RDFNode min,
+                   final RDFNode max,
+                   final long offset,
+                   final long limit )
+        {
+            @SuppressWarnings("unchecked")
+            final IRangeFragmentRequest<RDFNode,String,String> rangeRequest =
+                    (IRangeFragmentRequest<RDFNode,String,String>) request;
+            final Model triples = ModelFactory.createDefaultModel();
+            final long total = rangeIndexes.getPage( rangeRequest, offset, limit, triples );
+            return createTriplePatternFragment( triples, total, offset + limit >= total );
+        }
+
+        /**
+         *
+         * @return true if the HDT file has a text index
+         */
+        @Override
+        protected boolean supportsTextSearch()
+        {
+            return textIndex != null;
+        }
+
+        /**
+         * Creates a page of a text search fragment from the HDT. The
+         * literals that contain the text are looked up in the text index,
+         * and the matches of the triple pattern with each of them as object
+         * are paged as one sequence, in the order of the literal IDs.
+         *
+         * @param subject
+         * @param predicate
+         * @param object
+         * @param searchText
+         * @param offset
+         * @param limit
+         * @return
+         */
+        @Override
+        protected ILinkedDataFragment createFragment(
+                   final ITriplePatternElement<RDFNode,String,String> subject,
+                   final ITriplePatternElement<RDFNode,String,String> predicate,
+                   final ITriplePatternElement<RDFNode,String,String> object,
+                   final String searchText,
+                   final long offset,
+                   final long limit )
+        {
+            final long subjectId = getID(subject, TripleComponentRole.SUBJECT);
+            final long predicateId = getID(predicate, TripleComponentRole.PREDICATE);
+            if (subjectId < 0 || predicateId < 0) {
+                return createEmptyTriplePatternFragment();
+            }
+            final int[] literals = getLiterals(searchText);
+
+            final Model triples = ModelFactory.createDefaultModel();
+            long skipped = 0;
+            boolean hasMore = false;
+            int searched = 0;
+            for (; searched < literals.length && ! hasMore; searched++) {
+                final IteratorTripleID matches = datasource.getTriples().search(
+                        new TripleID(subjectId, predicateId, literals[searched]));
+                // the matches of a literal before the offset are skipped
+                // at once if they are counted exactly
+                if (matches.numResultEstimation() == ResultEstimationType.EXACT
+                        && skipped + matches.estimatedNumResults() <= offset) {
+                    skipped += matches.estimatedNumResults();
+                    continue;
+                }
+                while (! hasMore && matches.hasNext()) {
+                    final TripleID match = matches.next();
+                    if (skipped < offset) {
+                        skipped++;
+                    } else if (triples.size() < limit) {
+                        triples.add(triples.asStatement(toTriple(match)));
+                    } else {
+                        hasMore = true;
+                    }
+                }
+            }
+
+            // the matches of the literals after this page are estimated
+            // from those of the literals up to it
+            final long seen = skipped + triples.size();
+            final long estimatedTotal = hasMore
+                    ? Math.max(seen + 1, seen * literals.length / searched)
+                    : seen;
+            return createTriplePatternFragment( triples, estimatedTotal, ! hasMore );
         }
 
     } // end of Worker
 
+    /**
+     * Gets the variable of an element of a star pattern.
+     *
+     * @return the name of the named or anonymous variable, or null if the
+     *         element is not a specific variable
+     */
+    private static String getVariable(final ITriplePatternElement<RDFNode,String,String> element) {
+        if (element.isNamedVariable()) {
+            return "?" + element.asNamedVariable();
+        }
+        if (element.isAnonymousVariable()) {
+            return "_:" + element.asAnonymousVariable();
+        }
+        return null;
+    }
+
+    /**
+     * Reads the runs of the probed triple patterns for a subject.
+     *
+     * @param runs the matches of the triple patterns
+     * @param probed the object IDs of the probed triple patterns, and 0
+     *               for the others
+     * @param subject the subject ID
+     * @return false if a probed triple pattern has no match with the subject
+     */
+    private boolean probe(final SubjectRuns[] runs, final long[] probed,
+                          final long subject) {
+        for (int i = 0; i < runs.length; i++) {
+            if (probed[i] != 0) {
+                runs[i].readRun(datasource.getTriples().search(
+                        new TripleID(subject, 0, probed[i])));
+                if (runs[i].run.isEmpty()) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean isJoinable(final SubjectRuns[] runs,
+                                      final int[] combination,
+                                      final int[] sameObject) {
+        for (int i = 0; i < runs.length; i++) {
+            final int j = sameObject[i];
+            if (j >= 0 && runs[i].run.get(combination[i]).getObject()
+                          != runs[j].run.get(combination[j]).getObject()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The matches of a triple pattern in the order of their subject IDs,
+     * read as runs of matches with the same subject.
+     */
+    private static class SubjectRuns {
+
+        /**
+         * The matches with the subject of the current join
+         */
+        final List<TripleID> run = new ArrayList<>();
+
+        private final Iterator<TripleID> matches;
+
+        // the first match after the current run, or null if there is none
+        private TripleID next;
+
+        SubjectRuns(final Iterator<TripleID> matches) {
+            this.matches = matches;
+            this.next = read();
+        }
+
+        private TripleID read() {
+            if (! matches.hasNext()) {
+                return null;
+            }
+            // the iterator may reuse the triple that it returns
+            final TripleID match = matches.next();
+            return new TripleID(match.getSubject(), match.getPredicate(), match.getObject());
+        }
+
+        /**
+         * Skips the matches with a smaller subject ID.
+         *
+         * @param subject the subject ID
+         * @return the subject ID of the next match, or -1 if there is none
+         */
+        long seek(final long subject) {
+            while (next != null && next.getSubject() < subject) {
+                next = read();
+            }
+            return next == null ? -1 : next.getSubject();
+        }
+
+        /**
+         * Reads the matches of a probe as the current run.
+         *
+         * @param probe the matches with one subject
+         */
+        void readRun(final Iterator<TripleID> probe) {
+            run.clear();
+            while (probe.hasNext()) {
+                final TripleID match = probe.next();
+                run.add(new TripleID(match.getSubject(), match.getPredicate(), match.getObject()));
+            }
+        }
+
+        /**
+         * Reads the run of matches with the subject of the next match.
+         */
+        void readRun() {
+            run.clear();
+            final long subject = next.getSubject();
+            while (next != null && next.getSubject() == subject) {
+                run.add(next);
+                next = read();
+            }
+        }
+
+        /**
+         * Reads the runs of the next subject that all triple patterns match.
+         *
+         * @param runs the matches of the triple patterns
+         * @return false if there is no such subject
+         */
+        static boolean join(final SubjectRuns[] runs) {
+            long subject = 0;
+            int agreed = 0;
+            for (int i = 0; agreed < runs.length; i = (i + 1) % runs.length) {
+                final long s = runs[i].seek(subject);
+                if (s < 0) {
+                    return false;
+                }
+                if (s == subject) {
+                    agreed++;
+                } else {
+                    subject = s;
+                    agreed = 1;
+                }
+            }
+            for (SubjectRuns matches : runs) {
+                matches.readRun();
+            }
+            return true;
+        }
+
+        /**
+         * Advances to the next combination of matches of the current runs.
+         *
+         * @param runs the matches of the triple patterns
+         * @param combination the index of a match in each run
+         * @return false if all combinations have been visited
+         */
+        static boolean next(final SubjectRuns[] runs, final int[] combination) {
+            for (int i = combination.length - 1; i >= 0; i--) {
+                if (++combination[i] < runs[i].run.size()) {
+                    return true;
+                }
+                combination[i] = 0;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Checks whether a triple or pattern of IDs matches one of the first
+     * patterns of the given list, where 0 matches every ID.
+     *
+     * @param patterns the patterns
+     * @param count the number of patterns to check
+     * @param ids the triple or pattern
+     * @return true if it matches one of the patterns
+     */
+    private static boolean matchesAny(final List<TripleID> patterns,
+                                      final int count, final TripleID ids) {
+        for (int i = 0; i < count; i++) {
+            final TripleID pattern = patterns.get(i);
+            if ((pattern.getSubject() == 0 || pattern.getSubject() == ids.getSubject())
+                    && (pattern.getPredicate() == 0 || pattern.getPredicate() == ids.getPredicate())
+                    && (pattern.getObject() == 0 || pattern.getObject() == ids.getObject())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the matching triples in the order of the HDT index.
+     *
+     * @param request
+     * @param offset
+     * @return
+     * @throws IllegalArgumentException
+     */
+    @Override
+    public ExtendedIterator<Triple> exportTriples(
+                                    final ILinkedDataFragmentRequest request,
+                                    final long offset )
+                                                throws IllegalArgumentException
+    {
+        final ITriplePatternFragmentRequest<RDFNode,String,String> tpfRequest =
+                                                     asTPFRequest( request );
+        final long subjectId = getID( tpfRequest.getSubject(), TripleComponentRole.SUBJECT );
+        final long predicateId = getID( tpfRequest.getPredicate(), TripleComponentRole.PREDICATE );
+        final long objectId = getID( tpfRequest.getObject(), TripleComponentRole.OBJECT );
+
+        if ( request instanceof IRangeFragmentRequest<?,?,?> )
+            throw new IllegalArgumentException(
+                    "Range fragments cannot be exported." );
+        if ( request instanceof IOrderedFragmentRequest<?,?,?>
+                && ! isInIndexOrder( tpfRequest.getSubject(), tpfRequest.getPredicate(),
+                                     tpfRequest.getObject(),
+                                     ( (IOrderedFragmentRequest<?,?,?>) request ).getOrder(),
+                                     getIndex(tpfRequest.getSubject(),
+                                              tpfRequest.getPredicate(),
+                                              tpfRequest.getObject()) ) )
+            throw new IllegalArgumentException(
+                    "The matches cannot be exported in this order without sorting." );
+        if ( subjectId < 0 || predicateId < 0 || objectId < 0 )
+            return NullIterator.instance();
+        if ( request instanceof ITextSearchFragmentRequest<?,?,?> )
+            return exportTextSearch( subjectId, predicateId,
+                    ( (ITextSearchFragmentRequest<?,?,?>) request ).getSearchText(),
+                    offset );
+
+        final IteratorTripleID matches = datasource.getTriples().search(
+                          new TripleID(subjectId, predicateId, objectId) );
+        if ( offset > 0 && matches.hasNext() ) {
+            if ( matches.canGoTo() ) {
+                try {
+                    matches.goTo( offset );
+                }
+                catch ( IndexOutOfBoundsException e ) {
+                    return NullIterator.instance();
+                }
+            }
+            else {
+                for ( long i = 0; i < offset && matches.hasNext(); i++ )
+                    matches.next();
+            }
+        }
+
+        return new NiceIterator<Triple>() {
+            @Override
+            public boolean hasNext() {
+                return matches.hasNext();
+            }
+
+            @Override
+            public Triple next() {
+                return toTriple( matches.next() );
+            }
+        };
+    }
+
+    /**
+     * Returns the matches of a text search in the order of the literal IDs
+     * and then of the HDT index.
+     */
+    private ExtendedIterator<Triple> exportTextSearch( final long subjectId,
+                                                       final long predicateId,
+                                                       final String searchText,
+                                                       final long offset )
+    {
+        if ( textIndex == null )
+            throw new IllegalArgumentException( "Text search is not supported." );
+
+        final int[] literals = getLiterals( searchText );
+        return new NiceIterator<Triple>() {
+            private int next = 0;
+            private IteratorTripleID matches = null;
+            private long skip = offset;
+
+            @Override
+            public boolean hasNext() {
+                while ( true ) {
+                    if ( matches != null && matches.hasNext() ) {
+                        if ( skip == 0 )
+                            return true;
+                        matches.next();
+                        skip--;
+                    }
+                    else if ( next < literals.length ) {
+                        matches = datasource.getTriples().search(
+                             new TripleID(subjectId, predicateId, literals[next++]) );
+                    }
+                    else {
+                        return false;
+                    }
+                }
+            }
+
+            @Override
+            public Triple next() {
+                if ( ! hasNext() )
+                    throw new NoSuchElementException();
+                return toTriple( matches.next() );
+            }
+        };
+    }
+
+    /**
+     * Gets the object IDs of the literals whose lexical form contains the
+     * given text, ignoring case: the candidates of the text index that do
+     * contain it. They are cached per text, as the HDT file does not change;
+     * the least recently searched texts are evicted.
+     *
+     * @param searchText the text
+     * @return the sorted object IDs
+     * @throws IllegalArgumentException if the text is too short
+     */
+    protected int[] getLiterals( final String searchText )
+                                                throws IllegalArgumentException
+    {
+        final String text = searchText.toLowerCase( Locale.ROOT );
+        int[] matching = literals.get( text );
+        if ( matching == null ) {
+            final int[] candidates = textIndex.getCandidates( text );
+            final Dictionary strings = datasource.getDictionary();
+            int size = 0;
+            for ( int id : candidates ) {
+                if ( LiteralTextIndex.matches(
+                        strings.idToString(id, TripleComponentRole.OBJECT), text) )
+                    candidates[size++] = id;
+            }
+            matching = Arrays.copyOf( candidates, size );
+            literals.put( text, matching );
+        }
+        return matching;
+    }
+
+    /**
+     * Gets the dictionary ID of a triple pattern element; the IDs of bound
+     * terms are looked up in the dictionary and cached, as the HDT file does
+     * not change; the least recently used IDs are evicted.
+     *
+     * @param element the element
+     * @param role the position of the element in the triple pattern
+     * @return 0 for a variable, the ID of a bound term, or a negative
+     *         number if the term is not in the dictionary
+     */
+    protected long getID( final ITriplePatternElement<RDFNode,String,String> element,
+                         final TripleComponentRole role )
+    {
+        // FIXME: like for fragments, variables that occur more than once
+        //        are treated as unrelated variables
+        if ( element.isVariable() )
+            return 0;
+
+        final Node node = element.asConstantTerm().asNode();
+        final LruCache<Node, Long> cache = ids.get( role );
+        Long id = cache.get( node );
+        if ( id == null ) {
+            id = dictionary.getIntID( node, role );
+            cache.put( node, id );
+        }
+        return id;
+    }
+
+    /**
+     * Gets the HDT index of which the order is used for a pattern.
+     *
+     * @param subject
+     * @param predicate
+     * @param object
+     * @return the positions in the order of the index
+     */
+    private static String getIndex(
+                   final ITriplePatternElement<RDFNode,String,String> subject,
+                   final ITriplePatternElement<RDFNode,String,String> predicate,
+                   final ITriplePatternElement<RDFNode,String,String> object )
+    {
+        if ( ! subject.isVariable() )
+            return "SPO";
+        if ( ! object.isVariable() )
+            return "OPS";
+        if ( ! predicate.isVariable() )
+            return "PSO";
+        return "SPO";
+    }
+
+    /**
+     * Sets the sort key of the term of a match at the position of an order,
+     * which is its ID.
+     */
+    private static void setKey( final FragmentOrder order, final Triple triple,
+                                final TripleID match )
+    {
+        if ( CommonResources.RDF_SUBJECT.equals(order.getPosition()) )
+            order.setKey( triple.getSubject(), match.getSubject() );
+        else if ( CommonResources.RDF_PREDICATE.equals(order.getPosition()) )
+            order.setKey( triple.getPredicate(), match.getPredicate() );
+        else
+            order.setKey( triple.getObject(), match.getObject() );
+    }
+
     /**
      * Converts the HDT triple to a Jena Triple.
      *
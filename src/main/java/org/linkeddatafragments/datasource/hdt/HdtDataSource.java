@@ -1,25 +1,51 @@
 package org.linkeddatafragments.datasource.hdt;
 
 import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.apache.jena.graph.Triple;
+import org.apache.jena.util.iterator.ExtendedIterator;
+import org.apache.jena.util.iterator.NiceIterator;
 import org.linkeddatafragments.datasource.DataSourceBase;
+import org.linkeddatafragments.datasource.DataSourceOptions;
 import org.linkeddatafragments.datasource.IFragmentRequestProcessor;
+import org.linkeddatafragments.datasource.ITriplePatternExporter;
 import org.linkeddatafragments.fragments.IFragmentRequestParser;
-import org.linkeddatafragments.fragments.tpf.TPFRequestParserForJenaBackends;
+import org.linkeddatafragments.fragments.ILinkedDataFragment;
+import org.linkeddatafragments.fragments.ILinkedDataFragmentRequest;
+import org.linkeddatafragments.fragments.tpf.FragmentRequestParserForJenaBackends;
 
 /**
  * An HDT data source of Basic Linked Data Fragments.
  *
+ * The HDT file of the data source can be replaced at runtime by
+ * {@link #swapFile(String)}, without interrupting the requests that are
+ * being served. Everything that is cached for an HDT file, such as its term
+ * IDs and text searches, is held by its request processor, and is thus
+ * dropped together with the file.
+ *
  * @author Ruben Verborgh
  * @author <a href="http://olafhartig.de">Olaf Hartig</a>
  */
 public class HdtDataSource extends DataSourceBase {
 
     /**
-     * The request processor
-     * 
+     * Number of triples that are read to warm up a newly mapped HDT file
+     * before it is swapped in
      */
-    protected final HdtBasedRequestProcessorForTPFs requestProcessor;
+    public final static long WARMUP_TRIPLES = 100000L;
+
+    /**
+     * The request processor for the current HDT file
+     *
+     */
+    protected volatile HdtFile requestProcessor;
+
+    private final IFragmentRequestProcessor processor = new Processor();
+
+    private final DataSourceOptions options;
+
+    private boolean closed = false;
 
     /**
      * Creates a new HdtDataSource.
@@ -30,20 +56,204 @@ public class HdtDataSource extends DataSourceBase {
      * @throws IOException if the file cannot be loaded
      */
     public HdtDataSource(String title, String description, String hdtFile) throws IOException {
+        this(title, description, hdtFile, DataSourceOptions.DEFAULT);
+    }
+
+    /**
+     * Creates a new HdtDataSource with the given options, which also apply
+     * to the files that are swapped in later.
+     *
+     * @param title title of the datasource
+     * @param description datasource description
+     * @param hdtFile the HDT datafile
+     * @param options the options of the data source
+     * @throws IOException if the file cannot be loaded
+     */
+    public HdtDataSource(String title, String description, String hdtFile,
+                         DataSourceOptions options) throws IOException {
         super(title, description);
-        requestProcessor = new HdtBasedRequestProcessorForTPFs( hdtFile );
+        this.options = options;
+        requestProcessor = new HdtFile( hdtFile,
+                                new HdtBasedRequestProcessorForTPFs(hdtFile, options) );
     }
 
     @Override
     public IFragmentRequestParser getRequestParser()
     {
-        return TPFRequestParserForJenaBackends.getInstance();
+        return FragmentRequestParserForJenaBackends.getInstance();
     }
 
     @Override
     public IFragmentRequestProcessor getRequestProcessor()
     {
-        return requestProcessor;
+        return processor;
+    }
+
+    /**
+     * Gets the HDT file that is currently served.
+     *
+     * @return the name of the HDT file
+     */
+    public String getFile() {
+        return requestProcessor.fileName;
+    }
+
+    /**
+     * Replaces the served HDT file by another one. The new file is mapped,
+     * indexed (including its text index, if enabled) and warmed up while
+     * the current one is still being served; the caller is blocked until
+     * then. The current file is closed as soon
+     * as the requests that use it are done. The membership filters of the
+     * current file are not carried over, and
+     * the range indexes of the new file are its own.
+     *
+     * @param hdtFile the new HDT datafile
+     * @throws IOException if the file cannot be loaded, in which case the
+     *         current file continues to be served
+     */
+    public void swapFile(String hdtFile) throws IOException {
+        final HdtBasedRequestProcessorForTPFs next =
+                                new HdtBasedRequestProcessorForTPFs( hdtFile, options );
+        next.warmUp( WARMUP_TRIPLES );
+
+        final HdtFile old;
+        synchronized ( this ) {
+            if ( closed ) {
+                next.close();
+                throw new IOException( "The data source has been closed." );
+            }
+            old = requestProcessor;
+            requestProcessor = new HdtFile( hdtFile, next );
+        }
+        old.release();
+    }
+
+    @Override
+    public void close() {
+        final HdtFile current;
+        synchronized ( this ) {
+            if ( closed )
+                return;
+            closed = true;
+            current = requestProcessor;
+        }
+        current.release();
+    }
+
+    private HdtFile acquire() {
+        while ( true ) {
+            final HdtFile file = requestProcessor;
+            if ( file.tryAcquire() )
+                return file;
+            // the file was swapped out concurrently; retry with the new one
+            synchronized ( this ) {
+                if ( closed )
+                    throw new IllegalStateException(
+                                        "The data source has been closed." );
+            }
+        }
+    }
+
+    /**
+     * A mapped HDT file together with the number of references to it.
+     */
+    protected static class HdtFile {
+        final String fileName;
+        final HdtBasedRequestProcessorForTPFs processor;
+
+        // one reference is held by the data source itself until the file is
+        // swapped out; once zero, the file is closed
+        private final AtomicInteger references = new AtomicInteger( 1 );
+
+        HdtFile( final String fileName,
+                 final HdtBasedRequestProcessorForTPFs processor ) {
+            this.fileName = fileName;
+            this.processor = processor;
+        }
+
+        boolean tryAcquire() {
+            while ( true ) {
+                final int n = references.get();
+                if ( n == 0 )
+                    return false;
+                if ( references.compareAndSet(n, n + 1) )
+                    return true;
+            }
+        }
+
+        void release() {
+            if ( references.decrementAndGet() == 0 )
+                processor.close();
+        }
+    }
+
+    /**
+     * Processes requests with the HDT file that is current when they arrive.
+     */
+    private class Processor implements IFragmentRequestProcessor,
+                                       ITriplePatternExporter {
+
+        @Override
+        public ILinkedDataFragment createRequestedFragment(
+                                    final ILinkedDataFragmentRequest request )
+                                                throws IllegalArgumentException
+        {
+            final HdtFile file = acquire();
+            try {
+                // the fragment holds a copy of its triples, so the file is
+                // not needed anymore once the fragment has been created
+                return file.processor.createRequestedFragment( request );
+            }
+            finally {
+                file.release();
+            }
+        }
+
+        @Override
+        public ExtendedIterator<Triple> exportTriples(
+                                    final ILinkedDataFragmentRequest request,
+                                    final long offset )
+                                                throws IllegalArgumentException
+        {
+            // the file is kept until the export is closed, even if it is
+            // swapped out in the meantime
+            final HdtFile file = acquire();
+            final ExtendedIterator<Triple> triples;
+            try {
+                triples = file.processor.exportTriples( request, offset );
+            }
+            catch ( RuntimeException e ) {
+                file.release();
+                throw e;
+            }
+            return new NiceIterator<Triple>() {
+                private boolean closed = false;
+
+                @Override
+                public boolean hasNext() {
+                    return triples.hasNext();
+                }
+
+                @Override
+                public Triple next() {
+                    return triples.next();
+                }
+
+                @Override
+                public void close() {
+                    if ( closed )
+                        return;
+                    closed = true;
+                    triples.close();
+                    file.release();
+                }
+            };
+        }
+
+        @Override
+        public void close() {
+            // the HDT files are closed by the data source
+        }
     }
 
 }
@@ -3,6 +3,7 @@ package org.linkeddatafragments.datasource.hdt;
 import java.io.File;
 import java.io.IOException;
 
+import org.linkeddatafragments.datasource.DataSourceOptions;
 import org.linkeddatafragments.datasource.IDataSource;
 import org.linkeddatafragments.datasource.IDataSourceType;
 import org.linkeddatafragments.exceptions.DataSourceCreationException;
@@ -22,14 +23,24 @@ public class HdtDataSourceType implements IDataSourceType
                                          final JsonObject settings )
                                                      throws DataSourceCreationException
     {
-        final String fname = settings.getAsJsonPrimitive("file").getAsString();
-        final File file = new File( fname );
-        
         try {
-            return new HdtDataSource(title, description, file.getAbsolutePath());
+            return new HdtDataSource(title, description, getFile(settings),
+                                     DataSourceOptions.create(settings));
         } catch (IOException ex) {
             throw new DataSourceCreationException(ex);
         }
     }
 
+    /**
+     * Gets the HDT file configured in the given settings.
+     *
+     * @param settings the settings of an HDT data source
+     * @return the absolute path of the HDT file
+     */
+    public static String getFile( final JsonObject settings )
+    {
+        final String fname = settings.getAsJsonPrimitive("file").getAsString();
+        return new File( fname ).getAbsolutePath();
+    }
+
 }
@@ -0,0 +1,545 @@
+package org.linkeddatafragments.datasource.hdt;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+
+import org.rdfhdt.hdt.dictionary.Dictionary;
+import org.rdfhdt.hdt.enums.TripleComponentRole;
+
+/**
+ * A trigram index of the literals of an HDT dictionary, which finds the
+ * literals whose lexical form contains a text, ignoring case. For each
+ * trigram of the lower-cased lexical forms, the index file holds the sorted
+ * object IDs of the literals that contain it; it is memory-mapped, so only
+ * the posting lists of the requested trigrams are read.
+ *
+ * Trigrams are hashed to 32 bits, so the literals of a text are only
+ * candidates, which have to be checked with {@link #matches}.
+ */
+public class LiteralTextIndex
+{
+    /**
+     * The number of characters of the grams of the index, which is the
+     * minimum length of a text that can be looked up
+     */
+    public final static int GRAM = 3;
+
+    private final static int MAGIC = 0x4c44464c; // "LDFL"
+    private final static int VERSION = 1;
+    private final static int HEADER = 4 + 4 + 8 + 4;
+
+    // number of pairs of trigram and ID that are sorted in memory at once
+    private final static int RUN_SIZE = 1 << 22;
+
+    // number of postings per mapped chunk of the index file
+    private final static int CHUNK_BITS = 27;
+
+    private final ByteBuffer table;
+    private final int grams;
+    private final MappedByteBuffer[] postings;
+
+    /**
+     * Opens the index of the literals of the given dictionary, and builds
+     * it first if the index file does not exist or belongs to another
+     * version of the HDT file.
+     *
+     * @param file the index file
+     * @param hdtFile the HDT file of the dictionary
+     * @param dictionary the dictionary
+     * @return the index
+     * @throws IOException if the index cannot be built or read
+     */
+    public static LiteralTextIndex open( final File file, final File hdtFile,
+                                         final Dictionary dictionary )
+                                                            throws IOException
+    {
+        // the index stores object IDs in 32 bits
+        if ( dictionary.getNobjects() > Integer.MAX_VALUE )
+            throw new IOException( "The HDT file has too many objects for a text index." );
+        if ( file.lastModified() >= hdtFile.lastModified() ) {
+            try {
+                return new LiteralTextIndex( file, dictionary.getNobjects() );
+            }
+            catch ( IOException e ) {
+                // rebuild an index that cannot be read
+            }
+        }
+        build( file, dictionary.getNobjects(), getLiterals(dictionary) );
+        return new LiteralTextIndex( file, dictionary.getNobjects() );
+    }
+
+    /**
+     * Gets the literals of a dictionary, which form the first part of the
+     * section of the objects that are no subjects, because the strings of
+     * a section are sorted and those of literals start with a quote.
+     *
+     * @param dictionary the dictionary
+     * @return the object IDs and strings of the literals
+     */
+    private static Iterator<Literal> getLiterals( final Dictionary dictionary )
+    {
+        final long objects = dictionary.getNobjects();
+        return new Iterator<Literal>() {
+            private int id = (int) dictionary.getNshared() + 1;
+            private Literal next = read();
+
+            private Literal read()
+            {
+                if ( id > objects )
+                    return null;
+                final CharSequence string = dictionary.idToString(
+                                              id, TripleComponentRole.OBJECT );
+                if ( string == null || string.length() == 0
+                                    || string.charAt(0) != '"' )
+                    return null;
+                return new Literal( id++, string );
+            }
+
+            @Override
+            public boolean hasNext()
+            {
+                return next != null;
+            }
+
+            @Override
+            public Literal next()
+            {
+                final Literal literal = next;
+                next = read();
+                return literal;
+            }
+
+            @Override
+            public void remove()
+            {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    /**
+     * Builds an index file.
+     *
+     * @param file the index file, which is replaced once it is complete
+     * @param objects the number of objects of the dictionary, by which the
+     *                index file is tied to it
+     * @param literals the literals, in the order of their IDs
+     * @throws IOException if the index file cannot be written
+     */
+    public static void build( final File file, final long objects,
+                              final Iterator<Literal> literals )
+                                                            throws IOException
+    {
+        final File directory = file.getAbsoluteFile().getParentFile();
+        final List<File> runs = new ArrayList<>();
+        final File postings = File.createTempFile( file.getName(), ".postings", directory );
+        final File index = File.createTempFile( file.getName(), ".tmp", directory );
+        try {
+            // the pairs of trigram and ID, sorted in runs of at most
+            // RUN_SIZE pairs; as IDs ascend, so do the IDs of a trigram
+            long[] pairs = new long[1024];
+            int size = 0;
+            while ( literals.hasNext() ) {
+                final Literal literal = literals.next();
+                final int[] keys = getGrams( getLexicalForm(literal.string)
+                                                .toLowerCase(Locale.ROOT) );
+                if ( size + keys.length > pairs.length && size > 0
+                                                       && 2 * pairs.length > RUN_SIZE ) {
+                    runs.add( writeRun(directory, file.getName(), pairs, size) );
+                    size = 0;
+                }
+                if ( size + keys.length > pairs.length )
+                    pairs = Arrays.copyOf( pairs, Math.max(2 * pairs.length,
+                                                           size + keys.length) );
+                for ( int key : keys )
+                    pairs[size++] = ( (long) key << 32 ) | ( literal.id & 0xFFFFFFFFL );
+            }
+            Arrays.sort( pairs, 0, size );
+
+            final PriorityQueue<Run> queue = new PriorityQueue<>();
+            try {
+                for ( File run : runs ) {
+                    final Run reader = new Run( run );
+                    if ( reader.advance() )
+                        queue.add( reader );
+                }
+
+                // merge the runs into the posting lists
+                int[] keys = new int[1024];
+                long[] starts = new long[1024];
+                int count = 0;
+                long total = 0;
+                int i = 0;
+                final DataOutputStream out = new DataOutputStream( new BufferedOutputStream(
+                                                  new FileOutputStream(postings), 1 << 16) );
+                try {
+                    while ( i < size || ! queue.isEmpty() ) {
+                        final long pair;
+                        if ( ! queue.isEmpty()
+                                && ( i == size || queue.peek().pair < pairs[i] ) ) {
+                            final Run run = queue.poll();
+                            pair = run.pair;
+                            if ( run.advance() )
+                                queue.add( run );
+                        }
+                        else {
+                            pair = pairs[i++];
+                        }
+
+                        final int key = (int) ( pair >> 32 );
+                        if ( count == 0 || keys[count - 1] != key ) {
+                            if ( count == keys.length ) {
+                                keys = Arrays.copyOf( keys, 2 * count );
+                                starts = Arrays.copyOf( starts, 2 * count );
+                            }
+                            keys[count] = key;
+                            starts[count] = total;
+                            count++;
+                        }
+                        out.writeInt( (int) pair );
+                        total++;
+                    }
+                }
+                finally {
+                    out.close();
+                }
+
+                final DataOutputStream header = new DataOutputStream( new BufferedOutputStream(
+                                                  new FileOutputStream(index), 1 << 16) );
+                try {
+                    header.writeInt( MAGIC );
+                    header.writeInt( VERSION );
+                    header.writeLong( objects );
+                    header.writeInt( count );
+                    for ( int k = 0; k < count; k++ )
+                        header.writeInt( keys[k] );
+                    for ( int k = 0; k < count; k++ )
+                        header.writeLong( starts[k] );
+                    header.writeLong( total );
+                    Files.copy( postings.toPath(), header );
+                }
+                finally {
+                    header.close();
+                }
+            }
+            finally {
+                for ( Run run : queue )
+                    run.close();
+            }
+            Files.move( index.toPath(), file.toPath(),
+                        StandardCopyOption.REPLACE_EXISTING );
+        }
+        finally {
+            for ( File run : runs )
+                run.delete();
+            postings.delete();
+            index.delete();
+        }
+    }
+
+    private static File writeRun( final File directory, final String name,
+                                  final long[] pairs, final int size )
+                                                            throws IOException
+    {
+        Arrays.sort( pairs, 0, size );
+        final File run = File.createTempFile( name, ".run", directory );
+        final DataOutputStream out = new DataOutputStream( new BufferedOutputStream(
+                                            new FileOutputStream(run), 1 << 16) );
+        try {
+            for ( int i = 0; i < size; i++ )
+                out.writeLong( pairs[i] );
+        }
+        finally {
+            out.close();
+        }
+        return run;
+    }
+
+    /**
+     * Maps an index file.
+     *
+     * @param file the index file
+     * @param objects the number of objects of the dictionary
+     * @throws IOException if the file cannot be read or belongs to a
+     *         dictionary with another number of objects
+     */
+    public LiteralTextIndex( final File file, final long objects )
+                                                            throws IOException
+    {
+        final FileChannel channel = FileChannel.open( file.toPath(), StandardOpenOption.READ );
+        try {
+            final MappedByteBuffer header = channel.map( FileChannel.MapMode.READ_ONLY,
+                                                         0, HEADER );
+            if ( header.getInt(0) != MAGIC || header.getInt(4) != VERSION
+                                           || header.getLong(8) != objects )
+                throw new IOException( "The text index does not belong to the dictionary." );
+            grams = header.getInt( 16 );
+
+            final long tableSize = 4L * grams + 8L * ( grams + 1 );
+            table = channel.map( FileChannel.MapMode.READ_ONLY, HEADER, tableSize );
+            final long total = table.getLong( 4 * grams + 8 * grams );
+            final long start = HEADER + tableSize;
+            if ( channel.size() != start + 4 * total )
+                throw new IOException( "The text index is incomplete." );
+
+            final int chunks = (int) ( ( total + (1L << CHUNK_BITS) - 1 ) >>> CHUNK_BITS );
+            postings = new MappedByteBuffer[chunks];
+            for ( int i = 0; i < chunks; i++ ) {
+                final long first = (long) i << CHUNK_BITS;
+                postings[i] = channel.map( FileChannel.MapMode.READ_ONLY,
+                                           start + 4 * first,
+                                           4 * Math.min(1L << CHUNK_BITS, total - first) );
+            }
+        }
+        finally {
+            // the mappings remain valid
+            channel.close();
+        }
+    }
+
+    /**
+     * Gets the IDs of the candidate literals of a text: those that contain
+     * all of its trigrams.
+     *
+     * @param text the text
+     * @return the sorted object IDs of the candidates, which contain all
+     *         literals whose lexical form contains the text, ignoring case
+     * @throws IllegalArgumentException if the text is shorter than
+     *         {@link #GRAM} characters
+     */
+    public int[] getCandidates( final String text )
+                                                throws IllegalArgumentException
+    {
+        final int[] keys = getGrams( text.toLowerCase(Locale.ROOT) );
+        if ( keys.length == 0 )
+            throw new IllegalArgumentException( "The text must have at least "
+                                                + GRAM + " characters." );
+
+        // the posting lists, shortest first
+        final long[][] lists = new long[keys.length][];
+        for ( int i = 0; i < keys.length; i++ ) {
+            final int k = find( keys[i] );
+            if ( k < 0 )
+                return new int[0];
+            lists[i] = new long[] { getStart(k), getStart(k + 1) };
+        }
+        Arrays.sort( lists, new Comparator<long[]>() {
+            @Override
+            public int compare( final long[] a, final long[] b )
+            {
+                return Long.compare( a[1] - a[0], b[1] - b[0] );
+            }
+        } );
+
+        int[] candidates = new int[16];
+        int size = 0;
+        for ( long p = lists[0][0]; p < lists[0][1]; p++ ) {
+            final int id = getPosting( p );
+            boolean all = true;
+            for ( int i = 1; i < lists.length && all; i++ ) {
+                // skip the smaller IDs of the other lists
+                lists[i][0] = seek( lists[i][0], lists[i][1], id );
+                if ( lists[i][0] == lists[i][1] )
+                    return Arrays.copyOf( candidates, size );
+                all = getPosting( lists[i][0] ) == id;
+            }
+            if ( all ) {
+                if ( size == candidates.length )
+                    candidates = Arrays.copyOf( candidates, 2 * size );
+                candidates[size++] = id;
+            }
+        }
+        return Arrays.copyOf( candidates, size );
+    }
+
+    /**
+     * Checks whether the lexical form of a literal contains a text,
+     * ignoring case.
+     *
+     * @param literal the string of the literal in the dictionary
+     * @param lowerCaseText the text in lower case
+     * @return true if the literal contains the text
+     */
+    public static boolean matches( final CharSequence literal,
+                                   final String lowerCaseText )
+    {
+        return getLexicalForm( literal ).toLowerCase( Locale.ROOT )
+                                        .contains( lowerCaseText );
+    }
+
+    /**
+     * Gets the lexical form of a literal in the dictionary, which is
+     * enclosed in quotes and may be followed by a language tag or datatype.
+     *
+     * @param literal the string of the literal
+     * @return the lexical form
+     */
+    private static String getLexicalForm( final CharSequence literal )
+    {
+        final String string = literal.toString();
+        final int end = string.lastIndexOf( '"' );
+        return end > 0 ? string.substring( 1, end ) : string;
+    }
+
+    /**
+     * Gets the distinct hashed trigrams of a string.
+     */
+    private static int[] getGrams( final String string )
+    {
+        if ( string.length() < GRAM )
+            return new int[0];
+
+        final int[] keys = new int[string.length() - GRAM + 1];
+        for ( int i = 0; i < keys.length; i++ ) {
+            // FNV-1a of the characters of the trigram
+            int hash = 0x811c9dc5;
+            for ( int j = i; j < i + GRAM; j++ ) {
+                hash = ( hash ^ string.charAt(j) ) * 0x01000193;
+            }
+            keys[i] = hash;
+        }
+        Arrays.sort( keys );
+        int size = 0;
+        for ( int i = 0; i < keys.length; i++ ) {
+            if ( size == 0 || keys[size - 1] != keys[i] )
+                keys[size++] = keys[i];
+        }
+        return Arrays.copyOf( keys, size );
+    }
+
+    private int find( final int key )
+    {
+        int low = 0;
+        int high = grams - 1;
+        while ( low <= high ) {
+            final int middle = ( low + high ) >>> 1;
+            final int k = table.getInt( 4 * middle );
+            if ( k < key )
+                low = middle + 1;
+            else if ( k > key )
+                high = middle - 1;
+            else
+                return middle;
+        }
+        return -1;
+    }
+
+    private long getStart( final int k )
+    {
+        return table.getLong( 4 * grams + 8 * k );
+    }
+
+    private int getPosting( final long p )
+    {
+        return postings[(int) ( p >>> CHUNK_BITS )]
+                      .getInt( (int) ( p & ((1L << CHUNK_BITS) - 1) ) << 2 );
+    }
+
+    /**
+     * Finds the first posting at least the given ID.
+     *
+     * @return the position of the posting, or the end if there is none
+     */
+    private long seek( long from, final long to, final int id )
+    {
+        if ( from >= to )
+            return to;
+        // gallop to the range of the ID, then search it
+        long step = 1;
+        while ( from + step < to && getPosting(from + step) < id ) {
+            from += step;
+            step <<= 1;
+        }
+        if ( from < to && getPosting(from) >= id )
+            return from;
+        long low = from + 1;
+        long high = Math.min( from + step, to );
+        while ( low < high ) {
+            final long middle = ( low + high ) >>> 1;
+            if ( getPosting(middle) < id )
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        return low;
+    }
+
+    /**
+     * A literal of the dictionary
+     */
+    public static class Literal
+    {
+        final int id;
+        final CharSequence string;
+
+        /**
+         *
+         * @param id the object ID
+         * @param string the string of the literal in the dictionary
+         */
+        public Literal( final int id, final CharSequence string )
+        {
+            this.id = id;
+            this.string = string;
+        }
+    }
+
+    /**
+     * A sorted run of pairs of trigram and ID while it is merged
+     */
+    private static class Run implements Comparable<Run>
+    {
+        private final DataInputStream in;
+        long pair;
+
+        Run( final File file ) throws IOException
+        {
+            in = new DataInputStream( new BufferedInputStream(
+                                          new FileInputStream(file), 1 << 16) );
+        }
+
+        boolean advance() throws IOException
+        {
+            try {
+                pair = in.readLong();
+                return true;
+            }
+            catch ( EOFException e ) {
+                in.close();
+                return false;
+            }
+        }
+
+        void close() throws IOException
+        {
+            in.close();
+        }
+
+        @Override
+        public int compareTo( final Run other )
+        {
+            return Long.compare( pair, other.pair );
+        }
+    }
+
+}
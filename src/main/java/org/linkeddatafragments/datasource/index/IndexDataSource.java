@@ -1,6 +1,6 @@
 package org.linkeddatafragments.datasource.index;
 
-import java.util.HashMap;
+import java.util.Map;
 
 import org.linkeddatafragments.datasource.DataSourceBase;
 import org.linkeddatafragments.datasource.IDataSource;
@@ -27,7 +27,7 @@ public class IndexDataSource extends DataSourceBase {
      * @param baseUrl
      * @param datasources
      */
-    public IndexDataSource(String baseUrl, HashMap<String, IDataSource> datasources) {
+    public IndexDataSource(String baseUrl, Map<String, IDataSource> datasources) {
         super("Index", "List of all datasources");
         requestProcessor = new IndexRequestProcessorForTPFs( baseUrl, datasources );
     }
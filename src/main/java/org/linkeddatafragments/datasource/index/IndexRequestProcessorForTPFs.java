@@ -1,7 +1,6 @@
 package org.linkeddatafragments.datasource.index;
 
 
-import java.util.HashMap;
 import java.util.Map;
 import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.ModelFactory;
@@ -9,6 +8,7 @@ import org.apache.jena.rdf.model.Property;
 import org.apache.jena.rdf.model.RDFNode;
 import org.apache.jena.rdf.model.Resource;
 import org.apache.jena.rdf.model.ResourceFactory;
+import org.apache.jena.rdf.model.Statement;
 import org.apache.jena.rdf.model.StmtIterator;
 import org.apache.jena.rdf.model.impl.PropertyImpl;
 import org.apache.jena.rdf.model.impl.ResourceImpl;
@@ -45,7 +45,7 @@ public class IndexRequestProcessorForTPFs
      */
     public IndexRequestProcessorForTPFs(
                                final String baseUrl,
-                               final HashMap<String, IDataSource> datasources )
+                               final Map<String, IDataSource> datasources )
     {
         this.model = ModelFactory.createDefaultModel();
 
@@ -91,7 +91,7 @@ public class IndexRequestProcessorForTPFs
         public Worker(
                 final ITriplePatternFragmentRequest<RDFNode,String,String> req )
         {
-            super( req );
+            super( req, getPageSize() );
         }
 
         /**
@@ -124,21 +124,27 @@ public class IndexRequestProcessorForTPFs
             final RDFNode object     = o.isVariable() ? null
                                                       : o.asConstantTerm();
 
-            StmtIterator listStatements = model.listStatements(subject, predicate, object);
-            Model result = ModelFactory.createDefaultModel();
+            // the index model is built once, so page over its statements
+            // without copying the ones before or after the requested page
+            final StmtIterator listStatements = model.listStatements(subject, predicate, object);
+            final Model result = ModelFactory.createDefaultModel();
 
             long index = 0;
-            while (listStatements.hasNext() && index < offset) {
-                listStatements.next();
-                index++;
+            try {
+                while (listStatements.hasNext()) {
+                    final Statement statement = listStatements.next();
+                    if (index >= offset && index < offset + limit) {
+                        result.add(statement);
+                    }
+                    index++;
+                }
             }
-
-            while (listStatements.hasNext() && index < (offset + limit)) {
-                result.add(listStatements.next());
+            finally {
+                listStatements.close();
             }
 
-            final boolean isLastPage = ( result.size() < offset + limit );
-            return createTriplePatternFragment( result, result.size(), isLastPage );
+            final boolean isLastPage = ( index <= offset + limit );
+            return createTriplePatternFragment( result, index, isLastPage );
         }
 
     } // end of class Worker
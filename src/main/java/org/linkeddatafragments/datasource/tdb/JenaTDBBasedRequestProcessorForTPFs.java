@@ -1,6 +1,12 @@
 package org.linkeddatafragments.datasource.tdb;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
 import org.apache.jena.query.Dataset;
 import org.apache.jena.query.Query;
 import org.apache.jena.query.QueryExecution;
@@ -13,14 +19,26 @@ import org.apache.jena.query.Syntax;
 import org.apache.jena.rdf.model.Literal;
 import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.Property;
 import org.apache.jena.rdf.model.RDFNode;
 import org.apache.jena.tdb.TDBFactory;
+import org.apache.jena.tdb.sys.TDBInternal;
+import org.apache.jena.util.iterator.ExtendedIterator;
 
 import org.linkeddatafragments.datasource.AbstractRequestProcessorForTriplePatterns;
+import org.linkeddatafragments.datasource.DataSourceOptions;
 import org.linkeddatafragments.datasource.IFragmentRequestProcessor;
+import org.linkeddatafragments.datasource.ITriplePatternExporter;
+import org.linkeddatafragments.datasource.RangeIndexCache;
 import org.linkeddatafragments.fragments.ILinkedDataFragment;
+import org.linkeddatafragments.fragments.ILinkedDataFragmentRequest;
+import org.linkeddatafragments.fragments.tpf.FragmentOrder;
+import org.linkeddatafragments.fragments.tpf.IOrderedFragmentRequest;
+import org.linkeddatafragments.fragments.tpf.IRangeFragmentRequest;
+import org.linkeddatafragments.fragments.tpf.ITextSearchFragmentRequest;
 import org.linkeddatafragments.fragments.tpf.ITriplePatternElement;
 import org.linkeddatafragments.fragments.tpf.ITriplePatternFragmentRequest;
+import org.linkeddatafragments.util.CommonResources;
 
 /**
  * Implementation of {@link IFragmentRequestProcessor} that processes
@@ -31,8 +49,17 @@ import org.linkeddatafragments.fragments.tpf.ITriplePatternFragmentRequest;
  */
 public class JenaTDBBasedRequestProcessorForTPFs
     extends AbstractRequestProcessorForTriplePatterns<RDFNode,String,String>
+    implements ITriplePatternExporter
 {
+    /**
+     * The name of the subdirectory of the range indexes
+     */
+    public final static String RANGEINDEX_DIRECTORY = "ranges";
+
     private final Dataset tdb;
+    private final TDBIndexScanner scanner;
+    private final TDBPagePrefetcher prefetcher;
+    private final RangeIndexCache rangeIndexes;
     private final String sparql = "CONSTRUCT WHERE { ?s ?p ?o } " +
                                     "ORDER BY ?s ?p ?o";
 
@@ -69,7 +96,7 @@ public class JenaTDBBasedRequestProcessorForTPFs
         public Worker(
                 final ITriplePatternFragmentRequest<RDFNode,String,String> req )
         {
-            super( req );
+            super( req, getPageSize(), getMembershipFilters() );
         }
 
         /**
@@ -107,12 +134,33 @@ public class JenaTDBBasedRequestProcessorForTPFs
                 map.add("o", object.asConstantTerm());
             }
 
-            query.setOffset(offset);
-            query.setLimit(limit);
+            final Node s = subject.isVariable() ? null : subject.asConstantTerm().asNode();
+            final Node p = predicate.isVariable() ? null : predicate.asConstantTerm().asNode();
+            final Node o = object.isVariable() ? null : object.asConstantTerm().asNode();
+
+            // serve the page from memory if it has been prefetched
+            if ( prefetcher != null ) {
+                final TDBPagePrefetcher.Page page = prefetcher.take(s, p, o, offset, limit);
+                if ( page != null ) {
+                    final Model triples;
+                    try {
+                        triples = ModelFactory.createDefaultModel();
+                        for ( Triple t : page.triples ) {
+                            triples.getGraph().add(t);
+                        }
+                    }
+                    catch ( RuntimeException e ) {
+                        page.close();
+                        throw e;
+                    }
+                    return createFragment(triples, page.estimate, offset, limit,
+                                          s, p, o, page, model, map);
+                }
+            }
 
             Model triples = ModelFactory.createDefaultModel();
 
-            try (QueryExecution qexec = QueryExecutionFactory.create(query, model, map)) {
+            try (QueryExecution qexec = QueryExecutionFactory.create(createQuery(offset, limit), model, map)) {
                 qexec.execConstruct(triples);
             }
 
@@ -121,7 +169,6 @@ public class JenaTDBBasedRequestProcessorForTPFs
             }
 
             // Try to get an estimate
-            long size = triples.size();
             long estimate = -1;
 
             try (QueryExecution qexec = QueryExecutionFactory.create(countQuery, model, map)) {
@@ -141,25 +188,472 @@ public class JenaTDBBasedRequestProcessorForTPFs
                 estimate = stats.getStatistic(s, p, o);
             }*/
 
-            // No estimate or incorrect
-            if (estimate < offset + size) {
-                estimate = (size == limit) ? offset + size + 1 : offset + size;
+            return createFragment(triples, estimate, offset, limit,
+                                  s, p, o, null, model, map);
+        }
+
+        /**
+         * Creates the fragment for a page of triples and, if prefetching is
+         * enabled and there are more pages, starts prefetching the next one.
+         *
+         * @param triples the triples of the page
+         * @param count the counted number of matches, or -1 if unknown
+         * @param offset
+         * @param limit
+         * @param s
+         * @param p
+         * @param o
+         * @param served the prefetched page, or null if it was queried; it is
+         *               closed or passed on to the prefetcher in any case
+         * @param model
+         * @param map
+         * @return
+         */
+        private ILinkedDataFragment createFragment(
+                   final Model triples, final long count,
+                   final long offset, final long limit,
+                   final Node s, final Node p, final Node o,
+                   final TDBPagePrefetcher.Page served,
+                   final Model model, final QuerySolutionMap map )
+        {
+            // the served page is closed unless the prefetcher takes it over
+            boolean handedOver = false;
+            try {
+                if (triples.isEmpty()) {
+                    return createEmptyTriplePatternFragment();
+                }
+
+                long size = triples.size();
+                long estimate = count;
+
+                // No estimate or incorrect
+                if (estimate < offset + size) {
+                    estimate = (size == limit) ? offset + size + 1 : offset + size;
+                }
+
+                // create the fragment
+                final boolean isLastPage = ( estimate < offset + limit );
+
+                if ( prefetcher != null && ! isLastPage ) {
+                    final long nextOffset = offset + limit;
+                    final QueryExecution next = ( served != null && ! served.exhausted )
+                            ? null
+                            : QueryExecutionFactory.create(
+                                    createQuery(nextOffset, limit * prefetcher.getWindow()),
+                                    model, map);
+                    handedOver = true;
+                    prefetcher.prefetch(s, p, o, served, next, nextOffset, limit, count);
+                }
+
+                return createTriplePatternFragment( triples, estimate, isLastPage );
+            }
+            finally {
+                if ( ! handedOver && served != null ) {
+                    served.close();
+                }
+            }
+        }
+
+        /**
+         *
+         * @return true
+         */
+        @Override
+        protected boolean supportsBindings()
+        {
+            return true;
+        }
+
+        /**
+         *
+         * @return true
+         */
+        @Override
+        protected boolean supportsOrder()
+        {
+            return true;
+        }
+
+        /**
+         * Creates a page of an ordered fragment by reading the matches from
+         * the TDB index that is used for the pattern, that is, SPO if only
+         * the subject or the subject and the predicate are given, OSP if
+         * the object but not the predicate is given, and POS if the
+         * predicate is given; no query with an ORDER BY is executed. The
+         * sort keys are the TDB node IDs, which are the same for a term at
+         * any position. Deep pages seek the index to the nearest checkpoint
+         * of the {@link TDBIndexScanner} instead of skipping all preceding
+         * matches.
+         *
+         * @param subject
+         * @param predicate
+         * @param object
+         * @param order
+         * @param offset
+         * @param limit
+         * @return
+         * @throws IllegalArgumentException if the matches are not in the
+         *         order of the index
+         */
+        @Override
+        protected ILinkedDataFragment createFragment(
+                   final ITriplePatternElement<RDFNode,String,String> subject,
+                   final ITriplePatternElement<RDFNode,String,String> predicate,
+                   final ITriplePatternElement<RDFNode,String,String> object,
+                   final Property order,
+                   final long offset,
+                   final long limit )
+                                               throws IllegalArgumentException
+        {
+            if (!isInIndexOrder(subject, predicate, object, order,
+                                getIndex(subject, predicate, object))) {
+                throw new IllegalArgumentException(
+                        "The fragment cannot be ordered by its "
+                        + order.getLocalName() + " without sorting.");
+            }
+
+            final FragmentOrder keys = new FragmentOrder(order);
+            // a list rather than a model, which keeps the order of the index
+            final List<Triple> triples = new ArrayList<>();
+            final ExtendedIterator<Triple> matches = scanner.find(
+                    toNode(subject), toNode(predicate), toNode(object),
+                    getIndex(subject, predicate, object), offset);
+            try {
+                for (long i = 0; i < limit && matches.hasNext(); i++) {
+                    final Triple match = matches.next();
+                    triples.add(match);
+                    final Node term = CommonResources.RDF_SUBJECT.equals(order) ? match.getSubject()
+                                    : CommonResources.RDF_PREDICATE.equals(order) ? match.getPredicate()
+                                    : match.getObject();
+                    if (!keys.getKeys().containsKey(term)) {
+                        keys.setKey(term, TDBInternal.getNodeId(tdb, term).getId());
+                    }
+                }
+            } finally {
+                matches.close();
             }
 
-            // create the fragment
-            final boolean isLastPage = ( estimate < offset + limit );
-            return createTriplePatternFragment( triples, estimate, isLastPage );
+            if (triples.isEmpty()) {
+                return createEmptyTriplePatternFragment();
+            }
+
+            final QuerySolutionMap map = new QuerySolutionMap();
+            if (!subject.isVariable()) {
+                map.add("s", subject.asConstantTerm());
+            }
+            if (!predicate.isVariable()) {
+                map.add("p", predicate.asConstantTerm());
+            }
+            if (!object.isVariable()) {
+                map.add("o", object.asConstantTerm());
+            }
+            long count = offset + triples.size();
+            try (QueryExecution qexec = QueryExecutionFactory.create(countQuery, tdb.getDefaultModel(), map)) {
+                final ResultSet results = qexec.execSelect();
+                if (results.hasNext()) {
+                    count = Math.max(count, results.nextSolution().getLiteral("count").getLong());
+                }
+            }
+            return createTriplePatternFragment(triples, count, count <= offset + limit, keys);
+        }
+
+        /**
+         *
+         * @return true if range fragments are enabled
+         */
+        @Override
+        protected boolean supportsRanges()
+        {
+            return rangeIndexes != null;
+        }
+
+        /**
+         * Creates a page of a range fragment from the range index of the
+         * predicate, of which the total size is exact.
+         *
+         * @param subject
+         * @param predicate
+         * @param object
+         * @param min
+         * @param max
+         * @param offset
+         * @param limit
+         * @return
+         */
+        @Override
+        protected ILinkedDataFragment createFragment(
+                   final ITriplePatternElement<RDFNode,String,String> subject,
+                   final ITriplePatternElement<RDFNode,String,String> predicate,
+                   final ITriplePatternElement<RDFNode,String,String> object,
+                   final RDFNode min,
+                   final RDFNode max,
+                   final long offset,
+                   final long limit )
+        {
+            @SuppressWarnings("unchecked")
+            final IRangeFragmentRequest<RDFNode,String,String> rangeRequest =
+                    (IRangeFragmentRequest<RDFNode,String,String>) request;
+            final Model triples = ModelFactory.createDefaultModel();
+            final long total = rangeIndexes.getPage(rangeRequest, offset, limit, triples);
+            return createTriplePatternFragment(triples, total, offset + limit >= total);
+        }
+
+        /**
+         * Creates a page of a bindings-restricted fragment from the TDB
+         * indexes. The solution mappings are substituted into the triple
+         * pattern, and the matches of the resulting patterns are paged as
+         * one sequence, in the order of the solution mappings and of the
+         * index of each pattern; matches of a pattern that also match an
+         * earlier pattern are left out. The matches after the page are
+         * counted, so that the total size is exact.
+         *
+         * @param subject
+         * @param predicate
+         * @param object
+         * @param solutionMappings
+         * @param offset
+         * @param limit
+         * @return
+         * @throws IllegalArgumentException if a solution mapping binds a
+         *         blank node, which does not identify a node of the TDB
+         */
+        @Override
+        protected ILinkedDataFragment createFragment(
+                   final ITriplePatternElement<RDFNode,String,String> subject,
+                   final ITriplePatternElement<RDFNode,String,String> predicate,
+                   final ITriplePatternElement<RDFNode,String,String> object,
+                   final List<Map<String,RDFNode>> solutionMappings,
+                   final long offset,
+                   final long limit )
+                                               throws IllegalArgumentException
+        {
+            // the patterns of the solution mappings, without patterns that
+            // only match triples of an earlier pattern
+            final List<Triple> patterns = new ArrayList<>();
+            for (Map<String,RDFNode> mapping : solutionMappings) {
+                final Triple pattern = Triple.createMatch(
+                        toBoundNode(bind(subject, mapping)),
+                        toBoundNode(bind(predicate, mapping)),
+                        toBoundNode(bind(object, mapping)));
+                if (!matchesAny(patterns, patterns.size(), pattern)) {
+                    patterns.add(pattern);
+                }
+            }
+
+            final Graph graph = tdb.getDefaultModel().getGraph();
+            final Model triples = ModelFactory.createDefaultModel();
+            long count = 0;
+            for (int i = 0; i < patterns.size(); i++) {
+                final ExtendedIterator<Triple> matches = graph.find(patterns.get(i));
+                try {
+                    while (matches.hasNext()) {
+                        final Triple match = matches.next();
+                        if (matchesAny(patterns, i, match)) {
+                            continue;
+                        }
+                        if (count >= offset && count < offset + limit) {
+                            triples.getGraph().add(match);
+                        }
+                        count++;
+                    }
+                } finally {
+                    matches.close();
+                }
+            }
+
+            if (triples.isEmpty()) {
+                return createEmptyTriplePatternFragment();
+            }
+            return createTriplePatternFragment( triples, count, count <= offset + limit );
         }
 
     } // end of class Worker
 
 
+    /**
+     * Returns the matching triples in the order of the TDB index that is
+     * used for the pattern. A resumed export seeks the index to the nearest
+     * checkpoint of the {@link TDBIndexScanner} before the offset.
+     *
+     * @param request
+     * @param offset
+     * @return
+     * @throws IllegalArgumentException
+     */
+    @Override
+    public ExtendedIterator<Triple> exportTriples(
+                                    final ILinkedDataFragmentRequest request,
+                                    final long offset)
+                                                throws IllegalArgumentException {
+        final ITriplePatternFragmentRequest<RDFNode,String,String> tpfRequest =
+                                                     asTPFRequest(request);
+        if (request instanceof IRangeFragmentRequest<?,?,?>
+                || request instanceof ITextSearchFragmentRequest<?,?,?>) {
+            throw new IllegalArgumentException(
+                    "Range and text search fragments cannot be exported.");
+        }
+        if (request instanceof IOrderedFragmentRequest<?,?,?>
+                && !isInIndexOrder(tpfRequest.getSubject(), tpfRequest.getPredicate(),
+                                   tpfRequest.getObject(),
+                                   ((IOrderedFragmentRequest<?,?,?>) request).getOrder(),
+                                   getIndex(tpfRequest.getSubject(), tpfRequest.getPredicate(),
+                                            tpfRequest.getObject()))) {
+            throw new IllegalArgumentException(
+                    "The matches cannot be exported in this order without sorting.");
+        }
+        return scanner.find(toNode(tpfRequest.getSubject()),
+                            toNode(tpfRequest.getPredicate()),
+                            toNode(tpfRequest.getObject()),
+                            getIndex(tpfRequest.getSubject(), tpfRequest.getPredicate(),
+                                     tpfRequest.getObject()),
+                            offset);
+    }
+
+    /**
+     * Gets the TDB index of which the order is used for a pattern.
+     *
+     * @param subject
+     * @param predicate
+     * @param object
+     * @return the positions in the order of the index
+     */
+    private static String getIndex(final ITriplePatternElement<RDFNode,String,String> subject,
+                                   final ITriplePatternElement<RDFNode,String,String> predicate,
+                                   final ITriplePatternElement<RDFNode,String,String> object) {
+        if (!predicate.isVariable()) {
+            return subject.isVariable() ? "POS" : "SPO";
+        }
+        if (!object.isVariable()) {
+            return "OSP";
+        }
+        return "SPO";
+    }
+
+    private static Node toBoundNode(final ITriplePatternElement<RDFNode,String,String> element) {
+        final Node node = toNode(element);
+        if (node.isBlank()) {
+            throw new IllegalArgumentException(
+                    "Blank nodes cannot be bound in a bindings-restricted request.");
+        }
+        return node;
+    }
+
+    /**
+     * Returns whether a triple (pattern) matches one of the first patterns.
+     *
+     * @param patterns
+     * @param n the number of patterns to check
+     * @param triple
+     * @return
+     */
+    private static boolean matchesAny(final List<Triple> patterns, final int n,
+                                      final Triple triple) {
+        for (int i = 0; i < n; i++) {
+            final Triple pattern = patterns.get(i);
+            if ((!pattern.getSubject().isConcrete()
+                        || pattern.getSubject().equals(triple.getSubject()))
+                    && (!pattern.getPredicate().isConcrete()
+                        || pattern.getPredicate().equals(triple.getPredicate()))
+                    && (!pattern.getObject().isConcrete()
+                        || pattern.getObject().equals(triple.getObject()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Node toNode(final ITriplePatternElement<RDFNode,String,String> element) {
+        // FIXME: like for fragments, variables that occur more than once
+        //        are treated as unrelated variables
+        return element.isVariable() ? Node.ANY : element.asConstantTerm().asNode();
+    }
+
+    /**
+     * Creates a copy of the page query for the given offset and limit,
+     * such that concurrent requests do not share mutable query state.
+     *
+     * @param offset
+     * @param limit
+     * @return
+     */
+    private Query createQuery(final long offset, final long limit) {
+        final Query q = query.cloneQuery();
+        q.setOffset(offset);
+        q.setLimit(limit);
+        return q;
+    }
+
     /**
      * Constructor
      *
      * @param tdbdir directory used for TDB backing
      */
     public JenaTDBBasedRequestProcessorForTPFs(File tdbdir) {
+        this(tdbdir, DataSourceOptions.DEFAULT);
+    }
+
+    /**
+     * Constructor
+     *
+     * If range fragments are enabled, the range index of a predicate is
+     * built in the "ranges" subdirectory when it is needed first.
+     *
+     * @param tdbdir directory used for TDB backing
+     * @param options the options of the data source
+     */
+    public JenaTDBBasedRequestProcessorForTPFs(File tdbdir,
+                                               DataSourceOptions options) {
+        super(options);
         this.tdb = TDBFactory.createDataset(tdbdir.getAbsolutePath());
+        this.scanner = new TDBIndexScanner(tdb);
+        this.prefetcher = options.getPrefetchSettings() != null
+                ? TDBPagePrefetcher.create(options.getPrefetchSettings())
+                : null;
+        this.rangeIndexes = options.hasRangeIndex()
+                ? new RangeIndexCache(new File(tdbdir, RANGEINDEX_DIRECTORY), this,
+                                      getLastModified(tdbdir))
+                : null;
+    }
+
+    /**
+     *
+     * @return the prefetcher for next pages, or null if prefetching is
+     *         disabled
+     */
+    public TDBPagePrefetcher getPrefetcher() {
+        return prefetcher;
+    }
+
+    /**
+     * Gets the time at which the data files of a TDB directory were
+     * modified last.
+     *
+     * @param tdbdir directory used for TDB backing
+     * @return the time, or 0 if there are no data files
+     */
+    private static long getLastModified(File tdbdir) {
+        long modified = 0L;
+        final File[] files = tdbdir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.getName().endsWith(".dat")) {
+                    modified = Math.max(modified, file.lastModified());
+                }
+            }
+        }
+        return modified;
+    }
+
+    /**
+     * Closes the prefetcher and the range indexes, if any.
+     */
+    @Override
+    public void close() {
+        if (prefetcher != null) {
+            prefetcher.close();
+        }
+        if (rangeIndexes != null) {
+            rangeIndexes.close();
+        }
     }
 }
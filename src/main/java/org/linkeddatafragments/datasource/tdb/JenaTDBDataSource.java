@@ -3,9 +3,10 @@ package org.linkeddatafragments.datasource.tdb;
 import java.io.File;
 
 import org.linkeddatafragments.datasource.DataSourceBase;
+import org.linkeddatafragments.datasource.DataSourceOptions;
 import org.linkeddatafragments.datasource.IFragmentRequestProcessor;
 import org.linkeddatafragments.fragments.IFragmentRequestParser;
-import org.linkeddatafragments.fragments.tpf.TPFRequestParserForJenaBackends;
+import org.linkeddatafragments.fragments.tpf.FragmentRequestParserForJenaBackends;
 
 /**
  * Experimental Jena TDB-backed data source of Basic Linked Data Fragments.
@@ -24,7 +25,7 @@ public class JenaTDBDataSource extends DataSourceBase {
     @Override
     public IFragmentRequestParser getRequestParser()
     {
-        return TPFRequestParserForJenaBackends.getInstance();
+        return FragmentRequestParserForJenaBackends.getInstance();
     }
 
     @Override
@@ -41,7 +42,25 @@ public class JenaTDBDataSource extends DataSourceBase {
      * @param tdbdir directory used for TDB backing
      */
     public JenaTDBDataSource(String title, String description, File tdbdir) {
+        this(title, description, tdbdir, DataSourceOptions.DEFAULT);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param title
+     * @param description
+     * @param tdbdir directory used for TDB backing
+     * @param options the options of the data source
+     */
+    public JenaTDBDataSource(String title, String description, File tdbdir,
+                             DataSourceOptions options) {
         super(title, description);
-        requestProcessor = new JenaTDBBasedRequestProcessorForTPFs( tdbdir );
+        requestProcessor = new JenaTDBBasedRequestProcessorForTPFs( tdbdir, options );
+    }
+
+    @Override
+    public void close() {
+        requestProcessor.close();
     }
 }
@@ -2,6 +2,7 @@ package org.linkeddatafragments.datasource.tdb;
 
 import java.io.File;
 
+import org.linkeddatafragments.datasource.DataSourceOptions;
 import org.linkeddatafragments.datasource.IDataSource;
 import org.linkeddatafragments.datasource.IDataSourceType;
 import org.linkeddatafragments.exceptions.DataSourceCreationException;
@@ -26,7 +27,8 @@ public class JenaTDBDataSourceType implements IDataSourceType
         final File dir = new File( dname );
 
         try {
-            return new JenaTDBDataSource(title, description, dir);
+            return new JenaTDBDataSource(title, description, dir,
+                                         DataSourceOptions.create(settings));
         } catch (Exception ex) {
             throw new DataSourceCreationException(ex);
         }
@@ -0,0 +1,290 @@
+package org.linkeddatafragments.datasource.tdb;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+
+import org.apache.jena.atlas.lib.tuple.Tuple;
+import org.apache.jena.atlas.lib.tuple.TupleFactory;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.tdb.base.record.Record;
+import org.apache.jena.tdb.base.record.RecordFactory;
+import org.apache.jena.tdb.lib.TupleLib;
+import org.apache.jena.tdb.store.NodeId;
+import org.apache.jena.tdb.store.nodetable.NodeTable;
+import org.apache.jena.tdb.store.nodetupletable.NodeTupleTable;
+import org.apache.jena.tdb.store.tupletable.TupleIndex;
+import org.apache.jena.tdb.store.tupletable.TupleIndexRecord;
+import org.apache.jena.tdb.sys.TDBInternal;
+import org.apache.jena.util.iterator.ExtendedIterator;
+import org.apache.jena.util.iterator.NiceIterator;
+import org.apache.jena.util.iterator.WrappedIterator;
+
+/**
+ * Scans the matches of a triple pattern in the order of a TDB index,
+ * starting at an offset.
+ *
+ * While the matches of a pattern are scanned, the index key of every
+ * {@link #getInterval() interval}-th match is kept as a checkpoint. A later
+ * scan from a deeper offset seeks the B+tree of the index to the last
+ * checkpoint before that offset, and only skips the matches after it.
+ * Skipped matches are not decoded into nodes. The checkpoints of the
+ * least recently scanned patterns are dropped first.
+ *
+ * The checkpoints assume that the data does not change while the server
+ * runs, like the prefetched pages of {@link TDBPagePrefetcher} do.
+ */
+public class TDBIndexScanner
+{
+    /**
+     * Default number of matches between two checkpoints of a pattern
+     */
+    public final static int DEFAULT_INTERVAL = 10000;
+
+    /**
+     * Default maximum number of patterns of which checkpoints are kept
+     */
+    public final static int DEFAULT_MAXPATTERNS = 256;
+
+    private final Dataset tdb;
+    private final int interval;
+    private final int maxPatterns;
+
+    // keyed by index and pattern, in the order of their last scan
+    private final LinkedHashMap<List<Object>, TreeMap<Long, Tuple<NodeId>>> checkpoints;
+
+    /**
+     * Creates a scanner with the default interval and number of patterns.
+     *
+     * @param tdb the TDB dataset
+     */
+    public TDBIndexScanner( final Dataset tdb )
+    {
+        this( tdb, DEFAULT_INTERVAL, DEFAULT_MAXPATTERNS );
+    }
+
+    /**
+     * Creates a scanner.
+     *
+     * @param tdb the TDB dataset
+     * @param interval number of matches between two checkpoints
+     * @param maxPatterns maximum number of patterns of which checkpoints
+     *                    are kept
+     */
+    public TDBIndexScanner( final Dataset tdb,
+                            final int interval,
+                            final int maxPatterns )
+    {
+        if ( interval < 1 || maxPatterns < 1 )
+            throw new IllegalArgumentException( "Scan limits must be positive." );
+
+        this.tdb = tdb;
+        this.interval = interval;
+        this.maxPatterns = maxPatterns;
+        this.checkpoints = new LinkedHashMap<List<Object>, TreeMap<Long, Tuple<NodeId>>>(
+                                                           16, 0.75f, true ) {
+            @Override
+            protected boolean removeEldestEntry(
+                    final Map.Entry<List<Object>, TreeMap<Long, Tuple<NodeId>>> eldest ) {
+                return size() > TDBIndexScanner.this.maxPatterns;
+            }
+        };
+    }
+
+    /**
+     *
+     * @return the number of matches between two checkpoints
+     */
+    public int getInterval()
+    {
+        return interval;
+    }
+
+    /**
+     * Returns the matches of a pattern in the order of an index, starting
+     * at the given offset.
+     *
+     * @param subject the subject, or {@link Node#ANY}
+     * @param predicate the predicate, or {@link Node#ANY}
+     * @param object the object, or {@link Node#ANY}
+     * @param index the name of the index, such as "SPO"; the components
+     *              that are given must come first in its order
+     * @param offset the number of matches to skip
+     * @return the matches from the offset on
+     * @throws IllegalArgumentException if there is no such index
+     */
+    public ExtendedIterator<Triple> find( final Node subject,
+                                          final Node predicate,
+                                          final Node object,
+                                          final String index,
+                                          final long offset )
+                                               throws IllegalArgumentException
+    {
+        final NodeTupleTable table = TDBInternal.getBaseDatasetGraphTDB(
+                tdb.asDatasetGraph() ).getTripleTable().getNodeTupleTable();
+        final NodeTable nodes = table.getNodeTable();
+        final TupleIndexRecord tupleIndex = getIndex( table, index );
+
+        final NodeId[] pattern = new NodeId[] { toNodeId( nodes, subject ),
+                                                toNodeId( nodes, predicate ),
+                                                toNodeId( nodes, object ) };
+        for ( NodeId id : pattern ) {
+            if ( NodeId.isDoesNotExist( id ) )
+                return NiceIterator.emptyIterator();
+        }
+
+        final List<Object> key = new ArrayList<Object>( Arrays.asList( pattern ) );
+        key.add( index );
+        final Map.Entry<Long, Tuple<NodeId>> checkpoint = getCheckpoint( key, offset );
+
+        final Scan scan = new Scan( tupleIndex, pattern, key,
+                checkpoint == null ? 0L : checkpoint.getKey(),
+                checkpoint == null ? null : checkpoint.getValue() );
+        while ( scan.position < offset && scan.hasNext() )
+            scan.next();
+        return WrappedIterator.create(
+                TupleLib.convertToTriples( nodes, scan ) );
+    }
+
+    /**
+     *
+     * @return the number of patterns of which checkpoints are kept
+     */
+    public synchronized int getPatternCount()
+    {
+        return checkpoints.size();
+    }
+
+    private synchronized Map.Entry<Long, Tuple<NodeId>> getCheckpoint(
+                                   final List<Object> key, final long offset )
+    {
+        final TreeMap<Long, Tuple<NodeId>> positions = checkpoints.get( key );
+        return positions == null ? null : positions.floorEntry( offset );
+    }
+
+    private synchronized void putCheckpoint( final List<Object> key,
+                                             final long position,
+                                             final Tuple<NodeId> tuple )
+    {
+        TreeMap<Long, Tuple<NodeId>> positions = checkpoints.get( key );
+        if ( positions == null ) {
+            positions = new TreeMap<>();
+            checkpoints.put( key, positions );
+        }
+        positions.put( position, tuple );
+    }
+
+    private static TupleIndexRecord getIndex( final NodeTupleTable table,
+                                              final String name )
+                                               throws IllegalArgumentException
+    {
+        for ( TupleIndex index : table.getTupleTable().getIndexes() ) {
+            if ( index.getName().equals( name ) && index instanceof TupleIndexRecord )
+                return (TupleIndexRecord) index;
+        }
+        throw new IllegalArgumentException( "No TDB index " + name + "." );
+    }
+
+    private static NodeId toNodeId( final NodeTable nodes, final Node node )
+    {
+        return Node.ANY.equals( node ) ? NodeId.NodeIdAny
+                                       : nodes.getNodeIdForNode( node );
+    }
+
+    /**
+     * The matching tuples of one index, read from its B+tree from a start
+     * key on, until the first tuple that does not match. The given
+     * components come first in the order of the index, so no tuple after
+     * that matches either.
+     */
+    private class Scan implements Iterator<Tuple<NodeId>>
+    {
+        private final NodeId[] pattern;
+        private final List<Object> key;
+        private final Iterator<Record> records;
+        private final TupleIndexRecord index;
+        private Tuple<NodeId> next = null;
+        private boolean done = false;
+
+        /**
+         * The position of the next tuple among all matches
+         */
+        long position;
+
+        Scan( final TupleIndexRecord index, final NodeId[] pattern,
+              final List<Object> key, final long position,
+              final Tuple<NodeId> start )
+        {
+            this.index = index;
+            this.pattern = pattern;
+            this.key = key;
+            this.position = position;
+
+            // the least key of the matches has the lowest ids for the variables
+            final Tuple<NodeId> from = start != null ? start : TupleFactory.tuple(
+                    lowest( pattern[0] ), lowest( pattern[1] ), lowest( pattern[2] ) );
+            final RecordFactory factory = new RecordFactory( 3 * NodeId.SIZE, 0 );
+            this.records = index.getRangeIndex().iterator(
+                    TupleLib.record( factory, from, index.getColumnMap() ), null );
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            if ( next == null && ! done ) {
+                if ( records.hasNext() ) {
+                    final Tuple<NodeId> tuple =
+                            TupleLib.tuple( records.next(), index.getColumnMap() );
+                    if ( matches( tuple ) )
+                        next = tuple;
+                    else
+                        done = true;
+                }
+                else
+                    done = true;
+            }
+            return next != null;
+        }
+
+        @Override
+        public Tuple<NodeId> next()
+        {
+            if ( ! hasNext() )
+                throw new NoSuchElementException();
+            final Tuple<NodeId> tuple = next;
+            next = null;
+            if ( position % interval == 0 && position > 0 )
+                putCheckpoint( key, position, tuple );
+            position++;
+            return tuple;
+        }
+
+        @Override
+        public void remove()
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        private boolean matches( final Tuple<NodeId> tuple )
+        {
+            for ( int i = 0; i < pattern.length; i++ ) {
+                if ( ! NodeId.isAny( pattern[i] ) && ! pattern[i].equals( tuple.get(i) ) )
+                    return false;
+            }
+            return true;
+        }
+
+        private NodeId lowest( final NodeId id )
+        {
+            return NodeId.isAny( id ) ? NodeId.create( 0L ) : id;
+        }
+    }
+
+}
@@ -0,0 +1,487 @@
+package org.linkeddatafragments.datasource.tdb;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.query.QueryExecution;
+
+import com.google.gson.JsonObject;
+
+/**
+ * Prefetches the page that follows a served page of a triple pattern over
+ * Jena TDB.
+ *
+ * After page N of a pattern has been served, the next page is read in the
+ * background from a cursor that stays open, so that the expected request for
+ * page N+1 can be answered from memory without re-skipping the preceding
+ * triples. Open cursors expire after a configurable time-to-live; the number
+ * of open cursors and the memory held by prefetched pages are bounded.
+ */
+public class TDBPagePrefetcher implements Closeable
+{
+    /**
+     * Default maximum number of open cursors
+     */
+    public final static int DEFAULT_MAXCURSORS = 32;
+
+    /**
+     * Default memory budget (in bytes) for all prefetched pages together
+     */
+    public final static long DEFAULT_MAXMEMORY = 32L * 1024L * 1024L;
+
+    /**
+     * Default time-to-live (in seconds) of an unused cursor
+     */
+    public final static long DEFAULT_TTL = 30L;
+
+    /**
+     * Default number of pages that a single cursor reads ahead at most
+     */
+    public final static int DEFAULT_WINDOW = 16;
+
+    private final int maxCursors;
+    private final int window;
+    private final long maxMemory;
+    private final long ttlMillis;
+
+    // keyed by pattern and offset of the prefetched page, in insertion order
+    private final LinkedHashMap<Key, Cursor> cursors = new LinkedHashMap<>();
+    private final ScheduledExecutorService executor;
+    private long usedMemory = 0L;
+    private boolean closed = false;
+
+    /**
+     * Creates a prefetcher.
+     *
+     * @param maxCursors maximum number of cursors that are kept open
+     * @param maxMemory memory budget (in bytes) for all prefetched pages
+     * @param ttl time-to-live (in seconds) of a cursor that is not used
+     * @param window maximum number of pages covered by one cursor
+     */
+    public TDBPagePrefetcher( final int maxCursors,
+                              final long maxMemory,
+                              final long ttl,
+                              final int window )
+    {
+        if ( maxCursors < 1 || maxMemory < 1L || ttl < 1L || window < 1 )
+            throw new IllegalArgumentException( "Prefetch limits must be positive." );
+
+        this.maxCursors = maxCursors;
+        this.window = window;
+        this.maxMemory = maxMemory;
+        this.ttlMillis = TimeUnit.SECONDS.toMillis( ttl );
+        this.executor = Executors.newScheduledThreadPool( 2, new ThreadFactory() {
+            @Override
+            public Thread newThread( final Runnable r ) {
+                final Thread t = new Thread( r, "tdb-prefetcher" );
+                t.setDaemon( true );
+                return t;
+            }
+        });
+        this.executor.scheduleWithFixedDelay( new Runnable() {
+            @Override
+            public void run() { evictExpired(); }
+        }, ttl, ttl, TimeUnit.SECONDS );
+    }
+
+    /**
+     * Creates a prefetcher from the "prefetch" settings of a data source.
+     * Absent properties fall back to their defaults.
+     *
+     * @param settings the prefetch settings
+     * @return the prefetcher
+     */
+    public static TDBPagePrefetcher create( final JsonObject settings )
+    {
+        final int maxCursors = settings.has("maxCursors")
+                ? settings.getAsJsonPrimitive("maxCursors").getAsInt()
+                : DEFAULT_MAXCURSORS;
+        final long maxMemory = settings.has("maxMemory")
+                ? settings.getAsJsonPrimitive("maxMemory").getAsLong()
+                : DEFAULT_MAXMEMORY;
+        final long ttl = settings.has("ttl")
+                ? settings.getAsJsonPrimitive("ttl").getAsLong()
+                : DEFAULT_TTL;
+        final int window = settings.has("window")
+                ? settings.getAsJsonPrimitive("window").getAsInt()
+                : DEFAULT_WINDOW;
+        return new TDBPagePrefetcher( maxCursors, maxMemory, ttl, window );
+    }
+
+    /**
+     * Returns the maximum number of pages a new cursor should cover, which
+     * bounds the cost of sorting the results of its query.
+     *
+     * @return the number of pages
+     */
+    public int getWindow()
+    {
+        return window;
+    }
+
+    /**
+     * Takes the prefetched page of the given pattern at the given offset.
+     * If the page is still being read, this waits for it to complete.
+     *
+     * @param subject the subject of the pattern, or null if it is a variable
+     * @param predicate the predicate of the pattern, or null if it is a variable
+     * @param object the object of the pattern, or null if it is a variable
+     * @param offset offset of the requested page
+     * @param limit size of the requested page
+     * @return the page, or null if it has not been prefetched
+     */
+    public Page take( final Node subject, final Node predicate,
+                      final Node object, final long offset, final long limit )
+    {
+        final Cursor cursor;
+        synchronized ( this ) {
+            cursor = cursors.remove( new Key(subject, predicate, object, offset) );
+        }
+        if ( cursor == null )
+            return null;
+
+        final Page page;
+        try {
+            page = cursor.future.get();
+        }
+        catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            cursor.close();
+            return null;
+        }
+        catch ( ExecutionException e ) {
+            cursor.close();
+            return null;
+        }
+        finally {
+            release( cursor );
+        }
+
+        if ( page == null || cursor.limit != limit ) {
+            cursor.close();
+            return null;
+        }
+        page.cursor = cursor;
+        return page;
+    }
+
+    /**
+     * Starts prefetching the page that follows a served page.
+     * This takes ownership of the served page and of the query execution,
+     * which are closed if the next page cannot be read; prefetching is then
+     * skipped, as it is only an optimization.
+     *
+     * @param subject the subject of the pattern, or null if it is a variable
+     * @param predicate the predicate of the pattern, or null if it is a variable
+     * @param object the object of the pattern, or null if it is a variable
+     * @param served the page that was served, if it came from this prefetcher
+     * @param qexec the query execution for the following pages, starting
+     *              at the next page; must be given unless the served page
+     *              came from this prefetcher and its cursor is not exhausted
+     * @param nextOffset offset of the page to prefetch
+     * @param limit page size
+     * @param estimate the estimated total number of matching triples
+     */
+    public void prefetch( final Node subject, final Node predicate,
+                          final Node object, final Page served,
+                          final QueryExecution qexec, final long nextOffset,
+                          final long limit, final long estimate )
+    {
+        final Cursor cursor;
+        if ( served != null && served.cursor != null && ! served.exhausted ) {
+            cursor = served.cursor;
+        }
+        else {
+            if ( served != null )
+                served.close();
+            try {
+                cursor = new Cursor( qexec, qexec.execConstructTriples() );
+            }
+            catch ( RuntimeException e ) {
+                qexec.close();
+                return;
+            }
+        }
+        cursor.key = new Key( subject, predicate, object, nextOffset );
+        cursor.limit = limit;
+        cursor.estimate = estimate;
+
+        synchronized ( this ) {
+            if ( closed ) {
+                cursor.close();
+                return;
+            }
+            while ( cursors.size() >= maxCursors )
+                evictOldest();
+
+            cursor.expires = System.currentTimeMillis() + ttlMillis;
+            final Cursor previous = cursors.put( cursor.key, cursor );
+            if ( previous != null )
+                discard( previous );
+
+            try {
+                cursor.future = executor.submit( new Reader(cursor) );
+            }
+            catch ( RejectedExecutionException e ) {
+                cursors.remove( cursor.key );
+                cursor.close();
+            }
+        }
+    }
+
+    /**
+     * Closes all open cursors and stops prefetching.
+     */
+    @Override
+    public void close()
+    {
+        final List<Cursor> open;
+        synchronized ( this ) {
+            closed = true;
+            open = new ArrayList<>( cursors.values() );
+            cursors.clear();
+        }
+        executor.shutdownNow();
+        for ( Cursor cursor : open )
+            cursor.close();
+    }
+
+    /**
+     * Returns the number of currently open cursors.
+     *
+     * @return the number of open cursors
+     */
+    public synchronized int getOpenCursors()
+    {
+        return cursors.size();
+    }
+
+    /**
+     * Returns the estimated memory held by prefetched pages.
+     *
+     * @return the memory (in bytes)
+     */
+    public synchronized long getUsedMemory()
+    {
+        return usedMemory;
+    }
+
+    private synchronized void evictExpired()
+    {
+        final long now = System.currentTimeMillis();
+        final Iterator<Cursor> it = cursors.values().iterator();
+        while ( it.hasNext() ) {
+            final Cursor cursor = it.next();
+            if ( cursor.expires < now ) {
+                it.remove();
+                discard( cursor );
+            }
+        }
+    }
+
+    private synchronized void evictOldest()
+    {
+        final Iterator<Cursor> it = cursors.values().iterator();
+        final Cursor cursor = it.next();
+        it.remove();
+        discard( cursor );
+    }
+
+    // must be called while holding the lock; the cursor is removed already
+    private void discard( final Cursor cursor )
+    {
+        cursor.discarded = true;
+        if ( cursor.future != null )
+            cursor.future.cancel( false );
+        releaseLocked( cursor );
+        cursor.close();
+    }
+
+    private synchronized void release( final Cursor cursor )
+    {
+        releaseLocked( cursor );
+    }
+
+    private void releaseLocked( final Cursor cursor )
+    {
+        usedMemory -= cursor.bytes;
+        cursor.bytes = 0L;
+    }
+
+    private synchronized boolean reserve( final Cursor cursor, final long bytes )
+    {
+        if ( closed || cursor.discarded || usedMemory + bytes > maxMemory )
+            return false;
+        usedMemory += bytes;
+        cursor.bytes += bytes;
+        return true;
+    }
+
+    /**
+     * Rough estimate of the heap used by a triple.
+     */
+    private static long estimateSize( final Triple t )
+    {
+        return 96L + 2L * ( t.getSubject().toString().length()
+                          + t.getPredicate().toString().length()
+                          + t.getObject().toString().length() );
+    }
+
+    /**
+     * A page read ahead from a cursor.
+     */
+    public static class Page
+    {
+        /**
+         * The triples of the page
+         */
+        public final List<Triple> triples;
+
+        /**
+         * The estimated total number of matching triples
+         */
+        public final long estimate;
+
+        /**
+         * True if the cursor has no triples after this page
+         */
+        public final boolean exhausted;
+
+        private Cursor cursor;
+
+        Page( final List<Triple> triples, final long estimate,
+              final boolean exhausted )
+        {
+            this.triples = triples;
+            this.estimate = estimate;
+            this.exhausted = exhausted;
+        }
+
+        /**
+         * Closes the cursor of this page, which is required if the page is
+         * not passed back to {@link TDBPagePrefetcher#prefetch}.
+         */
+        public void close()
+        {
+            if ( cursor != null )
+                cursor.close();
+        }
+    }
+
+    /**
+     * Reads the next page of a cursor in the background.
+     */
+    private class Reader implements java.util.concurrent.Callable<Page>
+    {
+        private final Cursor cursor;
+
+        Reader( final Cursor cursor )
+        {
+            this.cursor = cursor;
+        }
+
+        @Override
+        public Page call()
+        {
+            final List<Triple> triples = new ArrayList<>( (int) Math.min(cursor.limit, 1024L) );
+            while ( triples.size() < cursor.limit && cursor.triples.hasNext() ) {
+                final Triple t = cursor.triples.next();
+                if ( ! reserve(cursor, estimateSize(t)) ) {
+                    // over budget, evicted or closed: give up this cursor
+                    synchronized ( TDBPagePrefetcher.this ) {
+                        if ( cursors.get(cursor.key) == cursor )
+                            cursors.remove( cursor.key );
+                        cursor.discarded = true;
+                        releaseLocked( cursor );
+                    }
+                    cursor.close();
+                    return null;
+                }
+                triples.add( t );
+            }
+            return new Page( triples, cursor.estimate, ! cursor.triples.hasNext() );
+        }
+    }
+
+    /**
+     * An open query execution over the remaining pages of a pattern.
+     */
+    private static class Cursor
+    {
+        final QueryExecution qexec;
+        final Iterator<Triple> triples;
+        Key key;
+        long limit;
+        long estimate;
+        long expires;
+        long bytes;
+        boolean discarded;
+        Future<Page> future;
+
+        Cursor( final QueryExecution qexec, final Iterator<Triple> triples )
+        {
+            this.qexec = qexec;
+            this.triples = triples;
+        }
+
+        void close()
+        {
+            try {
+                qexec.close();
+            }
+            catch ( Exception e ) {
+                // ignore
+            }
+        }
+    }
+
+    /**
+     * Identifies a page of a triple pattern.
+     */
+    private static class Key
+    {
+        final Node subject, predicate, object;
+        final long offset;
+
+        Key( final Node subject, final Node predicate, final Node object,
+             final long offset )
+        {
+            this.subject = subject;
+            this.predicate = predicate;
+            this.object = object;
+            this.offset = offset;
+        }
+
+        @Override
+        public boolean equals( final Object o )
+        {
+            if ( ! (o instanceof Key) )
+                return false;
+            final Key k = (Key) o;
+            return offset == k.offset
+                    && Objects.equals( subject, k.subject )
+                    && Objects.equals( predicate, k.predicate )
+                    && Objects.equals( object, k.object );
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash( subject, predicate, object, offset );
+        }
+    }
+
+}
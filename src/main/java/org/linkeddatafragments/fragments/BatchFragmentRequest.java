@@ -0,0 +1,81 @@
+package org.linkeddatafragments.fragments;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedMap;
+
+/**
+ * A request for several Linked Data Fragments of the same dataset at once,
+ * such as the fragments of all triple patterns of a basic graph pattern.
+ * Each fragment is requested by an {@link ILinkedDataFragmentRequest} of its
+ * own; the batch itself is not paged.
+ */
+public class BatchFragmentRequest extends LinkedDataFragmentRequestBase
+{
+    /**
+     * The parameter of which each value is the query string of one
+     * fragment request of the batch
+     */
+    public final static String PARAMETERNAME_PATTERN = "pattern";
+
+    /**
+     * The requests of the batch, in the order in which they were given
+     */
+    public final List<ILinkedDataFragmentRequest> requests;
+
+    /**
+     *
+     * @param fragmentURL
+     * @param datasetURL
+     * @param requests the requests of the batch
+     */
+    public BatchFragmentRequest( final String fragmentURL,
+                                 final String datasetURL,
+                                 final List<ILinkedDataFragmentRequest> requests )
+    {
+        super( fragmentURL, datasetURL, false, 1L );
+
+        if ( requests == null || requests.isEmpty() )
+            throw new IllegalArgumentException( "A batch needs at least one request." );
+
+        this.requests = Collections.unmodifiableList( requests );
+    }
+
+    /**
+     *
+     * @return the requests of the batch
+     */
+    public List<ILinkedDataFragmentRequest> getRequests()
+    {
+        return requests;
+    }
+
+    /**
+     * Adds the canonical queries of the requests of the batch, in order,
+     * separated by line breaks.
+     *
+     * @param parameters
+     */
+    @Override
+    protected void addKeyParameters( final SortedMap<String, String> parameters )
+    {
+        final StringBuilder patterns = new StringBuilder();
+        for ( ILinkedDataFragmentRequest request : requests ) {
+            if ( patterns.length() > 0 )
+                patterns.append( '\n' );
+            patterns.append( request.getKey().getQuery() );
+        }
+        parameters.put( PARAMETERNAME_PATTERN, patterns.toString() );
+    }
+
+    @Override
+    public String toString()
+    {
+        return "BatchFragmentRequest(" +
+               "class: " + getClass().getName() +
+               ", fragmentURL: " + fragmentURL +
+               ", requests: " + requests +
+               ")";
+    }
+
+}
@@ -0,0 +1,177 @@
+package org.linkeddatafragments.fragments;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+
+import org.linkeddatafragments.config.ConfigReader;
+
+/**
+ * An {@link IFragmentRequestParser} for {@link BatchFragmentRequest}s. Each
+ * value of the "pattern" parameter, which can be given in the query string
+ * or in a form-encoded POST body, is the query string of one fragment
+ * request, and is parsed by the parser of the data source as if it were
+ * the query string of the HTTP request.
+ */
+public class BatchRequestParser implements IFragmentRequestParser
+{
+    /**
+     * The default maximum number of requests in a batch
+     */
+    public final static int MAX_REQUESTS = 100;
+
+    private final IFragmentRequestParser parser;
+
+    private final int maxRequests;
+
+    /**
+     *
+     * @param parser the parser of the requests of the batch
+     */
+    public BatchRequestParser( final IFragmentRequestParser parser )
+    {
+        this( parser, MAX_REQUESTS );
+    }
+
+    /**
+     *
+     * @param parser the parser of the requests of the batch
+     * @param maxRequests the maximum number of requests in a batch
+     */
+    public BatchRequestParser( final IFragmentRequestParser parser,
+                               final int maxRequests )
+    {
+        this.parser = parser;
+        this.maxRequests = maxRequests;
+    }
+
+    /**
+     *
+     * @param httpRequest
+     * @param config
+     * @return a {@link BatchFragmentRequest}
+     * @throws IllegalArgumentException
+     */
+    @Override
+    public ILinkedDataFragmentRequest parseIntoFragmentRequest(
+                                         final HttpServletRequest httpRequest,
+                                         final ConfigReader config )
+                                               throws IllegalArgumentException
+    {
+        final String[] patterns = httpRequest.getParameterValues(
+                                   BatchFragmentRequest.PARAMETERNAME_PATTERN );
+        if ( patterns == null || patterns.length == 0 )
+            throw new IllegalArgumentException( "The batch has no patterns." );
+        if ( patterns.length > maxRequests )
+            throw new IllegalArgumentException(
+                    "A batch has at most " + maxRequests + " patterns." );
+
+        final List<ILinkedDataFragmentRequest> requests = new ArrayList<>();
+        for ( String pattern : patterns ) {
+            requests.add( parser.parseIntoFragmentRequest(
+                                  new PatternRequest(httpRequest, pattern),
+                                  config ) );
+        }
+
+        final String datasetURL = requests.get(0).getDatasetURL();
+        final String query = httpRequest.getQueryString();
+        return new BatchFragmentRequest(
+                query == null ? datasetURL : datasetURL + "?" + query,
+                datasetURL, requests );
+    }
+
+    /**
+     * The HTTP request with the query string of one pattern of the batch
+     */
+    private static class PatternRequest extends HttpServletRequestWrapper
+    {
+        private final String query;
+
+        private final Map<String, String[]> parameters;
+
+        PatternRequest( final HttpServletRequest request, final String query )
+        {
+            super( request );
+            this.query = query;
+            this.parameters = Collections.unmodifiableMap( parse(query) );
+        }
+
+        private static Map<String, String[]> parse( final String query )
+        {
+            final Map<String, List<String>> values = new LinkedHashMap<>();
+            for ( String pair : query.split("&") ) {
+                if ( pair.isEmpty() )
+                    continue;
+                final int eq = pair.indexOf( '=' );
+                final String name = decode( eq < 0 ? pair : pair.substring(0, eq) );
+                final String value = eq < 0 ? "" : decode( pair.substring(eq + 1) );
+                List<String> list = values.get( name );
+                if ( list == null ) {
+                    list = new ArrayList<>();
+                    values.put( name, list );
+                }
+                list.add( value );
+            }
+
+            final Map<String, String[]> parameters = new LinkedHashMap<>();
+            for ( Map.Entry<String, List<String>> e : values.entrySet() )
+                parameters.put( e.getKey(),
+                                e.getValue().toArray(new String[0]) );
+            return parameters;
+        }
+
+        private static String decode( final String s )
+        {
+            try {
+                return URLDecoder.decode( s, "UTF-8" );
+            }
+            catch ( UnsupportedEncodingException e ) {
+                throw new IllegalStateException( e );
+            }
+            catch ( IllegalArgumentException e ) {
+                throw new IllegalArgumentException(
+                                "Malformed pattern parameter: " + s, e );
+            }
+        }
+
+        @Override
+        public String getQueryString()
+        {
+            return query;
+        }
+
+        @Override
+        public String getParameter( final String name )
+        {
+            final String[] values = parameters.get( name );
+            return values == null ? null : values[0];
+        }
+
+        @Override
+        public String[] getParameterValues( final String name )
+        {
+            final String[] values = parameters.get( name );
+            return values == null ? null : values.clone();
+        }
+
+        @Override
+        public Map<String, String[]> getParameterMap()
+        {
+            return parameters;
+        }
+
+        @Override
+        public Enumeration<String> getParameterNames()
+        {
+            return Collections.enumeration( parameters.keySet() );
+        }
+    }
+
+}
@@ -0,0 +1,145 @@
+package org.linkeddatafragments.fragments;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * A canonical key of an {@link ILinkedDataFragmentRequest}: the URL of the
+ * dataset and the parameters that determine the requested fragment, in
+ * canonical form and in the order of their names. Requests for the same
+ * fragment have equal keys, however their parameters were written.
+ *
+ * The key has a 64-bit hash, which is computed once.
+ */
+public class FragmentRequestKey
+{
+    private final String datasetURL;
+
+    private final String query;
+
+    private final long hash;
+
+    /**
+     * Creates the key of a request.
+     *
+     * @param datasetURL the URL of the dataset
+     * @param parameters the canonical values of the parameters that
+     *                   determine the fragment, by name
+     */
+    public FragmentRequestKey( final String datasetURL,
+                               final SortedMap<String, String> parameters )
+    {
+        final StringBuilder query = new StringBuilder();
+        for ( Map.Entry<String, String> parameter : parameters.entrySet() ) {
+            if ( query.length() > 0 )
+                query.append( '&' );
+            query.append( encode(parameter.getKey()) )
+                 .append( '=' )
+                 .append( encode(parameter.getValue()) );
+        }
+        this.datasetURL = datasetURL;
+        this.query = query.toString();
+        this.hash = hash( datasetURL, this.query );
+    }
+
+    /**
+     *
+     * @return the URL of the dataset
+     */
+    public String getDatasetURL()
+    {
+        return datasetURL;
+    }
+
+    /**
+     *
+     * @return the canonical query string, which is empty if no parameter
+     *         determines the fragment
+     */
+    public String getQuery()
+    {
+        return query;
+    }
+
+    /**
+     *
+     * @return the canonical URL of the requested fragment
+     */
+    public String getURL()
+    {
+        return query.isEmpty() ? datasetURL : datasetURL + "?" + query;
+    }
+
+    /**
+     *
+     * @return the 64-bit hash of the key
+     */
+    public long getHash()
+    {
+        return hash;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return (int) ( hash ^ (hash >>> 32) );
+    }
+
+    @Override
+    public boolean equals( final Object o )
+    {
+        if ( this == o )
+            return true;
+        if ( ! (o instanceof FragmentRequestKey) )
+            return false;
+        final FragmentRequestKey other = (FragmentRequestKey) o;
+        return hash == other.hash
+                && query.equals( other.query )
+                && datasetURL.equals( other.datasetURL );
+    }
+
+    @Override
+    public String toString()
+    {
+        return getURL();
+    }
+
+    private static String encode( final String s )
+    {
+        try {
+            return URLEncoder.encode( s, "UTF-8" );
+        }
+        catch ( UnsupportedEncodingException e ) {
+            throw new IllegalStateException( e );
+        }
+    }
+
+    /**
+     * FNV-1a over the characters, followed by the finalizer of MurmurHash3
+     * to spread the bits.
+     */
+    private static long hash( final String datasetURL, final String query )
+    {
+        long h = 0xcbf29ce484222325L;
+        h = hash( h, datasetURL );
+        h = ( h ^ '?' ) * 0x100000001b3L;
+        h = hash( h, query );
+
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static long hash( long h, final String s )
+    {
+        for ( int i = 0; i < s.length(); i++ )
+            h = ( h ^ s.charAt(i) ) * 0x100000001b3L;
+        return h;
+    }
+
+}
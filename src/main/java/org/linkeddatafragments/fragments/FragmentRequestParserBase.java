@@ -53,6 +53,11 @@ abstract public class FragmentRequestParserBase implements
          */
 		public final long pageNumber;
 
+		/**
+		 * The requested page size, or 0 if none was requested
+		 */
+		public final long pageSize;
+
 		/**
 		 *
 		 * @param request
@@ -78,6 +83,18 @@ abstract public class FragmentRequestParserBase implements
 				this.pageNumber = 1L;
 				this.pageNumberWasRequested = false;
 			}
+
+			final String givenPageSize = request
+					.getParameter(ILinkedDataFragmentRequest.PARAMETERNAME_PAGESIZE);
+			long pageSize = 0L;
+			if (givenPageSize != null) {
+				try {
+					pageSize = Long.parseLong(givenPageSize);
+				} catch (final NumberFormatException ex) {
+					pageSize = 0L;
+				}
+			}
+			this.pageSize = (pageSize > 0) ? pageSize : 0L;
 		}
 
 		/**
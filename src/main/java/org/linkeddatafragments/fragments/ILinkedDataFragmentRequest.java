@@ -9,7 +9,7 @@ public interface ILinkedDataFragmentRequest
 {
 
     /**
-     *
+     * The default number of triples per page
      */
     public final static long TRIPLESPERPAGE = 100L;
 
@@ -18,6 +18,11 @@ public interface ILinkedDataFragmentRequest
      */
     public final static String PARAMETERNAME_PAGE = "page";
 
+    /**
+     * The parameter by which a client requests a number of triples per page
+     */
+    public final static String PARAMETERNAME_PAGESIZE = "pageSize";
+
     /**
      * Returns the URL of the requested LDF.
      * @return 
@@ -45,4 +50,19 @@ public interface ILinkedDataFragmentRequest
      * @return 
      */
     long getPageNumber();
+
+    /**
+     * Returns the number of triples per page requested by the client, or 0
+     * if the client did not request a page size. The page size of the
+     * fragment is bounded by the data source.
+     * @return 
+     */
+    long getPageSize();
+
+    /**
+     * Returns the canonical key of the request, which is equal for all
+     * requests of the same fragment.
+     * @return 
+     */
+    FragmentRequestKey getKey();
 }
@@ -1,9 +1,6 @@
 package org.linkeddatafragments.fragments;
 
 import org.apache.jena.rdf.model.Literal;
-import java.net.URISyntaxException;
-
-import org.apache.http.client.utils.URIBuilder;
 import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.ModelFactory;
 import org.apache.jena.rdf.model.Resource;
@@ -41,6 +38,14 @@ public abstract class LinkedDataFragmentBase implements ILinkedDataFragment
      */
     public final boolean isLastPage;
 
+    /**
+     * The number of triples per page
+     */
+    public final long maxPageSize;
+
+    // the fragment URL without page parameter, ready for a page number
+    private String pageURLPrefix;
+
     /**
      *
      * @param fragmentURL
@@ -52,11 +57,30 @@ public abstract class LinkedDataFragmentBase implements ILinkedDataFragment
                                       final String datasetURL,
                                       final long pageNumber,
                                       final boolean isLastPage )
+    {
+        this( fragmentURL, datasetURL, pageNumber, isLastPage,
+              ILinkedDataFragmentRequest.TRIPLESPERPAGE );
+    }
+
+    /**
+     *
+     * @param fragmentURL
+     * @param datasetURL
+     * @param pageNumber
+     * @param isLastPage
+     * @param maxPageSize the number of triples per page
+     */
+    protected LinkedDataFragmentBase( final String fragmentURL,
+                                      final String datasetURL,
+                                      final long pageNumber,
+                                      final boolean isLastPage,
+                                      final long maxPageSize )
     {
         this.fragmentURL = fragmentURL;
         this.datasetURL = datasetURL;
         this.pageNumber = pageNumber;
         this.isLastPage = isLastPage;
+        this.maxPageSize = maxPageSize;
     }
 
     /**
@@ -84,7 +108,7 @@ public abstract class LinkedDataFragmentBase implements ILinkedDataFragment
 
     @Override
     public long getMaxPageSize() {
-        return ILinkedDataFragmentRequest.TRIPLESPERPAGE;
+        return maxPageSize;
     }
 
     /**
@@ -141,44 +165,57 @@ public abstract class LinkedDataFragmentBase implements ILinkedDataFragment
      */
     public void addControls( final Model model )
     {
-        final URIBuilder pagedURL;
-        try {
-            pagedURL = new URIBuilder( fragmentURL );
-        }
-        catch ( URISyntaxException e ) {
-            throw new IllegalArgumentException( e );
-        }
-
         final Resource fragmentId = model.createResource( fragmentURL );
 
-        final Resource firstPageId =
-                model.createResource(
-                        pagedURL.setParameter(ILinkedDataFragmentRequest.PARAMETERNAME_PAGE,
-                                              "1").toString() );
+        final Resource firstPageId = model.createResource( getPageURL(1L) );
 
         fragmentId.addProperty( CommonResources.HYDRA_FIRSTPAGE, firstPageId );
 
         if ( pageNumber > 1) {
-            final String prevPageNumber = Long.toString( pageNumber - 1 );
             final Resource prevPageId =
-                    model.createResource(
-                            pagedURL.setParameter(ILinkedDataFragmentRequest.PARAMETERNAME_PAGE,
-                                                  prevPageNumber).toString() );
+                    model.createResource( getPageURL(pageNumber - 1) );
 
             fragmentId.addProperty( CommonResources.HYDRA_PREVIOUSPAGE, prevPageId );
         }
 
         if ( ! isLastPage ) {
-            final String nextPageNumber = Long.toString( pageNumber + 1 );
             final Resource nextPageId =
-                    model.createResource(
-                            pagedURL.setParameter(ILinkedDataFragmentRequest.PARAMETERNAME_PAGE,
-                                                  nextPageNumber).toString() );
+                    model.createResource( getPageURL(pageNumber + 1) );
 
             fragmentId.addProperty( CommonResources.HYDRA_NEXTPAGE, nextPageId );
         }
     }
 
+    /**
+     * Returns the URL of the given page of this fragment, which is the
+     * fragment URL with its page parameter (if any) replaced.
+     *
+     * @param page the page number
+     * @return the page URL
+     */
+    public String getPageURL( final long page )
+    {
+        if ( pageURLPrefix == null ) {
+            final String param = ILinkedDataFragmentRequest.PARAMETERNAME_PAGE;
+            final int query = fragmentURL.indexOf( '?' );
+            final StringBuilder prefix = new StringBuilder();
+            if ( query < 0 ) {
+                prefix.append( fragmentURL ).append( '?' );
+            }
+            else {
+                prefix.append( fragmentURL, 0, query + 1 );
+                for ( String p : fragmentURL.substring(query + 1).split("&") ) {
+                    if ( p.isEmpty() || p.equals(param)
+                                     || p.startsWith(param + "=") )
+                        continue;
+                    prefix.append( p ).append( '&' );
+                }
+            }
+            pageURLPrefix = prefix.append( param ).append( '=' ).toString();
+        }
+        return pageURLPrefix + page;
+    }
+
     /**
      *
      * @return
@@ -1,5 +1,8 @@
 package org.linkeddatafragments.fragments;
 
+import java.util.SortedMap;
+import java.util.TreeMap;
+
 /**
  * Base class for implementations of {@link ILinkedDataFragmentRequest}.
  *
@@ -28,6 +31,14 @@ public abstract class LinkedDataFragmentRequestBase
      *
      */
     public final long pageNumber;
+
+    /**
+     * The requested page size, or 0 if none was requested
+     */
+    public final long pageSize;
+
+    // computed when it is first needed; the key is immutable
+    private FragmentRequestKey key;
     
     /**
      *
@@ -40,11 +51,29 @@ public abstract class LinkedDataFragmentRequestBase
                                           final String datasetURL,
                                           final boolean pageNumberWasRequested,
                                           final long pageNumber )
+    {
+        this( fragmentURL, datasetURL, pageNumberWasRequested, pageNumber, 0L );
+    }
+
+    /**
+     *
+     * @param fragmentURL
+     * @param datasetURL
+     * @param pageNumberWasRequested
+     * @param pageNumber
+     * @param pageSize the requested page size, or 0 if none was requested
+     */
+    public LinkedDataFragmentRequestBase( final String fragmentURL,
+                                          final String datasetURL,
+                                          final boolean pageNumberWasRequested,
+                                          final long pageNumber,
+                                          final long pageSize )
     {
         this.fragmentURL = fragmentURL;
         this.datasetURL = datasetURL;
         this.pageNumberWasRequested = pageNumberWasRequested;
         this.pageNumber = (pageNumberWasRequested) ? pageNumber : 1L;
+        this.pageSize = (pageSize > 0L) ? pageSize : 0L;
     }
 
     @Override
@@ -67,6 +96,38 @@ public abstract class LinkedDataFragmentRequestBase
         return pageNumber;
     }
 
+    @Override
+    public long getPageSize() {
+        return pageSize;
+    }
+
+    @Override
+    public FragmentRequestKey getKey() {
+        FragmentRequestKey k = key;
+        if ( k == null ) {
+            final SortedMap<String, String> parameters = new TreeMap<>();
+            addKeyParameters( parameters );
+            k = new FragmentRequestKey( datasetURL, parameters );
+            key = k;
+        }
+        return k;
+    }
+
+    /**
+     * Adds the canonical values of the parameters that determine the
+     * requested fragment. Parameters with their default value are left out,
+     * such as page 1.
+     *
+     * @param parameters the canonical values by parameter name
+     */
+    protected void addKeyParameters( final SortedMap<String, String> parameters )
+    {
+        if ( pageNumber > 1L )
+            parameters.put( PARAMETERNAME_PAGE, Long.toString(pageNumber) );
+        if ( pageSize > 0L )
+            parameters.put( PARAMETERNAME_PAGESIZE, Long.toString(pageSize) );
+    }
+
     @Override
     public String toString()
     {
@@ -75,6 +136,7 @@ public abstract class LinkedDataFragmentRequestBase
                ", fragmentURL: " + fragmentURL +
                ", isPageRequest: " + pageNumberWasRequested +
                ", pageNumber: " + pageNumber +
+               ", pageSize: " + pageSize +
                ")";
     }
 
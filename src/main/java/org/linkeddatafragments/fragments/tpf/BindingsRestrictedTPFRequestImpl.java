@@ -0,0 +1,141 @@
+package org.linkeddatafragments.fragments.tpf;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeSet;
+
+import org.apache.jena.rdf.model.RDFNode;
+import org.apache.jena.sparql.util.FmtUtils;
+
+/**
+ * An implementation of {@link IBindingsRestrictedTPFRequest}.
+ *
+ * @param <CTT>
+ * @param <NVT>
+ * @param <AVT>
+ */
+public class BindingsRestrictedTPFRequestImpl<CTT,NVT,AVT>
+    extends TriplePatternFragmentRequestImpl<CTT,NVT,AVT>
+    implements IBindingsRestrictedTPFRequest<CTT,NVT,AVT>
+{
+
+    /**
+     *
+     */
+    public final List<Map<NVT,CTT>> solutionMappings;
+
+    /**
+     *
+     * @param fragmentURL
+     * @param datasetURL
+     * @param pageNumberWasRequested
+     * @param pageNumber
+     * @param pageSize the requested page size, or 0 if none was requested
+     * @param subject
+     * @param predicate
+     * @param object
+     * @param solutionMappings
+     */
+    public BindingsRestrictedTPFRequestImpl( final String fragmentURL,
+                                             final String datasetURL,
+                                             final boolean pageNumberWasRequested,
+                                             final long pageNumber,
+                                             final long pageSize,
+                                             final ITriplePatternElement<CTT,NVT,AVT> subject,
+                                             final ITriplePatternElement<CTT,NVT,AVT> predicate,
+                                             final ITriplePatternElement<CTT,NVT,AVT> object,
+                                             final List<Map<NVT,CTT>> solutionMappings )
+    {
+        super( fragmentURL, datasetURL, pageNumberWasRequested, pageNumber,
+               pageSize, subject, predicate, object );
+
+        if ( solutionMappings == null )
+            throw new IllegalArgumentException();
+
+        this.solutionMappings = Collections.unmodifiableList( solutionMappings );
+    }
+
+    @Override
+    public List<Map<NVT,CTT>> getSolutionMappings() {
+        return solutionMappings;
+    }
+
+    /**
+     * Adds the solution mappings as a VALUES block with the variables in
+     * alphabetical order. The order of the solution mappings is kept,
+     * because it determines the order of the triples in the fragment.
+     * The variables of the triple pattern that the solution mappings bind
+     * are added as well, because they tell which positions are bound.
+     *
+     * @param parameters
+     */
+    @Override
+    protected void addKeyParameters( final SortedMap<String, String> parameters )
+    {
+        super.addKeyParameters( parameters );
+
+        final TreeSet<String> names = new TreeSet<>();
+        for ( Map<NVT,CTT> mapping : solutionMappings ) {
+            for ( NVT variable : mapping.keySet() )
+                names.add( variable.toString() );
+        }
+        addVariable( parameters, PARAMETERNAME_SUBJ, subject, names );
+        addVariable( parameters, PARAMETERNAME_PRED, predicate, names );
+        addVariable( parameters, PARAMETERNAME_OBJ, object, names );
+
+        final StringBuilder values = new StringBuilder( "VALUES (" );
+        for ( String name : names )
+            values.append( '?' ).append( name ).append( ' ' );
+        values.append( ") {" );
+        final HashMap<String,CTT> terms = new HashMap<>();
+        for ( Map<NVT,CTT> mapping : solutionMappings ) {
+            terms.clear();
+            for ( Map.Entry<NVT,CTT> binding : mapping.entrySet() )
+                terms.put( binding.getKey().toString(), binding.getValue() );
+            values.append( " (" );
+            for ( String name : names )
+                values.append( toValue(terms.get(name)) ).append( ' ' );
+            values.append( ')' );
+        }
+        parameters.put( PARAMETERNAME_VALUES, values.append( " }" ).toString() );
+    }
+
+    private static void addVariable( final SortedMap<String, String> parameters,
+                                     final String name,
+                                     final ITriplePatternElement<?,?,?> element,
+                                     final TreeSet<String> names )
+    {
+        if ( element.isNamedVariable()
+             && names.contains(element.asNamedVariable().toString()) )
+            parameters.put( name, "?" + element.asNamedVariable() );
+    }
+
+    private static String toValue( final Object term )
+    {
+        if ( term == null )
+            return "UNDEF";
+        if ( term instanceof RDFNode )
+            return FmtUtils.stringForNode( ((RDFNode) term).asNode() );
+        return term.toString();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "BindingsRestrictedTPFRequest(" +
+               "class: " + getClass().getName() +
+               ", subject: " + subject.toString() +
+               ", predicate: " + predicate.toString() +
+               ", object: " + object.toString() +
+               ", solutionMappings: " + solutionMappings.toString() +
+               ", fragmentURL: " + fragmentURL +
+               ", isPageRequest: " + pageNumberWasRequested +
+               ", pageNumber: " + pageNumber +
+               ", pageSize: " + pageSize +
+               ")";
+    }
+
+}
@@ -0,0 +1,88 @@
+package org.linkeddatafragments.fragments.tpf;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.jena.datatypes.xsd.XSDDatatype;
+import org.apache.jena.graph.Node;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.Property;
+import org.apache.jena.rdf.model.Resource;
+import org.linkeddatafragments.util.CommonResources;
+
+/**
+ * The order of the triples of a page of an ordered fragment: the position
+ * by which they are ordered, and the sort keys of the terms at that
+ * position. The keys are those of the index of the data source, so they
+ * are the same in all fragments of the data source that are ordered by the
+ * same position, and a client can merge such fragments by comparing them,
+ * even though the triples of a page are not serialized in order. Keys of
+ * fragments ordered by different positions need not be comparable.
+ */
+public class FragmentOrder
+{
+    private final Property position;
+    private final Map<Node, Long> keys = new LinkedHashMap<>();
+
+    /**
+     * Creates the order of a page without sort keys.
+     *
+     * @param position {@link CommonResources#RDF_SUBJECT},
+     *        {@link CommonResources#RDF_PREDICATE}, or
+     *        {@link CommonResources#RDF_OBJECT}
+     */
+    public FragmentOrder( final Property position )
+    {
+        this.position = position;
+    }
+
+    /**
+     *
+     * @return the position by which the triples are ordered
+     */
+    public Property getPosition()
+    {
+        return position;
+    }
+
+    /**
+     * Sets the sort key of a term of the page.
+     *
+     * @param term a term at the position
+     * @param key its sort key
+     */
+    public void setKey( final Node term, final long key )
+    {
+        keys.put( term, key );
+    }
+
+    /**
+     * Gets the sort keys of the terms of the page.
+     *
+     * @return the keys by term, in the order of the page
+     */
+    public Map<Node, Long> getKeys()
+    {
+        return keys;
+    }
+
+    /**
+     * Adds the order to the metadata of a fragment.
+     *
+     * @param model the model of the metadata
+     * @param fragmentId the fragment
+     */
+    public void addTo( final Model model, final Resource fragmentId )
+    {
+        fragmentId.addProperty( CommonResources.ORDER_ORDEREDBY, position );
+        for ( Map.Entry<Node, Long> key : keys.entrySet() ) {
+            final Resource keyId = model.createResource();
+            fragmentId.addProperty( CommonResources.ORDER_SORTKEY, keyId );
+            keyId.addProperty( CommonResources.RDF_VALUE,
+                               model.asRDFNode(key.getKey()) );
+            keyId.addLiteral( CommonResources.ORDER_KEY,
+                    model.createTypedLiteral( key.getValue(), XSDDatatype.XSDinteger ) );
+        }
+    }
+
+}
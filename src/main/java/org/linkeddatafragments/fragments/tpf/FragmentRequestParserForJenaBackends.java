@@ -0,0 +1,308 @@
+package org.linkeddatafragments.fragments.tpf;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.query.Query;
+import org.apache.jena.query.QueryException;
+import org.apache.jena.query.QueryFactory;
+import org.apache.jena.query.Syntax;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.RDFNode;
+import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.engine.binding.Binding;
+import org.linkeddatafragments.config.ConfigReader;
+import org.linkeddatafragments.fragments.ILinkedDataFragmentRequest;
+
+/**
+ * A {@link TPFRequestParser} for Jena-based backends that parses all kinds
+ * of fragment requests of a triple pattern. The kind is given by the
+ * parameters in addition to those of the triple pattern:
+ * <ul>
+ * <li>"values": a bindings-restricted Triple Pattern Fragment, whose
+ *     solution mappings are given as a SPARQL VALUES block;</li>
+ * <li>"predicate2", "object2", ...: a Star Pattern Fragment, of which each
+ *     further triple pattern is given by a predicate and an object
+ *     parameter with its number;</li>
+ * <li>"search": a text search fragment;</li>
+ * <li>"min" and/or "max": a range fragment;</li>
+ * <li>"order": an ordered fragment.</li>
+ * </ul>
+ * Requests without any of them are parsed into ordinary
+ * {@link ITriplePatternFragmentRequest}s. These kinds cannot be combined;
+ * requests with the parameters of more than one kind are rejected.
+ */
+public class FragmentRequestParserForJenaBackends
+    extends TPFRequestParserForJenaBackends
+{
+    /**
+     * Maximum number of solution mappings of a request
+     */
+    public final static int MAX_SOLUTION_MAPPINGS = 30;
+
+    private static FragmentRequestParserForJenaBackends instance = null;
+
+    // only used to convert the nodes of the solution mappings into RDFNodes
+    private final static Model nodes = ModelFactory.createDefaultModel();
+
+    /**
+     *
+     * @return
+     */
+    public static FragmentRequestParserForJenaBackends getInstance()
+    {
+        if ( instance == null ) {
+            instance = new FragmentRequestParserForJenaBackends();
+        }
+        return instance;
+    }
+
+    /**
+     *
+     */
+    protected FragmentRequestParserForJenaBackends() {}
+
+    /**
+     *
+     * @param httpRequest
+     * @param config
+     * @return
+     * @throws IllegalArgumentException
+     */
+    @Override
+    protected Worker getWorker( final HttpServletRequest httpRequest,
+                                final ConfigReader config )
+                                               throws IllegalArgumentException
+    {
+        return new Worker( httpRequest, config );
+    }
+
+    /**
+     * Parses a VALUES block into its solution mappings.
+     *
+     * @param values a VALUES block, with or without the VALUES keyword
+     * @return the solution mappings, which map variable names to terms
+     * @throws IllegalArgumentException if the block cannot be parsed or
+     *         contains more than {@link #MAX_SOLUTION_MAPPINGS} mappings
+     */
+    public static List<Map<String,RDFNode>> parseSolutionMappings(
+                                                      final String values )
+                                               throws IllegalArgumentException
+    {
+        final String block = values.trim();
+        final String query = block.toUpperCase( Locale.ROOT ).startsWith( "VALUES" )
+                ? "SELECT * WHERE {} " + block
+                : "SELECT * WHERE {} VALUES " + block;
+
+        final Query parsed;
+        try {
+            parsed = QueryFactory.create( query, Syntax.syntaxSPARQL_11 );
+        }
+        catch ( QueryException e ) {
+            throw new IllegalArgumentException(
+                    "Invalid VALUES block: " + e.getMessage() );
+        }
+        if ( ! parsed.hasValues() || parsed.hasLimit() || parsed.hasOffset()
+                                  || parsed.hasOrderBy() )
+            throw new IllegalArgumentException( "Invalid VALUES block." );
+
+        final List<Binding> rows = parsed.getValuesData();
+        if ( rows.size() > MAX_SOLUTION_MAPPINGS )
+            throw new IllegalArgumentException(
+                    "At most " + MAX_SOLUTION_MAPPINGS + " solution mappings"
+                    + " can be requested." );
+
+        final List<Var> variables = parsed.getValuesVariables();
+        final List<Map<String,RDFNode>> mappings = new ArrayList<>( rows.size() );
+        for ( Binding row : rows ) {
+            final Map<String,RDFNode> mapping = new HashMap<>();
+            for ( Var variable : variables ) {
+                final Node term = row.get( variable );
+                if ( term != null )
+                    mapping.put( variable.getVarName(), nodes.asRDFNode(term) );
+            }
+            mappings.add( mapping );
+        }
+        return mappings;
+    }
+
+    /**
+     *
+     */
+    protected class Worker
+        extends TPFRequestParser<RDFNode,String,String>.Worker
+    {
+
+        /**
+         *
+         * @param request
+         * @param config
+         */
+        public Worker( final HttpServletRequest request,
+                       final ConfigReader config )
+        {
+            super( request, config );
+        }
+
+        /**
+         *
+         * @return
+         * @throws IllegalArgumentException if the request has the
+         *         parameters of more than one kind of fragment, or invalid
+         *         parameters
+         */
+        @Override
+        public ILinkedDataFragmentRequest createFragmentRequest()
+                                               throws IllegalArgumentException
+        {
+            final String values = getNonEmptyParameter(
+                    IBindingsRestrictedTPFRequest.PARAMETERNAME_VALUES );
+            final boolean isStar = hasTriplePattern( 1 );
+            final String search = getNonEmptyParameter(
+                    ITextSearchFragmentRequest.PARAMETERNAME_SEARCH );
+            final String min = getNonEmptyParameter(
+                    IRangeFragmentRequest.PARAMETERNAME_MIN );
+            final String max = getNonEmptyParameter(
+                    IRangeFragmentRequest.PARAMETERNAME_MAX );
+            final String order = getNonEmptyParameter(
+                    IOrderedFragmentRequest.PARAMETERNAME_ORDER );
+
+            final List<String> kinds = new ArrayList<>();
+            if ( values != null )
+                kinds.add( "bindings" );
+            if ( isStar )
+                kinds.add( "star pattern" );
+            if ( search != null )
+                kinds.add( "text search" );
+            if ( min != null || max != null )
+                kinds.add( "range" );
+            if ( order != null )
+                kinds.add( "order" );
+            if ( kinds.size() > 1 )
+                throw new IllegalArgumentException(
+                        "A fragment cannot combine " + kinds + "." );
+
+            if ( values != null )
+                return new BindingsRestrictedTPFRequestImpl<RDFNode,String,String>(
+                                                         getFragmentURL(),
+                                                         getDatasetURL(),
+                                                         pageNumberWasRequested,
+                                                         pageNumber,
+                                                         pageSize,
+                                                         getSubject(),
+                                                         getPredicate(),
+                                                         getObject(),
+                                                         parseSolutionMappings(values) );
+            if ( isStar )
+                return createStarPatternFragmentRequest();
+            if ( search != null )
+                return new TextSearchFragmentRequestImpl<RDFNode,String,String>(
+                                                         getFragmentURL(),
+                                                         getDatasetURL(),
+                                                         pageNumberWasRequested,
+                                                         pageNumber,
+                                                         pageSize,
+                                                         getSubject(),
+                                                         getPredicate(),
+                                                         getObject(),
+                                                         search );
+            if ( min != null || max != null )
+                return new RangeFragmentRequestImpl<RDFNode,String,String>(
+                                                         getFragmentURL(),
+                                                         getDatasetURL(),
+                                                         pageNumberWasRequested,
+                                                         pageNumber,
+                                                         pageSize,
+                                                         getSubject(),
+                                                         getPredicate(),
+                                                         getObject(),
+                                                         getBound( min ),
+                                                         getBound( max ) );
+            if ( order != null )
+                return new OrderedFragmentRequestImpl<RDFNode,String,String>(
+                                                         getFragmentURL(),
+                                                         getDatasetURL(),
+                                                         pageNumberWasRequested,
+                                                         pageNumber,
+                                                         pageSize,
+                                                         getSubject(),
+                                                         getPredicate(),
+                                                         getObject(),
+                                                         OrderedFragmentRequestImpl.parseOrder( order ) );
+            return super.createFragmentRequest();
+        }
+
+        private ILinkedDataFragmentRequest createStarPatternFragmentRequest()
+                                               throws IllegalArgumentException
+        {
+            final List<ITriplePatternElement<RDFNode,String,String>> predicates =
+                                                             new ArrayList<>();
+            final List<ITriplePatternElement<RDFNode,String,String>> objects =
+                                                             new ArrayList<>();
+            predicates.add( getPredicate() );
+            objects.add( getObject() );
+            for ( int i = 1; hasTriplePattern(i); i++ ) {
+                if ( i == IStarPatternFragmentRequest.MAX_TRIPLE_PATTERNS )
+                    throw new IllegalArgumentException(
+                            "A star pattern has at most "
+                            + IStarPatternFragmentRequest.MAX_TRIPLE_PATTERNS
+                            + " triple patterns." );
+
+                predicates.add( getParameterAsTriplePatternElement(
+                        StarPatternFragmentRequestImpl.getParameterName(
+                                ITriplePatternFragmentRequest.PARAMETERNAME_PRED, i) ) );
+                objects.add( getParameterAsTriplePatternElement(
+                        StarPatternFragmentRequestImpl.getParameterName(
+                                ITriplePatternFragmentRequest.PARAMETERNAME_OBJ, i) ) );
+            }
+
+            return new StarPatternFragmentRequestImpl<RDFNode,String,String>(
+                                                         getFragmentURL(),
+                                                         getDatasetURL(),
+                                                         pageNumberWasRequested,
+                                                         pageNumber,
+                                                         pageSize,
+                                                         getSubject(),
+                                                         predicates,
+                                                         objects );
+        }
+
+        private boolean hasTriplePattern( final int i )
+        {
+            return request.getParameter( StarPatternFragmentRequestImpl.getParameterName(
+                       ITriplePatternFragmentRequest.PARAMETERNAME_PRED, i) ) != null
+                || request.getParameter( StarPatternFragmentRequestImpl.getParameterName(
+                       ITriplePatternFragmentRequest.PARAMETERNAME_OBJ, i) ) != null;
+        }
+
+        private String getNonEmptyParameter( final String name )
+        {
+            final String parameter = request.getParameter( name );
+            return parameter == null || parameter.trim().isEmpty()
+                    ? null : parameter;
+        }
+
+        private RDFNode getBound( final String parameter )
+                                               throws IllegalArgumentException
+        {
+            if ( parameter == null )
+                return null;
+
+            final ITriplePatternElement<RDFNode,String,String> bound =
+                                elmtParser.parseIntoTriplePatternElement( parameter );
+            if ( bound.isVariable() || ! bound.asConstantTerm().isLiteral() )
+                throw new IllegalArgumentException(
+                        "The bounds of a range must be literals." );
+            return bound.asConstantTerm();
+        }
+
+    } // end of class Worker
+
+}
@@ -0,0 +1,36 @@
+package org.linkeddatafragments.fragments.tpf;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Represents a request of a bindings-restricted Triple Pattern Fragment
+ * (brTPF): a triple pattern together with a sequence of solution mappings.
+ * The fragment contains the triples that match the triple pattern with the
+ * variables of at least one of the solution mappings substituted by the
+ * terms they are bound to.
+ *
+ * @param <ConstantTermType> type for representing constants in triple patterns
+ *                           (i.e., URIs and literals)
+ * @param <NamedVarType> type for representing named variables in triple patterns
+ * @param <AnonVarType> type for representing anonymous variables in triple
+ *                      patterns (i.e., variables denoted by a blank node)
+ */
+public interface IBindingsRestrictedTPFRequest<ConstantTermType,NamedVarType,AnonVarType>
+    extends ITriplePatternFragmentRequest<ConstantTermType,NamedVarType,AnonVarType>
+{
+    /**
+     * The parameter that contains the solution mappings as a SPARQL VALUES
+     * block
+     */
+    public final static String PARAMETERNAME_VALUES = "values";
+
+    /**
+     * Returns the solution mappings, in the order in which they were
+     * requested. A variable that is unbound in a solution mapping (UNDEF)
+     * is not contained in its map.
+     *
+     * @return the solution mappings
+     */
+    List<Map<NamedVarType,ConstantTermType>> getSolutionMappings();
+}
@@ -0,0 +1,35 @@
+package org.linkeddatafragments.fragments.tpf;
+
+import org.apache.jena.rdf.model.Property;
+
+/**
+ * Represents a request of an ordered fragment: a triple pattern of which
+ * the matching triples are paged in the order of the terms at one position.
+ * The order is that of an index of the data source, such that no triples
+ * have to be sorted; the sort keys of the terms on a page are added to its
+ * metadata.
+ *
+ * @param <ConstantTermType> type for representing constants in triple patterns
+ *                           (i.e., URIs and literals)
+ * @param <NamedVarType> type for representing named variables in triple patterns
+ * @param <AnonVarType> type for representing anonymous variables in triple
+ *                      patterns (i.e., variables denoted by a blank node)
+ */
+public interface IOrderedFragmentRequest<ConstantTermType,NamedVarType,AnonVarType>
+    extends ITriplePatternFragmentRequest<ConstantTermType,NamedVarType,AnonVarType>
+{
+    /**
+     * The parameter that contains the position to order by: "subject",
+     * "predicate", or "object"
+     */
+    public final static String PARAMETERNAME_ORDER = "order";
+
+    /**
+     * Returns the position of the terms by which the triples are ordered.
+     *
+     * @return {@link org.linkeddatafragments.util.CommonResources#RDF_SUBJECT},
+     *         {@link org.linkeddatafragments.util.CommonResources#RDF_PREDICATE},
+     *         or {@link org.linkeddatafragments.util.CommonResources#RDF_OBJECT}
+     */
+    Property getOrder();
+}
@@ -0,0 +1,42 @@
+package org.linkeddatafragments.fragments.tpf;
+
+/**
+ * Represents a request of a range fragment: a triple pattern with a constant
+ * predicate and a variable object together with a minimum and/or a maximum.
+ * The fragment contains the triples that match the triple pattern and of
+ * which the object is a numeric or a date/time literal with a value within
+ * the bounds, which are both inclusive.
+ *
+ * @param <ConstantTermType> type for representing constants in triple patterns
+ *                           (i.e., URIs and literals)
+ * @param <NamedVarType> type for representing named variables in triple patterns
+ * @param <AnonVarType> type for representing anonymous variables in triple
+ *                      patterns (i.e., variables denoted by a blank node)
+ */
+public interface IRangeFragmentRequest<ConstantTermType,NamedVarType,AnonVarType>
+    extends ITriplePatternFragmentRequest<ConstantTermType,NamedVarType,AnonVarType>
+{
+    /**
+     * The parameter that contains the minimum
+     */
+    public final static String PARAMETERNAME_MIN = "min";
+
+    /**
+     * The parameter that contains the maximum
+     */
+    public final static String PARAMETERNAME_MAX = "max";
+
+    /**
+     * Returns the minimum value of the objects of the triples.
+     *
+     * @return a numeric or date/time literal, or null if there is none
+     */
+    ConstantTermType getMinimum();
+
+    /**
+     * Returns the maximum value of the objects of the triples.
+     *
+     * @return a numeric or date/time literal, or null if there is none
+     */
+    ConstantTermType getMaximum();
+}
@@ -0,0 +1,44 @@
+package org.linkeddatafragments.fragments.tpf;
+
+/**
+ * Represents a request of a Star Pattern Fragment: several triple patterns
+ * that share their subject. The fragment contains the triples of the
+ * solutions of the star pattern, that is, of the combinations of matching
+ * triples with the same subject. The first triple pattern is also the
+ * triple pattern of the request as an {@link ITriplePatternFragmentRequest}.
+ *
+ * @param <ConstantTermType> type for representing constants in triple patterns
+ *                           (i.e., URIs and literals)
+ * @param <NamedVarType> type for representing named variables in triple patterns
+ * @param <AnonVarType> type for representing anonymous variables in triple
+ *                      patterns (i.e., variables denoted by a blank node)
+ */
+public interface IStarPatternFragmentRequest<ConstantTermType,NamedVarType,AnonVarType>
+    extends ITriplePatternFragmentRequest<ConstantTermType,NamedVarType,AnonVarType>
+{
+    /**
+     * The maximum number of triple patterns of a star pattern
+     */
+    public final static int MAX_TRIPLE_PATTERNS = 8;
+
+    /**
+     * Returns the number of triple patterns of the star pattern.
+     * @return at least 1
+     */
+    int getNumberOfTriplePatterns();
+
+    /**
+     * Returns the predicate position of a triple pattern of the star
+     * pattern.
+     * @param i the index of the triple pattern, starting at 0
+     * @return
+     */
+    ITriplePatternElement<ConstantTermType,NamedVarType,AnonVarType> getPredicate( int i );
+
+    /**
+     * Returns the object position of a triple pattern of the star pattern.
+     * @param i the index of the triple pattern, starting at 0
+     * @return
+     */
+    ITriplePatternElement<ConstantTermType,NamedVarType,AnonVarType> getObject( int i );
+}
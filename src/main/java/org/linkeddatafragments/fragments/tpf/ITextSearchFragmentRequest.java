@@ -0,0 +1,34 @@
+package org.linkeddatafragments.fragments.tpf;
+
+/**
+ * Represents a request of a text search fragment: a triple pattern with a
+ * variable object together with a text. The fragment contains the triples
+ * that match the triple pattern and of which the object is a literal whose
+ * lexical form contains the text, ignoring case.
+ *
+ * @param <ConstantTermType> type for representing constants in triple patterns
+ *                           (i.e., URIs and literals)
+ * @param <NamedVarType> type for representing named variables in triple patterns
+ * @param <AnonVarType> type for representing anonymous variables in triple
+ *                      patterns (i.e., variables denoted by a blank node)
+ */
+public interface ITextSearchFragmentRequest<ConstantTermType,NamedVarType,AnonVarType>
+    extends ITriplePatternFragmentRequest<ConstantTermType,NamedVarType,AnonVarType>
+{
+    /**
+     * The parameter that contains the text
+     */
+    public final static String PARAMETERNAME_SEARCH = "search";
+
+    /**
+     * The minimum number of characters of the text
+     */
+    public final static int MIN_SEARCH_LENGTH = 3;
+
+    /**
+     * Returns the text that the objects of the triples contain.
+     *
+     * @return the text, with at least {@link #MIN_SEARCH_LENGTH} characters
+     */
+    String getSearchText();
+}
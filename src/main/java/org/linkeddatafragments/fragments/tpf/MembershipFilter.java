@@ -0,0 +1,93 @@
+package org.linkeddatafragments.fragments.tpf;
+
+import java.util.Base64;
+
+import org.apache.jena.datatypes.xsd.XSDDatatype;
+import org.apache.jena.graph.Node;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.Property;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.riot.out.NodeFmtLib;
+import org.linkeddatafragments.util.BloomFilter;
+import org.linkeddatafragments.util.CommonResources;
+
+/**
+ * An approximate membership filter of the terms at one position of all
+ * triples of a Triple Pattern Fragment, with which a client can tell that
+ * a term certainly does not occur at that position without requesting the
+ * fragment of that term. The terms are added to a {@link BloomFilter} in
+ * N-Triples syntax; the filter is described in the metadata of the
+ * fragment with its bits as a base64-encoded literal.
+ */
+public class MembershipFilter
+{
+    private final Property position;
+    private final BloomFilter filter;
+    private final String bitArray;
+
+    /**
+     * Creates the description of a filter.
+     *
+     * @param position {@link CommonResources#RDF_SUBJECT} or
+     *        {@link CommonResources#RDF_OBJECT}
+     * @param filter the filter, which must not be modified anymore
+     */
+    public MembershipFilter( final Property position,
+                             final BloomFilter filter )
+    {
+        this.position = position;
+        this.filter = filter;
+        this.bitArray = Base64.getEncoder().encodeToString( filter.toByteArray() );
+    }
+
+    /**
+     * Gets the string of a term that is added to the filter.
+     *
+     * @param term the term
+     * @return the term in N-Triples syntax
+     */
+    public static String toElement( final Node term )
+    {
+        return NodeFmtLib.str( term );
+    }
+
+    /**
+     *
+     * @return the position of the terms in the triples
+     */
+    public Property getPosition()
+    {
+        return position;
+    }
+
+    /**
+     *
+     * @return the filter
+     */
+    public BloomFilter getFilter()
+    {
+        return filter;
+    }
+
+    /**
+     * Adds the description of the filter to the metadata of a fragment.
+     *
+     * @param model the model of the metadata
+     * @param fragmentId the fragment
+     */
+    public void addTo( final Model model, final Resource fragmentId )
+    {
+        final Resource filterId = model.createResource();
+        fragmentId.addProperty( CommonResources.MEMBERSHIP_FILTER, filterId );
+        filterId.addProperty( CommonResources.RDF_TYPE,
+                              CommonResources.MEMBERSHIP_BLOOMFILTER );
+        filterId.addProperty( CommonResources.MEMBERSHIP_VARIABLE, position );
+        filterId.addLiteral( CommonResources.MEMBERSHIP_HASHES,
+                model.createTypedLiteral( filter.getHashes(), XSDDatatype.XSDinteger ) );
+        filterId.addLiteral( CommonResources.MEMBERSHIP_BITS,
+                model.createTypedLiteral( filter.getSize(), XSDDatatype.XSDinteger ) );
+        filterId.addLiteral( CommonResources.MEMBERSHIP_BITARRAY,
+                model.createTypedLiteral( bitArray, XSDDatatype.XSDbase64Binary ) );
+    }
+
+}
@@ -0,0 +1,113 @@
+package org.linkeddatafragments.fragments.tpf;
+
+import java.util.SortedMap;
+
+import org.apache.jena.rdf.model.Property;
+import org.linkeddatafragments.util.CommonResources;
+
+/**
+ * An implementation of {@link IOrderedFragmentRequest}.
+ *
+ * @param <CTT>
+ * @param <NVT>
+ * @param <AVT>
+ */
+public class OrderedFragmentRequestImpl<CTT,NVT,AVT>
+    extends TriplePatternFragmentRequestImpl<CTT,NVT,AVT>
+    implements IOrderedFragmentRequest<CTT,NVT,AVT>
+{
+
+    /**
+     *
+     */
+    public final Property order;
+
+    /**
+     *
+     * @param fragmentURL
+     * @param datasetURL
+     * @param pageNumberWasRequested
+     * @param pageNumber
+     * @param pageSize the requested page size, or 0 if none was requested
+     * @param subject
+     * @param predicate
+     * @param object
+     * @param order the position to order by
+     * @throws IllegalArgumentException if the order is not a position
+     */
+    public OrderedFragmentRequestImpl( final String fragmentURL,
+                                       final String datasetURL,
+                                       final boolean pageNumberWasRequested,
+                                       final long pageNumber,
+                                       final long pageSize,
+                                       final ITriplePatternElement<CTT,NVT,AVT> subject,
+                                       final ITriplePatternElement<CTT,NVT,AVT> predicate,
+                                       final ITriplePatternElement<CTT,NVT,AVT> object,
+                                       final Property order )
+                                               throws IllegalArgumentException
+    {
+        super( fragmentURL, datasetURL, pageNumberWasRequested, pageNumber,
+               pageSize, subject, predicate, object );
+
+        if ( ! CommonResources.RDF_SUBJECT.equals(order)
+                && ! CommonResources.RDF_PREDICATE.equals(order)
+                && ! CommonResources.RDF_OBJECT.equals(order) )
+            throw new IllegalArgumentException(
+                    "The order must be a position of the triple pattern." );
+
+        this.order = order;
+    }
+
+    /**
+     * Gets the position of a value of the "order" parameter.
+     *
+     * @param order "subject", "predicate", or "object"
+     * @return the position
+     * @throws IllegalArgumentException if the value is none of these
+     */
+    public static Property parseOrder( final String order )
+                                               throws IllegalArgumentException
+    {
+        if ( "subject".equals(order) )
+            return CommonResources.RDF_SUBJECT;
+        if ( "predicate".equals(order) )
+            return CommonResources.RDF_PREDICATE;
+        if ( "object".equals(order) )
+            return CommonResources.RDF_OBJECT;
+        throw new IllegalArgumentException(
+                "The order must be subject, predicate, or object." );
+    }
+
+    @Override
+    public Property getOrder() {
+        return order;
+    }
+
+    /**
+     *
+     * @param parameters
+     */
+    @Override
+    protected void addKeyParameters( final SortedMap<String, String> parameters )
+    {
+        super.addKeyParameters( parameters );
+        parameters.put( PARAMETERNAME_ORDER, order.getLocalName() );
+    }
+
+    @Override
+    public String toString()
+    {
+        return "OrderedFragmentRequest(" +
+               "class: " + getClass().getName() +
+               ", subject: " + subject.toString() +
+               ", predicate: " + predicate.toString() +
+               ", object: " + object.toString() +
+               ", order: " + order.getLocalName() +
+               ", fragmentURL: " + fragmentURL +
+               ", isPageRequest: " + pageNumberWasRequested +
+               ", pageNumber: " + pageNumber +
+               ", pageSize: " + pageSize +
+               ")";
+    }
+
+}
@@ -0,0 +1,126 @@
+package org.linkeddatafragments.fragments.tpf;
+
+import java.util.SortedMap;
+
+import org.apache.jena.rdf.model.RDFNode;
+import org.linkeddatafragments.util.TriplePatternElementParserForJena;
+
+/**
+ * An implementation of {@link IRangeFragmentRequest}.
+ *
+ * @param <CTT>
+ * @param <NVT>
+ * @param <AVT>
+ */
+public class RangeFragmentRequestImpl<CTT,NVT,AVT>
+    extends TriplePatternFragmentRequestImpl<CTT,NVT,AVT>
+    implements IRangeFragmentRequest<CTT,NVT,AVT>
+{
+
+    /**
+     *
+     */
+    public final CTT minimum;
+
+    /**
+     *
+     */
+    public final CTT maximum;
+
+    /**
+     *
+     * @param fragmentURL
+     * @param datasetURL
+     * @param pageNumberWasRequested
+     * @param pageNumber
+     * @param pageSize the requested page size, or 0 if none was requested
+     * @param subject
+     * @param predicate a constant
+     * @param object a variable
+     * @param minimum the minimum, or null if there is none
+     * @param maximum the maximum, or null if there is none
+     * @throws IllegalArgumentException if the predicate is not a constant,
+     *         the object is not a variable, or there is no bound
+     */
+    public RangeFragmentRequestImpl( final String fragmentURL,
+                                     final String datasetURL,
+                                     final boolean pageNumberWasRequested,
+                                     final long pageNumber,
+                                     final long pageSize,
+                                     final ITriplePatternElement<CTT,NVT,AVT> subject,
+                                     final ITriplePatternElement<CTT,NVT,AVT> predicate,
+                                     final ITriplePatternElement<CTT,NVT,AVT> object,
+                                     final CTT minimum,
+                                     final CTT maximum )
+                                               throws IllegalArgumentException
+    {
+        super( fragmentURL, datasetURL, pageNumberWasRequested, pageNumber,
+               pageSize, subject, predicate, object );
+
+        if ( predicate.isVariable() )
+            throw new IllegalArgumentException(
+                    "The predicate of a range must be a constant." );
+        if ( ! object.isVariable() )
+            throw new IllegalArgumentException(
+                    "The object of a range must be a variable." );
+        if ( minimum == null && maximum == null )
+            throw new IllegalArgumentException(
+                    "A range has a minimum or a maximum." );
+
+        this.minimum = minimum;
+        this.maximum = maximum;
+    }
+
+    @Override
+    public CTT getMinimum() {
+        return minimum;
+    }
+
+    @Override
+    public CTT getMaximum() {
+        return maximum;
+    }
+
+    /**
+     *
+     * @param parameters
+     */
+    @Override
+    protected void addKeyParameters( final SortedMap<String, String> parameters )
+    {
+        super.addKeyParameters( parameters );
+        addKeyParameter( parameters, PARAMETERNAME_MIN, minimum );
+        addKeyParameter( parameters, PARAMETERNAME_MAX, maximum );
+    }
+
+    private static void addKeyParameter(
+                              final SortedMap<String, String> parameters,
+                              final String name,
+                              final Object term )
+    {
+        if ( term == null )
+            return;
+
+        parameters.put( name, term instanceof RDFNode
+                ? TriplePatternElementParserForJena.toParameter( (RDFNode) term )
+                : term.toString() );
+    }
+
+    @Override
+    public String toString()
+    {
+        return "RangeFragmentRequest(" +
+               "class: " + getClass().getName() +
+               ", subject: " + subject.toString() +
+               ", predicate: " + predicate.toString() +
+               ", object: " + object.toString() +
+               ", minimum: " + minimum +
+               ", maximum: " + maximum +
+               ", fragmentURL: " + fragmentURL +
+               ", isPageRequest: " + pageNumberWasRequested +
+               ", pageNumber: " + pageNumber +
+               ", pageSize: " + pageSize +
+               ")";
+    }
+
+}
@@ -0,0 +1,162 @@
+package org.linkeddatafragments.fragments.tpf;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedMap;
+
+import org.apache.jena.rdf.model.RDFNode;
+import org.linkeddatafragments.util.TriplePatternElementParserForJena;
+
+/**
+ * An implementation of {@link IStarPatternFragmentRequest}.
+ *
+ * @param <CTT>
+ * @param <NVT>
+ * @param <AVT>
+ */
+public class StarPatternFragmentRequestImpl<CTT,NVT,AVT>
+    extends TriplePatternFragmentRequestImpl<CTT,NVT,AVT>
+    implements IStarPatternFragmentRequest<CTT,NVT,AVT>
+{
+
+    /**
+     * The predicates of the triple patterns
+     */
+    public final List<ITriplePatternElement<CTT,NVT,AVT>> predicates;
+
+    /**
+     * The objects of the triple patterns
+     */
+    public final List<ITriplePatternElement<CTT,NVT,AVT>> objects;
+
+    /**
+     *
+     * @param fragmentURL
+     * @param datasetURL
+     * @param pageNumberWasRequested
+     * @param pageNumber
+     * @param pageSize the requested page size, or 0 if none was requested
+     * @param subject the shared subject
+     * @param predicates the predicates of the triple patterns
+     * @param objects the objects of the triple patterns, in the order of
+     *                the predicates
+     */
+    public StarPatternFragmentRequestImpl( final String fragmentURL,
+                                           final String datasetURL,
+                                           final boolean pageNumberWasRequested,
+                                           final long pageNumber,
+                                           final long pageSize,
+                                           final ITriplePatternElement<CTT,NVT,AVT> subject,
+                                           final List<ITriplePatternElement<CTT,NVT,AVT>> predicates,
+                                           final List<ITriplePatternElement<CTT,NVT,AVT>> objects )
+    {
+        super( fragmentURL, datasetURL, pageNumberWasRequested, pageNumber,
+               pageSize, subject, first(predicates), first(objects) );
+
+        if ( predicates.size() != objects.size()
+                || predicates.size() > MAX_TRIPLE_PATTERNS )
+            throw new IllegalArgumentException();
+
+        this.predicates = Collections.unmodifiableList(
+                new ArrayList<ITriplePatternElement<CTT,NVT,AVT>>(predicates) );
+        this.objects = Collections.unmodifiableList(
+                new ArrayList<ITriplePatternElement<CTT,NVT,AVT>>(objects) );
+    }
+
+    private static <T> T first( final List<T> elements )
+    {
+        if ( elements == null || elements.isEmpty() )
+            throw new IllegalArgumentException();
+        return elements.get( 0 );
+    }
+
+    @Override
+    public int getNumberOfTriplePatterns() {
+        return predicates.size();
+    }
+
+    @Override
+    public ITriplePatternElement<CTT,NVT,AVT> getPredicate( final int i ) {
+        return predicates.get( i );
+    }
+
+    @Override
+    public ITriplePatternElement<CTT,NVT,AVT> getObject( final int i ) {
+        return objects.get( i );
+    }
+
+    /**
+     * Gets the name of the parameter of a position of a triple pattern: the
+     * first triple pattern uses the parameters of a triple pattern fragment
+     * request, the following ones have the number of the triple pattern
+     * appended, e.g. "predicate2".
+     *
+     * @param name the name of the parameter of a triple pattern fragment
+     * @param i the index of the triple pattern, starting at 0
+     * @return the name of the parameter
+     */
+    public static String getParameterName( final String name, final int i )
+    {
+        return i == 0 ? name : name + ( i + 1 );
+    }
+
+    /**
+     * Adds all positions of the triple patterns after the first one,
+     * including the variables, because shared variables join the triple
+     * patterns.
+     *
+     * @param parameters
+     */
+    @Override
+    protected void addKeyParameters( final SortedMap<String, String> parameters )
+    {
+        super.addKeyParameters( parameters );
+        if ( predicates.size() == 1 )
+            return;
+
+        addKeyParameter( parameters, PARAMETERNAME_SUBJ, subject );
+        for ( int i = 0; i < predicates.size(); i++ ) {
+            addKeyParameter( parameters, getParameterName(PARAMETERNAME_PRED, i),
+                             predicates.get(i) );
+            addKeyParameter( parameters, getParameterName(PARAMETERNAME_OBJ, i),
+                             objects.get(i) );
+        }
+    }
+
+    private static void addKeyParameter(
+                              final SortedMap<String, String> parameters,
+                              final String name,
+                              final ITriplePatternElement<?,?,?> element )
+    {
+        final String parameter;
+        if ( element.isNamedVariable() )
+            parameter = "?" + element.asNamedVariable();
+        else if ( element.isAnonymousVariable() )
+            parameter = "_:" + element.asAnonymousVariable();
+        else if ( element.isVariable() )
+            parameter = "";
+        else if ( element.asConstantTerm() instanceof RDFNode )
+            parameter = TriplePatternElementParserForJena.toParameter(
+                                          (RDFNode) element.asConstantTerm() );
+        else
+            parameter = element.asConstantTerm().toString();
+        parameters.put( name, parameter );
+    }
+
+    @Override
+    public String toString()
+    {
+        return "StarPatternFragmentRequest(" +
+               "class: " + getClass().getName() +
+               ", subject: " + subject.toString() +
+               ", predicates: " + predicates.toString() +
+               ", objects: " + objects.toString() +
+               ", fragmentURL: " + fragmentURL +
+               ", isPageRequest: " + pageNumberWasRequested +
+               ", pageNumber: " + pageNumber +
+               ", pageSize: " + pageSize +
+               ")";
+    }
+
+}
@@ -78,6 +78,7 @@ public class TPFRequestParser<ConstantTermType,NamedVarType,AnonVarType>
                                                          getDatasetURL(),
                                                          pageNumberWasRequested,
                                                          pageNumber,
+                                                         pageSize,
                                                          getSubject(),
                                                          getPredicate(),
                                                          getObject() );
@@ -0,0 +1,96 @@
+package org.linkeddatafragments.fragments.tpf;
+
+import java.util.Locale;
+import java.util.SortedMap;
+
+/**
+ * An implementation of {@link ITextSearchFragmentRequest}.
+ *
+ * @param <CTT>
+ * @param <NVT>
+ * @param <AVT>
+ */
+public class TextSearchFragmentRequestImpl<CTT,NVT,AVT>
+    extends TriplePatternFragmentRequestImpl<CTT,NVT,AVT>
+    implements ITextSearchFragmentRequest<CTT,NVT,AVT>
+{
+
+    /**
+     *
+     */
+    public final String searchText;
+
+    /**
+     *
+     * @param fragmentURL
+     * @param datasetURL
+     * @param pageNumberWasRequested
+     * @param pageNumber
+     * @param pageSize the requested page size, or 0 if none was requested
+     * @param subject
+     * @param predicate
+     * @param object a variable
+     * @param searchText
+     * @throws IllegalArgumentException if the object is not a variable or
+     *         the text is too short
+     */
+    public TextSearchFragmentRequestImpl( final String fragmentURL,
+                                          final String datasetURL,
+                                          final boolean pageNumberWasRequested,
+                                          final long pageNumber,
+                                          final long pageSize,
+                                          final ITriplePatternElement<CTT,NVT,AVT> subject,
+                                          final ITriplePatternElement<CTT,NVT,AVT> predicate,
+                                          final ITriplePatternElement<CTT,NVT,AVT> object,
+                                          final String searchText )
+                                               throws IllegalArgumentException
+    {
+        super( fragmentURL, datasetURL, pageNumberWasRequested, pageNumber,
+               pageSize, subject, predicate, object );
+
+        if ( ! object.isVariable() )
+            throw new IllegalArgumentException(
+                    "The object of a text search must be a variable." );
+        if ( searchText == null || searchText.length() < MIN_SEARCH_LENGTH )
+            throw new IllegalArgumentException(
+                    "The search text must have at least " + MIN_SEARCH_LENGTH
+                    + " characters." );
+
+        this.searchText = searchText;
+    }
+
+    @Override
+    public String getSearchText() {
+        return searchText;
+    }
+
+    /**
+     * Adds the text in lower case, because case is ignored.
+     *
+     * @param parameters
+     */
+    @Override
+    protected void addKeyParameters( final SortedMap<String, String> parameters )
+    {
+        super.addKeyParameters( parameters );
+        parameters.put( PARAMETERNAME_SEARCH,
+                        searchText.toLowerCase(Locale.ROOT) );
+    }
+
+    @Override
+    public String toString()
+    {
+        return "TextSearchFragmentRequest(" +
+               "class: " + getClass().getName() +
+               ", subject: " + subject.toString() +
+               ", predicate: " + predicate.toString() +
+               ", object: " + object.toString() +
+               ", searchText: " + searchText +
+               ", fragmentURL: " + fragmentURL +
+               ", isPageRequest: " + pageNumberWasRequested +
+               ", pageNumber: " + pageNumber +
+               ", pageSize: " + pageSize +
+               ")";
+    }
+
+}
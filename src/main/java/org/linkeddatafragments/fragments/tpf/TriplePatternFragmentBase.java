@@ -1,5 +1,6 @@
 package org.linkeddatafragments.fragments.tpf;
 
+import java.util.List;
 import java.util.NoSuchElementException;
 
 import org.apache.jena.datatypes.xsd.XSDDatatype;
@@ -25,6 +26,14 @@ abstract public class TriplePatternFragmentBase extends LinkedDataFragmentBase
 		implements ITriplePatternFragment {
 	private final long totalSize;
 
+	// the search form of the dataset, or null for the default search form
+	private final TriplePatternSearchForm searchForm;
+
+	private final List<MembershipFilter> membershipFilters;
+
+	// the order of the triples of the page, or null if they are not ordered
+	private final FragmentOrder order;
+
 	/**
 	 * Creates an empty Triple Pattern Fragment.
 	 * 
@@ -63,8 +72,32 @@ abstract public class TriplePatternFragmentBase extends LinkedDataFragmentBase
 	public TriplePatternFragmentBase(long totalSize, final String fragmentURL,
 			final String datasetURL, final long pageNumber,
 			final boolean isLastPage) {
-		super(fragmentURL, datasetURL, pageNumber, isLastPage);
+		this(totalSize, fragmentURL, datasetURL, pageNumber, isLastPage,
+				TriplePatternFragmentOptions.DEFAULT);
+	}
+
+	/**
+	 * Creates a new Triple Pattern Fragment with the given options.
+	 * 
+	 * @param totalSize
+	 *            the total size
+	 * @param fragmentURL
+	 * @param datasetURL
+	 * @param pageNumber
+	 * @param isLastPage
+	 * @param options
+	 *            the page size, search form, filters and order
+	 */
+	public TriplePatternFragmentBase(long totalSize, final String fragmentURL,
+			final String datasetURL, final long pageNumber,
+			final boolean isLastPage,
+			final TriplePatternFragmentOptions options) {
+		super(fragmentURL, datasetURL, pageNumber, isLastPage,
+				options.getMaxPageSize());
 		this.totalSize = totalSize < 0L ? 0L : totalSize;
+		this.searchForm = options.getSearchForm();
+		this.membershipFilters = options.getMembershipFilters();
+		this.order = options.getOrder();
 	}
 
 	@Override
@@ -100,43 +133,59 @@ abstract public class TriplePatternFragmentBase extends LinkedDataFragmentBase
 		fragmentId.addLiteral(CommonResources.VOID_TRIPLES, totalTyped);
 		fragmentId.addLiteral(CommonResources.HYDRA_TOTALITEMS, totalTyped);
 		fragmentId.addLiteral(CommonResources.HYDRA_ITEMSPERPAGE, limitTyped);
+
+		for (MembershipFilter filter : membershipFilters)
+			filter.addTo(model, fragmentId);
+		if (order != null)
+			order.addTo(model, fragmentId);
+	}
+
+	/**
+	 * Returns the approximate membership filters of the terms of all
+	 * triples of the fragment.
+	 * 
+	 * @return the filters, possibly none
+	 */
+	public List<MembershipFilter> getMembershipFilters() {
+		return membershipFilters;
+	}
+
+	/**
+	 * Returns the order of the triples of the page.
+	 * 
+	 * @return the order, or null if the triples are not ordered
+	 */
+	public FragmentOrder getOrder() {
+		return order;
 	}
 
 	@Override
 	public void addControls(final Model model) {
+		addDynamicControls(model);
+		getSearchForm().addTo(model);
+	}
+
+	/**
+	 * Adds the controls that are specific to this fragment, that is, all
+	 * controls except for the search form of the dataset. Subclasses that
+	 * add controls should override this method.
+	 * 
+	 * @param model
+	 */
+	public void addDynamicControls(final Model model) {
 		super.addControls(model);
+	}
 
-		final Resource datasetId = model.createResource(getDatasetURI());
-
-		final Resource triplePattern = model.createResource();
-		final Resource subjectMapping = model.createResource();
-		final Resource predicateMapping = model.createResource();
-		final Resource objectMapping = model.createResource();
-
-		datasetId.addProperty(CommonResources.HYDRA_SEARCH, triplePattern);
-
-		triplePattern
-				.addProperty(CommonResources.HYDRA_TEMPLATE, getTemplate());
-		triplePattern
-				.addProperty(CommonResources.HYDRA_MAPPING, subjectMapping);
-		triplePattern.addProperty(CommonResources.HYDRA_MAPPING,
-				predicateMapping);
-		triplePattern.addProperty(CommonResources.HYDRA_MAPPING, objectMapping);
-
-		subjectMapping.addProperty(CommonResources.HYDRA_VARIABLE,
-				ITriplePatternFragmentRequest.PARAMETERNAME_SUBJ);
-		subjectMapping.addProperty(CommonResources.HYDRA_PROPERTY,
-				CommonResources.RDF_SUBJECT);
-
-		predicateMapping.addProperty(CommonResources.HYDRA_VARIABLE,
-				ITriplePatternFragmentRequest.PARAMETERNAME_PRED);
-		predicateMapping.addProperty(CommonResources.HYDRA_PROPERTY,
-				CommonResources.RDF_PREDICATE);
-
-		objectMapping.addProperty(CommonResources.HYDRA_VARIABLE,
-				ITriplePatternFragmentRequest.PARAMETERNAME_OBJ);
-		objectMapping.addProperty(CommonResources.HYDRA_PROPERTY,
-				CommonResources.RDF_OBJECT);
+	/**
+	 * Returns the search form of the dataset, which is built only once per
+	 * dataset.
+	 * 
+	 * @return the search form
+	 */
+	public TriplePatternSearchForm getSearchForm() {
+		if (searchForm != null)
+			return searchForm;
+		return TriplePatternSearchForm.get(datasetURL);
 	}
 
 	/**
@@ -144,10 +193,9 @@ abstract public class TriplePatternFragmentBase extends LinkedDataFragmentBase
 	 * @return
 	 */
 	public String getTemplate() {
-		return datasetURL + "{?"
-				+ ITriplePatternFragmentRequest.PARAMETERNAME_SUBJ + ","
-				+ ITriplePatternFragmentRequest.PARAMETERNAME_PRED + ","
-				+ ITriplePatternFragmentRequest.PARAMETERNAME_OBJ + "}";
+		return TriplePatternSearchForm.getTemplate(datasetURL,
+				getSearchForm().acceptsBindings(),
+				getSearchForm().acceptsOrder());
 	}
 
 	/**
@@ -1,8 +1,17 @@
 package org.linkeddatafragments.fragments.tpf;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
 import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.Statement;
 import org.apache.jena.rdf.model.StmtIterator;
-
+import org.apache.jena.rdf.model.impl.StmtIteratorImpl;
+import org.apache.jena.util.iterator.WrappedIterator;
 
 
 /**
@@ -13,10 +22,13 @@ import org.apache.jena.rdf.model.StmtIterator;
 public class TriplePatternFragmentImpl extends TriplePatternFragmentBase
 {
 
+    // the model of the statements of the triples, which stays empty
+    private final static Model STATEMENTS = ModelFactory.createDefaultModel();
+
     /**
-     *
+     * The triples of the page, in the order in which they are written
      */
-    protected final Model triples;
+    protected final List<Triple> triples;
 
     /**
      * Creates an empty Triple Pattern Fragment.
@@ -57,7 +69,33 @@ public class TriplePatternFragmentImpl extends TriplePatternFragmentBase
                                       final String datasetURL,
                                       final long pageNumber,
                                       final boolean isLastPage ) {
-        super( totalSize, fragmentURL, datasetURL, pageNumber, isLastPage );
+        this( triples == null
+                  ? Collections.<Triple>emptyList()
+                  : triples.getGraph().find( Node.ANY, Node.ANY, Node.ANY ).toList(),
+              totalSize, fragmentURL, datasetURL, pageNumber, isLastPage,
+              TriplePatternFragmentOptions.DEFAULT );
+    }
+
+    /**
+     * Creates a new Triple Pattern Fragment with the given options.
+     * @param triples the triples (possibly partial), which are written in
+     *                the order of the list
+     * @param totalSize the total size
+     * @param fragmentURL
+     * @param datasetURL
+     * @param isLastPage
+     * @param pageNumber
+     * @param options the page size, search form, filters and order
+     */
+    public TriplePatternFragmentImpl( final List<Triple> triples,
+                                      long totalSize,
+                                      final String fragmentURL,
+                                      final String datasetURL,
+                                      final long pageNumber,
+                                      final boolean isLastPage,
+                                      final TriplePatternFragmentOptions options ) {
+        super( totalSize, fragmentURL, datasetURL, pageNumber, isLastPage,
+               options );
         this.triples = triples;
     }
 
@@ -67,7 +105,13 @@ public class TriplePatternFragmentImpl extends TriplePatternFragmentBase
      */
     @Override
     protected StmtIterator getNonEmptyStmtIterator() {
-        return triples.listStatements();
+        return new StmtIteratorImpl( WrappedIterator.create( triples.iterator() )
+                .mapWith( new Function<Triple, Statement>() {
+                    @Override
+                    public Statement apply( final Triple triple ) {
+                        return STATEMENTS.asStatement( triple );
+                    }
+                }) );
     }
 
 }
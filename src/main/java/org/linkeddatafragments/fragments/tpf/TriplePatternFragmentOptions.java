@@ -0,0 +1,132 @@
+package org.linkeddatafragments.fragments.tpf;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.linkeddatafragments.fragments.ILinkedDataFragmentRequest;
+
+/**
+ * The metadata and controls of a Triple Pattern Fragment page beyond its
+ * triples and their count: the page size, the search form, the approximate
+ * membership filters and the order of the triples.
+ *
+ * The options are immutable; each <code>with</code> method returns a copy
+ * with one option changed.
+ */
+public class TriplePatternFragmentOptions
+{
+    /**
+     * The options of fragments with the default page size and search form,
+     * without filters and without order
+     */
+    public final static TriplePatternFragmentOptions DEFAULT =
+            new TriplePatternFragmentOptions( ILinkedDataFragmentRequest.TRIPLESPERPAGE,
+                                              null,
+                                              Collections.<MembershipFilter>emptyList(),
+                                              null );
+
+    private final long maxPageSize;
+    private final TriplePatternSearchForm searchForm;
+    private final List<MembershipFilter> membershipFilters;
+    private final FragmentOrder order;
+
+    private TriplePatternFragmentOptions( final long maxPageSize,
+                                          final TriplePatternSearchForm searchForm,
+                                          final List<MembershipFilter> membershipFilters,
+                                          final FragmentOrder order )
+    {
+        this.maxPageSize = maxPageSize;
+        this.searchForm = searchForm;
+        this.membershipFilters = membershipFilters;
+        this.order = order;
+    }
+
+    /**
+     *
+     * @param maxPageSize the number of triples per page
+     * @return the options with the given page size
+     */
+    public TriplePatternFragmentOptions withMaxPageSize( final long maxPageSize )
+    {
+        return new TriplePatternFragmentOptions( maxPageSize, searchForm,
+                                                 membershipFilters, order );
+    }
+
+    /**
+     *
+     * @param searchForm the search form of the dataset, or null for the
+     *                   default search form
+     * @return the options with the given search form
+     */
+    public TriplePatternFragmentOptions withSearchForm(
+                                    final TriplePatternSearchForm searchForm )
+    {
+        return new TriplePatternFragmentOptions( maxPageSize, searchForm,
+                                                 membershipFilters, order );
+    }
+
+    /**
+     *
+     * @param membershipFilters the filters of the terms of all triples of
+     *                          the fragment
+     * @return the options with the given filters
+     */
+    public TriplePatternFragmentOptions withMembershipFilters(
+                                    final List<MembershipFilter> membershipFilters )
+    {
+        return new TriplePatternFragmentOptions( maxPageSize, searchForm,
+                                                 membershipFilters, order );
+    }
+
+    /**
+     *
+     * @param order the order of the triples of the page, or null if they
+     *              are not ordered
+     * @return the options with the given order
+     */
+    public TriplePatternFragmentOptions withOrder( final FragmentOrder order )
+    {
+        return new TriplePatternFragmentOptions( maxPageSize, searchForm,
+                                                 membershipFilters, order );
+    }
+
+    /**
+     *
+     * @return the number of triples per page
+     */
+    public long getMaxPageSize()
+    {
+        return maxPageSize;
+    }
+
+    /**
+     *
+     * @return the search form of the dataset, or null for the default
+     *         search form
+     */
+    public TriplePatternSearchForm getSearchForm()
+    {
+        return searchForm;
+    }
+
+    /**
+     *
+     * @return the filters of the terms of all triples of the fragment,
+     *         possibly none
+     */
+    public List<MembershipFilter> getMembershipFilters()
+    {
+        return membershipFilters;
+    }
+
+    /**
+     *
+     * @return the order of the triples of the page, or null if they are
+     *         not ordered
+     */
+    public FragmentOrder getOrder()
+    {
+        return order;
+    }
+
+}
@@ -1,6 +1,10 @@
 package org.linkeddatafragments.fragments.tpf;
 
+import java.util.SortedMap;
+
+import org.apache.jena.rdf.model.RDFNode;
 import org.linkeddatafragments.fragments.LinkedDataFragmentRequestBase;
+import org.linkeddatafragments.util.TriplePatternElementParserForJena;
 
 /**
  * An implementation of {@link ITriplePatternFragmentRequest}.
@@ -48,7 +52,32 @@ public class TriplePatternFragmentRequestImpl<CTT,NVT,AVT>
                                              final ITriplePatternElement<CTT,NVT,AVT> predicate,
                                              final ITriplePatternElement<CTT,NVT,AVT> object )
     {
-        super( fragmentURL, datasetURL, pageNumberWasRequested, pageNumber );
+        this( fragmentURL, datasetURL, pageNumberWasRequested, pageNumber, 0L,
+              subject, predicate, object );
+    }
+
+    /**
+     *
+     * @param fragmentURL
+     * @param datasetURL
+     * @param pageNumberWasRequested
+     * @param pageNumber
+     * @param pageSize the requested page size, or 0 if none was requested
+     * @param subject
+     * @param predicate
+     * @param object
+     */
+    public TriplePatternFragmentRequestImpl( final String fragmentURL,
+                                             final String datasetURL,
+                                             final boolean pageNumberWasRequested,
+                                             final long pageNumber,
+                                             final long pageSize,
+                                             final ITriplePatternElement<CTT,NVT,AVT> subject,
+                                             final ITriplePatternElement<CTT,NVT,AVT> predicate,
+                                             final ITriplePatternElement<CTT,NVT,AVT> object )
+    {
+        super( fragmentURL, datasetURL, pageNumberWasRequested, pageNumber,
+               pageSize );
 
         if ( subject == null )
             throw new IllegalArgumentException();
@@ -79,6 +108,36 @@ public class TriplePatternFragmentRequestImpl<CTT,NVT,AVT>
         return object;
     }
 
+    /**
+     * Adds the bound terms of the triple pattern. Variables are left out,
+     * because variables are not related to each other in a triple pattern
+     * fragment, so an empty parameter and a named variable are equivalent.
+     *
+     * @param parameters
+     */
+    @Override
+    protected void addKeyParameters( final SortedMap<String, String> parameters )
+    {
+        super.addKeyParameters( parameters );
+        addKeyParameter( parameters, PARAMETERNAME_SUBJ, subject );
+        addKeyParameter( parameters, PARAMETERNAME_PRED, predicate );
+        addKeyParameter( parameters, PARAMETERNAME_OBJ, object );
+    }
+
+    private static void addKeyParameter(
+                              final SortedMap<String, String> parameters,
+                              final String name,
+                              final ITriplePatternElement<?,?,?> element )
+    {
+        if ( element.isVariable() )
+            return;
+
+        final Object term = element.asConstantTerm();
+        parameters.put( name, term instanceof RDFNode
+                ? TriplePatternElementParserForJena.toParameter( (RDFNode) term )
+                : term.toString() );
+    }
+
     @Override
     public String toString()
     {
@@ -90,6 +149,7 @@ public class TriplePatternFragmentRequestImpl<CTT,NVT,AVT>
                ", fragmentURL: " + fragmentURL +
                ", isPageRequest: " + pageNumberWasRequested +
                ", pageNumber: " + pageNumber +
+               ", pageSize: " + pageSize +
                ")";
     }
 
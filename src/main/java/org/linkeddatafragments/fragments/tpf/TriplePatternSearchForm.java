@@ -0,0 +1,279 @@
+package org.linkeddatafragments.fragments.tpf;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.rdf.model.Statement;
+import org.linkeddatafragments.util.CommonResources;
+import org.linkeddatafragments.util.NTriplesEncoder;
+
+/**
+ * The hydra search form of a dataset, which is the same for all Triple
+ * Pattern Fragments of the dataset. It is built once per dataset and kept
+ * as statements and as encoded N-Triples.
+ */
+public class TriplePatternSearchForm
+{
+    /**
+     * Maximum number of datasets for which a search form is cached
+     */
+    public final static int MAX_CACHED = 64;
+
+    // the search forms of datasets, by whether they also accept solution
+    // mappings and an order, followed by the dataset URL
+    private final static ConcurrentHashMap<String, TriplePatternSearchForm>
+                                     cache = new ConcurrentHashMap<>();
+
+    private final List<Statement> statements;
+    private final boolean withBindings;
+    private final boolean withOrder;
+    private volatile byte[] ntriples;
+
+    /**
+     * Gets the search form of the dataset with the given URL.
+     *
+     * @param datasetURL the URL of the dataset
+     * @return the search form
+     */
+    public static TriplePatternSearchForm get( final String datasetURL )
+    {
+        return get( datasetURL, false );
+    }
+
+    /**
+     * Gets the search form of the dataset with the given URL.
+     *
+     * @param datasetURL the URL of the dataset
+     * @param withBindings whether the search form has a "values" variable
+     *        for the solution mappings of bindings-restricted requests
+     * @return the search form
+     */
+    public static TriplePatternSearchForm get( final String datasetURL,
+                                               final boolean withBindings )
+    {
+        return get( datasetURL, withBindings, false );
+    }
+
+    /**
+     * Gets the search form of the dataset with the given URL.
+     *
+     * @param datasetURL the URL of the dataset
+     * @param withBindings whether the search form has a "values" variable
+     *        for the solution mappings of bindings-restricted requests
+     * @param withOrder whether the search form has an "order" variable for
+     *        the position by which ordered fragments are ordered
+     * @return the search form
+     */
+    public static TriplePatternSearchForm get( final String datasetURL,
+                                               final boolean withBindings,
+                                               final boolean withOrder )
+    {
+        final String key = ( withBindings ? "b" : "-" )
+                           + ( withOrder ? "o" : "-" ) + datasetURL;
+        TriplePatternSearchForm form = cache.get( key );
+        if ( form == null ) {
+            // the dataset URL depends on the Host header if no base URL
+            // is configured, so the number of entries has to be bounded;
+            // one entry is evicted, such that the forms of the other
+            // datasets are kept
+            if ( cache.size() >= MAX_CACHED ) {
+                final Iterator<String> keys = cache.keySet().iterator();
+                if ( keys.hasNext() )
+                    cache.remove( keys.next() );
+            }
+            form = new TriplePatternSearchForm( datasetURL, withBindings,
+                                                withOrder );
+            final TriplePatternSearchForm existing =
+                                      cache.putIfAbsent( key, form );
+            if ( existing != null )
+                form = existing;
+        }
+        return form;
+    }
+
+    private TriplePatternSearchForm( final String datasetURL,
+                                     final boolean withBindings,
+                                     final boolean withOrder )
+    {
+        this.withBindings = withBindings;
+        this.withOrder = withOrder;
+
+        final Model model = ModelFactory.createDefaultModel();
+
+        final Resource datasetId = model.createResource( datasetURL + "#dataset" );
+
+        final Resource triplePattern = model.createResource();
+        final Resource subjectMapping = model.createResource();
+        final Resource predicateMapping = model.createResource();
+        final Resource objectMapping = model.createResource();
+
+        datasetId.addProperty( CommonResources.HYDRA_SEARCH, triplePattern );
+
+        triplePattern.addProperty( CommonResources.HYDRA_TEMPLATE,
+                                   getTemplate(datasetURL, withBindings,
+                                               withOrder) );
+        triplePattern.addProperty( CommonResources.HYDRA_MAPPING, subjectMapping );
+        triplePattern.addProperty( CommonResources.HYDRA_MAPPING, predicateMapping );
+        triplePattern.addProperty( CommonResources.HYDRA_MAPPING, objectMapping );
+
+        subjectMapping.addProperty( CommonResources.HYDRA_VARIABLE,
+                        ITriplePatternFragmentRequest.PARAMETERNAME_SUBJ );
+        subjectMapping.addProperty( CommonResources.HYDRA_PROPERTY,
+                                    CommonResources.RDF_SUBJECT );
+
+        predicateMapping.addProperty( CommonResources.HYDRA_VARIABLE,
+                        ITriplePatternFragmentRequest.PARAMETERNAME_PRED );
+        predicateMapping.addProperty( CommonResources.HYDRA_PROPERTY,
+                                      CommonResources.RDF_PREDICATE );
+
+        objectMapping.addProperty( CommonResources.HYDRA_VARIABLE,
+                        ITriplePatternFragmentRequest.PARAMETERNAME_OBJ );
+        objectMapping.addProperty( CommonResources.HYDRA_PROPERTY,
+                                   CommonResources.RDF_OBJECT );
+
+        if ( withBindings ) {
+            final Resource valuesMapping = model.createResource();
+            triplePattern.addProperty( CommonResources.HYDRA_MAPPING, valuesMapping );
+            valuesMapping.addProperty( CommonResources.HYDRA_VARIABLE,
+                        IBindingsRestrictedTPFRequest.PARAMETERNAME_VALUES );
+            valuesMapping.addProperty( CommonResources.HYDRA_PROPERTY,
+                                       CommonResources.RDF_VALUE );
+        }
+
+        if ( withOrder ) {
+            final Resource orderMapping = model.createResource();
+            triplePattern.addProperty( CommonResources.HYDRA_MAPPING, orderMapping );
+            orderMapping.addProperty( CommonResources.HYDRA_VARIABLE,
+                        IOrderedFragmentRequest.PARAMETERNAME_ORDER );
+            orderMapping.addProperty( CommonResources.HYDRA_PROPERTY,
+                                      CommonResources.ORDER_ORDEREDBY );
+        }
+
+        statements = Collections.unmodifiableList(
+                                       model.listStatements().toList() );
+    }
+
+    /**
+     * Gets the URI template of the search form of the given dataset.
+     *
+     * @param datasetURL the URL of the dataset
+     * @return the URI template
+     */
+    public static String getTemplate( final String datasetURL )
+    {
+        return getTemplate( datasetURL, false );
+    }
+
+    /**
+     * Gets the URI template of the search form of the given dataset.
+     *
+     * @param datasetURL the URL of the dataset
+     * @param withBindings whether the template has a "values" variable
+     * @return the URI template
+     */
+    public static String getTemplate( final String datasetURL,
+                                      final boolean withBindings )
+    {
+        return getTemplate( datasetURL, withBindings, false );
+    }
+
+    /**
+     * Gets the URI template of the search form of the given dataset.
+     *
+     * @param datasetURL the URL of the dataset
+     * @param withBindings whether the template has a "values" variable
+     * @param withOrder whether the template has an "order" variable
+     * @return the URI template
+     */
+    public static String getTemplate( final String datasetURL,
+                                      final boolean withBindings,
+                                      final boolean withOrder )
+    {
+        return datasetURL + "{?"
+                + ITriplePatternFragmentRequest.PARAMETERNAME_SUBJ + ","
+                + ITriplePatternFragmentRequest.PARAMETERNAME_PRED + ","
+                + ITriplePatternFragmentRequest.PARAMETERNAME_OBJ
+                + ( withBindings
+                    ? "," + IBindingsRestrictedTPFRequest.PARAMETERNAME_VALUES
+                    : "" )
+                + ( withOrder
+                    ? "," + IOrderedFragmentRequest.PARAMETERNAME_ORDER
+                    : "" )
+                + "}";
+    }
+
+    /**
+     * Returns whether the search form has a "values" variable for the
+     * solution mappings of bindings-restricted requests.
+     *
+     * @return true if solution mappings are accepted
+     */
+    public boolean acceptsBindings()
+    {
+        return withBindings;
+    }
+
+    /**
+     * Returns whether the search form has an "order" variable for the
+     * position by which ordered fragments are ordered.
+     *
+     * @return true if an order is accepted
+     */
+    public boolean acceptsOrder()
+    {
+        return withOrder;
+    }
+
+    /**
+     * Gets the statements of the search form.
+     *
+     * @return an immutable list of statements
+     */
+    public List<Statement> getStatements()
+    {
+        return statements;
+    }
+
+    /**
+     * Gets the search form encoded as N-Triples.
+     *
+     * @return the UTF-8 encoded N-Triples; must not be modified
+     */
+    public byte[] getNTriples()
+    {
+        byte[] bytes = ntriples;
+        if ( bytes == null ) {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final NTriplesEncoder encoder = new NTriplesEncoder( out );
+            try {
+                for ( Statement statement : statements )
+                    encoder.write( statement.asTriple() );
+                encoder.flush();
+            }
+            catch ( IOException e ) {
+                throw new IllegalStateException( e );
+            }
+            bytes = out.toByteArray();
+            ntriples = bytes;
+        }
+        return bytes;
+    }
+
+    /**
+     * Adds the search form to the given model.
+     *
+     * @param model the model
+     */
+    public void addTo( final Model model )
+    {
+        model.add( statements );
+    }
+
+}
@@ -1,5 +1,6 @@
 package org.linkeddatafragments.servlet;
 
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import java.io.File;
 import java.io.FileReader;
@@ -8,7 +9,17 @@ import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
@@ -16,20 +27,34 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.apache.http.HttpHeaders;
+import org.apache.jena.graph.Triple;
 import org.apache.jena.riot.Lang;
+import org.apache.jena.util.iterator.ExtendedIterator;
 import org.linkeddatafragments.config.ConfigReader;
+import org.linkeddatafragments.config.ConfigWatcher;
 import org.linkeddatafragments.datasource.DataSourceFactory;
+import org.linkeddatafragments.datasource.DataSourceRegistry;
 import org.linkeddatafragments.datasource.DataSourceTypesRegistry;
 import org.linkeddatafragments.datasource.IDataSource;
 import org.linkeddatafragments.datasource.IDataSourceType;
+import org.linkeddatafragments.datasource.IFragmentRequestProcessor;
+import org.linkeddatafragments.datasource.ITriplePatternExporter;
+import org.linkeddatafragments.datasource.hdt.HdtDataSource;
+import org.linkeddatafragments.datasource.hdt.HdtDataSourceType;
 import org.linkeddatafragments.datasource.index.IndexDataSource;
+import org.linkeddatafragments.exceptions.DataSourceCreationException;
 import org.linkeddatafragments.exceptions.DataSourceNotFoundException;
+import org.linkeddatafragments.fragments.BatchFragmentRequest;
+import org.linkeddatafragments.fragments.BatchRequestParser;
 import org.linkeddatafragments.fragments.FragmentRequestParserBase;
 import org.linkeddatafragments.fragments.ILinkedDataFragment;
 import org.linkeddatafragments.fragments.ILinkedDataFragmentRequest;
 import org.linkeddatafragments.util.MIMEParse;
+import org.linkeddatafragments.views.BatchWriter;
 import org.linkeddatafragments.views.ILinkedDataFragmentWriter;
+import org.linkeddatafragments.views.JsonLdContext;
 import org.linkeddatafragments.views.LinkedDataFragmentWriterFactory;
+import org.linkeddatafragments.views.TripleExportWriter;
 
 /**
  * Servlet that responds with a Linked Data Fragment.
@@ -49,8 +74,52 @@ public class LinkedDataFragmentServlet extends HttpServlet {
      */
     public final static String CFGFILE = "configFile";
 
-    private ConfigReader config;
-    private final HashMap<String, IDataSource> dataSources = new HashMap<>();
+    /**
+     * Whether to reload the configuration file when it changes
+     */
+    public final static String WATCHCFG = "watchConfigFile";
+
+    /**
+     * What to do with requests whose URL is not the canonical URL of the
+     * requested fragment: {@link #CANONICAL_REDIRECT} or
+     * {@link #CANONICAL_CONTENTLOCATION}; by default, nothing
+     */
+    public final static String CANONICALURLS = "canonicalUrls";
+
+    /**
+     * Redirect requests to the canonical URL of the fragment
+     */
+    public final static String CANONICAL_REDIRECT = "redirect";
+
+    /**
+     * Answer requests with the canonical URL in a Content-Location header
+     */
+    public final static String CANONICAL_CONTENTLOCATION = "content-location";
+
+    /**
+     * Maximum number of distinct base URLs for which an index is cached
+     */
+    private final static int MAX_INDEXDATASOURCES = 16;
+
+    /**
+     * Maximum number of fragments of one batch that are created at a time
+     */
+    private final static int MAX_PARALLEL_BATCH_FRAGMENTS = 4;
+
+    /**
+     * The range unit by which an export can be resumed
+     */
+    public final static String RANGEUNIT = "triples";
+
+    private volatile ConfigReader config;
+    private File configFile;
+    private ConfigWatcher configWatcher;
+    private String canonicalUrls;
+    private ExecutorService batchExecutor;
+    private final DataSourceRegistry dataSources = new DataSourceRegistry();
+    // the configurations of the data sources that are currently loaded
+    private final Map<String, JsonObject> dataSourceConfigs = new HashMap<>();
+    private final ConcurrentHashMap<String, CachedIndex> indexDataSources = new ConcurrentHashMap<>();
     private final Collection<String> mimeTypes = new ArrayList<>();
 
     private File getConfigFile(ServletConfig config) throws IOException {
@@ -79,21 +148,12 @@ public class LinkedDataFragmentServlet extends HttpServlet {
      */
     @Override
     public void init(ServletConfig servletConfig) throws ServletException {
+        // keep the servlet config, which the servlet log needs
+        super.init(servletConfig);
         try {
             // load the configuration
-            File configFile = getConfigFile(servletConfig);
-            config = new ConfigReader(new FileReader(configFile));
-
-            // register data source types
-            for ( Entry<String,IDataSourceType> typeEntry : config.getDataSourceTypes().entrySet() ) {
-                DataSourceTypesRegistry.register( typeEntry.getKey(),
-                                                  typeEntry.getValue() );
-            }
-
-            // register data sources
-            for (Entry<String, JsonObject> dataSource : config.getDataSources().entrySet()) {
-                dataSources.put(dataSource.getKey(), DataSourceFactory.create(dataSource.getValue()));
-            }
+            configFile = getConfigFile(servletConfig);
+            applyConfig(readConfig(configFile));
 
             // register content types
             MIMEParse.register("text/html");
@@ -101,6 +161,35 @@ public class LinkedDataFragmentServlet extends HttpServlet {
             MIMEParse.register(Lang.NTRIPLES.getHeaderString());
             MIMEParse.register(Lang.JSONLD.getHeaderString());
             MIMEParse.register(Lang.TTL.getHeaderString());
+            MIMEParse.register(Lang.NQUADS.getHeaderString());
+            MIMEParse.register(Lang.RDFTHRIFT.getHeaderString());
+            MIMEParse.register(LinkedDataFragmentWriterFactory.HDT);
+
+            canonicalUrls = servletConfig.getInitParameter(CANONICALURLS);
+            if (canonicalUrls != null
+                    && !canonicalUrls.equals(CANONICAL_REDIRECT)
+                    && !canonicalUrls.equals(CANONICAL_CONTENTLOCATION)) {
+                throw new IllegalArgumentException("Unknown value of " + CANONICALURLS + ": " + canonicalUrls);
+            }
+
+            // answer the patterns of batch requests in parallel
+            batchExecutor = Executors.newFixedThreadPool(
+                    Runtime.getRuntime().availableProcessors(), new ThreadFactory() {
+                        @Override
+                        public Thread newThread(Runnable r) {
+                            final Thread thread = new Thread(r, "ldf-batch");
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+
+            // watch the configuration file
+            if (Boolean.parseBoolean(servletConfig.getInitParameter(WATCHCFG))) {
+                configWatcher = new ConfigWatcher(configFile, new Runnable() {
+                    @Override
+                    public void run() { reloadConfig(); }
+                });
+            }
         } catch (Exception e) {
             throw new ServletException(e);
         }
@@ -112,42 +201,213 @@ public class LinkedDataFragmentServlet extends HttpServlet {
     @Override
     public void destroy()
     {
-        for ( IDataSource dataSource : dataSources.values() ) {
+        if (configWatcher != null) {
+            configWatcher.close();
+        }
+        if (batchExecutor != null) {
+            batchExecutor.shutdownNow();
+        }
+        dataSources.close();
+    }
+
+    private static ConfigReader readConfig(File configFile) throws IOException {
+        try (FileReader reader = new FileReader(configFile)) {
+            return new ConfigReader(reader);
+        }
+    }
+
+    /**
+     * Re-reads the configuration file and applies it to the running
+     * servlet. Only the data sources whose configuration changed are
+     * opened or closed; all others, including their caches, are kept.
+     * Whether the reload succeeded is written to the servlet log.
+     */
+    public void reloadConfig() {
+        try {
+            applyConfig(readConfig(configFile));
+            log("Reloaded the configuration from " + configFile);
+        } catch (DataSourceCreationException e) {
+            log("Reloaded the configuration from " + configFile + ", but kept the previous"
+                + " configuration of the data sources that could not be created", e);
+        } catch (Exception e) {
+            // keep serving with the configuration that is in place
+            log("Rejected the configuration from " + configFile
+                + "; the previous configuration stays in place", e);
+        }
+    }
+
+    /**
+     * Makes the given configuration the current one, loading, swapping and
+     * unloading data sources as needed.
+     *
+     * @param newConfig
+     * @throws DataSourceCreationException if a data source cannot be created;
+     *         the other data sources are applied nonetheless
+     */
+    private synchronized void applyConfig(ConfigReader newConfig) throws DataSourceCreationException {
+        // register data source types
+        for ( Entry<String,IDataSourceType> typeEntry : newConfig.getDataSourceTypes().entrySet() ) {
+            if ( ! DataSourceTypesRegistry.isRegistered(typeEntry.getKey()) ) {
+                DataSourceTypesRegistry.register( typeEntry.getKey(),
+                                                  typeEntry.getValue() );
+            }
+        }
+
+        // the prefixes and base URL take effect with the next request
+        config = newConfig;
+
+        // unload data sources that are gone
+        final Iterator<String> names = dataSourceConfigs.keySet().iterator();
+        while (names.hasNext()) {
+            final String name = names.next();
+            if (!newConfig.getDataSources().containsKey(name)) {
+                dataSources.unload(name);
+                names.remove();
+            }
+        }
+
+        // load new data sources and swap changed ones
+        DataSourceCreationException failure = null;
+        for (Entry<String, JsonObject> dataSource : newConfig.getDataSources().entrySet()) {
+            final String name = dataSource.getKey();
+            if (dataSource.getValue().equals(dataSourceConfigs.get(name))) {
+                continue;
+            }
             try {
-                dataSource.close();
+                final IDataSource current = dataSources.get(name);
+                if (current instanceof HdtDataSource
+                        && isFileSwap(dataSourceConfigs.get(name), dataSource.getValue())) {
+                    // keep the data source and only replace its HDT file
+                    ((HdtDataSource) current).swapFile(
+                            HdtDataSourceType.getFile(dataSource.getValue().getAsJsonObject("settings")));
+                } else {
+                    dataSources.swap(name, DataSourceFactory.create(dataSource.getValue()));
+                }
+                dataSourceConfigs.put(name, dataSource.getValue());
+            } catch (DataSourceCreationException | IOException e) {
+                // a data source that cannot be replaced stays as it was
+                if (failure == null) {
+                    failure = e instanceof DataSourceCreationException
+                            ? (DataSourceCreationException) e
+                            : new DataSourceCreationException(e);
+                }
             }
-            catch( Exception e ) {
-                // ignore
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Checks whether two data source configurations differ only in the file
+     * setting.
+     *
+     * @param oldConfig
+     * @param newConfig
+     * @return
+     */
+    private static boolean isFileSwap(JsonObject oldConfig, JsonObject newConfig) {
+        if (oldConfig == null
+                || !oldConfig.has("settings") || !newConfig.has("settings")) {
+            return false;
+        }
+        final JsonObject oldCopy = copyWithoutFile(oldConfig);
+        final JsonObject newCopy = copyWithoutFile(newConfig);
+        return oldCopy.equals(newCopy);
+    }
+
+    private static JsonObject copyWithoutFile(JsonObject config) {
+        final JsonObject copy = new JsonObject();
+        for (Entry<String, JsonElement> entry : config.entrySet()) {
+            copy.add(entry.getKey(), entry.getValue());
+        }
+        final JsonObject settings = new JsonObject();
+        for (Entry<String, JsonElement> entry : config.getAsJsonObject("settings").entrySet()) {
+            if (!entry.getKey().equals("file")) {
+                settings.add(entry.getKey(), entry.getValue());
+            }
+        }
+        copy.add("settings", settings);
+        return copy;
+    }
+
+    /**
+     * Returns the registry of the data sources served by this servlet, which
+     * can be used to load, unload or swap data sources at runtime. This is
+     * a programmatic API for code that embeds the servlet; it is not
+     * exposed over HTTP. Deployments without such code change their data
+     * sources by editing the watched configuration file.
+     *
+     * @return the data source registry
+     */
+    public DataSourceRegistry getDataSourceRegistry() {
+        return dataSources;
+    }
+
+    /**
+     * Drops the cached index data sources.
+     */
+    private void invalidateIndexDataSources() {
+        indexDataSources.clear();
+    }
+
+    /**
+     * Gets the index data source for the given base URL, building its model
+     * only if it is not cached yet or if the data sources changed since.
+     *
+     * @param baseURL
+     * @return
+     */
+    private IndexDataSource getIndexDataSource(final String baseURL) {
+        final Map<String, IDataSource> current = dataSources.getDataSources();
+        CachedIndex index = indexDataSources.get(baseURL);
+        if (index == null || index.dataSources != current) {
+            // the base URL depends on the Host header if it is not configured
+            if (indexDataSources.size() >= MAX_INDEXDATASOURCES) {
+                invalidateIndexDataSources();
             }
-        }   
+            index = new CachedIndex(current, new IndexDataSource(baseURL, current));
+            indexDataSources.put(baseURL, index);
+        }
+        return index.index;
     }
 
     /**
-     * Get the datasource
+     * Get the requested path within the context of this servlet
      *
      * @param request
      * @return
-     * @throws IOException
      */
-    private IDataSource getDataSource(HttpServletRequest request) throws DataSourceNotFoundException {
+    private static String getPath(HttpServletRequest request) {
         String contextPath = request.getContextPath();
         String requestURI = request.getRequestURI();
 
-        String path = contextPath == null
+        return contextPath == null
                 ? requestURI
                 : requestURI.substring(contextPath.length());
+    }
+
+    /**
+     * Acquires a lease on the datasource
+     *
+     * @param request
+     * @return
+     * @throws IOException
+     */
+    private DataSourceRegistry.Lease getDataSource(HttpServletRequest request) throws DataSourceNotFoundException {
+        String path = getPath(request);
 
         if (path.equals("/") || path.isEmpty()) {
             final String baseURL = FragmentRequestParserBase.extractBaseURL(request, config);
-            return new IndexDataSource(baseURL, dataSources);
+            return DataSourceRegistry.Lease.unmanaged(getIndexDataSource(baseURL));
         }
 
         String dataSourceName = path.substring(1);
-        IDataSource dataSource = dataSources.get(dataSourceName);
-        if (dataSource == null) {
+        DataSourceRegistry.Lease lease = dataSources.acquire(dataSourceName);
+        if (lease == null) {
             throw new DataSourceNotFoundException(dataSourceName);
         }
-        return dataSource;
+        return lease;
     }
 
     /**
@@ -159,10 +419,24 @@ public class LinkedDataFragmentServlet extends HttpServlet {
     @Override
     public void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException {
         ILinkedDataFragment fragment = null;
+        DataSourceRegistry.Lease lease = null;
         try {
-            // do conneg
+            // serve the JSON-LD context that fragments can link to
+            if (JsonLdContext.PATH.equals(getPath(request))) {
+                response.setHeader(HttpHeaders.SERVER, "Linked Data Fragments Server");
+                response.setContentType(Lang.JSONLD.getHeaderString());
+                response.getOutputStream().write(JsonLdContext.get(config.getPrefixes()).getDocument());
+                return;
+            }
+
+            // do conneg; an export is written as N-Triples or RDF Thrift
             String acceptHeader = request.getHeader(HttpHeaders.ACCEPT);
-            String bestMatch = MIMEParse.bestMatch(acceptHeader);
+            final boolean export = request.getParameter(ITriplePatternExporter.PARAMETERNAME_EXPORT) != null;
+            final boolean batch = request.getParameter(BatchFragmentRequest.PARAMETERNAME_PATTERN) != null;
+            String bestMatch = export
+                    ? TripleExportWriter.getMimeType(acceptHeader)
+                    : batch ? BatchWriter.MIMETYPE
+                    : MIMEParse.bestMatch(acceptHeader);
 
             // set additional response headers
             response.setHeader(HttpHeaders.SERVER, "Linked Data Fragments Server");
@@ -170,16 +444,41 @@ public class LinkedDataFragmentServlet extends HttpServlet {
             response.setCharacterEncoding(StandardCharsets.UTF_8.name());
 
             // create a writer depending on the best matching mimeType
-            ILinkedDataFragmentWriter writer = LinkedDataFragmentWriterFactory.create(config.getPrefixes(), dataSources, bestMatch);
+            ILinkedDataFragmentWriter writer = LinkedDataFragmentWriterFactory.create(config.getPrefixes(), dataSources.getDataSources(), bestMatch);
             
             try {
             
-                final IDataSource dataSource = getDataSource( request );
+                lease = getDataSource( request );
+                final IDataSource dataSource = lease.getDataSource();
+
+                if (batch) {
+                    batch(response, dataSource, new BatchRequestParser(dataSource.getRequestParser())
+                                                        .parseIntoFragmentRequest(request, config));
+                    return;
+                }
 
                 final ILinkedDataFragmentRequest ldfRequest =
                         dataSource.getRequestParser()
                                   .parseIntoFragmentRequest( request, config );
 
+                if (export) {
+                    export(request, response, dataSource, ldfRequest, bestMatch);
+                    return;
+                }
+
+                // point caches to the one URL of the fragment
+                if (canonicalUrls != null) {
+                    final String canonicalURL = ldfRequest.getKey().getURL();
+                    if (!canonicalURL.equals(ldfRequest.getFragmentURL())) {
+                        if (canonicalUrls.equals(CANONICAL_REDIRECT)) {
+                            response.setStatus(HttpServletResponse.SC_MOVED_PERMANENTLY);
+                            response.setHeader(HttpHeaders.LOCATION, canonicalURL);
+                            return;
+                        }
+                        response.setHeader(HttpHeaders.CONTENT_LOCATION, canonicalURL);
+                    }
+                }
+
                 fragment = dataSource.getRequestProcessor()
                                   .createRequestedFragment( ldfRequest );
                 writer.writeFragment(response.getOutputStream(), dataSource, fragment, ldfRequest);
@@ -191,8 +490,17 @@ public class LinkedDataFragmentServlet extends HttpServlet {
                 } catch (Exception ex1) {
                     throw new ServletException(ex1);
                 }
+            } catch (IllegalArgumentException e) {
+                // invalid parameters, or a fragment that the data source
+                // cannot serve, such as an order that needs sorting
+                response.setStatus(400);
+                writer.writeError(response.getOutputStream(), e);
             } catch (Exception e) {
                 e.printStackTrace();
+                // a response that has been started cannot take an error page
+                if (response.isCommitted()) {
+                    throw e;
+                }
                 response.setStatus(500);
                 writer.writeError(response.getOutputStream(), e);
             }
@@ -211,6 +519,200 @@ public class LinkedDataFragmentServlet extends HttpServlet {
                     // ignore
                 }
             }
+            // release the datasource only after the fragment has been closed
+            if ( lease != null ) {
+                lease.close();
+            }
+        }
+    }
+
+    /**
+     * Answers batch requests, of which the patterns can be sent in a
+     * form-encoded body; other POST requests are not allowed.
+     *
+     * @param request
+     * @param response
+     * @throws ServletException
+     * @throws IOException
+     */
+    @Override
+    public void doPost(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        if (request.getParameter(BatchFragmentRequest.PARAMETERNAME_PATTERN) == null) {
+            response.sendError(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+            return;
+        }
+        doGet(request, response);
+    }
+
+    /**
+     * Creates the fragments of a batch in parallel and writes them in the
+     * order of the batch, each as soon as it and its predecessors are done.
+     * At most {@link #MAX_PARALLEL_BATCH_FRAGMENTS} fragments of a batch are
+     * submitted at a time, so that a large batch does not hold up the
+     * batches of other clients. The response is only started once the
+     * first fragment exists, so that an invalid first pattern is answered
+     * with an error status; a later pattern that fails is written as an
+     * error in its graph.
+     *
+     * @param response
+     * @param dataSource
+     * @param ldfRequest a {@link BatchFragmentRequest}
+     * @throws Exception
+     */
+    private void batch(HttpServletResponse response, IDataSource dataSource,
+                       ILinkedDataFragmentRequest ldfRequest) throws Exception {
+        final IFragmentRequestProcessor processor = dataSource.getRequestProcessor();
+        final List<ILinkedDataFragmentRequest> requests =
+                ((BatchFragmentRequest) ldfRequest).getRequests();
+
+        final List<Future<ILinkedDataFragment>> fragments = new ArrayList<>();
+        BatchWriter writer = null;
+        int written = 0;
+        try {
+            for (; written < requests.size(); written++) {
+                while (fragments.size() < requests.size()
+                        && fragments.size() < written + MAX_PARALLEL_BATCH_FRAGMENTS) {
+                    final ILinkedDataFragmentRequest request = requests.get(fragments.size());
+                    fragments.add(batchExecutor.submit(new Callable<ILinkedDataFragment>() {
+                        @Override
+                        public ILinkedDataFragment call() {
+                            return processor.createRequestedFragment(request);
+                        }
+                    }));
+                }
+
+                ILinkedDataFragment fragment = null;
+                Exception error = null;
+                try {
+                    fragment = fragments.get(written).get();
+                } catch (ExecutionException e) {
+                    error = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                }
+                if (writer == null) {
+                    if (error != null) {
+                        throw error;
+                    }
+                    writer = new BatchWriter(response.getOutputStream());
+                }
+                if (error != null) {
+                    final int statusCode = error instanceof IllegalArgumentException ? 400 : 500;
+                    if (statusCode == 500) {
+                        log("Failed to create " + requests.get(written).getFragmentURL(), error);
+                    }
+                    writer.writeError(requests.get(written), statusCode, error);
+                    continue;
+                }
+                try {
+                    writer.write(requests.get(written), fragment);
+                } finally {
+                    fragment.close();
+                }
+            }
+            writer.close();
+        } finally {
+            // close the fragments that were not written
+            for (int i = written + 1; i < fragments.size(); i++) {
+                closeWhenDone(fragments.get(i));
+            }
+        }
+    }
+
+    private static void closeWhenDone(Future<ILinkedDataFragment> fragment) {
+        if (!fragment.cancel(false)) {
+            try {
+                fragment.get().close();
+            } catch (Exception e) {
+                // ignore
+            }
+        }
+    }
+
+    /**
+     * Streams all triples that match the requested pattern from a single
+     * iterator. A "Range: triples=first-[last]" header resumes an export at
+     * the given (zero-based) triple offset.
+     *
+     * @param request
+     * @param response
+     * @param dataSource
+     * @param ldfRequest
+     * @param mimeType
+     * @throws IOException
+     */
+    private void export(HttpServletRequest request, HttpServletResponse response,
+                        IDataSource dataSource, ILinkedDataFragmentRequest ldfRequest,
+                        String mimeType) throws IOException {
+        if (!(dataSource.getRequestProcessor() instanceof ITriplePatternExporter)) {
+            throw new IllegalArgumentException("The data source cannot be exported.");
+        }
+        final ITriplePatternExporter exporter =
+                (ITriplePatternExporter) dataSource.getRequestProcessor();
+
+        long offset = 0;
+        long limit = Long.MAX_VALUE;
+        final long[] range = parseRange(request.getHeader(HttpHeaders.RANGE));
+        if (range != null) {
+            offset = range[0];
+            if (range[1] >= 0) {
+                limit = range[1] - range[0] + 1;
+            }
+        }
+
+        // a request that cannot be exported is rejected before any header
+        final ExtendedIterator<Triple> triples = exporter.exportTriples(ldfRequest, offset);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, RANGEUNIT);
+        if (range != null) {
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, RANGEUNIT + " "
+                    + range[0] + "-" + (range[1] >= 0 ? range[1] : "") + "/*");
+        }
+        try {
+            TripleExportWriter.write(response.getOutputStream(), triples, limit, mimeType);
+        } finally {
+            triples.close();
+        }
+    }
+
+    /**
+     * Parses a range of triples of the form "triples=first-" or
+     * "triples=first-last".
+     *
+     * @param header the Range header, or null
+     * @return the first and last triple, with -1 as last for an open range,
+     *         or null if the header is absent or not a range of triples
+     */
+    static long[] parseRange(String header) {
+        if (header == null || !header.startsWith(RANGEUNIT + "=")) {
+            return null;
+        }
+        final String spec = header.substring(RANGEUNIT.length() + 1).trim();
+        final int dash = spec.indexOf('-');
+        if (dash <= 0) {
+            return null;
+        }
+        try {
+            final long first = Long.parseLong(spec.substring(0, dash).trim());
+            final String end = spec.substring(dash + 1).trim();
+            final long last = end.isEmpty() ? -1 : Long.parseLong(end);
+            if (first < 0 || (last >= 0 && last < first)) {
+                return null;
+            }
+            return new long[] { first, last };
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * An index data source together with the data sources it describes.
+     */
+    private static class CachedIndex {
+        final Map<String, IDataSource> dataSources;
+        final IndexDataSource index;
+
+        CachedIndex(Map<String, IDataSource> dataSources, IndexDataSource index) {
+            this.dataSources = dataSources;
+            this.index = index;
         }
     }
 
@@ -44,6 +44,7 @@ public class JettyServer {
         Options options = new Options();
         options.addOption("h", "help", false, "Print this help message and then exit.");
         options.addOption("p", "port", true, "The port the server listents to. The default is 8080.");
+        options.addOption("w", "watch", false, "Reload the configuration file when it changes.");
         
         CommandLineParser parser = new DefaultParser();
         CommandLine commandLine = parser.parse(options, args);
@@ -80,6 +81,8 @@ public class JettyServer {
         // add a simple Servlet at "/dynamic/*"
         ServletHolder holderDynamic = new ServletHolder("dynamic", LinkedDataFragmentServlet.class);
         holderDynamic.setInitParameter(LinkedDataFragmentServlet.CFGFILE, config);
+        holderDynamic.setInitParameter(LinkedDataFragmentServlet.WATCHCFG,
+                Boolean.toString(commandLine.hasOption('w')));
         context.addServlet(holderDynamic, "/*");
 
         // add special pathspec of "/home/" content mapped to the homePath
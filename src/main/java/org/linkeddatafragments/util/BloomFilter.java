@@ -0,0 +1,166 @@
+package org.linkeddatafragments.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * A Bloom filter over strings, such as RDF terms in N-Triples syntax. The
+ * positions of an element are (h1 + i * h2) mod m for i = 0, ..., k - 1,
+ * where h1 and h2 are the first and the second 8 bytes of the MD5 hash of
+ * the UTF-8 encoded element as big-endian signed numbers, the arithmetic
+ * wraps around at 64 bits, and the modulo is non-negative. Bit j of the
+ * filter is bit (j mod 8), counted from the least significant bit, of byte
+ * (j / 8) of its byte array.
+ */
+public class BloomFilter
+{
+    private final byte[] bits;
+    private final int size;
+    private final int hashes;
+
+    /**
+     * Creates an empty filter with the optimal number of bits and hashes
+     * for the given number of elements and false positive probability.
+     *
+     * @param expectedElements the number of elements that will be added
+     * @param falsePositiveProbability the probability that an element that
+     *        was not added is reported as contained
+     */
+    public BloomFilter( final long expectedElements,
+                        final double falsePositiveProbability )
+    {
+        this( getSize(expectedElements, falsePositiveProbability),
+              getHashes(expectedElements, falsePositiveProbability) );
+    }
+
+    /**
+     * Creates an empty filter.
+     *
+     * @param size the number of bits
+     * @param hashes the number of hashes per element
+     */
+    public BloomFilter( final int size, final int hashes )
+    {
+        this( new byte[(size + 7) / 8], size, hashes );
+    }
+
+    /**
+     * Creates a filter from its bits.
+     *
+     * @param bits the byte array of the filter, which is not copied
+     * @param size the number of bits
+     * @param hashes the number of hashes per element
+     */
+    public BloomFilter( final byte[] bits, final int size, final int hashes )
+    {
+        if ( size < 1 || hashes < 1 || bits.length != (size + 7) / 8 )
+            throw new IllegalArgumentException();
+
+        this.bits = bits;
+        this.size = size;
+        this.hashes = hashes;
+    }
+
+    private static int getSize( final long n, final double p )
+    {
+        if ( n < 0L || p <= 0.0 || p >= 1.0 )
+            throw new IllegalArgumentException();
+
+        final double size = Math.ceil( -Math.max(n, 1L) * Math.log(p)
+                                       / (Math.log(2) * Math.log(2)) );
+        if ( size > Integer.MAX_VALUE - 7 )
+            throw new IllegalArgumentException( "The filter is too large." );
+        return (int) size;
+    }
+
+    private static int getHashes( final long n, final double p )
+    {
+        final double size = getSize( n, p );
+        return Math.max( 1, (int) Math.round(size / Math.max(n, 1L) * Math.log(2)) );
+    }
+
+    /**
+     * Adds an element.
+     *
+     * @param element the element
+     */
+    public void add( final String element )
+    {
+        final long[] h = hash( element );
+        for ( int i = 0; i < hashes; i++ ) {
+            final int position = position( h, i );
+            bits[position >>> 3] |= (byte) ( 1 << (position & 7) );
+        }
+    }
+
+    /**
+     * Checks whether an element may have been added.
+     *
+     * @param element the element
+     * @return false if the element has certainly not been added
+     */
+    public boolean mightContain( final String element )
+    {
+        final long[] h = hash( element );
+        for ( int i = 0; i < hashes; i++ ) {
+            final int position = position( h, i );
+            if ( ( bits[position >>> 3] & (1 << (position & 7)) ) == 0 )
+                return false;
+        }
+        return true;
+    }
+
+    private int position( final long[] h, final int i )
+    {
+        return (int) Math.floorMod( h[0] + i * h[1], (long) size );
+    }
+
+    private static long[] hash( final String element )
+    {
+        final MessageDigest md5;
+        try {
+            md5 = MessageDigest.getInstance( "MD5" );
+        }
+        catch ( NoSuchAlgorithmException e ) {
+            throw new IllegalStateException( e );
+        }
+        final byte[] digest = md5.digest( element.getBytes(StandardCharsets.UTF_8) );
+        long h1 = 0L;
+        long h2 = 0L;
+        for ( int i = 0; i < 8; i++ ) {
+            h1 = ( h1 << 8 ) | ( digest[i] & 0xFF );
+            h2 = ( h2 << 8 ) | ( digest[i + 8] & 0xFF );
+        }
+        return new long[] { h1, h2 };
+    }
+
+    /**
+     *
+     * @return the number of bits
+     */
+    public int getSize()
+    {
+        return size;
+    }
+
+    /**
+     *
+     * @return the number of hashes per element
+     */
+    public int getHashes()
+    {
+        return hashes;
+    }
+
+    /**
+     * Gets the bits of the filter.
+     *
+     * @return the byte array of the filter; must not be modified
+     */
+    public byte[] toByteArray()
+    {
+        return bits;
+    }
+
+}
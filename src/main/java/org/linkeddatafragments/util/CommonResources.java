@@ -38,6 +38,11 @@ public class CommonResources {
      */
     public final static Property RDF_OBJECT = createProperty(RDF + "object");
 
+    /**
+     *
+     */
+    public final static Property RDF_VALUE = createProperty(RDF + "value");
+
     /**
      *
      */
@@ -128,6 +133,76 @@ public class CommonResources {
      */
     public final static Property HYDRA_PREVIOUSPAGE = createProperty(HYDRA + "previousPage");
 
+    /**
+     *
+     */
+    public final static Property HYDRA_ERROR = createProperty(HYDRA + "Error");
+
+    /**
+     *
+     */
+    public final static Property HYDRA_STATUSCODE = createProperty(HYDRA + "statusCode");
+
+    /**
+     *
+     */
+    public final static Property HYDRA_DESCRIPTION = createProperty(HYDRA + "description");
+
+    /**
+     *
+     */
+    public final static String MEMBERSHIP = "http://semweb.mmlab.be/ns/membership#";
+
+    /**
+     *
+     */
+    public final static Property MEMBERSHIP_FILTER = createProperty(MEMBERSHIP + "filter");
+
+    /**
+     *
+     */
+    public final static Property MEMBERSHIP_BLOOMFILTER = createProperty(MEMBERSHIP + "BloomFilter");
+
+    /**
+     *
+     */
+    public final static Property MEMBERSHIP_VARIABLE = createProperty(MEMBERSHIP + "variable");
+
+    /**
+     *
+     */
+    public final static Property MEMBERSHIP_HASHES = createProperty(MEMBERSHIP + "hashes");
+
+    /**
+     *
+     */
+    public final static Property MEMBERSHIP_BITS = createProperty(MEMBERSHIP + "bits");
+
+    /**
+     *
+     */
+    public final static Property MEMBERSHIP_BITARRAY = createProperty(MEMBERSHIP + "bitArray");
+
+    /**
+     *
+     */
+    public final static String ORDER = "http://linkeddatafragments.org/ns/order#";
+
+    /**
+     *
+     */
+    public final static Property ORDER_ORDEREDBY = createProperty(ORDER + "orderedBy");
+
+    /**
+     *
+     */
+    public final static Property ORDER_SORTKEY = createProperty(ORDER + "sortKey");
+
+    /**
+     *
+     */
+    public final static Property ORDER_KEY = createProperty(ORDER + "key");
+
     /**
      *
      */
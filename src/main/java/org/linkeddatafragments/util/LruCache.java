@@ -0,0 +1,66 @@
+package org.linkeddatafragments.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A map with a maximum number of entries, which evicts the least recently
+ * used entry when an entry is added to a full cache. It may be used by
+ * concurrent threads.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+public class LruCache<K,V>
+{
+    private final LinkedHashMap<K,V> entries;
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param capacity the maximum number of entries
+     */
+    public LruCache( final int capacity )
+    {
+        entries = new LinkedHashMap<K,V>( 16, 0.75f, true ) {
+            @Override
+            protected boolean removeEldestEntry( final Map.Entry<K,V> eldest )
+            {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Gets the value of a key and marks the entry as used.
+     *
+     * @param key the key
+     * @return the value, or null if the key is not cached
+     */
+    public synchronized V get( final K key )
+    {
+        return entries.get( key );
+    }
+
+    /**
+     * Adds or replaces the value of a key, evicting the least recently used
+     * entry if the cache is full.
+     *
+     * @param key the key
+     * @param value the value
+     */
+    public synchronized void put( final K key, final V value )
+    {
+        entries.put( key, value );
+    }
+
+    /**
+     * Gets the number of entries.
+     *
+     * @return the number of entries
+     */
+    public synchronized int size()
+    {
+        return entries.size();
+    }
+}
@@ -5,9 +5,9 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang.math.NumberUtils;
@@ -31,14 +31,71 @@ import org.apache.commons.lang.math.NumberUtils;
  */
 public final class MIMEParse
 {
-    private final static List<String> mimeTypes = new ArrayList<>();
-    
+    /**
+     * Maximum number of distinct Accept headers for which the best match
+     * is cached
+     */
+    private final static int MAX_CACHED_HEADERS = 256;
+
+    private static volatile Registered registered =
+            new Registered(Collections.<String>emptyList());
+
     /**
      * Register mimeType in collection
      * @param mimeType 
      */
-    public static void register(String mimeType) {
-        mimeTypes.add(mimeType);
+    public static synchronized void register(String mimeType) {
+        if (!registered.mimeTypes.contains(mimeType))
+        {
+            List<String> mimeTypes = new ArrayList<String>(registered.mimeTypes);
+            mimeTypes.add(mimeType);
+            registered = new Registered(mimeTypes);
+        }
+    }
+
+    /**
+     * Gets the registered mime-types.
+     * 
+     * @return an unmodifiable list of the mime-types in order of registration
+     */
+    public static List<String> getRegistered()
+    {
+        return registered.mimeTypes;
+    }
+
+    /**
+     * The registered mime-types, which are parsed once, and the best matches
+     * for the Accept headers that were seen. A new instance replaces it when
+     * a mime-type is registered, so it can be shared without locking.
+     */
+    private static class Registered
+    {
+        final List<String> mimeTypes;
+
+        final List<ParseResults> parsed = new ArrayList<ParseResults>();
+
+        final ConcurrentHashMap<String, String> bestMatches =
+                new ConcurrentHashMap<String, String>();
+
+        Registered(List<String> mimeTypes)
+        {
+            this.mimeTypes = Collections.unmodifiableList(mimeTypes);
+            for (String mimeType : mimeTypes)
+                parsed.add(parseMediaRange(mimeType));
+        }
+
+        String bestMatch(String header) throws NoRegisteredMimeTypesException
+        {
+            String match = bestMatches.get(header);
+            if (match == null)
+            {
+                match = MIMEParse.bestMatch(mimeTypes, parsed, header);
+                // a client that varies its Accept header cannot fill the cache
+                if (bestMatches.size() < MAX_CACHED_HEADERS)
+                    bestMatches.put(header, match);
+            }
+            return match;
+        }
     }
     
 
@@ -174,10 +231,15 @@ public final class MIMEParse
      */
     protected static FitnessAndQuality fitnessAndQualityParsed(String mimeType,
             Collection<ParseResults> parsedRanges)
+    {
+        return fitnessAndQualityParsed(parseMediaRange(mimeType), parsedRanges);
+    }
+
+    private static FitnessAndQuality fitnessAndQualityParsed(ParseResults target,
+            Collection<ParseResults> parsedRanges)
     {
         int bestFitness = -1;
         float bestFitQ = 0;
-        ParseResults target = parseMediaRange(mimeType);
 
         for (ParseResults range : parsedRanges)
         {
@@ -237,7 +299,7 @@ public final class MIMEParse
      */
     public static float quality(String mimeType, String ranges)
     {
-        List<ParseResults> results = new LinkedList<ParseResults>();
+        List<ParseResults> results = new ArrayList<ParseResults>();
         for (String r : StringUtils.split(ranges, ','))
             results.add(parseMediaRange(r));
         return qualityParsed(mimeType, results);
@@ -258,44 +320,55 @@ public final class MIMEParse
      * @throws org.linkeddatafragments.exceptions.NoRegisteredMimeTypesException
      */
     public static String bestMatch(List<String> supported, String header) throws NoRegisteredMimeTypesException
+    {
+        List<ParseResults> parsedSupported = new ArrayList<ParseResults>();
+        for (String s : supported)
+            parsedSupported.add(parseMediaRange(s));
+        return bestMatch(supported, parsedSupported, header);
+    }
+
+    private static String bestMatch(List<String> supported,
+            List<ParseResults> parsedSupported, String header) throws NoRegisteredMimeTypesException
     {
         if (supported.isEmpty())
             throw new NoRegisteredMimeTypesException();
         
-        List<ParseResults> parseResults = new LinkedList<ParseResults>();
-        List<FitnessAndQuality> weightedMatches = new LinkedList<FitnessAndQuality>();
-        for (String r : StringUtils.split(header, ',')) {
-            try {
-                parseResults.add(parseMediaRange(r));
-            } catch (Exception ex) {} // Fail silently on malformed media type and omit from list.
+        List<ParseResults> parseResults = new ArrayList<ParseResults>();
+        if (header != null)
+        {
+            for (String r : StringUtils.split(header, ',')) {
+                try {
+                    parseResults.add(parseMediaRange(r));
+                } catch (Exception ex) {} // Fail silently on malformed media type and omit from list.
+            }
         }
 
-        for (String s : supported)
+        // the last of the best matches wins, as after a stable sort
+        FitnessAndQuality lastOne = null;
+        for (int i = 0; i < supported.size(); i++)
         {
-            FitnessAndQuality fitnessAndQuality = fitnessAndQualityParsed(s,
-                    parseResults);
-            fitnessAndQuality.mimeType = s;
-            weightedMatches.add(fitnessAndQuality);
+            FitnessAndQuality fitnessAndQuality = fitnessAndQualityParsed(
+                    parsedSupported.get(i), parseResults);
+            fitnessAndQuality.mimeType = supported.get(i);
+            if (lastOne == null || fitnessAndQuality.compareTo(lastOne) >= 0)
+                lastOne = fitnessAndQuality;
         }
 
-
-
-        Collections.sort(weightedMatches);
-        FitnessAndQuality lastOne = weightedMatches
-                .get(weightedMatches.size() - 1);
-
         return NumberUtils.compare(lastOne.quality, 0) != 0 ? lastOne.mimeType : supported.get(0);
     }
     
     /**
+     * Finds the best match of the registered mime-types for the given
+     * Accept header. The best matches are cached for a bounded number of
+     * distinct headers.
      *
-     * @param header
+     * @param header the Accept header, or null
      * @return
      * @throws NoRegisteredMimeTypesException
      */
     public static String bestMatch(String header) throws NoRegisteredMimeTypesException
     {
-        return bestMatch(mimeTypes, header);
+        return registered.bestMatch(header == null ? "" : header);
     }
 
     // hidden
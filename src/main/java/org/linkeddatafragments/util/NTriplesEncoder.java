@@ -0,0 +1,362 @@
+package org.linkeddatafragments.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.jena.datatypes.xsd.XSDDatatype;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.rdf.model.Resource;
+
+/**
+ * Encodes triples as N-Triples directly into a UTF-8 byte buffer, which is
+ * written to the underlying stream only when it is full.
+ *
+ * IRIs of the vocabularies in {@link CommonResources} and common datatypes
+ * are encoded once; the IRIs of predicates are encoded once per encoder.
+ */
+public class NTriplesEncoder
+{
+    /**
+     * The default size of the buffer
+     */
+    public final static int BUFFERSIZE = 64 * 1024;
+
+    private final static int MAX_CACHED_PREDICATES = 1024;
+
+    private final static byte[] HEX = "0123456789ABCDEF".getBytes( StandardCharsets.US_ASCII );
+
+    private final static String XSD_STRING = XSDDatatype.XSDstring.getURI();
+
+    private final static Map<String, byte[]> COMMON_IRIS = new HashMap<>();
+
+    static {
+        for ( Field field : CommonResources.class.getFields() ) {
+            if ( Modifier.isStatic(field.getModifiers())
+                    && Resource.class.isAssignableFrom(field.getType()) ) {
+                try {
+                    final String iri = ((Resource) field.get(null)).getURI();
+                    COMMON_IRIS.put( iri, encodeIRI(iri) );
+                }
+                catch ( IllegalAccessException e ) {
+                    throw new IllegalStateException( e );
+                }
+            }
+        }
+        for ( XSDDatatype datatype : new XSDDatatype[] {
+                XSDDatatype.XSDinteger, XSDDatatype.XSDint,
+                XSDDatatype.XSDlong, XSDDatatype.XSDdecimal,
+                XSDDatatype.XSDdouble, XSDDatatype.XSDfloat,
+                XSDDatatype.XSDboolean, XSDDatatype.XSDdate,
+                XSDDatatype.XSDdateTime, XSDDatatype.XSDgYear,
+                XSDDatatype.XSDanyURI, XSDDatatype.XSDnonNegativeInteger } ) {
+            COMMON_IRIS.put( datatype.getURI(), encodeIRI(datatype.getURI()) );
+        }
+    }
+
+    private final OutputStream out;
+    private final byte[] buffer;
+    private int pos = 0;
+
+    private final Map<Node, byte[]> predicates = new HashMap<>();
+
+    /**
+     * Creates an encoder with its own buffer.
+     *
+     * @param out the stream to write to
+     */
+    public NTriplesEncoder( final OutputStream out )
+    {
+        this( out, new byte[BUFFERSIZE] );
+    }
+
+    /**
+     * Creates an encoder that uses the given buffer, which may be reused
+     * once the encoder has been flushed.
+     *
+     * @param out the stream to write to
+     * @param buffer the buffer, at least 16 bytes long
+     */
+    public NTriplesEncoder( final OutputStream out, final byte[] buffer )
+    {
+        if ( buffer.length < 16 )
+            throw new IllegalArgumentException( "The buffer is too small." );
+        this.out = out;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Encodes a triple.
+     *
+     * @param triple the triple
+     * @throws IOException
+     */
+    public void write( final Triple triple ) throws IOException
+    {
+        writeTerm( triple.getSubject() );
+        write( (byte) ' ' );
+        writePredicate( triple.getPredicate() );
+        write( (byte) ' ' );
+        writeTerm( triple.getObject() );
+        write( (byte) ' ' );
+        write( (byte) '.' );
+        write( (byte) '\n' );
+    }
+
+    /**
+     * Writes triples that have been encoded before, such as by another
+     * encoder.
+     *
+     * @param ntriples UTF-8 encoded N-Triples
+     * @throws IOException
+     */
+    public void writeEncoded( final byte[] ntriples ) throws IOException
+    {
+        write( ntriples );
+    }
+
+    /**
+     * Writes the buffered bytes to the underlying stream and flushes it.
+     *
+     * @throws IOException
+     */
+    public void flush() throws IOException
+    {
+        drain();
+        out.flush();
+    }
+
+    private void writePredicate( final Node predicate ) throws IOException
+    {
+        byte[] bytes = COMMON_IRIS.get( predicate.getURI() );
+        if ( bytes == null ) {
+            bytes = predicates.get( predicate );
+            if ( bytes == null ) {
+                bytes = encodeIRI( predicate.getURI() );
+                if ( predicates.size() < MAX_CACHED_PREDICATES )
+                    predicates.put( predicate, bytes );
+            }
+        }
+        write( bytes );
+    }
+
+    private void writeTerm( final Node node ) throws IOException
+    {
+        if ( node.isURI() ) {
+            final byte[] bytes = COMMON_IRIS.get( node.getURI() );
+            if ( bytes != null )
+                write( bytes );
+            else
+                writeIRI( node.getURI() );
+        }
+        else if ( node.isBlank() ) {
+            writeBlankNode( node.getBlankNodeLabel() );
+        }
+        else if ( node.isLiteral() ) {
+            writeLiteral( node );
+        }
+        else {
+            throw new IllegalArgumentException( "Cannot write " + node );
+        }
+    }
+
+    private void writeIRI( final String iri ) throws IOException
+    {
+        write( (byte) '<' );
+        final int length = iri.length();
+        for ( int i = 0; i < length; i++ ) {
+            final char c = iri.charAt( i );
+            if ( c <= 0x20 || c == '<' || c == '>' || c == '"' || c == '{'
+                    || c == '}' || c == '|' || c == '^' || c == '`'
+                    || c == '\\' ) {
+                writeUnicodeEscape( c );
+            }
+            else {
+                i = writeChar( iri, i, c );
+            }
+        }
+        write( (byte) '>' );
+    }
+
+    private void writeLiteral( final Node literal ) throws IOException
+    {
+        write( (byte) '"' );
+        final String lexicalForm = literal.getLiteralLexicalForm();
+        final int length = lexicalForm.length();
+        for ( int i = 0; i < length; i++ ) {
+            final char c = lexicalForm.charAt( i );
+            switch ( c ) {
+                case '"':  writeEscape( (byte) '"' ); break;
+                case '\\': writeEscape( (byte) '\\' ); break;
+                case '\n': writeEscape( (byte) 'n' ); break;
+                case '\r': writeEscape( (byte) 'r' ); break;
+                case '\t': writeEscape( (byte) 't' ); break;
+                case '\b': writeEscape( (byte) 'b' ); break;
+                case '\f': writeEscape( (byte) 'f' ); break;
+                default:
+                    if ( c < 0x20 || c == 0x7F )
+                        writeUnicodeEscape( c );
+                    else
+                        i = writeChar( lexicalForm, i, c );
+            }
+        }
+        write( (byte) '"' );
+
+        final String language = literal.getLiteralLanguage();
+        if ( language != null && ! language.isEmpty() ) {
+            write( (byte) '@' );
+            final int languageLength = language.length();
+            for ( int i = 0; i < languageLength; i++ )
+                write( (byte) language.charAt(i) );
+        }
+        else {
+            final String datatype = literal.getLiteralDatatypeURI();
+            if ( datatype != null && ! datatype.equals(XSD_STRING) ) {
+                write( (byte) '^' );
+                write( (byte) '^' );
+                final byte[] bytes = COMMON_IRIS.get( datatype );
+                if ( bytes != null )
+                    write( bytes );
+                else
+                    writeIRI( datatype );
+            }
+        }
+    }
+
+    private void writeBlankNode( final String label ) throws IOException
+    {
+        // labels are restricted to letters and digits; anything else,
+        // including the escape character X, is written as X<hex>X
+        write( (byte) '_' );
+        write( (byte) ':' );
+        write( (byte) 'B' );
+        final int length = label.length();
+        for ( int i = 0; i < length; i++ ) {
+            final char c = label.charAt( i );
+            if ( (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+                    || (c >= 'A' && c <= 'Z' && c != 'X') ) {
+                write( (byte) c );
+            }
+            else {
+                write( (byte) 'X' );
+                final String hex = Integer.toHexString( c );
+                for ( int j = 0; j < hex.length(); j++ )
+                    write( (byte) hex.charAt(j) );
+                write( (byte) 'X' );
+            }
+        }
+    }
+
+    private void writeEscape( final byte b ) throws IOException
+    {
+        write( (byte) '\\' );
+        write( b );
+    }
+
+    private void writeUnicodeEscape( final char c ) throws IOException
+    {
+        ensure( 6 );
+        buffer[pos++] = '\\';
+        buffer[pos++] = 'u';
+        buffer[pos++] = HEX[(c >> 12) & 0xF];
+        buffer[pos++] = HEX[(c >> 8) & 0xF];
+        buffer[pos++] = HEX[(c >> 4) & 0xF];
+        buffer[pos++] = HEX[c & 0xF];
+    }
+
+    /**
+     * Writes the UTF-8 encoding of the character at the given position.
+     *
+     * @return the position of the last char that has been consumed
+     */
+    private int writeChar( final String s, final int i, final char c )
+                                                            throws IOException
+    {
+        ensure( 4 );
+        if ( c < 0x80 ) {
+            buffer[pos++] = (byte) c;
+        }
+        else if ( c < 0x800 ) {
+            buffer[pos++] = (byte) (0xC0 | (c >> 6));
+            buffer[pos++] = (byte) (0x80 | (c & 0x3F));
+        }
+        else if ( Character.isHighSurrogate(c) && i + 1 < s.length()
+                  && Character.isLowSurrogate(s.charAt(i + 1)) ) {
+            final int cp = Character.toCodePoint( c, s.charAt(i + 1) );
+            buffer[pos++] = (byte) (0xF0 | (cp >> 18));
+            buffer[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+            buffer[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+            buffer[pos++] = (byte) (0x80 | (cp & 0x3F));
+            return i + 1;
+        }
+        else if ( Character.isSurrogate(c) ) {
+            // unpaired surrogates cannot be encoded
+            buffer[pos++] = '?';
+        }
+        else {
+            buffer[pos++] = (byte) (0xE0 | (c >> 12));
+            buffer[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+            buffer[pos++] = (byte) (0x80 | (c & 0x3F));
+        }
+        return i;
+    }
+
+    private void write( final byte b ) throws IOException
+    {
+        if ( pos == buffer.length )
+            drain();
+        buffer[pos++] = b;
+    }
+
+    private void write( final byte[] bytes ) throws IOException
+    {
+        if ( bytes.length > buffer.length - pos ) {
+            drain();
+            if ( bytes.length > buffer.length ) {
+                out.write( bytes );
+                return;
+            }
+        }
+        System.arraycopy( bytes, 0, buffer, pos, bytes.length );
+        pos += bytes.length;
+    }
+
+    private void ensure( final int n ) throws IOException
+    {
+        if ( buffer.length - pos < n )
+            drain();
+    }
+
+    private void drain() throws IOException
+    {
+        if ( pos > 0 ) {
+            out.write( buffer, 0, pos );
+            pos = 0;
+        }
+    }
+
+    /**
+     * Encodes an IRI with an encoder of its own.
+     */
+    private static byte[] encodeIRI( final String iri )
+    {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final NTriplesEncoder encoder =
+                                new NTriplesEncoder( bytes, new byte[256] );
+        try {
+            encoder.writeIRI( iri );
+            encoder.drain();
+        }
+        catch ( IOException e ) {
+            throw new IllegalStateException( e );
+        }
+        return bytes.toByteArray();
+    }
+
+}
@@ -0,0 +1,190 @@
+package org.linkeddatafragments.util;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A trie of the namespaces of a prefix map, which finds the longest
+ * namespace of an IRI in a single pass over the IRI, regardless of the
+ * number of prefixes. It is compiled once for each prefix map.
+ */
+public class PrefixTrie
+{
+    private static volatile PrefixTrie cached;
+
+    private final Map<String, String> prefixes;
+
+    private final Node root;
+
+    /**
+     * Gets the trie of the given prefixes, which is compiled only if the
+     * prefixes differ from those of the previous call.
+     *
+     * @param prefixes maps prefix names to namespaces
+     * @return the trie
+     */
+    public static PrefixTrie get( final Map<String, String> prefixes )
+    {
+        PrefixTrie trie = cached;
+        if ( trie == null || trie.prefixes != prefixes ) {
+            trie = new PrefixTrie( prefixes );
+            cached = trie;
+        }
+        return trie;
+    }
+
+    /**
+     * Compiles the trie of the given prefixes.
+     *
+     * @param prefixes maps prefix names to namespaces
+     */
+    public PrefixTrie( final Map<String, String> prefixes )
+    {
+        this.prefixes = prefixes;
+
+        final Builder builder = new Builder();
+        for ( Map.Entry<String, String> prefix : prefixes.entrySet() ) {
+            Builder node = builder;
+            final String namespace = prefix.getValue();
+            for ( int i = 0; i < namespace.length(); i++ ) {
+                Builder child = node.children.get( namespace.charAt(i) );
+                if ( child == null ) {
+                    child = new Builder();
+                    node.children.put( namespace.charAt(i), child );
+                }
+                node = child;
+            }
+            // the first prefix name is kept for a namespace with several names
+            if ( node.name == null )
+                node.name = prefix.getKey();
+        }
+        root = builder.build();
+    }
+
+    /**
+     * Gets the prefixes of which the trie was compiled.
+     *
+     * @return maps prefix names to namespaces
+     */
+    public Map<String, String> getPrefixes()
+    {
+        return prefixes;
+    }
+
+    /**
+     * Gets the length of the longest namespace of the given IRI.
+     *
+     * @param iri the IRI
+     * @return the length of the namespace, or -1 if no namespace matches
+     */
+    public int getNamespaceLength( final String iri )
+    {
+        final Node node = find( iri );
+        return node == null ? -1 : node.length;
+    }
+
+    /**
+     * Gets the prefix name of the longest namespace of the given IRI.
+     *
+     * @param iri the IRI
+     * @return the prefix name, or null if no namespace matches
+     */
+    public String getPrefixName( final String iri )
+    {
+        final Node node = find( iri );
+        return node == null ? null : node.name;
+    }
+
+    /**
+     * Abbreviates an IRI to a prefixed name with the longest namespace that
+     * leaves a non-empty local name.
+     *
+     * @param iri the IRI
+     * @return the prefixed name, or the IRI itself if no namespace matches
+     */
+    public String compact( final String iri )
+    {
+        final Node node = find( iri );
+        if ( node == null || node.length == iri.length() )
+            return iri;
+        return node.name + ":" + iri.substring( node.length );
+    }
+
+    private Node find( final String iri )
+    {
+        Node match = null;
+        Node node = root;
+        for ( int i = 0; node != null; i++ ) {
+            if ( node.name != null )
+                match = node;
+            if ( i == iri.length() )
+                break;
+            node = node.child( iri.charAt(i) );
+        }
+        return match;
+    }
+
+    /**
+     * A node of the compiled trie, with its children sorted by label
+     */
+    private static class Node
+    {
+        final String name;
+        final int length;
+        final char[] labels;
+        final Node[] children;
+
+        Node( final String name, final int length,
+              final char[] labels, final Node[] children )
+        {
+            this.name = name;
+            this.length = length;
+            this.labels = labels;
+            this.children = children;
+        }
+
+        Node child( final char label )
+        {
+            int low = 0;
+            int high = labels.length - 1;
+            while ( low <= high ) {
+                final int middle = ( low + high ) >>> 1;
+                if ( labels[middle] < label )
+                    low = middle + 1;
+                else if ( labels[middle] > label )
+                    high = middle - 1;
+                else
+                    return children[middle];
+            }
+            return null;
+        }
+    }
+
+    /**
+     * A node of the trie while it is built
+     */
+    private static class Builder
+    {
+        final TreeMap<Character, Builder> children = new TreeMap<>();
+        String name;
+
+        Node build()
+        {
+            return build( 0 );
+        }
+
+        private Node build( final int length )
+        {
+            final char[] labels = new char[children.size()];
+            final Node[] nodes = new Node[children.size()];
+            int i = 0;
+            for ( Map.Entry<Character, Builder> child : children.entrySet() ) {
+                labels[i] = child.getKey();
+                nodes[i] = child.getValue().build( length + 1 );
+                i++;
+            }
+            return new Node( name, length, labels, nodes );
+        }
+    }
+
+}
@@ -1,6 +1,5 @@
 package org.linkeddatafragments.util;
 
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
@@ -14,7 +13,8 @@ abstract public class RDFTermParser<TermType>
 {
 
     /**
-     *
+     * The syntax of literals; they are parsed by {@link #parseLiteral}, which
+     * accepts the same strings without a regular expression.
      */
     public static final Pattern STRINGPATTERN
                   = Pattern.compile("^\"(.*)\"(?:@(.*)|\\^\\^<?([^<>]*)>?)?$");
@@ -43,23 +43,7 @@ abstract public class RDFTermParser<TermType>
 
             // quotes indicate a string
             case '"':
-                Matcher matcher = STRINGPATTERN.matcher( param );
-                if ( matcher.matches() ) {
-                    String label   = matcher.group(1);
-                    String langTag = matcher.group(2);
-                    String typeURI = matcher.group(3);
-
-                    if ( langTag != null )
-                        return createLanguageLiteral( label, langTag );
-
-                    else if ( typeURI != null )
-                        return createTypedLiteral( label, typeURI );
-
-                    else
-                        return createPlainLiteral( label );
-                }
-                else
-                    return handleUnparsableParameter( param );
+                return parseLiteral( param );
 
             // assume it is a URI without angular brackets
             default:
@@ -67,6 +51,76 @@ abstract public class RDFTermParser<TermType>
         }
     }
 
+    /**
+     * Parses a literal in the syntax of {@link #STRINGPATTERN}: the label
+     * ends at the last quote that is followed by nothing, by a language tag,
+     * or by a datatype.
+     *
+     * @param param a string that starts with a quote
+     * @return
+     */
+    protected TermType parseLiteral( final String param )
+    {
+        for ( int end = param.lastIndexOf( '"' ); end > 0;
+              end = param.lastIndexOf( '"', end - 1 ) )
+        {
+            if ( ! isSingleLine(param, 1, end) )
+                continue;
+
+            final int length = param.length();
+            final String label = param.substring( 1, end );
+
+            // "label"
+            if ( end + 1 == length )
+                return createPlainLiteral( label );
+
+            // "label"@langTag
+            if ( param.charAt(end + 1) == '@' ) {
+                if ( isSingleLine(param, end + 2, length) )
+                    return createLanguageLiteral( label,
+                                                  param.substring(end + 2) );
+                continue;
+            }
+
+            // "label"^^<typeURI> or "label"^^typeURI
+            if ( param.startsWith("^^", end + 1) ) {
+                int start = end + 3;
+                int stop = length;
+                if ( start < stop && param.charAt(start) == '<' )
+                    start++;
+                if ( start < stop && param.charAt(stop - 1) == '>' )
+                    stop--;
+                if ( indexOfBracket(param, start, stop) < 0 )
+                    return createTypedLiteral( label,
+                                               param.substring(start, stop) );
+            }
+        }
+        return handleUnparsableParameter( param );
+    }
+
+    private static boolean isSingleLine( final String s,
+                                         final int start, final int end )
+    {
+        for ( int i = start; i < end; i++ ) {
+            final char c = s.charAt( i );
+            if ( c == '\n' || c == '\r' || c == '\u0085'
+                    || c == '\u2028' || c == '\u2029' )
+                return false;
+        }
+        return true;
+    }
+
+    private static int indexOfBracket( final String s,
+                                       final int start, final int end )
+    {
+        for ( int i = start; i < end; i++ ) {
+            final char c = s.charAt( i );
+            if ( c == '<' || c == '>' )
+                return i;
+        }
+        return -1;
+    }
+
     /**
      *
      * @param label
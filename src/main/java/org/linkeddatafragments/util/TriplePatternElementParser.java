@@ -7,6 +7,9 @@ import org.linkeddatafragments.fragments.tpf.TriplePatternElementFactory;
  * Parses strings (as obtained from HTTP request parameters) into
  * {@link ITriplePatternElement}s. 
  *
+ * The elements are immutable, so the elements of recent parameters are
+ * cached and reused for later requests with the same parameter.
+ *
  * @param <ConstantTermType> type for representing constants in triple patterns
  *                           (i.e., URIs and literals)
  * @param <NamedVarType> type for representing named variables in triple patterns
@@ -20,6 +23,21 @@ abstract public
     class TriplePatternElementParser<ConstantTermType,NamedVarType,AnonVarType>
         extends RDFTermParser<ConstantTermType>
 {
+    /**
+     * Maximum number of parsed parameters that are cached
+     */
+    private final static int MAX_CACHED_ELEMENTS = 16 * 1024;
+
+    /**
+     * Maximum length of a parameter that is cached
+     */
+    private final static int MAX_CACHED_LENGTH = 1024;
+
+    private final LruCache<String,
+            ITriplePatternElement<ConstantTermType,NamedVarType,AnonVarType>>
+                elements = new LruCache<String,
+                    ITriplePatternElement<ConstantTermType,NamedVarType,AnonVarType>>(
+                        MAX_CACHED_ELEMENTS );
 
     /**
      *
@@ -39,6 +57,19 @@ abstract public
         if ( param == null || param.isEmpty() )
             return factory.createUnspecifiedVariable();
 
+        ITriplePatternElement<ConstantTermType,NamedVarType,AnonVarType>
+                                                element = elements.get( param );
+        if ( element == null ) {
+            element = parse( param );
+            if ( param.length() <= MAX_CACHED_LENGTH )
+                elements.put( param, element );
+        }
+        return element;
+    }
+
+    private ITriplePatternElement<ConstantTermType,NamedVarType,AnonVarType>
+                                                   parse( final String param )
+    {
         // identify the kind of RDF term based on the first character
         char firstChar = param.charAt(0);
         switch ( firstChar )
@@ -2,6 +2,8 @@ package org.linkeddatafragments.util;
 
 import org.apache.jena.datatypes.RDFDatatype;
 import org.apache.jena.datatypes.TypeMapper;
+import org.apache.jena.datatypes.xsd.XSDDatatype;
+import org.apache.jena.graph.Node;
 import org.apache.jena.rdf.model.RDFNode;
 import org.apache.jena.rdf.model.ResourceFactory;
 
@@ -32,6 +34,34 @@ public class TriplePatternElementParserForJena
      */
     protected TriplePatternElementParserForJena() {}
 
+    /**
+     * Writes an RDF term as a request parameter from which it is parsed
+     * again: IRIs without angular brackets, and literals with a language
+     * tag or a datatype IRI unless they are simple strings.
+     *
+     * @param term an IRI or a literal
+     * @return the parameter
+     */
+    public static String toParameter( final RDFNode term )
+    {
+        final Node node = term.asNode();
+        if ( node.isURI() )
+            return node.getURI();
+        if ( node.isBlank() )
+            return "_:" + node.getBlankNodeLabel();
+
+        final StringBuilder parameter = new StringBuilder();
+        parameter.append( '"' ).append( node.getLiteralLexicalForm() ).append( '"' );
+        final String language = node.getLiteralLanguage();
+        final String datatype = node.getLiteralDatatypeURI();
+        if ( language != null && ! language.isEmpty() )
+            parameter.append( '@' ).append( language );
+        else if ( datatype != null
+                  && ! datatype.equals(XSDDatatype.XSDstring.getURI()) )
+            parameter.append( "^^" ).append( datatype );
+        return parameter.toString();
+    }
+
     /**
      *
      * @param varName
@@ -0,0 +1,108 @@
+package org.linkeddatafragments.views;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.apache.jena.atlas.io.AWriter;
+import org.apache.jena.atlas.io.IO;
+import org.apache.jena.datatypes.xsd.XSDDatatype;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.rdf.model.StmtIterator;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.writer.WriterStreamRDFPlain;
+import org.apache.jena.sparql.core.Quad;
+import org.linkeddatafragments.fragments.ILinkedDataFragment;
+import org.linkeddatafragments.fragments.ILinkedDataFragmentRequest;
+import org.linkeddatafragments.util.CommonResources;
+
+/**
+ * Writes the fragments of a batch request as one N-Quads document, in
+ * which the metadata, controls and triples of each fragment are in the
+ * named graph of its fragment URL. Fragments are written as soon as they
+ * are added, so that the first ones are sent while later ones are still
+ * being computed. A fragment that fails once the response is committed is
+ * written as a hydra:Error in its graph instead.
+ */
+public class BatchWriter {
+
+    /**
+     * The mimeType of batch responses
+     */
+    public final static String MIMETYPE = Lang.NQUADS.getHeaderString();
+
+    private final AWriter writer;
+    private final StreamRDF output;
+
+    /**
+     * Creates a writer and starts the document.
+     *
+     * @param out the stream to write to
+     */
+    public BatchWriter(OutputStream out) {
+        this.writer = IO.wrapUTF8(out);
+        this.output = new WriterStreamRDFPlain(writer);
+        output.start();
+    }
+
+    /**
+     * Writes a fragment into the graph of its fragment URL, and sends it
+     * to the client.
+     *
+     * @param request the request of the fragment
+     * @param fragment the fragment
+     */
+    public void write(ILinkedDataFragmentRequest request, ILinkedDataFragment fragment) {
+        final Node graph = NodeFactory.createURI(request.getFragmentURL());
+        write(graph, fragment.getMetadata());
+        write(graph, fragment.getControls());
+        write(graph, fragment.getTriples());
+        writer.flush();
+    }
+
+    /**
+     * Writes the error of a fragment that could not be created into the
+     * graph of its fragment URL, as a hydra:Error with the HTTP status code
+     * that the fragment would have been answered with.
+     *
+     * @param request the request of the fragment
+     * @param statusCode the HTTP status code
+     * @param e the error
+     */
+    public void writeError(ILinkedDataFragmentRequest request, int statusCode, Exception e) {
+        final Node graph = NodeFactory.createURI(request.getFragmentURL());
+        final Node error = NodeFactory.createBlankNode();
+        output.quad(new Quad(graph, error, CommonResources.RDF_TYPE.asNode(),
+                             CommonResources.HYDRA_ERROR.asNode()));
+        output.quad(new Quad(graph, error, CommonResources.HYDRA_STATUSCODE.asNode(),
+                             NodeFactory.createLiteral(Integer.toString(statusCode),
+                                                       XSDDatatype.XSDinteger)));
+        if (e.getMessage() != null) {
+            output.quad(new Quad(graph, error, CommonResources.HYDRA_DESCRIPTION.asNode(),
+                                 NodeFactory.createLiteral(e.getMessage())));
+        }
+        writer.flush();
+    }
+
+    private void write(Node graph, StmtIterator statements) {
+        try {
+            while (statements.hasNext()) {
+                output.quad(new Quad(graph, statements.next().asTriple()));
+            }
+        } finally {
+            statements.close();
+        }
+    }
+
+    /**
+     * Ends the document and sends the rest of it to the client.
+     *
+     * @throws IOException
+     */
+    public void close() throws IOException {
+        output.finish();
+        writer.flush();
+    }
+
+}
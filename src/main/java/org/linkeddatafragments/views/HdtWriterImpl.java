@@ -0,0 +1,89 @@
+package org.linkeddatafragments.views;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import javax.servlet.ServletOutputStream;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.rdf.model.StmtIterator;
+import org.linkeddatafragments.datasource.IDataSource;
+import org.linkeddatafragments.fragments.ILinkedDataFragment;
+import org.linkeddatafragments.fragments.ILinkedDataFragmentRequest;
+import org.rdfhdt.hdt.hdt.HDT;
+import org.rdfhdt.hdt.hdt.HDTManager;
+import org.rdfhdt.hdt.options.HDTSpecification;
+import org.rdfhdt.hdt.triples.TripleString;
+
+/**
+ *  Serializes an {@link ILinkedDataFragment} to a compact HDT file (a
+ *  dictionary and bitmap triples) that contains the metadata, the controls
+ *  and the triples of the fragment.
+ */
+class HdtWriterImpl extends RdfWriterImpl {
+
+    /**
+     * The mimeType of HDT
+     */
+    public final static String MIMETYPE = "application/vnd.hdt";
+
+    public HdtWriterImpl(Map<String, String> prefixes, Map<String, IDataSource> datasources) {
+        super(prefixes, datasources, MIMETYPE);
+    }
+
+    @Override
+    public void writeFragment(ServletOutputStream outputStream, IDataSource datasource, ILinkedDataFragment fragment, ILinkedDataFragmentRequest ldfRequest) throws Exception {
+        final List<TripleString> triples = new ArrayList<>();
+        add(triples, fragment.getMetadata());
+        add(triples, fragment.getControls());
+        add(triples, fragment.getTriples());
+
+        final HDT hdt = HDTManager.generateHDT(triples.iterator(),
+                ldfRequest.getFragmentURL(), new HDTSpecification(), null);
+        try {
+            hdt.saveToHDT(outputStream, null);
+        } finally {
+            hdt.close();
+        }
+    }
+
+    private static void add(List<TripleString> triples, StmtIterator statements) {
+        try {
+            while (statements.hasNext()) {
+                final Triple triple = statements.next().asTriple();
+                triples.add(new TripleString(toHdtString(triple.getSubject()),
+                                             toHdtString(triple.getPredicate()),
+                                             toHdtString(triple.getObject())));
+            }
+        } finally {
+            statements.close();
+        }
+    }
+
+    /**
+     * Converts a node to the string representation that HDT dictionaries use.
+     *
+     * @param node
+     * @return
+     */
+    static String toHdtString(Node node) {
+        if (node.isURI()) {
+            return node.getURI();
+        }
+        if (node.isBlank()) {
+            return "_:" + node.getBlankNodeLabel();
+        }
+        final StringBuilder literal = new StringBuilder();
+        literal.append('"').append(node.getLiteralLexicalForm()).append('"');
+        final String language = node.getLiteralLanguage();
+        if (language != null && !language.isEmpty()) {
+            literal.append('@').append(language);
+        } else if (node.getLiteralDatatype() != null
+                && !node.getLiteralDatatypeURI().equals("http://www.w3.org/2001/XMLSchema#string")) {
+            literal.append("^^<").append(node.getLiteralDatatypeURI()).append('>');
+        }
+        return literal.toString();
+    }
+
+}
@@ -5,7 +5,9 @@ import freemarker.template.Template;
 import freemarker.template.TemplateException;
 import freemarker.template.TemplateExceptionHandler;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -20,6 +22,7 @@ import org.linkeddatafragments.datasource.index.IndexDataSource;
 import org.linkeddatafragments.fragments.ILinkedDataFragment;
 import org.linkeddatafragments.fragments.tpf.ITriplePatternFragment;
 import org.linkeddatafragments.fragments.tpf.ITriplePatternFragmentRequest;
+import org.linkeddatafragments.util.PrefixTrie;
 
 //TODO: Refactor to a composable & flexible architecture using DataSource types, fragments types and request types
 
@@ -29,12 +32,16 @@ import org.linkeddatafragments.fragments.tpf.ITriplePatternFragmentRequest;
  * @author Miel Vander Sande
  */
 public class HtmlTriplePatternFragmentWriterImpl extends TriplePatternFragmentWriterBase implements ILinkedDataFragmentWriter {
-    private final Configuration cfg;
+    // the configuration and the templates are thread-safe and shared by all writers
+    private static Configuration cfg;
     
-    private final Template indexTemplate;
-    private final Template datasourceTemplate;
-    private final Template notfoundTemplate;
-    private final Template errorTemplate;
+    private static Template indexTemplate;
+    private static Template datasourceTemplate;
+    private static Template notfoundTemplate;
+    private static Template errorTemplate;
+
+    // the datasource list of the most recent set of datasources
+    private static volatile DatasourceList datasourceList;
     
     private final String HYDRA = "http://www.w3.org/ns/hydra/core#"; 
     
@@ -44,18 +51,41 @@ public class HtmlTriplePatternFragmentWriterImpl extends TriplePatternFragmentWr
      * @param datasources
      * @throws IOException
      */
-    public HtmlTriplePatternFragmentWriterImpl(Map<String, String> prefixes, HashMap<String, IDataSource> datasources) throws IOException {
+    public HtmlTriplePatternFragmentWriterImpl(Map<String, String> prefixes, Map<String, IDataSource> datasources) throws IOException {
         super(prefixes, datasources);
+        loadTemplates();
+    }
+
+    private static synchronized void loadTemplates() throws IOException {
+        if (cfg != null) {
+            return;
+        }
+        final Configuration config = new Configuration(Configuration.VERSION_2_3_22);
+        config.setClassForTemplateLoading(HtmlTriplePatternFragmentWriterImpl.class, "/views");
+        config.setDefaultEncoding("UTF-8");
+        config.setTemplateExceptionHandler(TemplateExceptionHandler.RETHROW_HANDLER);
         
-        cfg = new Configuration(Configuration.VERSION_2_3_22);
-        cfg.setClassForTemplateLoading(getClass(), "/views");
-        cfg.setDefaultEncoding("UTF-8");
-        cfg.setTemplateExceptionHandler(TemplateExceptionHandler.RETHROW_HANDLER);
-        
-        indexTemplate = cfg.getTemplate("index.ftl.html");
-        datasourceTemplate = cfg.getTemplate("datasource.ftl.html");
-        notfoundTemplate = cfg.getTemplate("notfound.ftl.html");
-        errorTemplate = cfg.getTemplate("error.ftl.html");
+        indexTemplate = config.getTemplate("index.ftl.html");
+        datasourceTemplate = config.getTemplate("datasource.ftl.html");
+        notfoundTemplate = config.getTemplate("notfound.ftl.html");
+        errorTemplate = config.getTemplate("error.ftl.html");
+        cfg = config;
+    }
+
+    /**
+     * Gets the datasources as a list for the templates, which is computed
+     * only once for each set of datasources.
+     *
+     * @return the datasource list
+     */
+    private List<DatasourceEntry> getDatasourceList() {
+        final Map<String, IDataSource> datasources = getDatasources();
+        DatasourceList list = datasourceList;
+        if (list == null || list.datasources != datasources) {
+            list = new DatasourceList(datasources);
+            datasourceList = list;
+        }
+        return list.entries;
     }
     
     /**
@@ -97,15 +127,22 @@ public class HtmlTriplePatternFragmentWriterImpl extends TriplePatternFragmentWr
         data.put("totalEstimate", fragment.getTotalSize());
         data.put("itemsPerPage", fragment.getMaxPageSize());
         
-        // Add triples and datasources
-        List<Statement> triples = fragment.getTriples().toList();
+        // Add triples and datasources; the triples are iterated only once,
+        // while the template is processed
+        StmtIterator triples = fragment.getTriples();
         data.put("triples", triples);
-        data.put("datasources", getDatasources());
+        data.put("hasTriples", triples.hasNext());
+        data.put("datasources", getDatasourceList());
+        data.put("prefixes", PrefixTrie.get(getPrefixes()));
         
         // Calculate start and end triple number
-        Long start = ((tpfRequest.getPageNumber() - 1) * fragment.getMaxPageSize()) + 1;
+        long start = ((tpfRequest.getPageNumber() - 1) * fragment.getMaxPageSize()) + 1;
+        long end = start + fragment.getMaxPageSize() - 1;
+        if (fragment.isLastPage() && fragment.getTotalSize() < end) {
+            end = Math.max(start, fragment.getTotalSize());
+        }
         data.put("start", start);
-        data.put("end", start + (triples.size() < fragment.getMaxPageSize() ? triples.size() : fragment.getMaxPageSize()));
+        data.put("end", end);
         
         // Compose query object
         Map query = new HashMap();
@@ -118,18 +155,28 @@ public class HtmlTriplePatternFragmentWriterImpl extends TriplePatternFragmentWr
         Template temp = datasource instanceof IndexDataSource ? indexTemplate : datasourceTemplate;
 
         // Merge data-model with template
-        temp.process(data, new OutputStreamWriter(outputStream));
+        try {
+            process(temp, data, outputStream);
+        } finally {
+            triples.close();
+        }
+    }
+
+    private static void process(Template template, Map data, ServletOutputStream outputStream) throws IOException, TemplateException {
+        final Writer writer = new Utf8Writer(outputStream);
+        template.process(data, writer);
+        writer.flush();
     }
 
     @Override
     public void writeNotFound(ServletOutputStream outputStream, HttpServletRequest request) throws Exception {
         Map data = new HashMap();
         data.put("assetsPath", "assets/");
-        data.put("datasources", getDatasources());
+        data.put("datasources", getDatasourceList());
         data.put("date", new Date());
         data.put("url", request.getRequestURL().toString());
         
-        notfoundTemplate.process(data, new OutputStreamWriter(outputStream));
+        process(notfoundTemplate, data, outputStream);
     }
 
     @Override
@@ -139,6 +186,59 @@ public class HtmlTriplePatternFragmentWriterImpl extends TriplePatternFragmentWr
         data.put("date", new Date());
         data.put("error", ex);
 
-        errorTemplate.process(data, new OutputStreamWriter(outputStream));
+        process(errorTemplate, data, outputStream);
+    }
+
+    /**
+     * A datasource as shown in the templates
+     */
+    public static class DatasourceEntry {
+        private final String name;
+        private final String title;
+        private final String description;
+
+        DatasourceEntry(String name, IDataSource datasource) {
+            this.name = name;
+            this.title = datasource.getTitle();
+            this.description = datasource.getDescription();
+        }
+
+        /**
+         *
+         * @return the name under which the datasource is served
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         *
+         * @return the title of the datasource
+         */
+        public String getTitle() {
+            return title;
+        }
+
+        /**
+         *
+         * @return the description of the datasource
+         */
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    private static class DatasourceList {
+        final Map<String, IDataSource> datasources;
+        final List<DatasourceEntry> entries;
+
+        DatasourceList(Map<String, IDataSource> datasources) {
+            final List<DatasourceEntry> list = new ArrayList<>(datasources.size());
+            for (Map.Entry<String, IDataSource> entry : datasources.entrySet()) {
+                list.add(new DatasourceEntry(entry.getKey(), entry.getValue()));
+            }
+            this.datasources = datasources;
+            this.entries = Collections.unmodifiableList(list);
+        }
     }
 }
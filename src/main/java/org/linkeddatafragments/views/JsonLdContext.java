@@ -0,0 +1,100 @@
+package org.linkeddatafragments.views;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import org.linkeddatafragments.util.PrefixTrie;
+
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * A JSON-LD context that is computed once from the configured prefixes and
+ * that compacts IRIs using these prefixes.
+ */
+public class JsonLdContext {
+
+    /**
+     * The path under which the context document is served
+     */
+    public final static String PATH = "/context.jsonld";
+
+    private static volatile JsonLdContext cached;
+
+    private final Map<String, String> prefixes;
+    private final String context;
+    private final byte[] document;
+    private final PrefixTrie trie;
+
+    private JsonLdContext(final Map<String, String> prefixes) {
+        this.prefixes = prefixes;
+        this.trie = PrefixTrie.get(prefixes);
+
+        final StringWriter out = new StringWriter();
+        try {
+            final JsonWriter json = new JsonWriter(out);
+            json.beginObject();
+            for (Map.Entry<String, String> prefix : prefixes.entrySet()) {
+                json.name(prefix.getKey()).value(prefix.getValue());
+            }
+            json.endObject();
+            json.flush();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        context = out.toString();
+        document = ("{\"@context\":" + context + "}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Gets the context for the given prefixes, which is computed only if
+     * the prefixes differ from those of the previous call.
+     *
+     * @param prefixes the configured prefixes
+     * @return the context
+     */
+    public static JsonLdContext get(final Map<String, String> prefixes) {
+        JsonLdContext context = cached;
+        if (context == null || context.prefixes != prefixes) {
+            context = new JsonLdContext(prefixes);
+            cached = context;
+        }
+        return context;
+    }
+
+    /**
+     * Gets the value of the context as JSON.
+     *
+     * @return the context object
+     */
+    public String getContext() {
+        return context;
+    }
+
+    /**
+     * Gets the UTF-8 encoded context document.
+     *
+     * @return the context document
+     */
+    public byte[] getDocument() {
+        return document;
+    }
+
+    /**
+     * Compacts an IRI to a prefixed name with the longest namespace that
+     * applies.
+     *
+     * @param iri the IRI
+     * @return the prefixed name, or the IRI itself
+     */
+    public String compact(final String iri) {
+        final int length = trie.getNamespaceLength(iri);
+        // a suffix starting with // would be read as an absolute IRI
+        if (length < 0 || length == iri.length() || iri.startsWith("//", length)) {
+            return iri;
+        }
+        return trie.getPrefixName(iri) + ":" + iri.substring(length);
+    }
+
+}
@@ -0,0 +1,145 @@
+package org.linkeddatafragments.views;
+
+import java.io.IOException;
+import java.util.Map;
+import javax.servlet.ServletOutputStream;
+
+import org.apache.jena.datatypes.xsd.XSDDatatype;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.rdf.model.StmtIterator;
+import org.apache.jena.riot.Lang;
+import org.linkeddatafragments.datasource.IDataSource;
+import org.linkeddatafragments.fragments.ILinkedDataFragment;
+import org.linkeddatafragments.fragments.ILinkedDataFragmentRequest;
+import org.linkeddatafragments.util.CommonResources;
+
+import com.google.gson.stream.JsonWriter;
+
+/**
+ *  Serializes an {@link ILinkedDataFragment} to JSON-LD as a stream of node
+ *  objects, with the {@link JsonLdContext} of the configured prefixes.
+ *
+ *  Consecutive triples with the same subject are written as one node object;
+ *  JSON-LD processors merge node objects with the same identifier.
+ */
+class JsonLdWriterImpl extends RdfWriterImpl {
+
+    private final static String RDF_TYPE = CommonResources.RDF_TYPE.getURI();
+
+    private final static String XSD_STRING = XSDDatatype.XSDstring.getURI();
+
+    private final JsonLdContext context;
+
+    public JsonLdWriterImpl(Map<String, String> prefixes, Map<String, IDataSource> datasources) {
+        super(prefixes, datasources, Lang.JSONLD.getHeaderString());
+        this.context = JsonLdContext.get(prefixes);
+    }
+
+    @Override
+    public void writeFragment(ServletOutputStream outputStream, IDataSource datasource, ILinkedDataFragment fragment, ILinkedDataFragmentRequest ldfRequest) throws Exception {
+        write(new JsonWriter(new Utf8Writer(outputStream)), fragment);
+    }
+
+    private void write(JsonWriter json, ILinkedDataFragment fragment) throws Exception {
+        json.beginObject();
+        json.name("@context").jsonValue(context.getContext());
+        json.name("@graph").beginArray();
+
+        final NodeWriter nodes = new NodeWriter(json);
+        nodes.write(fragment.getMetadata());
+        nodes.write(fragment.getControls());
+        nodes.write(fragment.getTriples());
+        nodes.end();
+
+        json.endArray();
+        json.endObject();
+        json.flush();
+    }
+
+    /**
+     * Writes triples as node objects, keeping the current node object open
+     * as long as the subject and the predicate repeat.
+     */
+    private class NodeWriter {
+        private final JsonWriter json;
+        private Node subject = null;
+        private Node predicate = null;
+
+        NodeWriter(JsonWriter json) {
+            this.json = json;
+        }
+
+        void write(StmtIterator statements) throws IOException {
+            try {
+                while (statements.hasNext()) {
+                    write(statements.next().asTriple());
+                }
+            } finally {
+                statements.close();
+            }
+        }
+
+        void write(Triple triple) throws IOException {
+            if (!triple.getSubject().equals(subject)) {
+                end();
+                subject = triple.getSubject();
+                json.beginObject();
+                json.name("@id").value(toId(subject));
+            }
+            if (!triple.getPredicate().equals(predicate)) {
+                if (predicate != null) {
+                    json.endArray();
+                }
+                predicate = triple.getPredicate();
+                json.name(RDF_TYPE.equals(predicate.getURI())
+                          ? "@type" : context.compact(predicate.getURI()));
+                json.beginArray();
+            }
+            if (RDF_TYPE.equals(predicate.getURI()) && !triple.getObject().isLiteral()) {
+                json.value(toId(triple.getObject()));
+            } else {
+                writeObject(triple.getObject());
+            }
+        }
+
+        void end() throws IOException {
+            if (predicate != null) {
+                json.endArray();
+                predicate = null;
+            }
+            if (subject != null) {
+                json.endObject();
+                subject = null;
+            }
+        }
+
+        private void writeObject(Node object) throws IOException {
+            if (!object.isLiteral()) {
+                json.beginObject().name("@id").value(toId(object)).endObject();
+                return;
+            }
+            final String language = object.getLiteralLanguage();
+            final String datatype = object.getLiteralDatatypeURI();
+            if (language != null && !language.isEmpty()) {
+                json.beginObject()
+                    .name("@value").value(object.getLiteralLexicalForm())
+                    .name("@language").value(language)
+                    .endObject();
+            } else if (datatype != null && !datatype.equals(XSD_STRING)) {
+                json.beginObject()
+                    .name("@value").value(object.getLiteralLexicalForm())
+                    .name("@type").value(context.compact(datatype))
+                    .endObject();
+            } else {
+                json.value(object.getLiteralLexicalForm());
+            }
+        }
+
+        private String toId(Node node) {
+            return node.isBlank() ? "_:" + node.getBlankNodeLabel()
+                                  : context.compact(node.getURI());
+        }
+    }
+
+}
@@ -1,6 +1,5 @@
 package org.linkeddatafragments.views;
 
-import java.util.HashMap;
 import java.util.Map;
 import org.linkeddatafragments.datasource.IDataSource;
 
@@ -11,14 +10,14 @@ import org.linkeddatafragments.datasource.IDataSource;
  */
 public abstract class LinkedDataFragmentWriterBase implements ILinkedDataFragmentWriter {
     private final Map<String, String> prefixes;
-    private final HashMap<String, IDataSource> datasources;
+    private final Map<String, IDataSource> datasources;
 
     /**
      *
      * @param prefixes
      * @param datasources
      */
-    public LinkedDataFragmentWriterBase(Map<String, String> prefixes, HashMap<String, IDataSource> datasources) {
+    public LinkedDataFragmentWriterBase(Map<String, String> prefixes, Map<String, IDataSource> datasources) {
         this.prefixes = prefixes;
         this.datasources = datasources;
     }
@@ -35,7 +34,7 @@ public abstract class LinkedDataFragmentWriterBase implements ILinkedDataFragmen
      *
      * @return
      */
-    public HashMap<String, IDataSource> getDatasources() {
+    public Map<String, IDataSource> getDatasources() {
         return datasources;
     }
 }
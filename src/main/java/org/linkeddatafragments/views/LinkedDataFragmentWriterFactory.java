@@ -1,7 +1,6 @@
 package org.linkeddatafragments.views;
 
 import java.io.IOException;
-import java.util.HashMap;
 import java.util.Map;
 import org.linkeddatafragments.datasource.IDataSource;
 
@@ -13,6 +12,17 @@ import org.linkeddatafragments.datasource.IDataSource;
 public class LinkedDataFragmentWriterFactory {
     
     private final static String HTML = "text/html";
+
+    private final static String NTRIPLES = "application/n-triples";
+
+    private final static String TURTLE = "text/turtle";
+
+    private final static String JSONLD = "application/ld+json";
+
+    /**
+     * The mimeType of fragments that are serialized as HDT
+     */
+    public final static String HDT = HdtWriterImpl.MIMETYPE;
     
     /**
      * Creates {@link ILinkedDataFragmentWriter} for a given mimeType
@@ -23,11 +33,22 @@ public class LinkedDataFragmentWriterFactory {
      * @return created writer
      * @throws IOException 
      */
-    public static ILinkedDataFragmentWriter create(Map <String, String> prefixes, HashMap<String, IDataSource> datasources, String mimeType) throws IOException {
+    public static ILinkedDataFragmentWriter create(Map <String, String> prefixes, Map<String, IDataSource> datasources, String mimeType) throws IOException {
         switch (mimeType) {
             case HTML:
                 return new HtmlTriplePatternFragmentWriterImpl(prefixes, datasources);
+            case NTRIPLES:
+                return new NTriplesWriterImpl(prefixes, datasources, mimeType);
+            case TURTLE:
+                return new TurtleWriterImpl(prefixes, datasources);
+            case JSONLD:
+                return new JsonLdWriterImpl(prefixes, datasources);
+            case HDT:
+                return new HdtWriterImpl(prefixes, datasources);
             default:
+                if (StreamingRdfWriterImpl.supports(mimeType)) {
+                    return new StreamingRdfWriterImpl(prefixes, datasources, mimeType);
+                }
                 return new RdfWriterImpl(prefixes, datasources, mimeType);
         }
     }
@@ -0,0 +1,61 @@
+package org.linkeddatafragments.views;
+
+import java.util.Map;
+import javax.servlet.ServletOutputStream;
+
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.StmtIterator;
+import org.linkeddatafragments.datasource.IDataSource;
+import org.linkeddatafragments.fragments.ILinkedDataFragment;
+import org.linkeddatafragments.fragments.ILinkedDataFragmentRequest;
+import org.linkeddatafragments.fragments.tpf.TriplePatternFragmentBase;
+import org.linkeddatafragments.util.NTriplesEncoder;
+
+/**
+ *  Serializes an {@link ILinkedDataFragment} to N-Triples with an
+ *  {@link NTriplesEncoder}, bypassing RIOT.
+ */
+class NTriplesWriterImpl extends RdfWriterImpl {
+
+    // the buffers are reused by the requests served on the same thread
+    private final static ThreadLocal<byte[]> BUFFERS = new ThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[NTriplesEncoder.BUFFERSIZE];
+        }
+    };
+
+    public NTriplesWriterImpl(Map<String, String> prefixes, Map<String, IDataSource> datasources, String mimeType) {
+        super(prefixes, datasources, mimeType);
+    }
+
+    @Override
+    public void writeFragment(ServletOutputStream outputStream, IDataSource datasource, ILinkedDataFragment fragment, ILinkedDataFragmentRequest ldfRequest) throws Exception {
+        final NTriplesEncoder encoder = new NTriplesEncoder(outputStream, BUFFERS.get());
+        write(encoder, fragment.getMetadata());
+        if (fragment instanceof TriplePatternFragmentBase) {
+            // the search form is the same for every page of the dataset
+            final TriplePatternFragmentBase tpf = (TriplePatternFragmentBase) fragment;
+            final Model controls = ModelFactory.createDefaultModel();
+            tpf.addDynamicControls(controls);
+            write(encoder, controls.listStatements());
+            encoder.writeEncoded(tpf.getSearchForm().getNTriples());
+        } else {
+            write(encoder, fragment.getControls());
+        }
+        write(encoder, fragment.getTriples());
+        encoder.flush();
+    }
+
+    private static void write(NTriplesEncoder encoder, StmtIterator statements) throws Exception {
+        try {
+            while (statements.hasNext()) {
+                encoder.write(statements.next().asTriple());
+            }
+        } finally {
+            statements.close();
+        }
+    }
+
+}
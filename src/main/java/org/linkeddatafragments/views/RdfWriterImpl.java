@@ -1,7 +1,6 @@
 package org.linkeddatafragments.views;
 
 import java.io.IOException;
-import java.util.HashMap;
 import java.util.Map;
 import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletRequest;
@@ -25,7 +24,7 @@ class RdfWriterImpl extends LinkedDataFragmentWriterBase implements ILinkedDataF
 
     private final Lang contentType;
 
-    public RdfWriterImpl(Map<String, String> prefixes, HashMap<String, IDataSource> datasources, String mimeType) {
+    public RdfWriterImpl(Map<String, String> prefixes, Map<String, IDataSource> datasources, String mimeType) {
         super(prefixes, datasources);
         this.contentType = RDFLanguages.contentTypeToLang(mimeType);
         ARQ.init();
@@ -0,0 +1,80 @@
+package org.linkeddatafragments.views;
+
+import java.util.Map;
+import javax.servlet.ServletOutputStream;
+
+import org.apache.jena.rdf.model.StmtIterator;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFFormat;
+import org.apache.jena.riot.RDFLanguages;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.system.StreamRDFWriter;
+import org.linkeddatafragments.datasource.IDataSource;
+import org.linkeddatafragments.fragments.ILinkedDataFragment;
+import org.linkeddatafragments.fragments.ILinkedDataFragmentRequest;
+
+/**
+ *  Serializes an {@link ILinkedDataFragment} to an RDF format that can be
+ *  written as a stream, without collecting the triples of the fragment in
+ *  a model first. The prefixes are written first, then the metadata and the
+ *  controls, and then the triples of the fragment as they are produced.
+ *  N-Triples and Turtle have writers of their own, so this class serves
+ *  N-Quads and RDF Thrift.
+ */
+class StreamingRdfWriterImpl extends RdfWriterImpl {
+
+    private final RDFFormat format;
+
+    public StreamingRdfWriterImpl(Map<String, String> prefixes, Map<String, IDataSource> datasources, String mimeType) {
+        super(prefixes, datasources, mimeType);
+        this.format = getFormat(mimeType);
+    }
+
+    /**
+     * Gets the streaming format for a given mimeType.
+     *
+     * @param mimeType
+     * @return the format, or null if the mimeType cannot be streamed
+     */
+    static RDFFormat getFormat(String mimeType) {
+        final Lang lang = RDFLanguages.contentTypeToLang(mimeType);
+        if (Lang.NQUADS.equals(lang)) {
+            return RDFFormat.NQUADS_UTF8;
+        }
+        if (Lang.RDFTHRIFT.equals(lang)) {
+            return RDFFormat.RDF_THRIFT;
+        }
+        return null;
+    }
+
+    /**
+     * Checks whether fragments can be streamed in the given mimeType.
+     *
+     * @param mimeType
+     * @return
+     */
+    static boolean supports(String mimeType) {
+        return getFormat(mimeType) != null;
+    }
+
+    @Override
+    public void writeFragment(ServletOutputStream outputStream, IDataSource datasource, ILinkedDataFragment fragment, ILinkedDataFragmentRequest ldfRequest) throws Exception {
+        final StreamRDF output = StreamRDFWriter.getWriterStream(outputStream, format);
+        output.start();
+        write(output, fragment.getMetadata());
+        write(output, fragment.getControls());
+        write(output, fragment.getTriples());
+        output.finish();
+    }
+
+    private static void write(StreamRDF output, StmtIterator statements) {
+        try {
+            while (statements.hasNext()) {
+                output.triple(statements.next().asTriple());
+            }
+        } finally {
+            statements.close();
+        }
+    }
+
+}
@@ -0,0 +1,76 @@
+package org.linkeddatafragments.views;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFFormat;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.system.StreamRDFWriter;
+import org.linkeddatafragments.util.MIMEParse;
+import org.linkeddatafragments.util.NTriplesEncoder;
+
+/**
+ * Writes the triples of an export as N-Triples or RDF Thrift while they are
+ * read, without metadata or controls. Only one buffer is held, so the memory
+ * of an export does not depend on its size; when the client reads slower than
+ * the triples are produced, writing blocks until it catches up.
+ */
+public class TripleExportWriter {
+
+    /**
+     * The mimeType of N-Triples, which is the default
+     */
+    public final static String NTRIPLES = Lang.NTRIPLES.getHeaderString();
+
+    /**
+     * The mimeType of RDF Thrift
+     */
+    public final static String THRIFT = Lang.RDFTHRIFT.getHeaderString();
+
+    /**
+     * Gets the mimeType of an export for the given Accept header.
+     *
+     * @param acceptHeader the Accept header, or null
+     * @return RDF Thrift if it is preferred over N-Triples, N-Triples otherwise
+     */
+    public static String getMimeType(String acceptHeader) {
+        if (acceptHeader != null
+                && MIMEParse.quality(THRIFT, acceptHeader) > MIMEParse.quality(NTRIPLES, acceptHeader)) {
+            return THRIFT;
+        }
+        return NTRIPLES;
+    }
+
+    /**
+     * Writes at most the given number of triples.
+     *
+     * @param out the stream to write to
+     * @param triples the triples to write
+     * @param limit the maximum number of triples to write
+     * @param mimeType {@link #NTRIPLES} or {@link #THRIFT}
+     * @return the number of triples written
+     * @throws IOException
+     */
+    public static long write(OutputStream out, Iterator<Triple> triples, long limit, String mimeType) throws IOException {
+        long count = 0;
+        if (THRIFT.equals(mimeType)) {
+            final StreamRDF output = StreamRDFWriter.getWriterStream(out, RDFFormat.RDF_THRIFT);
+            output.start();
+            for (; count < limit && triples.hasNext(); count++) {
+                output.triple(triples.next());
+            }
+            output.finish();
+        } else {
+            final NTriplesEncoder encoder = new NTriplesEncoder(out);
+            for (; count < limit && triples.hasNext(); count++) {
+                encoder.write(triples.next());
+            }
+            encoder.flush();
+        }
+        return count;
+    }
+
+}
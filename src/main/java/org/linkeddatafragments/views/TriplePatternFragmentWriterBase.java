@@ -2,7 +2,6 @@ package org.linkeddatafragments.views;
 
 import freemarker.template.TemplateException;
 import java.io.IOException;
-import java.util.HashMap;
 import java.util.Map;
 import javax.servlet.ServletOutputStream;
 import org.linkeddatafragments.datasource.IDataSource;
@@ -23,7 +22,7 @@ public abstract class TriplePatternFragmentWriterBase extends LinkedDataFragment
      * @param prefixes
      * @param datasources
      */
-    public TriplePatternFragmentWriterBase(Map<String, String> prefixes, HashMap<String, IDataSource> datasources) {
+    public TriplePatternFragmentWriterBase(Map<String, String> prefixes, Map<String, IDataSource> datasources) {
         super(prefixes, datasources);
     }
     
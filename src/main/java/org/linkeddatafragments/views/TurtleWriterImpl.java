@@ -0,0 +1,132 @@
+package org.linkeddatafragments.views;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import javax.servlet.ServletOutputStream;
+
+import org.apache.jena.atlas.lib.Pair;
+import org.apache.jena.rdf.model.StmtIterator;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.out.NodeFormatterTTL;
+import org.apache.jena.riot.system.PrefixMapStd;
+import org.apache.jena.riot.writer.WriterStreamRDFBlocks;
+import org.linkeddatafragments.datasource.IDataSource;
+import org.linkeddatafragments.fragments.ILinkedDataFragment;
+import org.linkeddatafragments.fragments.ILinkedDataFragmentRequest;
+import org.linkeddatafragments.util.PrefixTrie;
+
+/**
+ *  Serializes an {@link ILinkedDataFragment} to Turtle as a stream of
+ *  subject blocks. The prefix directives and the prefix map are computed
+ *  once for the configured prefixes; IRIs are abbreviated with a
+ *  {@link PrefixTrie}.
+ */
+class TurtleWriterImpl extends RdfWriterImpl {
+
+    private static volatile Prefixes cached;
+
+    private final Prefixes prefixes;
+
+    public TurtleWriterImpl(Map<String, String> prefixes, Map<String, IDataSource> datasources) {
+        super(prefixes, datasources, Lang.TURTLE.getHeaderString());
+        this.prefixes = getPrefixes(prefixes);
+    }
+
+    private static Prefixes getPrefixes(Map<String, String> prefixes) {
+        Prefixes p = cached;
+        if (p == null || p.trie.getPrefixes() != prefixes) {
+            p = new Prefixes(PrefixTrie.get(prefixes));
+            cached = p;
+        }
+        return p;
+    }
+
+    @Override
+    public void writeFragment(ServletOutputStream outputStream, IDataSource datasource, ILinkedDataFragment fragment, ILinkedDataFragmentRequest ldfRequest) throws Exception {
+        outputStream.write(prefixes.directives);
+        final Writer output = new Writer(outputStream, prefixes.map);
+        output.start();
+        write(output, fragment.getMetadata());
+        write(output, fragment.getControls());
+        write(output, fragment.getTriples());
+        output.finish();
+    }
+
+    private static void write(Writer output, StmtIterator statements) {
+        try {
+            while (statements.hasNext()) {
+                output.triple(statements.next().asTriple());
+            }
+        } finally {
+            statements.close();
+        }
+    }
+
+    /**
+     * The prefix directives and the prefix map of the configured prefixes
+     */
+    private static class Prefixes {
+        final PrefixTrie trie;
+        final byte[] directives;
+        final TriePrefixMap map;
+
+        Prefixes(PrefixTrie trie) {
+            final StringBuilder directives = new StringBuilder();
+            for (Map.Entry<String, String> prefix : trie.getPrefixes().entrySet()) {
+                directives.append("@prefix ").append(prefix.getKey()).append(": <")
+                          .append(prefix.getValue()).append("> .\n");
+            }
+            if (directives.length() > 0) {
+                directives.append('\n');
+            }
+            this.trie = trie;
+            this.directives = directives.toString().getBytes(StandardCharsets.UTF_8);
+            this.map = new TriePrefixMap(trie);
+        }
+    }
+
+    /**
+     * A prefix map that is filled once and abbreviates IRIs with a trie. It
+     * is shared by all responses, and thus must not be modified.
+     */
+    private static class TriePrefixMap extends PrefixMapStd {
+        private final PrefixTrie trie;
+
+        TriePrefixMap(PrefixTrie trie) {
+            this.trie = trie;
+            putAll(trie.getPrefixes());
+        }
+
+        @Override
+        public Pair<String, String> abbrev(String uriStr) {
+            final int length = trie.getNamespaceLength(uriStr);
+            if (length < 0) {
+                return null;
+            }
+            return Pair.create(trie.getPrefixName(uriStr), uriStr.substring(length));
+        }
+
+        @Override
+        public String abbreviate(String uriStr) {
+            final int length = trie.getNamespaceLength(uriStr);
+            if (length < 0) {
+                return null;
+            }
+            return trie.getPrefixName(uriStr) + ":" + uriStr.substring(length);
+        }
+    }
+
+    /**
+     * A stream writer that formats nodes with the shared prefix map; the
+     * prefix directives are written before it is started.
+     */
+    private static class Writer extends WriterStreamRDFBlocks {
+
+        Writer(OutputStream out, TriePrefixMap prefixes) {
+            super(out);
+            fmt = new NodeFormatterTTL(null, prefixes, nodeToLabel);
+        }
+    }
+
+}
@@ -0,0 +1,136 @@
+package org.linkeddatafragments.views;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+
+/**
+ * A buffered writer that encodes characters as UTF-8. Its buffers are
+ * reused by all writers on the same thread, so a writer must be flushed
+ * (or closed) before another one is created on that thread.
+ */
+class Utf8Writer extends Writer {
+
+    private final static int BUFFERSIZE = 8192;
+
+    private final static class Buffers {
+        final char[] chars = new char[BUFFERSIZE];
+        final byte[] bytes = new byte[3 * BUFFERSIZE];
+    }
+
+    private final static ThreadLocal<Buffers> BUFFERS = new ThreadLocal<Buffers>() {
+        @Override
+        protected Buffers initialValue() {
+            return new Buffers();
+        }
+    };
+
+    private final OutputStream out;
+    private final char[] chars;
+    private final byte[] bytes;
+    private int count = 0;
+
+    /**
+     * Creates a writer on the given stream.
+     *
+     * @param out the stream to write to
+     */
+    public Utf8Writer(OutputStream out) {
+        final Buffers buffers = BUFFERS.get();
+        this.out = out;
+        this.chars = buffers.chars;
+        this.bytes = buffers.bytes;
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        if (count == chars.length) {
+            encode();
+        }
+        chars[count++] = (char) c;
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        while (len > 0) {
+            if (count == chars.length) {
+                encode();
+            }
+            final int n = Math.min(len, chars.length - count);
+            System.arraycopy(cbuf, off, chars, count, n);
+            count += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        while (len > 0) {
+            if (count == chars.length) {
+                encode();
+            }
+            final int n = Math.min(len, chars.length - count);
+            str.getChars(off, off + n, chars, count);
+            count += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        encode();
+        if (count > 0) {
+            // a high surrogate without its low surrogate
+            bytes[0] = '?';
+            out.write(bytes, 0, 1);
+            count = 0;
+        }
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+
+    /**
+     * Encodes and writes the buffered characters, except for a trailing high
+     * surrogate, which is kept until its low surrogate arrives.
+     */
+    private void encode() throws IOException {
+        int end = count;
+        if (end > 0 && Character.isHighSurrogate(chars[end - 1])) {
+            end--;
+        }
+        int pos = 0;
+        for (int i = 0; i < end; i++) {
+            final char c = chars[i];
+            if (c < 0x80) {
+                bytes[pos++] = (byte) c;
+            } else if (c < 0x800) {
+                bytes[pos++] = (byte) (0xC0 | (c >> 6));
+                bytes[pos++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && Character.isLowSurrogate(chars[i + 1])) {
+                final int cp = Character.toCodePoint(c, chars[++i]);
+                bytes[pos++] = (byte) (0xF0 | (cp >> 18));
+                bytes[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                bytes[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                bytes[pos++] = (byte) (0x80 | (cp & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                bytes[pos++] = '?';
+            } else {
+                bytes[pos++] = (byte) (0xE0 | (c >> 12));
+                bytes[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                bytes[pos++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        out.write(bytes, 0, pos);
+        if (end < count) {
+            chars[0] = chars[end];
+        }
+        count = count - end;
+    }
+
+}
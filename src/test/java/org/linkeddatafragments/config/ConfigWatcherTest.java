@@ -0,0 +1,62 @@
+package org.linkeddatafragments.config;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test cases for watching the configuration file
+ */
+public class ConfigWatcherTest
+{
+    private static void write( final File file, final String content )
+                                                            throws IOException
+    {
+        try ( FileWriter writer = new FileWriter(file) ) {
+            writer.write( content );
+        }
+    }
+
+    /**
+     * Check that a change of the file is reported, but changes of other
+     * files in the same directory are not.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void shouldNotifyOnChange() throws Exception
+    {
+        final File dir = new File( System.getProperty("java.io.tmpdir"),
+                                   "ldf-config-watch-test" );
+        dir.mkdir();
+        final File config = new File( dir, "config.json" );
+        final File other = new File( dir, "other.json" );
+        write( config, "{}" );
+
+        final CountDownLatch changed = new CountDownLatch( 1 );
+        final ConfigWatcher watcher = new ConfigWatcher( config, new Runnable() {
+            @Override
+            public void run() { changed.countDown(); }
+        });
+        try {
+            write( other, "{}" );
+            Assert.assertFalse( "notified for another file",
+                                changed.await(2L, TimeUnit.SECONDS) );
+
+            write( config, "{ \"prefixes\": {} }" );
+            Assert.assertTrue( "not notified",
+                               changed.await(10L, TimeUnit.SECONDS) );
+        }
+        finally {
+            watcher.close();
+            config.delete();
+            other.delete();
+            dir.delete();
+        }
+    }
+}
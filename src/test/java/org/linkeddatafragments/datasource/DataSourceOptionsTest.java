@@ -0,0 +1,49 @@
+package org.linkeddatafragments.datasource;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.gson.JsonParser;
+
+/**
+ * Test cases for the options of data sources
+ */
+public class DataSourceOptionsTest
+{
+    /**
+     * Check that absent settings disable all options.
+     */
+    @Test
+    public void shouldDefaultToNoOptions()
+    {
+        final DataSourceOptions options = DataSourceOptions.create(
+                new JsonParser().parse( "{ \"file\": \"x.hdt\" }" ).getAsJsonObject() );
+        Assert.assertSame( PageSize.DEFAULT, options.getPageSize() );
+        Assert.assertNull( options.getMembershipFilterSettings() );
+        Assert.assertFalse( options.hasTextIndex() );
+        Assert.assertFalse( options.hasRangeIndex() );
+        Assert.assertNull( options.getPrefetchSettings() );
+
+        Assert.assertSame( PageSize.DEFAULT, DataSourceOptions.DEFAULT.getPageSize() );
+        Assert.assertFalse( DataSourceOptions.DEFAULT.hasRangeIndex() );
+    }
+
+    /**
+     * Check that the options are read from the settings.
+     */
+    @Test
+    public void shouldReadSettings()
+    {
+        final DataSourceOptions options = DataSourceOptions.create(
+                new JsonParser().parse( "{ \"pageSize\": 500,"
+                        + " \"membershipFilters\": { \"maxTriples\": 20 },"
+                        + " \"textIndex\": true, \"rangeIndex\": true,"
+                        + " \"prefetch\": { \"ttl\": 5 } }" ).getAsJsonObject() );
+        Assert.assertEquals( 500L, options.getPageSize().getMaxSize() );
+        Assert.assertEquals( 20L, options.getMembershipFilterSettings().getMaxTriples() );
+        Assert.assertTrue( options.hasTextIndex() );
+        Assert.assertTrue( options.hasRangeIndex() );
+        Assert.assertEquals( 5L, options.getPrefetchSettings()
+                                        .getAsJsonPrimitive("ttl").getAsLong() );
+    }
+}
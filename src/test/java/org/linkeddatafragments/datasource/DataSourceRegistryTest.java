@@ -0,0 +1,106 @@
+package org.linkeddatafragments.datasource;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.linkeddatafragments.fragments.IFragmentRequestParser;
+
+/**
+ * Test cases for loading, unloading and swapping data sources at runtime
+ */
+public class DataSourceRegistryTest
+{
+    private static class TestDataSource extends DataSourceBase
+    {
+        boolean closed = false;
+
+        TestDataSource( final String title )
+        {
+            super( title, title );
+        }
+
+        @Override
+        public IFragmentRequestParser getRequestParser()
+        {
+            return null;
+        }
+
+        @Override
+        public IFragmentRequestProcessor getRequestProcessor()
+        {
+            return null;
+        }
+
+        @Override
+        public void close()
+        {
+            Assert.assertFalse( "closed twice", closed );
+            closed = true;
+        }
+    }
+
+    /**
+     * Check that an unloaded data source is closed only after the
+     * requests that use it are done.
+     */
+    @Test
+    public void shouldDrainBeforeClosing()
+    {
+        final DataSourceRegistry registry = new DataSourceRegistry();
+        final TestDataSource ds = new TestDataSource( "a" );
+        registry.load( "a", ds );
+
+        final DataSourceRegistry.Lease lease = registry.acquire( "a" );
+        Assert.assertSame( ds, lease.getDataSource() );
+
+        Assert.assertSame( ds, registry.unload("a") );
+        Assert.assertNull( registry.acquire("a") );
+        Assert.assertTrue( registry.getDataSources().isEmpty() );
+        Assert.assertFalse( "closed while in use", ds.closed );
+
+        lease.close();
+        Assert.assertTrue( "not closed after drain", ds.closed );
+        lease.close();
+    }
+
+    /**
+     * Check that a swap serves new requests from the new data source while
+     * requests on the old one complete.
+     */
+    @Test
+    public void shouldSwapAtomically()
+    {
+        final DataSourceRegistry registry = new DataSourceRegistry();
+        final TestDataSource oldDs = new TestDataSource( "old" );
+        final TestDataSource newDs = new TestDataSource( "new" );
+        registry.load( "b", new TestDataSource("b") );
+        registry.load( "a", oldDs );
+
+        final DataSourceRegistry.Lease lease = registry.acquire( "a" );
+        Assert.assertSame( oldDs, registry.swap("a", newDs) );
+
+        final DataSourceRegistry.Lease newLease = registry.acquire( "a" );
+        Assert.assertSame( newDs, newLease.getDataSource() );
+        Assert.assertSame( newDs, registry.getDataSources().get("a") );
+        Assert.assertEquals( "b", registry.getDataSources().keySet().iterator().next() );
+        Assert.assertFalse( oldDs.closed );
+
+        lease.close();
+        newLease.close();
+        Assert.assertTrue( oldDs.closed );
+        Assert.assertFalse( newDs.closed );
+
+        registry.close();
+        Assert.assertTrue( newDs.closed );
+    }
+
+    /**
+     * Check that a name cannot be loaded twice.
+     */
+    @Test( expected = IllegalArgumentException.class )
+    public void shouldRejectDuplicateNames()
+    {
+        final DataSourceRegistry registry = new DataSourceRegistry();
+        registry.load( "a", new TestDataSource("a") );
+        registry.load( "a", new TestDataSource("a") );
+    }
+}
@@ -8,17 +8,38 @@ import java.io.InputStream;
 
 import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.Property;
+import org.apache.jena.rdf.model.StmtIterator;
+import org.apache.jena.util.iterator.ExtendedIterator;
+import org.apache.jena.vocabulary.RDF;
 
 import org.junit.Assert;
 import org.junit.Test;
 
 import org.linkeddatafragments.datasource.IDataSource;
 import org.linkeddatafragments.datasource.IFragmentRequestProcessor;
+import org.linkeddatafragments.fragments.FragmentRequestKey;
 import org.linkeddatafragments.fragments.ILinkedDataFragment;
+import org.linkeddatafragments.fragments.tpf.BindingsRestrictedTPFRequestImpl;
 import org.linkeddatafragments.fragments.tpf.ITriplePatternElement;
 import org.linkeddatafragments.fragments.tpf.ITriplePatternFragment;
 import org.linkeddatafragments.fragments.tpf.ITriplePatternFragmentRequest;
+import org.linkeddatafragments.fragments.tpf.MembershipFilter;
+import org.linkeddatafragments.fragments.tpf.OrderedFragmentRequestImpl;
+import org.linkeddatafragments.fragments.tpf.TriplePatternFragmentBase;
 import org.linkeddatafragments.fragments.tpf.TriplePatternFragmentRequestImpl;
+import org.linkeddatafragments.util.CommonResources;
 import org.linkeddatafragments.util.TriplePatternElementParser;
 
 
@@ -133,8 +154,13 @@ public abstract class DataSourceTest<ConstantTermType,NamedVarType,AnonVarType>
           new ITriplePatternFragmentRequest<ConstantTermType,NamedVarType,AnonVarType>() {
             public boolean isPageRequest() { return true; }
             public long getPageNumber() { return 1L; }
+            public long getPageSize() { return 0L; }
             public String getFragmentURL() { return "http://example.org/f"; }
             public String getDatasetURL() { return "http://example.org/"; }
+            public FragmentRequestKey getKey() {
+                return new FragmentRequestKey( getDatasetURL(),
+                                               new TreeMap<String, String>() );
+            }
 
             public ITriplePatternElement<ConstantTermType,NamedVarType,AnonVarType> getSubject() {
                 return tpeParser.parseIntoTriplePatternElement("http://data.gov.be/catalog/ckanvl");
@@ -155,4 +181,276 @@ public abstract class DataSourceTest<ConstantTermType,NamedVarType,AnonVarType>
 
         Assert.assertTrue("Estimate is too small : " + totalSize, totalSize > 100);
     }
+
+    /**
+     * Test if an export contains all matches, and resumes at an offset.
+     */
+    @Test
+    public void testExport() {
+        final TriplePatternElementParser<ConstantTermType,NamedVarType,AnonVarType> tpeParser =
+                                               getTriplePatternElementParser();
+
+        final ITriplePatternFragmentRequest<ConstantTermType,NamedVarType,AnonVarType> request =
+                new TriplePatternFragmentRequestImpl<ConstantTermType,NamedVarType,AnonVarType>(
+                        "http://example.org/f", // fragmentURL
+                        "http://example.org/",  // datasetURL,
+                        false, // pageNumberWasRequested,
+                        1L, //pageNumber,
+                        tpeParser.parseIntoTriplePatternElement("http://data.gov.be/catalog/ckanvl"), // subject,
+                        tpeParser.parseIntoTriplePatternElement(null), // predicate,
+                        tpeParser.parseIntoTriplePatternElement(null) ); //object
+
+        final ITriplePatternExporter exporter =
+                (ITriplePatternExporter) getDatasource().getRequestProcessor();
+
+        final List<Triple> all = exporter.exportTriples(request, 0L).toList();
+        Assert.assertTrue("Export is too small : " + all.size(), all.size() > 100);
+
+        final ITriplePatternFragment tpf = (ITriplePatternFragment)
+                getDatasource().getRequestProcessor().createRequestedFragment(request);
+        final StmtIterator page = tpf.getTriples();
+        while (page.hasNext()) {
+            Assert.assertTrue(all.contains(page.next().asTriple()));
+        }
+
+        final ExtendedIterator<Triple> resumed = exporter.exportTriples(request, 100L);
+        Assert.assertEquals(all.subList(100, all.size()), resumed.toList());
+
+        Assert.assertFalse(exporter.exportTriples(request, all.size()).hasNext());
+    }
+
+    /**
+     * Test if the pages of a bindings-restricted fragment contain the union
+     * of the matches of its solution mappings, each match once.
+     */
+    @Test
+    public void testBindings() {
+        final TriplePatternElementParser<ConstantTermType,NamedVarType,AnonVarType> tpeParser =
+                                               getTriplePatternElementParser();
+
+        final ITriplePatternElement<ConstantTermType,NamedVarType,AnonVarType> subject =
+                tpeParser.parseIntoTriplePatternElement("?s");
+        final List<Map<NamedVarType,ConstantTermType>> mappings = new ArrayList<>();
+        for (String s : new String[] { "http://data.gov.be/catalog/ckanvl",
+                                       "http://nothing.ldf.org",
+                                       "http://data.gov.be/catalog/ckanvl" }) {
+            final Map<NamedVarType,ConstantTermType> mapping = new HashMap<>();
+            mapping.put(subject.asNamedVariable(),
+                        tpeParser.parseIntoTriplePatternElement(s).asConstantTerm());
+            mappings.add(mapping);
+        }
+
+        final ITriplePatternFragmentRequest<ConstantTermType,NamedVarType,AnonVarType> request =
+                new TriplePatternFragmentRequestImpl<ConstantTermType,NamedVarType,AnonVarType>(
+                        "http://example.org/f", // fragmentURL
+                        "http://example.org/",  // datasetURL,
+                        false, // pageNumberWasRequested,
+                        1L, //pageNumber,
+                        tpeParser.parseIntoTriplePatternElement("http://data.gov.be/catalog/ckanvl"), // subject,
+                        tpeParser.parseIntoTriplePatternElement(null), // predicate,
+                        tpeParser.parseIntoTriplePatternElement(null) ); //object
+        final List<Triple> all = ((ITriplePatternExporter) getDatasource().getRequestProcessor())
+                .exportTriples(request, 0L).toList();
+
+        Assert.assertEquals(new HashSet<>(all), getBindingsTriples(
+                subject,
+                tpeParser.parseIntoTriplePatternElement(null),
+                tpeParser.parseIntoTriplePatternElement(null),
+                mappings));
+    }
+
+    /**
+     * Test if solution mappings that bind different variables, at any
+     * position, restrict the pattern to the union of their substitutions.
+     */
+    @Test
+    public void testBindingsOfSeveralVariables() {
+        final TriplePatternElementParser<ConstantTermType,NamedVarType,AnonVarType> tpeParser =
+                                               getTriplePatternElementParser();
+
+        final ITriplePatternElement<ConstantTermType,NamedVarType,AnonVarType> subject =
+                tpeParser.parseIntoTriplePatternElement("?s");
+        final ITriplePatternElement<ConstantTermType,NamedVarType,AnonVarType> predicate =
+                tpeParser.parseIntoTriplePatternElement("?p");
+        final ITriplePatternElement<ConstantTermType,NamedVarType,AnonVarType> object =
+                tpeParser.parseIntoTriplePatternElement("?o");
+        final String[][] bindings = {
+            { "http://data.gov.be/catalog/ckanvl", "http://www.w3.org/ns/dcat#dataset", null },
+            { null, "http://www.w3.org/1999/02/22-rdf-syntax-ns#type",
+                    "http://www.w3.org/ns/dcat#Dataset" },
+            { "http://nothing.ldf.org", null, null } };
+
+        final List<Map<NamedVarType,ConstantTermType>> mappings = new ArrayList<>();
+        final HashSet<Triple> expected = new HashSet<>();
+        for (String[] binding : bindings) {
+            final Map<NamedVarType,ConstantTermType> mapping = new HashMap<>();
+            final List<ITriplePatternElement<ConstantTermType,NamedVarType,AnonVarType>> pattern =
+                                               new ArrayList<>();
+            int i = 0;
+            for (ITriplePatternElement<ConstantTermType,NamedVarType,AnonVarType> variable :
+                     Arrays.asList(subject, predicate, object)) {
+                final String term = binding[i++];
+                if (term == null) {
+                    pattern.add(tpeParser.parseIntoTriplePatternElement(null));
+                } else {
+                    final ITriplePatternElement<ConstantTermType,NamedVarType,AnonVarType> bound =
+                            tpeParser.parseIntoTriplePatternElement(term);
+                    mapping.put(variable.asNamedVariable(), bound.asConstantTerm());
+                    pattern.add(bound);
+                }
+            }
+            mappings.add(mapping);
+            expected.addAll(((ITriplePatternExporter) getDatasource().getRequestProcessor())
+                    .exportTriples(new TriplePatternFragmentRequestImpl<ConstantTermType,NamedVarType,AnonVarType>(
+                            "http://example.org/f", "http://example.org/", false, 1L,
+                            pattern.get(0), pattern.get(1), pattern.get(2)), 0L).toList());
+        }
+
+        Assert.assertFalse(expected.isEmpty());
+        Assert.assertEquals(expected,
+                getBindingsTriples(subject, predicate, object, mappings));
+    }
+
+    /**
+     * Gets the triples of all pages of a bindings-restricted fragment,
+     * which must have more than one page.
+     *
+     * @param subject
+     * @param predicate
+     * @param object
+     * @param mappings
+     * @return the triples, each of which must occur only once
+     */
+    private HashSet<Triple> getBindingsTriples(
+            final ITriplePatternElement<ConstantTermType,NamedVarType,AnonVarType> subject,
+            final ITriplePatternElement<ConstantTermType,NamedVarType,AnonVarType> predicate,
+            final ITriplePatternElement<ConstantTermType,NamedVarType,AnonVarType> object,
+            final List<Map<NamedVarType,ConstantTermType>> mappings) {
+        final HashSet<Triple> paged = new HashSet<>();
+        ITriplePatternFragment tpf;
+        long page = 0;
+        do {
+            page++;
+            tpf = (ITriplePatternFragment) getDatasource().getRequestProcessor()
+                    .createRequestedFragment(
+                new BindingsRestrictedTPFRequestImpl<ConstantTermType,NamedVarType,AnonVarType>(
+                        "http://example.org/f", "http://example.org/", true, page, 0L,
+                        subject, predicate, object, mappings));
+            Assert.assertTrue("Estimate is too small : " + tpf.getTotalSize(),
+                              tpf.getTotalSize() >= paged.size());
+            final StmtIterator triples = tpf.getTriples();
+            while (triples.hasNext()) {
+                Assert.assertTrue(paged.add(triples.next().asTriple()));
+            }
+        } while (! tpf.isLastPage());
+
+        Assert.assertTrue(page > 1);
+        return paged;
+    }
+
+    /**
+     * Test if a fragment of several pages has a membership filter of its
+     * variable object, which contains the objects of all matches.
+     */
+    @Test
+    public void testMembershipFilters() {
+        final TriplePatternElementParser<ConstantTermType,NamedVarType,AnonVarType> tpeParser =
+                                               getTriplePatternElementParser();
+
+        final ITriplePatternFragmentRequest<ConstantTermType,NamedVarType,AnonVarType> request =
+                new TriplePatternFragmentRequestImpl<ConstantTermType,NamedVarType,AnonVarType>(
+                        "http://example.org/f", // fragmentURL
+                        "http://example.org/",  // datasetURL,
+                        false, // pageNumberWasRequested,
+                        1L, //pageNumber,
+                        tpeParser.parseIntoTriplePatternElement("http://data.gov.be/catalog/ckanvl"), // subject,
+                        tpeParser.parseIntoTriplePatternElement(null), // predicate,
+                        tpeParser.parseIntoTriplePatternElement("?o") ); //object
+
+        final TriplePatternFragmentBase tpf = (TriplePatternFragmentBase)
+                getDatasource().getRequestProcessor().createRequestedFragment(request);
+        final List<MembershipFilter> filters = tpf.getMembershipFilters();
+        Assert.assertEquals(1, filters.size());
+        Assert.assertEquals(RDF.object, filters.get(0).getPosition());
+        Assert.assertTrue(ModelFactory.createDefaultModel().add(tpf.getMetadata())
+                              .contains(null, CommonResources.MEMBERSHIP_BITARRAY));
+
+        final List<Triple> all = ((ITriplePatternExporter) getDatasource().getRequestProcessor())
+                .exportTriples(request, 0L).toList();
+        for (Triple t : all) {
+            Assert.assertTrue(filters.get(0).getFilter()
+                    .mightContain(MembershipFilter.toElement(t.getObject())));
+        }
+    }
+
+    /**
+     * Test if the triples of an ordered fragment are in the order of the
+     * sort keys of their terms, within each page and from one page to the
+     * next, and if an order that would require sorting is rejected.
+     */
+    @Test
+    public void testOrderedFragments() {
+        final TriplePatternElementParser<ConstantTermType,NamedVarType,AnonVarType> tpeParser =
+                                               getTriplePatternElementParser();
+        final ITriplePatternElement<ConstantTermType,NamedVarType,AnonVarType> subject =
+                tpeParser.parseIntoTriplePatternElement("http://data.gov.be/catalog/ckanvl");
+        final ITriplePatternElement<ConstantTermType,NamedVarType,AnonVarType> variable =
+                tpeParser.parseIntoTriplePatternElement(null);
+
+        assertOrderedPages(subject, variable, variable, CommonResources.RDF_PREDICATE);
+        assertOrderedPages(variable,
+                tpeParser.parseIntoTriplePatternElement(RDF.type.getURI()),
+                tpeParser.parseIntoTriplePatternElement("http://www.w3.org/ns/dcat#Dataset"),
+                CommonResources.RDF_SUBJECT);
+
+        try {
+            getDatasource().getRequestProcessor().createRequestedFragment(
+                new OrderedFragmentRequestImpl<ConstantTermType,NamedVarType,AnonVarType>(
+                        "http://example.org/f", "http://example.org/", false, 1L, 0L,
+                        subject, variable, variable, CommonResources.RDF_OBJECT));
+            Assert.fail("An order that requires sorting is accepted.");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    private void assertOrderedPages(
+            final ITriplePatternElement<ConstantTermType,NamedVarType,AnonVarType> subject,
+            final ITriplePatternElement<ConstantTermType,NamedVarType,AnonVarType> predicate,
+            final ITriplePatternElement<ConstantTermType,NamedVarType,AnonVarType> object,
+            final Property order) {
+        final HashSet<Triple> paged = new HashSet<>();
+        long previousKey = Long.MIN_VALUE;
+        TriplePatternFragmentBase tpf;
+        long page = 0;
+        do {
+            page++;
+            tpf = (TriplePatternFragmentBase) getDatasource().getRequestProcessor()
+                    .createRequestedFragment(
+                new OrderedFragmentRequestImpl<ConstantTermType,NamedVarType,AnonVarType>(
+                        "http://example.org/f", "http://example.org/", true, page, 0L,
+                        subject, predicate, object, order));
+            final Map<Node, Long> keys = tpf.getOrder().getKeys();
+            final StmtIterator triples = tpf.getTriples();
+            while (triples.hasNext()) {
+                final Triple triple = triples.next().asTriple();
+                Assert.assertTrue(paged.add(triple));
+                final Node term = CommonResources.RDF_SUBJECT.equals(order) ? triple.getSubject()
+                                : CommonResources.RDF_PREDICATE.equals(order) ? triple.getPredicate()
+                                : triple.getObject();
+                final Long key = keys.get(term);
+                Assert.assertNotNull(key);
+                Assert.assertTrue("triple " + paged.size() + " is out of order",
+                                  key >= previousKey);
+                previousKey = key;
+            }
+        } while (! tpf.isLastPage());
+        Assert.assertTrue(paged.size() > 0);
+
+        final List<Triple> all = ((ITriplePatternExporter) getDatasource().getRequestProcessor())
+                .exportTriples(new TriplePatternFragmentRequestImpl<ConstantTermType,NamedVarType,AnonVarType>(
+                        "http://example.org/f", "http://example.org/", false, 1L,
+                        subject, predicate, object), 0L).toList();
+        Assert.assertEquals(new HashSet<>(all), paged);
+    }
 }
@@ -3,14 +3,33 @@ package org.linkeddatafragments.datasource;
 import com.google.gson.JsonObject;
 
 import java.io.File;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
 import org.apache.jena.rdf.model.RDFNode;
+import org.apache.jena.rdf.model.StmtIterator;
 import org.junit.After;
 import org.junit.AfterClass;
+import org.junit.Assert;
 import org.junit.Before;
 import org.junit.BeforeClass;
+import org.junit.Test;
 import org.linkeddatafragments.datasource.DataSourceFactory;
 import org.linkeddatafragments.datasource.DataSourceTypesRegistry;
+import org.linkeddatafragments.datasource.hdt.HdtBasedRequestProcessorForTPFs;
+import org.linkeddatafragments.datasource.hdt.HdtDataSource;
 import org.linkeddatafragments.datasource.hdt.HdtDataSourceType;
+import org.linkeddatafragments.fragments.tpf.ITriplePatternFragment;
+import org.linkeddatafragments.fragments.tpf.StarPatternFragmentRequestImpl;
+import org.linkeddatafragments.fragments.tpf.TextSearchFragmentRequestImpl;
+import org.linkeddatafragments.fragments.tpf.TriplePatternFragmentRequestImpl;
 import org.linkeddatafragments.util.TriplePatternElementParser;
 import org.linkeddatafragments.util.TriplePatternElementParserForJena;
 import org.rdfhdt.hdt.enums.RDFNotation;
@@ -64,6 +83,8 @@ public class HdtDataSourceTest extends DataSourceTest<RDFNode,String,String> {
         
         JsonObject settings = new JsonObject();
         settings.addProperty("file", hdtfile.getAbsolutePath());
+        settings.add("membershipFilters", new JsonObject());
+        settings.addProperty("textIndex", true);
         config.add("settings", settings);
         
         setDatasource(DataSourceFactory.create(config));
@@ -77,6 +98,8 @@ public class HdtDataSourceTest extends DataSourceTest<RDFNode,String,String> {
     public static void tearDownClass() throws Exception {
         if (hdtfile != null) {
             hdtfile.delete();
+            new File(hdtfile.getAbsolutePath()
+                     + HdtBasedRequestProcessorForTPFs.TEXTINDEX_SUFFIX).delete();
         }
     }
 
@@ -96,4 +119,220 @@ public class HdtDataSourceTest extends DataSourceTest<RDFNode,String,String> {
     @After
     public void tearDown() throws Exception {
     }    
+
+    /**
+     * Test that swapping the HDT file keeps the data source serving.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testSwapFile() throws Exception {
+        final HdtDataSource hdt = (HdtDataSource) getDatasource();
+        final IFragmentRequestProcessor proc = hdt.getRequestProcessor();
+
+        hdt.swapFile(hdtfile.getAbsolutePath());
+
+        Assert.assertEquals(hdtfile.getAbsolutePath(), hdt.getFile());
+        Assert.assertSame("processor changed", proc, hdt.getRequestProcessor());
+        testEstimate();
+    }
+
+    private static ITriplePatternFragment getStarPatternFragment(
+            final String subject, final List<String> predicates, final List<String> objects) {
+        return getStarPatternFragment(subject, predicates, objects, 1L);
+    }
+
+    private static ITriplePatternFragment getStarPatternFragment(
+            final String subject, final List<String> predicates, final List<String> objects,
+            final long page) {
+        final TriplePatternElementParser<RDFNode,String,String> tpeParser =
+                TriplePatternElementParserForJena.getInstance();
+        final StarPatternFragmentRequestImpl<RDFNode,String,String> request =
+                new StarPatternFragmentRequestImpl<RDFNode,String,String>(
+                        "http://example.org/f", "http://example.org/", true, page, 0L,
+                        tpeParser.parseIntoTriplePatternElement(subject),
+                        Arrays.asList(tpeParser.parseIntoTriplePatternElement(predicates.get(0)),
+                                      tpeParser.parseIntoTriplePatternElement(predicates.get(1))),
+                        Arrays.asList(tpeParser.parseIntoTriplePatternElement(objects.get(0)),
+                                      tpeParser.parseIntoTriplePatternElement(objects.get(1))));
+        return (ITriplePatternFragment) getDatasource().getRequestProcessor()
+                                                       .createRequestedFragment(request);
+    }
+
+    /**
+     * Test that a star pattern is joined on its subject and shared objects.
+     */
+    @Test
+    public void testStarPattern() {
+        final ITriplePatternFragment star = getStarPatternFragment(
+                "http://data.gov.be/catalog/ckanvl",
+                Arrays.asList("?p", "?q"), Arrays.asList("?o", "?o"));
+        Assert.assertTrue("Estimate is too small : " + star.getTotalSize(),
+                          star.getTotalSize() > 100);
+        Assert.assertFalse(star.isLastPage());
+
+        final StmtIterator page = star.getTriples();
+        while (page.hasNext()) {
+            Assert.assertEquals("http://data.gov.be/catalog/ckanvl",
+                                page.next().getSubject().getURI());
+        }
+
+        final ITriplePatternFragment none = getStarPatternFragment(
+                "?s", Arrays.asList("?p", "http://nothing.ldf.org"), Arrays.asList("?o", "?x"));
+        Assert.assertEquals(0L, none.getTotalSize());
+    }
+
+    /**
+     * Test that a star pattern with a given object and a variable predicate,
+     * of which the HDT returns the matches in predicate order, finds the
+     * solutions of all subjects, also if all its triple patterns are such.
+     */
+    @Test
+    public void testStarPatternWithObject() {
+        final TriplePatternElementParser<RDFNode,String,String> tpeParser =
+                TriplePatternElementParserForJena.getInstance();
+        final List<Triple> all = ((ITriplePatternExporter) getDatasource().getRequestProcessor())
+                .exportTriples(new TriplePatternFragmentRequestImpl<RDFNode,String,String>(
+                        "http://example.org/f", "http://example.org/", false, 1L,
+                        tpeParser.parseIntoTriplePatternElement(null),
+                        tpeParser.parseIntoTriplePatternElement(null),
+                        tpeParser.parseIntoTriplePatternElement(null)), 0L).toList();
+
+        // the IRI that is the object of the most triples
+        final Map<Node, Integer> counts = new HashMap<>();
+        Node object = null;
+        for (Triple t : all) {
+            if (t.getObject().isURI()) {
+                final Integer count = counts.get(t.getObject());
+                counts.put(t.getObject(), count == null ? 1 : count + 1);
+                if (object == null || counts.get(t.getObject()) > counts.get(object)) {
+                    object = t.getObject();
+                }
+            }
+        }
+        Assert.assertNotNull(object);
+
+        // the subjects of the object that also have a dcat:dataset
+        final String predicate = "http://www.w3.org/ns/dcat#dataset";
+        final Set<Node> withObject = new HashSet<>();
+        final Set<Node> withPredicate = new HashSet<>();
+        for (Triple t : all) {
+            if (t.getObject().equals(object)) {
+                withObject.add(t.getSubject());
+            }
+            if (t.getPredicate().getURI().equals(predicate)) {
+                withPredicate.add(t.getSubject());
+            }
+        }
+        final Set<Node> expected = new HashSet<>(withObject);
+        expected.retainAll(withPredicate);
+
+        for (String other : Arrays.asList(predicate, "?p2", "?q")) {
+            final String otherObject = other.equals("?q") ? object.getURI() : "?o";
+            final Set<Node> found = new HashSet<>();
+            ITriplePatternFragment star;
+            long page = 0;
+            do {
+                page++;
+                star = getStarPatternFragment("?s", Arrays.asList("?p", other),
+                                              Arrays.asList(object.getURI(), otherObject), page);
+                final StmtIterator triples = star.getTriples();
+                while (triples.hasNext()) {
+                    found.add(triples.next().getSubject().asNode());
+                }
+            } while (! star.isLastPage());
+            if (other.equals(predicate)) {
+                Assert.assertEquals(expected, found);
+            } else {
+                Assert.assertEquals(withObject, found);
+            }
+        }
+    }
+
+    /**
+     * Test that a star pattern with a repeated subject or predicate
+     * variable is rejected.
+     */
+    @Test
+    public void testStarPatternWithRepeatedVariable() {
+        for (List<String> predicates : Arrays.asList(Arrays.asList("?p", "?p"),
+                                                     Arrays.asList("?s", "?q"))) {
+            try {
+                getStarPatternFragment("?s", predicates, Arrays.asList("?o", "?x"));
+                Assert.fail("repeated variable in " + predicates + " accepted");
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+        try {
+            getStarPatternFragment("?s", Arrays.asList("?p", "?q"), Arrays.asList("?o", "?p"));
+            Assert.fail("predicate variable as object accepted");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    private static ITriplePatternFragment getTextSearchFragment(
+            final String predicate, final String text, final long page) {
+        final TriplePatternElementParser<RDFNode,String,String> tpeParser =
+                TriplePatternElementParserForJena.getInstance();
+        final TextSearchFragmentRequestImpl<RDFNode,String,String> request =
+                new TextSearchFragmentRequestImpl<RDFNode,String,String>(
+                        "http://example.org/f", "http://example.org/", true, page, 0L,
+                        tpeParser.parseIntoTriplePatternElement("?s"),
+                        tpeParser.parseIntoTriplePatternElement(predicate),
+                        tpeParser.parseIntoTriplePatternElement("?o"),
+                        text);
+        return (ITriplePatternFragment) getDatasource().getRequestProcessor()
+                                                       .createRequestedFragment(request);
+    }
+
+    /**
+     * Test that a text search finds the triples with a literal object that
+     * contains the text, ignoring case.
+     */
+    @Test
+    public void testTextSearch() {
+        final TriplePatternElementParser<RDFNode,String,String> tpeParser =
+                TriplePatternElementParserForJena.getInstance();
+        final List<Triple> all = ((ITriplePatternExporter) getDatasource().getRequestProcessor())
+                .exportTriples(new TriplePatternFragmentRequestImpl<RDFNode,String,String>(
+                        "http://example.org/f", "http://example.org/", false, 1L,
+                        tpeParser.parseIntoTriplePatternElement(null),
+                        tpeParser.parseIntoTriplePatternElement(null),
+                        tpeParser.parseIntoTriplePatternElement(null)), 0L).toList();
+
+        // a text of a literal object of the data
+        Triple expected = null;
+        for (Triple t : all) {
+            if (t.getObject().isLiteral() && t.getObject().getLiteralLexicalForm().length() >= 5) {
+                expected = t;
+                break;
+            }
+        }
+        Assert.assertNotNull(expected);
+        final String text = expected.getObject().getLiteralLexicalForm().substring(1, 5)
+                                    .toUpperCase(Locale.ROOT);
+
+        final HashSet<Triple> found = new HashSet<>();
+        ITriplePatternFragment tsf;
+        long page = 0;
+        do {
+            page++;
+            tsf = getTextSearchFragment(expected.getPredicate().getURI(), text, page);
+            Assert.assertTrue("Estimate is too small : " + tsf.getTotalSize(),
+                              tsf.getTotalSize() >= found.size());
+            final StmtIterator triples = tsf.getTriples();
+            while (triples.hasNext()) {
+                final Triple t = triples.next().asTriple();
+                final Node object = t.getObject();
+                Assert.assertTrue(object.isLiteral() && object.getLiteralLexicalForm()
+                        .toLowerCase(Locale.ROOT).contains(text.toLowerCase(Locale.ROOT)));
+                Assert.assertTrue(found.add(t));
+            }
+        } while (! tsf.isLastPage());
+        Assert.assertTrue(found.contains(expected));
+
+        Assert.assertEquals(0L, getTextSearchFragment("?p", "no such text", 1L).getTotalSize());
+    }
 }
@@ -17,6 +17,7 @@ import org.linkeddatafragments.datasource.IFragmentRequestProcessor;
 import org.linkeddatafragments.datasource.index.IndexRequestProcessorForTPFs;
 import org.linkeddatafragments.fragments.IFragmentRequestParser;
 import org.linkeddatafragments.fragments.ILinkedDataFragment;
+import org.linkeddatafragments.fragments.tpf.ITriplePatternFragment;
 import org.linkeddatafragments.fragments.tpf.ITriplePatternFragmentRequest;
 import org.linkeddatafragments.fragments.tpf.TriplePatternElementFactory;
 import org.linkeddatafragments.fragments.tpf.TriplePatternFragmentRequestImpl;
@@ -111,4 +112,56 @@ public class IndexRequestProcessorForTPFsTest {
 				statements.contains(expected));
 		processor.close();
 	}
+
+	/**
+	 * Check that the index is paged and that the total size covers all
+	 * pages
+	 */
+	@Test
+	public void shouldPageOverAllDatasources() {
+		final HashMap<String, IDataSource> datasources = new HashMap<String, IDataSource>();
+		for (int i = 0; i < 30; i++) {
+			datasources.put("dummy" + i, new IDataSource() {
+				@Override
+				public String getDescription() {
+					return "This is a dummy datasource";
+				};
+
+				@Override
+				public IFragmentRequestParser getRequestParser() {
+					return null;
+				}
+
+				@Override
+				public IFragmentRequestProcessor getRequestProcessor() {
+					return null;
+				}
+
+				@Override
+				public String getTitle() {
+					return "Dummy Dataource";
+				}
+
+				@Override
+				public void close() {
+					// does nothing
+				}
+			});
+		}
+		final TestIndexRequestProcessor processor = new TestIndexRequestProcessor(
+				"dummy", datasources);
+		final TriplePatternElementFactory<RDFNode, String, String> factory = new TriplePatternElementFactory<RDFNode, String, String>();
+		final ITriplePatternFragmentRequest<RDFNode, String, String> request = new TriplePatternFragmentRequestImpl<RDFNode, String, String>(
+				null, "dummy", true, 2, factory.createUnspecifiedVariable(),
+				factory.createUnspecifiedVariable(),
+				factory.createUnspecifiedVariable());
+		final ITriplePatternFragment fragment = (ITriplePatternFragment) processor
+				.getTPFSpecificWorker(request).createRequestedFragment();
+
+		Assert.assertEquals("wrong total size", 120, fragment.getTotalSize());
+		Assert.assertEquals("wrong page size", 20, fragment.getTriples()
+				.toList().size());
+		Assert.assertTrue("not the last page", fragment.isLastPage());
+		processor.close();
+	}
 }
@@ -8,6 +8,11 @@ import org.apache.jena.tdb.TDBFactory;
 
 import java.io.File;
 import java.io.InputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.jena.rdf.model.ModelFactory;
 import org.apache.jena.rdf.model.RDFNode;
 
 import org.apache.jena.riot.Lang;
@@ -18,10 +23,13 @@ import org.junit.AfterClass;
 
 import org.junit.Before;
 import org.junit.BeforeClass;
+import org.junit.Test;
 
 import org.linkeddatafragments.datasource.DataSourceFactory;
 import org.linkeddatafragments.datasource.DataSourceTypesRegistry;
 import org.linkeddatafragments.datasource.tdb.JenaTDBDataSourceType;
+import org.linkeddatafragments.fragments.tpf.BindingsRestrictedTPFRequestImpl;
+import org.linkeddatafragments.fragments.tpf.ITriplePatternElement;
 import org.linkeddatafragments.util.TriplePatternElementParser;
 import org.linkeddatafragments.util.TriplePatternElementParserForJena;
 
@@ -74,6 +82,7 @@ public class JenaTDBDataSourceTest extends DataSourceTest<RDFNode,String,String>
         
         JsonObject settings = new JsonObject();
         settings.addProperty("directory", jena.getAbsolutePath());
+        settings.add("membershipFilters", new JsonObject());
         config.add("settings", settings);
 
         setDatasource(DataSourceFactory.create(config));
@@ -109,4 +118,26 @@ public class JenaTDBDataSourceTest extends DataSourceTest<RDFNode,String,String>
     @After
     public void tearDown() throws Exception {
     }
+
+    /**
+     * Test that a solution mapping that binds a blank node is rejected,
+     * because the blank node does not identify a node of the TDB.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testBindingsWithBlankNode() {
+        final TriplePatternElementParser<RDFNode,String,String> tpeParser =
+                TriplePatternElementParserForJena.getInstance();
+        final ITriplePatternElement<RDFNode,String,String> subject =
+                tpeParser.parseIntoTriplePatternElement("?s");
+        final Map<String,RDFNode> mapping = new HashMap<>();
+        mapping.put(subject.asNamedVariable(),
+                    ModelFactory.createDefaultModel().createResource());
+        getDatasource().getRequestProcessor().createRequestedFragment(
+                new BindingsRestrictedTPFRequestImpl<RDFNode,String,String>(
+                        "http://example.org/f", "http://example.org/", false, 1L, 0L,
+                        subject,
+                        tpeParser.parseIntoTriplePatternElement(null),
+                        tpeParser.parseIntoTriplePatternElement(null),
+                        Collections.singletonList(mapping)));
+    }
 }
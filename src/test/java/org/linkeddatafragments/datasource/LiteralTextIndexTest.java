@@ -0,0 +1,116 @@
+package org.linkeddatafragments.datasource;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.linkeddatafragments.datasource.hdt.LiteralTextIndex;
+
+/**
+ * Test cases for the text index of the literals of an HDT file
+ */
+public class LiteralTextIndexTest {
+
+    private final static String[] LITERALS = {
+        "\"Berlin\"@de", "\"Berlin\"@en", "\"BERLINER Dom\"", "\"Bern\"",
+        "\"East berlin\"@en", "\"Ghent\"", "\"Gent\"@nl", "\"1\"^^<http://www.w3.org/2001/XMLSchema#integer>",
+        "\"a \"quoted\" text\"", "\"ab\"", "\"Brandenburg\"@de"
+    };
+
+    // the object IDs of the literals start after those of shared terms
+    private final static int FIRST_ID = 7;
+
+    private static File file;
+    private static LiteralTextIndex index;
+
+    /**
+     *
+     * @throws Exception
+     */
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        file = File.createTempFile("ldf-literals-test", ".literals");
+        final List<LiteralTextIndex.Literal> literals = new ArrayList<>();
+        for (int i = 0; i < LITERALS.length; i++) {
+            literals.add(new LiteralTextIndex.Literal(FIRST_ID + i, LITERALS[i]));
+        }
+        LiteralTextIndex.build(file, 100L, literals.iterator());
+        index = new LiteralTextIndex(file, 100L);
+    }
+
+    /**
+     *
+     * @throws Exception
+     */
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+        file.delete();
+    }
+
+    private static int[] search(String text) {
+        final String lowerCase = text.toLowerCase(Locale.ROOT);
+        final int[] candidates = index.getCandidates(text);
+        int size = 0;
+        for (int id : candidates) {
+            if (LiteralTextIndex.matches(LITERALS[id - FIRST_ID], lowerCase)) {
+                candidates[size++] = id;
+            }
+        }
+        return Arrays.copyOf(candidates, size);
+    }
+
+    /**
+     * Check that the matching literals are found, ignoring case, and only
+     * by their lexical form.
+     */
+    @Test
+    public void shouldFindLiteralsContainingText() {
+        Assert.assertEquals("[7, 8, 9, 11]", Arrays.toString(search("Berlin")));
+        Assert.assertEquals("[7, 8, 9, 10, 11]", Arrays.toString(search("ber")));
+        Assert.assertEquals("[9]", Arrays.toString(search("liner d")));
+        Assert.assertEquals("[15]", Arrays.toString(search("\"quoted\"")));
+        Assert.assertEquals("[]", Arrays.toString(search("Paris")));
+        Assert.assertEquals("[]", Arrays.toString(search("integer")));
+        Assert.assertEquals("[]", Arrays.toString(search("@de")));
+    }
+
+    /**
+     * Check that every literal that contains a text is a candidate.
+     */
+    @Test
+    public void shouldHaveAllMatchesAsCandidates() {
+        for (String literal : LITERALS) {
+            final String lexicalForm = literal.substring(1, literal.lastIndexOf('"'));
+            for (int i = 0; i + 3 <= lexicalForm.length(); i++) {
+                final String text = lexicalForm.substring(i, i + 3);
+                Assert.assertTrue(text, search(text).length > 0);
+            }
+        }
+    }
+
+    /**
+     * Check that texts shorter than a trigram are rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectShortText() {
+        index.getCandidates("ab");
+    }
+
+    /**
+     * Check that an index of another dictionary is not opened.
+     *
+     * @throws Exception
+     */
+    @Test(expected = IOException.class)
+    public void shouldRejectOtherDictionary() throws Exception {
+        new LiteralTextIndex(file, 101L);
+    }
+
+}
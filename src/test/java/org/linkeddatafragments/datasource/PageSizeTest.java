@@ -0,0 +1,98 @@
+package org.linkeddatafragments.datasource;
+
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.RDFNode;
+import org.junit.Assert;
+import org.junit.Test;
+import org.linkeddatafragments.fragments.tpf.ITriplePatternElement;
+import org.linkeddatafragments.fragments.tpf.TriplePatternElementFactory;
+import org.linkeddatafragments.fragments.tpf.TriplePatternFragmentImpl;
+import org.linkeddatafragments.fragments.tpf.TriplePatternFragmentOptions;
+import org.linkeddatafragments.fragments.tpf.TriplePatternFragmentRequestImpl;
+import org.linkeddatafragments.util.CommonResources;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * Test cases for the page size of data sources
+ */
+public class PageSizeTest
+{
+    private static JsonObject parse( final String json )
+    {
+        return new JsonParser().parse( json ).getAsJsonObject();
+    }
+
+    private static TriplePatternFragmentRequestImpl<RDFNode,String,String>
+                                     createRequest( final long pageSize )
+    {
+        final ITriplePatternElement<RDFNode,String,String> variable =
+                new TriplePatternElementFactory<RDFNode,String,String>()
+                                              .createUnspecifiedVariable();
+        return new TriplePatternFragmentRequestImpl<>(
+                "http://example.org/data", "http://example.org/data",
+                false, 1L, pageSize, variable, variable, variable );
+    }
+
+    /**
+     * Check that the page size is read from the settings.
+     */
+    @Test
+    public void shouldReadSettings()
+    {
+        Assert.assertSame( PageSize.DEFAULT,
+                           PageSize.create(parse("{ \"file\": \"x.hdt\" }")) );
+
+        final PageSize fixed = PageSize.create( parse("{ \"pageSize\": 500 }") );
+        Assert.assertEquals( 500L, fixed.getDefaultSize() );
+        Assert.assertEquals( 500L, fixed.getMaxSize() );
+
+        final PageSize bounded = PageSize.create(
+                        parse("{ \"maxPageSize\": 10000 }") );
+        Assert.assertEquals( 100L, bounded.getDefaultSize() );
+        Assert.assertEquals( 10000L, bounded.getMaxSize() );
+    }
+
+    /**
+     * Check that a maximum below the default is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectMaximumBelowDefault()
+    {
+        PageSize.create( parse("{ \"pageSize\": 500, \"maxPageSize\": 50 }") );
+    }
+
+    /**
+     * Check that the requested page size is bounded by the maximum.
+     */
+    @Test
+    public void shouldBoundRequestedPageSize()
+    {
+        final PageSize pageSize = new PageSize( 100L, 1000L );
+
+        Assert.assertEquals( 100L, pageSize.getPageSize(createRequest(0L)) );
+        Assert.assertEquals( 100L, pageSize.getPageSize(createRequest(-5L)) );
+        Assert.assertEquals( 20L, pageSize.getPageSize(createRequest(20L)) );
+        Assert.assertEquals( 1000L, pageSize.getPageSize(createRequest(5000L)) );
+    }
+
+    /**
+     * Check that the page size is advertised as hydra:itemsPerPage.
+     */
+    @Test
+    public void shouldAdvertiseItemsPerPage()
+    {
+        final TriplePatternFragmentImpl fragment = new TriplePatternFragmentImpl(
+                null, 0L, "http://example.org/data", "http://example.org/data",
+                1L, true, TriplePatternFragmentOptions.DEFAULT.withMaxPageSize( 500L ) );
+        final Model metadata = ModelFactory.createDefaultModel();
+        metadata.add( fragment.getMetadata() );
+
+        Assert.assertEquals( 500L, fragment.getMaxPageSize() );
+        Assert.assertEquals( 500L, metadata.listObjectsOfProperty(
+                CommonResources.HYDRA_ITEMSPERPAGE ).next().asLiteral().getLong() );
+    }
+
+}
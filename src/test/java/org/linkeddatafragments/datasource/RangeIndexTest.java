@@ -0,0 +1,185 @@
+package org.linkeddatafragments.datasource;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.RDFNode;
+import org.apache.jena.sparql.graph.GraphFactory;
+import org.apache.jena.sparql.util.NodeFactoryExtra;
+import org.apache.jena.util.iterator.ExtendedIterator;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.linkeddatafragments.fragments.ILinkedDataFragmentRequest;
+import org.linkeddatafragments.fragments.tpf.ITriplePatternElement;
+import org.linkeddatafragments.fragments.tpf.ITriplePatternFragmentRequest;
+import org.linkeddatafragments.fragments.tpf.RangeFragmentRequestImpl;
+import org.linkeddatafragments.fragments.tpf.TriplePatternElementFactory;
+
+/**
+ * Test cases for the range indexes of the numeric and date/time literals
+ */
+public class RangeIndexTest {
+
+    private final static String XSD = "http://www.w3.org/2001/XMLSchema#";
+
+    private final static Node VALUE = NodeFactory.createURI("http://example.org/value");
+
+    private final static String[] OBJECTS = {
+        "\"5\"^^<" + XSD + "integer>", "\"-2.5\"^^<" + XSD + "decimal>",
+        "\"1.0e1\"^^<" + XSD + "double>", "\"5\"^^<" + XSD + "integer>",
+        "\"0\"^^<" + XSD + "integer>", "\"2016-02-29\"^^<" + XSD + "date>",
+        "\"2016-03-01T00:30:00+01:00\"^^<" + XSD + "dateTime>",
+        "\"not a number\"^^<" + XSD + "integer>", "\"7\"", "<http://example.org/seven>"
+    };
+
+    private final static TriplePatternElementFactory<RDFNode,String,String> ELEMENTS =
+            new TriplePatternElementFactory<>();
+
+    private static File directory;
+    private static Graph graph;
+    private static RangeIndexCache indexes;
+
+    /**
+     *
+     * @throws Exception
+     */
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        directory = File.createTempFile("ldf-range-test", "");
+        directory.delete();
+
+        graph = GraphFactory.createDefaultGraph();
+        for (int i = 0; i < OBJECTS.length; i++) {
+            graph.add(new Triple(NodeFactory.createURI("http://example.org/s" + i),
+                                 VALUE, NodeFactoryExtra.parseNode(OBJECTS[i])));
+        }
+        indexes = new RangeIndexCache(directory, new ITriplePatternExporter() {
+            @Override
+            public ExtendedIterator<Triple> exportTriples(ILinkedDataFragmentRequest request, long offset) {
+                final ITriplePatternFragmentRequest<?,?,?> tpfRequest =
+                                            (ITriplePatternFragmentRequest<?,?,?>) request;
+                return graph.find(toNode(tpfRequest.getSubject()),
+                                  toNode(tpfRequest.getPredicate()),
+                                  toNode(tpfRequest.getObject()));
+            }
+        }, 0L);
+    }
+
+    /**
+     *
+     * @throws Exception
+     */
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+        indexes.close();
+        final File[] files = directory.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                f.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    private static Node toNode(ITriplePatternElement<?,?,?> element) {
+        return element.isVariable() ? Node.ANY
+                                    : ((RDFNode) element.asConstantTerm()).asNode();
+    }
+
+    private static RDFNode literal(String value, String type) {
+        return ModelFactory.createDefaultModel().createTypedLiteral(value, XSD + type);
+    }
+
+    private static List<String> getPage(String subject, RDFNode min, RDFNode max,
+                                        long offset, long limit, long total) {
+        final Model model = ModelFactory.createDefaultModel();
+        final ITriplePatternElement<RDFNode,String,String> s = subject == null
+                ? ELEMENTS.createUnspecifiedVariable()
+                : ELEMENTS.createConstantRDFTerm(model.createResource(subject));
+        final RangeFragmentRequestImpl<RDFNode,String,String> request =
+                new RangeFragmentRequestImpl<>("http://example.org/data?p=value",
+                        "http://example.org/data", false, 1L, 0L, s,
+                        ELEMENTS.createConstantRDFTerm(model.createResource(VALUE.getURI())),
+                        ELEMENTS.createUnspecifiedVariable(), min, max);
+
+        final Model page = ModelFactory.createDefaultModel();
+        Assert.assertEquals(total, indexes.getPage(request, offset, limit, page));
+        final List<String> subjects = new ArrayList<>();
+        for (Triple triple : page.getGraph().find(Node.ANY, VALUE, Node.ANY).toList()) {
+            subjects.add(triple.getSubject().getURI().substring("http://example.org/".length()));
+        }
+        Collections.sort(subjects);
+        return subjects;
+    }
+
+    /**
+     * Check that the numeric objects within inclusive bounds are found, in
+     * the order of their values, with an exact count.
+     */
+    @Test
+    public void shouldFindNumbersWithinBounds() {
+        Assert.assertEquals("[s0, s3, s4]",
+                getPage(null, literal("0", "integer"), literal("5.0", "decimal"), 0, 10, 3).toString());
+        Assert.assertEquals("[s1, s4]",
+                getPage(null, null, literal("0", "integer"), 0, 10, 2).toString());
+        Assert.assertEquals("[s2]",
+                getPage(null, literal("5.5", "double"), null, 0, 10, 1).toString());
+        Assert.assertEquals("[]",
+                getPage(null, literal("11", "integer"), null, 0, 10, 0).toString());
+    }
+
+    /**
+     * Check that pages of a range are consecutive.
+     */
+    @Test
+    public void shouldPageRanges() {
+        final List<String> all = new ArrayList<>();
+        for (long offset = 0; offset < 5; offset += 2) {
+            all.addAll(getPage(null, null, literal("100", "integer"), offset, 2, 5));
+        }
+        Collections.sort(all);
+        Assert.assertEquals("[s0, s1, s2, s3, s4]", all.toString());
+    }
+
+    /**
+     * Check that dates and date/times are compared by their instant.
+     */
+    @Test
+    public void shouldCompareDatesByInstant() {
+        Assert.assertEquals("[s5, s6]",
+                getPage(null, literal("2016-02-29T00:00:00Z", "dateTime"),
+                        literal("2016-02-29T23:30:00Z", "dateTime"), 0, 10, 2).toString());
+        Assert.assertEquals("[s5]",
+                getPage(null, null, literal("2016-02-29T22:00:00Z", "dateTime"), 0, 10, 1).toString());
+    }
+
+    /**
+     * Check that the objects of a bound subject are filtered.
+     */
+    @Test
+    public void shouldFilterObjectsOfSubject() {
+        Assert.assertEquals("[s2]",
+                getPage("http://example.org/s2", literal("10", "integer"), null, 0, 10, 1).toString());
+        Assert.assertEquals("[]",
+                getPage("http://example.org/s7", literal("0", "integer"), null, 0, 10, 0).toString());
+    }
+
+    /**
+     * Check that bounds of different kinds are rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectIncomparableBounds() {
+        getPage(null, literal("0", "integer"), literal("2016-02-29", "date"), 0, 10, 0);
+    }
+
+}
@@ -0,0 +1,126 @@
+package org.linkeddatafragments.datasource;
+
+import java.io.File;
+import java.io.InputStream;
+import java.util.List;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.tdb.TDBFactory;
+import org.apache.jena.util.iterator.ExtendedIterator;
+import org.apache.jena.vocabulary.RDF;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.linkeddatafragments.datasource.tdb.TDBIndexScanner;
+
+/**
+ * Test cases for scans of TDB indexes from an offset
+ */
+public class TDBIndexScannerTest {
+
+    private static File jena;
+    private static Dataset dataset;
+
+    /**
+     *
+     * @throws Exception
+     */
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        String tmpdir = System.getProperty("java.io.tmpdir");
+        jena = new File(tmpdir, "ldf-jena-scanner-test");
+        jena.mkdir();
+
+        dataset = TDBFactory.createDataset(jena.getAbsolutePath());
+
+        Model model = dataset.getDefaultModel();
+        InputStream in = ClassLoader.getSystemResourceAsStream("demo.nt");
+        RDFDataMgr.read(model, in, Lang.NTRIPLES);
+        model.commit();
+    }
+
+    /**
+     *
+     * @throws Exception
+     */
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+        TDBFactory.release(dataset);
+        File[] files = jena.listFiles();
+        for (File f : files) {
+            f.delete();
+        }
+        jena.delete();
+    }
+
+    private static void assertScans(final TDBIndexScanner scanner,
+                                    final Node s, final Node p, final Node o,
+                                    final String index) {
+        final List<Triple> expected =
+                dataset.getDefaultModel().getGraph().find(s, p, o).toList();
+        Assert.assertFalse(expected.isEmpty());
+        for (long offset : new long[] { 0, 1, 6, 7, 8, 50, expected.size() - 1,
+                                        expected.size(), expected.size() + 10 }) {
+            final ExtendedIterator<Triple> scan = scanner.find(s, p, o, index, offset);
+            try {
+                Assert.assertEquals("offset " + offset,
+                        expected.subList((int) Math.min(offset, expected.size()),
+                                         expected.size()),
+                        scan.toList());
+            } finally {
+                scan.close();
+            }
+        }
+    }
+
+    /**
+     * Check that scans from any offset return the matches in the order of
+     * the index, before and after checkpoints have been kept.
+     */
+    @Test
+    public void shouldScanFromOffset() {
+        final TDBIndexScanner scanner = new TDBIndexScanner(dataset, 7, 16);
+        final Node ckanvl = NodeFactory.createURI("http://data.gov.be/catalog/ckanvl");
+        final Node dcatDataset = NodeFactory.createURI("http://www.w3.org/ns/dcat#Dataset");
+
+        for (int i = 0; i < 2; i++) {
+            assertScans(scanner, ckanvl, Node.ANY, Node.ANY, "SPO");
+            assertScans(scanner, Node.ANY, RDF.type.asNode(), dcatDataset, "POS");
+            assertScans(scanner, Node.ANY, RDF.type.asNode(), Node.ANY, "POS");
+            assertScans(scanner, Node.ANY, Node.ANY, dcatDataset, "OSP");
+            assertScans(scanner, Node.ANY, Node.ANY, Node.ANY, "SPO");
+        }
+        Assert.assertEquals(5, scanner.getPatternCount());
+    }
+
+    /**
+     * Check that only the checkpoints of the last scanned patterns are kept.
+     */
+    @Test
+    public void shouldBoundPatterns() {
+        final TDBIndexScanner scanner = new TDBIndexScanner(dataset, 7, 1);
+        final Node ckanvl = NodeFactory.createURI("http://data.gov.be/catalog/ckanvl");
+
+        scanner.find(ckanvl, Node.ANY, Node.ANY, "SPO", 100).close();
+        scanner.find(Node.ANY, RDF.type.asNode(), Node.ANY, "POS", 100).close();
+        Assert.assertEquals(1, scanner.getPatternCount());
+        assertScans(scanner, ckanvl, Node.ANY, Node.ANY, "SPO");
+    }
+
+    /**
+     * Check that patterns with unknown terms have no matches.
+     */
+    @Test
+    public void shouldNotMatchUnknownTerms() {
+        final TDBIndexScanner scanner = new TDBIndexScanner(dataset);
+        Assert.assertFalse(scanner.find(NodeFactory.createURI("http://example.org/unknown"),
+                                        Node.ANY, Node.ANY, "SPO", 0).hasNext());
+    }
+}
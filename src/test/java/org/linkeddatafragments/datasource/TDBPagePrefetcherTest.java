@@ -0,0 +1,190 @@
+package org.linkeddatafragments.datasource;
+
+import java.io.File;
+import java.io.InputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.QueryExecution;
+import org.apache.jena.query.QueryExecutionFactory;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.RDFNode;
+import org.apache.jena.rdf.model.Statement;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.tdb.TDBFactory;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.linkeddatafragments.datasource.tdb.JenaTDBBasedRequestProcessorForTPFs;
+import org.linkeddatafragments.datasource.tdb.TDBPagePrefetcher;
+import org.linkeddatafragments.fragments.tpf.ITriplePatternFragment;
+import org.linkeddatafragments.fragments.tpf.ITriplePatternFragmentRequest;
+import org.linkeddatafragments.fragments.tpf.TriplePatternFragmentRequestImpl;
+import org.linkeddatafragments.util.TriplePatternElementParserForJena;
+
+import com.google.gson.JsonParser;
+
+/**
+ * Test cases for prefetching of TDB pages
+ */
+public class TDBPagePrefetcherTest {
+
+    private static File jena;
+    private static Dataset dataset;
+
+    /**
+     *
+     * @throws Exception
+     */
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        String tmpdir = System.getProperty("java.io.tmpdir");
+        jena = new File(tmpdir, "ldf-jena-prefetch-test");
+        jena.mkdir();
+
+        dataset = TDBFactory.createDataset(jena.getAbsolutePath());
+
+        Model model = dataset.getDefaultModel();
+        InputStream in = ClassLoader.getSystemResourceAsStream("demo.nt");
+        RDFDataMgr.read(model, in, Lang.NTRIPLES);
+        model.commit();
+    }
+
+    /**
+     *
+     * @throws Exception
+     */
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+        TDBFactory.release(dataset);
+        File[] files = jena.listFiles();
+        for (File f : files) {
+            f.delete();
+        }
+        jena.delete();
+    }
+
+    private static ITriplePatternFragment getPage(
+                     final IFragmentRequestProcessor proc, final long page) {
+        final TriplePatternElementParserForJena tpeParser =
+                                 TriplePatternElementParserForJena.getInstance();
+        final ITriplePatternFragmentRequest<RDFNode,String,String> request =
+                new TriplePatternFragmentRequestImpl<RDFNode,String,String>(
+                        "http://example.org/f", "http://example.org/",
+                        true, page,
+                        tpeParser.parseIntoTriplePatternElement("http://data.gov.be/catalog/ckanvl"),
+                        tpeParser.parseIntoTriplePatternElement(null),
+                        tpeParser.parseIntoTriplePatternElement(null) );
+        return (ITriplePatternFragment) proc.createRequestedFragment(request);
+    }
+
+    /**
+     * Check that prefetched pages equal the pages that are queried directly.
+     */
+    @Test
+    public void shouldServeSamePagesWithPrefetching() {
+        final JenaTDBBasedRequestProcessorForTPFs plain =
+                new JenaTDBBasedRequestProcessorForTPFs(jena);
+        final JenaTDBBasedRequestProcessorForTPFs prefetching =
+                new JenaTDBBasedRequestProcessorForTPFs(jena, DataSourceOptions.create(
+                        new JsonParser().parse("{ \"prefetch\": { \"maxCursors\": 4,"
+                                + " \"maxMemory\": 1048576, \"ttl\": 60 } }")
+                                        .getAsJsonObject()));
+        final TDBPagePrefetcher prefetcher = prefetching.getPrefetcher();
+
+        for (long page = 1; page <= 2; page++) {
+            final ITriplePatternFragment expected = getPage(plain, page);
+            final ITriplePatternFragment actual = getPage(prefetching, page);
+
+            final List<Statement> expectedTriples = expected.getTriples().toList();
+            Assert.assertEquals("wrong page size", expectedTriples.size(),
+                                actual.getTriples().toList().size());
+            Assert.assertTrue("page " + page + " differs",
+                              actual.getTriples().toList().containsAll(expectedTriples));
+            Assert.assertEquals("wrong estimate", expected.getTotalSize(),
+                                actual.getTotalSize());
+            Assert.assertEquals("wrong last page flag", expected.isLastPage(),
+                                actual.isLastPage());
+        }
+
+        prefetching.close();
+        Assert.assertEquals("cursors not closed", 0, prefetcher.getOpenCursors());
+        Assert.assertEquals("memory not released", 0L, prefetcher.getUsedMemory());
+    }
+
+    /**
+     * Wraps a query execution so that closing it is recorded and, if
+     * requested, executing it fails.
+     */
+    private static QueryExecution track(final QueryExecution qexec,
+                                        final AtomicBoolean closed,
+                                        final boolean fail) {
+        return (QueryExecution) Proxy.newProxyInstance(
+                QueryExecution.class.getClassLoader(),
+                new Class<?>[] { QueryExecution.class },
+                new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args)
+                            throws Throwable {
+                        if (method.getName().equals("close")) {
+                            closed.set(true);
+                        }
+                        else if (fail && method.getName().startsWith("exec")) {
+                            throw new IllegalStateException("next page query failed");
+                        }
+                        try {
+                            return method.invoke(qexec, args);
+                        }
+                        catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    }
+                });
+    }
+
+    /**
+     * Check that the served page and the query for the next page are closed
+     * if that query fails.
+     */
+    @Test
+    public void shouldCloseCursorsIfNextPageQueryFails() {
+        final TDBPagePrefetcher prefetcher =
+                new TDBPagePrefetcher(4, 1024L * 1024L, 60L, 16);
+        final Node s = NodeFactory.createURI("http://data.gov.be/catalog/ckanvl");
+        final String query = "CONSTRUCT WHERE { <http://data.gov.be/catalog/ckanvl> ?p ?o }";
+
+        // a page that covers all matches, so its cursor is exhausted
+        final AtomicBoolean servedClosed = new AtomicBoolean();
+        prefetcher.prefetch(s, null, null, null,
+                track(QueryExecutionFactory.create(query, dataset.getDefaultModel()),
+                      servedClosed, false),
+                0L, 1000L, -1L);
+        final TDBPagePrefetcher.Page served = prefetcher.take(s, null, null, 0L, 1000L);
+        Assert.assertNotNull("page not prefetched", served);
+        Assert.assertTrue("page not exhausted", served.exhausted);
+        Assert.assertFalse("cursor closed too early", servedClosed.get());
+
+        final AtomicBoolean nextClosed = new AtomicBoolean();
+        prefetcher.prefetch(s, null, null, served,
+                track(QueryExecutionFactory.create(query, dataset.getDefaultModel()),
+                      nextClosed, true),
+                1000L, 1000L, -1L);
+
+        Assert.assertTrue("served cursor not closed", servedClosed.get());
+        Assert.assertTrue("next page query not closed", nextClosed.get());
+        Assert.assertNull("failed page was prefetched",
+                          prefetcher.take(s, null, null, 1000L, 1000L));
+        Assert.assertEquals("cursors not closed", 0, prefetcher.getOpenCursors());
+        Assert.assertEquals("memory not released", 0L, prefetcher.getUsedMemory());
+        prefetcher.close();
+    }
+}
@@ -0,0 +1,130 @@
+package org.linkeddatafragments.fragments;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.jena.rdf.model.RDFNode;
+import org.junit.Assert;
+import org.junit.Test;
+import org.linkeddatafragments.fragments.tpf.ITriplePatternElement;
+import org.linkeddatafragments.fragments.tpf.StarPatternFragmentRequestImpl;
+import org.linkeddatafragments.fragments.tpf.TriplePatternFragmentRequestImpl;
+import org.linkeddatafragments.util.TriplePatternElementParserForJena;
+
+/**
+ * Test cases for the canonical keys of requests
+ */
+public class FragmentRequestKeyTest
+{
+    private final static String DATASET = "http://example.org/dataset";
+
+    private static FragmentRequestKey getKey( final String subject,
+                                              final String predicate,
+                                              final String object,
+                                              final boolean pageNumberWasRequested,
+                                              final long pageNumber )
+    {
+        final TriplePatternElementParserForJena parser =
+                               TriplePatternElementParserForJena.getInstance();
+        return new TriplePatternFragmentRequestImpl<RDFNode,String,String>(
+                DATASET + "?whatever", DATASET,
+                pageNumberWasRequested, pageNumber,
+                parser.parseIntoTriplePatternElement( subject ),
+                parser.parseIntoTriplePatternElement( predicate ),
+                parser.parseIntoTriplePatternElement( object ) ).getKey();
+    }
+
+    /**
+     * Check that equivalent requests have the same key.
+     */
+    @Test
+    public void shouldIgnoreSyntacticDifferences()
+    {
+        final FragmentRequestKey key = getKey( "http://example.org/s", null,
+                                               "\"Gent\"@nl", false, 1L );
+        Assert.assertEquals( DATASET + "?object=%22Gent%22%40nl"
+                             + "&subject=http%3A%2F%2Fexample.org%2Fs",
+                             key.getURL() );
+
+        final FragmentRequestKey other = getKey( "<http://example.org/s>",
+                                                 "?p", "\"Gent\"@nl", true, 1L );
+        Assert.assertEquals( key, other );
+        Assert.assertEquals( key.hashCode(), other.hashCode() );
+        Assert.assertEquals( key.getHash(), other.getHash() );
+
+        Assert.assertEquals( getKey("\"1\"^^<http://www.w3.org/2001/XMLSchema#integer>", "", "", false, 1L),
+                             getKey("\"1\"^^http://www.w3.org/2001/XMLSchema#integer", "", "", false, 1L) );
+        Assert.assertEquals( getKey("\"a\"", "", "", false, 1L),
+                             getKey("\"a\"^^<http://www.w3.org/2001/XMLSchema#string>", "", "", false, 1L) );
+        Assert.assertEquals( DATASET, getKey(null, null, null, true, 1L).getURL() );
+    }
+
+    /**
+     * Check that different requests have different keys.
+     */
+    @Test
+    public void shouldDistinguishFragments()
+    {
+        final FragmentRequestKey key = getKey( "http://example.org/s", null,
+                                               null, false, 1L );
+        Assert.assertNotEquals( key, getKey("http://example.org/s", null, null, true, 2L) );
+        Assert.assertNotEquals( key, getKey(null, "http://example.org/s", null, false, 1L) );
+        Assert.assertNotEquals( key, getKey("\"http://example.org/s\"", null, null, false, 1L) );
+        Assert.assertNotEquals( key.getHash(),
+                getKey(null, "http://example.org/s", null, false, 1L).getHash() );
+    }
+
+    private static FragmentRequestKey getStarKey( final String subject,
+                                                  final String... predicatesAndObjects )
+    {
+        final TriplePatternElementParserForJena parser =
+                               TriplePatternElementParserForJena.getInstance();
+        final int n = predicatesAndObjects.length / 2;
+        final List<ITriplePatternElement<RDFNode,String,String>> predicates = new ArrayList<>();
+        final List<ITriplePatternElement<RDFNode,String,String>> objects = new ArrayList<>();
+        for ( int i = 0; i < n; i++ ) {
+            predicates.add( parser.parseIntoTriplePatternElement(predicatesAndObjects[2 * i]) );
+            objects.add( parser.parseIntoTriplePatternElement(predicatesAndObjects[2 * i + 1]) );
+        }
+        return new StarPatternFragmentRequestImpl<RDFNode,String,String>(
+                DATASET + "?whatever", DATASET, false, 1L, 0L,
+                parser.parseIntoTriplePatternElement( subject ),
+                predicates, objects ).getKey();
+    }
+
+    /**
+     * Check that star patterns keep the variables that join their triple
+     * patterns, and that a single triple pattern is a triple pattern fragment.
+     */
+    @Test
+    public void shouldDistinguishStarPatterns()
+    {
+        Assert.assertEquals( getKey("?s", "http://example.org/p", null, false, 1L),
+                             getStarKey("?s", "http://example.org/p", "?o") );
+
+        final FragmentRequestKey key = getStarKey( "?s", "http://example.org/p", "?o",
+                                                   "<http://example.org/q>", "?o" );
+        Assert.assertEquals( DATASET + "?object=%3Fo&object2=%3Fo"
+                             + "&predicate=http%3A%2F%2Fexample.org%2Fp"
+                             + "&predicate2=http%3A%2F%2Fexample.org%2Fq&subject=%3Fs",
+                             key.getURL() );
+        Assert.assertNotEquals( key, getStarKey("?s", "http://example.org/p", "?o",
+                                                "http://example.org/q", "?x") );
+        Assert.assertNotEquals( key, getKey("?s", "http://example.org/p", null, false, 1L) );
+    }
+
+    /**
+     * Check that the canonical parameters are parsed into the same request.
+     */
+    @Test
+    public void shouldParseCanonicalParameters()
+    {
+        for ( String term : new String[] { "http://example.org/s", "\"a \"b\" c\"",
+                "\"x\"@en-GB", "\"1.5\"^^<http://www.w3.org/2001/XMLSchema#decimal>" } ) {
+            final RDFNode node = TriplePatternElementParserForJena.getInstance()
+                                                    .parseIntoRDFNode( term );
+            Assert.assertEquals( node, TriplePatternElementParserForJena.getInstance()
+                    .parseIntoRDFNode( TriplePatternElementParserForJena.toParameter(node) ) );
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package org.linkeddatafragments.fragments.tpf;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+
+import javax.servlet.ServletContext;
+import javax.servlet.http.HttpServletRequest;
+
+import org.apache.jena.rdf.model.RDFNode;
+import org.apache.jena.rdf.model.ResourceFactory;
+import org.junit.Assert;
+import org.junit.Test;
+import org.linkeddatafragments.config.ConfigReader;
+import org.linkeddatafragments.fragments.ILinkedDataFragmentRequest;
+import org.linkeddatafragments.util.TriplePatternElementParserForJena;
+
+/**
+ * Test cases for the parser of fragment requests of Jena-based backends
+ */
+public class FragmentRequestParserForJenaBackendsTest
+{
+    private final static String DATASET = "http://example.org/dataset";
+
+    private static BindingsRestrictedTPFRequestImpl<RDFNode,String,String>
+                                      getRequest( final String values )
+    {
+        return getRequest( "?s", "?o", values );
+    }
+
+    private static BindingsRestrictedTPFRequestImpl<RDFNode,String,String>
+                                      getRequest( final String subject,
+                                                  final String object,
+                                                  final String values )
+    {
+        final TriplePatternElementParserForJena parser =
+                               TriplePatternElementParserForJena.getInstance();
+        return new BindingsRestrictedTPFRequestImpl<RDFNode,String,String>(
+                DATASET + "?whatever", DATASET, false, 1L, 0L,
+                parser.parseIntoTriplePatternElement( subject ),
+                parser.parseIntoTriplePatternElement( "http://example.org/p" ),
+                parser.parseIntoTriplePatternElement( object ),
+                FragmentRequestParserForJenaBackends.parseSolutionMappings( values ) );
+    }
+
+    /**
+     * Parses an HTTP request with the given parameters, given as pairs of
+     * names and values.
+     */
+    private static ILinkedDataFragmentRequest parse( final String... parameters )
+    {
+        final ServletContext context = mock( ServletContext.class );
+        when( context.getContextPath() ).thenReturn( "" );
+        final HttpServletRequest request = mock( HttpServletRequest.class );
+        when( request.getServletContext() ).thenReturn( context );
+        when( request.getServletPath() ).thenReturn( "" );
+        when( request.getPathInfo() ).thenReturn( "/dataset" );
+        for ( int i = 0; i < parameters.length; i += 2 )
+            when( request.getParameter(parameters[i]) ).thenReturn( parameters[i + 1] );
+        final ConfigReader config = mock( ConfigReader.class );
+        when( config.getBaseURL() ).thenReturn( "http://example.org" );
+        return FragmentRequestParserForJenaBackends.getInstance()
+                                        .parseIntoFragmentRequest( request, config );
+    }
+
+    /**
+     * Check that the kind of fragment is chosen by the parameters that are
+     * present, and that empty parameters are ignored.
+     */
+    @Test
+    public void shouldDispatchOnParameters()
+    {
+        final String p = "http://example.org/p";
+        Assert.assertEquals( TriplePatternFragmentRequestImpl.class,
+                parse( "predicate", p, "search", "", "order", " " ).getClass() );
+        Assert.assertTrue( parse( "predicate", p, "values", "VALUES ?s { <http://example.org/a> }" )
+                                instanceof IBindingsRestrictedTPFRequest );
+        Assert.assertEquals( StarPatternFragmentRequestImpl.class,
+                parse( "predicate", p, "predicate2", p ).getClass() );
+        Assert.assertTrue( parse( "predicate", p, "search", "gent" )
+                                instanceof ITextSearchFragmentRequest );
+        Assert.assertTrue( parse( "predicate", p, "max", "\"42\"^^<http://www.w3.org/2001/XMLSchema#integer>" )
+                                instanceof IRangeFragmentRequest );
+        Assert.assertTrue( parse( "predicate", p, "order", "subject" )
+                                instanceof IOrderedFragmentRequest );
+    }
+
+    /**
+     * Check that the parameters of different kinds of fragments cannot be
+     * combined.
+     */
+    @Test
+    public void shouldRejectCombinedParameters()
+    {
+        final String p = "http://example.org/p";
+        final String[][] combinations = {
+            { "values", "VALUES ?s { <http://example.org/a> }", "predicate2", p },
+            { "values", "VALUES ?s { <http://example.org/a> }", "search", "gent" },
+            { "predicate2", p, "order", "subject" },
+            { "search", "gent", "min", "\"1\"^^<http://www.w3.org/2001/XMLSchema#integer>" },
+            { "max", "\"1\"^^<http://www.w3.org/2001/XMLSchema#integer>", "order", "object" },
+            { "search", "gent", "order", "subject" } };
+        for ( String[] combination : combinations ) {
+            try {
+                parse( "predicate", p, combination[0], combination[1],
+                                       combination[2], combination[3] );
+                Assert.fail( combination[0] + " and " + combination[2] + " are combined." );
+            }
+            catch ( IllegalArgumentException e ) {
+                // expected
+            }
+        }
+    }
+
+    /**
+     * Check that solution mappings are parsed in order, with unbound
+     * variables left out.
+     */
+    @Test
+    public void shouldParseSolutionMappings()
+    {
+        final List<Map<String,RDFNode>> mappings =
+                FragmentRequestParserForJenaBackends.parseSolutionMappings(
+                        "VALUES (?s ?o) { (<http://example.org/a> \"Gent\"@nl)"
+                        + " (UNDEF 42) }" );
+        Assert.assertEquals( 2, mappings.size() );
+        Assert.assertEquals( ResourceFactory.createResource("http://example.org/a"),
+                             mappings.get(0).get("s") );
+        Assert.assertEquals( ResourceFactory.createLangLiteral("Gent", "nl"),
+                             mappings.get(0).get("o") );
+        Assert.assertFalse( mappings.get(1).containsKey("s") );
+        Assert.assertEquals( 42, mappings.get(1).get("o").asLiteral().getInt() );
+
+        Assert.assertEquals( mappings,
+                FragmentRequestParserForJenaBackends.parseSolutionMappings(
+                        "(?s ?o) {(<http://example.org/a> \"Gent\"@nl) (UNDEF 42)}" ) );
+    }
+
+    /**
+     * Check that invalid and too large VALUES blocks are rejected.
+     */
+    @Test
+    public void shouldRejectInvalidValues()
+    {
+        final StringBuilder values = new StringBuilder( "VALUES ?s {" );
+        for ( int i = 0; i <= FragmentRequestParserForJenaBackends.MAX_SOLUTION_MAPPINGS; i++ )
+            values.append( " <http://example.org/" ).append( i ).append( '>' );
+        values.append( " }" );
+
+        for ( String invalid : new String[] { "VALUES ?s { <a", "?s", values.toString(),
+                                              "VALUES ?s { <http://example.org/a> } LIMIT 1" } ) {
+            try {
+                FragmentRequestParserForJenaBackends.parseSolutionMappings( invalid );
+                Assert.fail( invalid );
+            }
+            catch ( IllegalArgumentException e ) {
+                // expected
+            }
+        }
+    }
+
+    /**
+     * Check that equivalent VALUES blocks give the same key.
+     */
+    @Test
+    public void shouldIgnoreSyntacticDifferencesInKeys()
+    {
+        final BindingsRestrictedTPFRequestImpl<RDFNode,String,String> request =
+                getRequest( "VALUES (?s ?o) { (<http://example.org/a> UNDEF) }" );
+        Assert.assertEquals( request.getKey(),
+                getRequest( "(?o ?s) {(UNDEF <http://example.org/a>)}" ).getKey() );
+        Assert.assertNotEquals( request.getKey(),
+                getRequest( "VALUES ?s { <http://example.org/b> }" ).getKey() );
+        Assert.assertNotEquals( request.getKey(),
+                getRequest( "VALUES ?s { }" ).getKey() );
+    }
+
+    /**
+     * Check that the key tells which position a variable of the VALUES
+     * block binds, and ignores the names of the other variables.
+     */
+    @Test
+    public void shouldDistinguishBoundPositionsInKeys()
+    {
+        final String values = "VALUES ?x { <http://example.org/a> }";
+        Assert.assertNotEquals( getRequest( "?x", "?y", values ).getKey(),
+                                getRequest( "?y", "?x", values ).getKey() );
+        Assert.assertEquals( getRequest( "?x", "?y", values ).getKey(),
+                             getRequest( "?x", "?z", values ).getKey() );
+        Assert.assertEquals( getRequest( "?x", "?y", values ).getKey(),
+                             getRequest( "?x", "", values ).getKey() );
+    }
+}
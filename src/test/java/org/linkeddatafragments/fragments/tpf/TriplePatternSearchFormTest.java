@@ -0,0 +1,76 @@
+package org.linkeddatafragments.fragments.tpf;
+
+import java.io.ByteArrayInputStream;
+
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TriplePatternSearchFormTest {
+
+	@Test
+	public void shouldReplacePageParameter() {
+		final TriplePatternFragmentImpl fragment = new TriplePatternFragmentImpl(
+				"http://example.org/ds?subject=a&page=3&object=%22b%22",
+				"http://example.org/ds", 3L, false);
+		Assert.assertEquals("http://example.org/ds?subject=a&object=%22b%22&page=4",
+				fragment.getPageURL(4L));
+
+		final TriplePatternFragmentImpl unpaged = new TriplePatternFragmentImpl(
+				"http://example.org/ds", "http://example.org/ds");
+		Assert.assertEquals("http://example.org/ds?page=1", unpaged.getPageURL(1L));
+	}
+
+	@Test
+	public void shouldBuildSearchFormOncePerDataset() throws Exception {
+		final TriplePatternFragmentImpl first = new TriplePatternFragmentImpl(
+				"http://example.org/ds?subject=a", "http://example.org/ds", 1L, true);
+		final TriplePatternFragmentImpl second = new TriplePatternFragmentImpl(
+				"http://example.org/ds?object=b", "http://example.org/ds", 2L, true);
+		Assert.assertSame(first.getSearchForm(), second.getSearchForm());
+		Assert.assertEquals(11, first.getSearchForm().getStatements().size());
+
+		final Model model = ModelFactory.createDefaultModel();
+		first.getSearchForm().addTo(model);
+		final Model parsed = ModelFactory.createDefaultModel();
+		RDFDataMgr.read(parsed, new ByteArrayInputStream(first.getSearchForm().getNTriples()),
+				Lang.NTRIPLES);
+		Assert.assertTrue(parsed.isIsomorphicWith(model));
+	}
+
+	@Test
+	public void shouldAnnounceValuesForBindings() {
+		final TriplePatternSearchForm form = TriplePatternSearchForm.get(
+				"http://example.org/ds", true);
+		Assert.assertNotSame(TriplePatternSearchForm.get("http://example.org/ds"), form);
+		Assert.assertSame(form, TriplePatternSearchForm.get("http://example.org/ds", true));
+		Assert.assertEquals(14, form.getStatements().size());
+
+		final TriplePatternFragmentImpl fragment = new TriplePatternFragmentImpl(
+				null, 0L, "http://example.org/ds?subject=a", "http://example.org/ds",
+				1L, true, TriplePatternFragmentOptions.DEFAULT
+						.withMaxPageSize(100L).withSearchForm(form));
+		Assert.assertSame(form, fragment.getSearchForm());
+		Assert.assertEquals("http://example.org/ds{?subject,predicate,object,values}",
+				fragment.getTemplate());
+	}
+
+	@Test
+	public void shouldAnnounceOrder() {
+		final TriplePatternSearchForm form = TriplePatternSearchForm.get(
+				"http://example.org/ds", true, true);
+		Assert.assertNotSame(TriplePatternSearchForm.get("http://example.org/ds", true), form);
+		Assert.assertSame(form, TriplePatternSearchForm.get("http://example.org/ds", true, true));
+		Assert.assertEquals(17, form.getStatements().size());
+
+		final TriplePatternFragmentImpl fragment = new TriplePatternFragmentImpl(
+				null, 0L, "http://example.org/ds?subject=a", "http://example.org/ds",
+				1L, true, TriplePatternFragmentOptions.DEFAULT
+						.withMaxPageSize(100L).withSearchForm(form));
+		Assert.assertEquals("http://example.org/ds{?subject,predicate,object,values,order}",
+				fragment.getTemplate());
+	}
+}
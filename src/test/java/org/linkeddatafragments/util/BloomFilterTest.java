@@ -0,0 +1,65 @@
+package org.linkeddatafragments.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test cases for the Bloom filter of the membership metadata
+ */
+public class BloomFilterTest
+{
+    private final static int ELEMENTS = 1000;
+
+    private static BloomFilter createFilter()
+    {
+        final BloomFilter filter = new BloomFilter( ELEMENTS, 0.01 );
+        for ( int i = 0; i < ELEMENTS; i++ )
+            filter.add( "<http://example.org/" + i + ">" );
+        return filter;
+    }
+
+    /**
+     * Check that every added element is reported as contained.
+     */
+    @Test
+    public void shouldContainAddedElements()
+    {
+        final BloomFilter filter = createFilter();
+        for ( int i = 0; i < ELEMENTS; i++ )
+            Assert.assertTrue( filter.mightContain("<http://example.org/" + i + ">") );
+    }
+
+    /**
+     * Check that the false positive rate is close to the requested one.
+     */
+    @Test
+    public void shouldRarelyContainOtherElements()
+    {
+        final BloomFilter filter = createFilter();
+        int falsePositives = 0;
+        for ( int i = 0; i < 10 * ELEMENTS; i++ ) {
+            if ( filter.mightContain("\"" + i + "\"") )
+                falsePositives++;
+        }
+        Assert.assertTrue( "" + falsePositives, falsePositives < 3 * ELEMENTS / 10 );
+    }
+
+    /**
+     * Check that a filter created from the bits of another one contains the
+     * same elements.
+     */
+    @Test
+    public void shouldRestoreFromBits()
+    {
+        final BloomFilter filter = createFilter();
+        final BloomFilter restored = new BloomFilter( filter.toByteArray().clone(),
+                                                      filter.getSize(),
+                                                      filter.getHashes() );
+        for ( int i = 0; i < 2 * ELEMENTS; i++ ) {
+            final String element = "<http://example.org/" + i + ">";
+            Assert.assertEquals( filter.mightContain(element),
+                                 restored.mightContain(element) );
+        }
+    }
+
+}
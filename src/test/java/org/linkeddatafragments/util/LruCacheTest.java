@@ -0,0 +1,35 @@
+package org.linkeddatafragments.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test cases for the LRU cache
+ */
+public class LruCacheTest
+{
+    /**
+     * Check that a full cache keeps accepting entries and evicts the least
+     * recently used one.
+     */
+    @Test
+    public void shouldEvictLeastRecentlyUsed()
+    {
+        final LruCache<String, Integer> cache = new LruCache<>( 3 );
+        cache.put( "a", 1 );
+        cache.put( "b", 2 );
+        cache.put( "c", 3 );
+        Assert.assertEquals( Integer.valueOf(1), cache.get("a") );
+
+        cache.put( "d", 4 );
+        Assert.assertEquals( 3, cache.size() );
+        Assert.assertNull( "b was not evicted", cache.get("b") );
+        Assert.assertEquals( Integer.valueOf(1), cache.get("a") );
+        Assert.assertEquals( Integer.valueOf(3), cache.get("c") );
+        Assert.assertEquals( Integer.valueOf(4), cache.get("d") );
+
+        cache.put( "e", 5 );
+        Assert.assertNull( "a was not evicted", cache.get("a") );
+        Assert.assertEquals( Integer.valueOf(5), cache.get("e") );
+    }
+}
@@ -0,0 +1,66 @@
+package org.linkeddatafragments.util;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test cases for the content negotiation
+ */
+public class MIMEParseTest
+{
+    private final static List<String> TYPES = Arrays.asList(
+            "text/html", "application/rdf+xml", "application/n-triples",
+            "application/ld+json", "text/turtle" );
+
+    private static void registerTypes()
+    {
+        for ( String type : TYPES )
+            MIMEParse.register( type );
+    }
+
+    /**
+     * Check that the cached best match equals the computed one.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void shouldMatchRegisteredTypes() throws Exception
+    {
+        registerTypes();
+        for ( String header : new String[] {
+                "text/turtle", "application/ld+json, */*;q=0.1",
+                "text/*;q=0.5, application/n-triples",
+                "text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8",
+                "*/*", "image/png", "", "text/turtle;q=0.5, text/html;q=0.5" } ) {
+            final String expected = MIMEParse.bestMatch( TYPES, header );
+            Assert.assertEquals( header, expected, MIMEParse.bestMatch(header) );
+            Assert.assertEquals( header, expected, MIMEParse.bestMatch(header) );
+        }
+        Assert.assertEquals( "text/turtle", MIMEParse.bestMatch("text/turtle") );
+        Assert.assertEquals( "text/html", MIMEParse.bestMatch(null) );
+    }
+
+    /**
+     * Check that a mime-type is registered once.
+     */
+    @Test
+    public void shouldRegisterOnce()
+    {
+        registerTypes();
+        registerTypes();
+        Assert.assertEquals( TYPES, MIMEParse.getRegistered() );
+    }
+
+    /**
+     * Check that the registered mime-types cannot be modified.
+     */
+    @Test( expected = UnsupportedOperationException.class )
+    public void shouldNotModifyRegistered()
+    {
+        registerTypes();
+        MIMEParse.getRegistered().add( "text/plain" );
+    }
+}
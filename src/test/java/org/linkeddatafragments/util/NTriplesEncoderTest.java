@@ -0,0 +1,71 @@
+package org.linkeddatafragments.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import org.apache.jena.datatypes.xsd.XSDDatatype;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.sparql.graph.GraphFactory;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test cases for the N-Triples encoder
+ */
+public class NTriplesEncoderTest
+{
+    private static Graph encodeAndParse( final Graph graph,
+                                         final int bufferSize )
+                                                            throws Exception
+    {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final NTriplesEncoder encoder =
+                            new NTriplesEncoder( out, new byte[bufferSize] );
+        for ( Triple t : graph.find(Node.ANY, Node.ANY, Node.ANY).toList() )
+            encoder.write( t );
+        encoder.flush();
+
+        final Model parsed = ModelFactory.createDefaultModel();
+        RDFDataMgr.read( parsed, new ByteArrayInputStream(out.toByteArray()),
+                         Lang.NTRIPLES );
+        return parsed.getGraph();
+    }
+
+    /**
+     * Check that escaped and non-ASCII terms survive a round trip, also when
+     * they do not fit into the buffer.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void shouldEncodeParsableNTriples() throws Exception
+    {
+        final Graph graph = GraphFactory.createDefaultGraph();
+        final Node s = NodeFactory.createURI( "http://example.org/sé" );
+        final Node p = NodeFactory.createURI( "http://example.org/p" );
+        graph.add( new Triple(s, p,
+                NodeFactory.createLiteral("a \"quoted\"\n\ttext \\ \u0001")) );
+        graph.add( new Triple(s, p,
+                NodeFactory.createLiteral("Berün ☃ 😀", "de")) );
+        graph.add( new Triple(s, p,
+                NodeFactory.createLiteral("42", XSDDatatype.XSDinteger)) );
+        graph.add( new Triple(s, p,
+                NodeFactory.createLiteral("x", XSDDatatype.XSDstring)) );
+        graph.add( new Triple(s, CommonResources.RDF_TYPE.asNode(),
+                CommonResources.HYDRA_COLLECTION.asNode()) );
+        graph.add( new Triple(NodeFactory.createBlankNode("a-b:cX"), p,
+                NodeFactory.createBlankNode()) );
+
+        for ( int bufferSize : new int[] { 16, 17, 100, NTriplesEncoder.BUFFERSIZE } ) {
+            Assert.assertTrue( "differs with buffer size " + bufferSize,
+                    encodeAndParse(graph, bufferSize).isIsomorphicWith(graph) );
+        }
+    }
+}
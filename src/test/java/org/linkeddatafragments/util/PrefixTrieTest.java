@@ -0,0 +1,74 @@
+package org.linkeddatafragments.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test cases for the prefix trie
+ */
+public class PrefixTrieTest
+{
+    private static Map<String, String> createPrefixes()
+    {
+        final Map<String, String> prefixes = new HashMap<>();
+        prefixes.put( "ex", "http://example.org/" );
+        prefixes.put( "exv", "http://example.org/vocab#" );
+        prefixes.put( "dc", "http://purl.org/dc/terms/" );
+        return prefixes;
+    }
+
+    /**
+     * Check that the longest namespace is used.
+     */
+    @Test
+    public void shouldUseLongestNamespace()
+    {
+        final PrefixTrie trie = new PrefixTrie( createPrefixes() );
+
+        Assert.assertEquals( "ex:s1", trie.compact("http://example.org/s1") );
+        Assert.assertEquals( "exv:Thing",
+                             trie.compact("http://example.org/vocab#Thing") );
+        Assert.assertEquals( "ex:vocab",
+                             trie.compact("http://example.org/vocab") );
+        Assert.assertEquals( "dc:title",
+                             trie.compact("http://purl.org/dc/terms/title") );
+        Assert.assertEquals( 25,
+                  trie.getNamespaceLength("http://example.org/vocab#Thing") );
+        Assert.assertEquals( "exv",
+                  trie.getPrefixName("http://example.org/vocab#Thing") );
+    }
+
+    /**
+     * Check that IRIs without a namespace are not abbreviated.
+     */
+    @Test
+    public void shouldKeepOtherIris()
+    {
+        final PrefixTrie trie = new PrefixTrie( createPrefixes() );
+
+        Assert.assertEquals( "http://example.com/s1",
+                             trie.compact("http://example.com/s1") );
+        Assert.assertEquals( "http://example.org/",
+                             trie.compact("http://example.org/") );
+        Assert.assertEquals( "http:", trie.compact("http:") );
+        Assert.assertEquals( -1, trie.getNamespaceLength("http://purl.org/") );
+        Assert.assertNull( trie.getPrefixName("urn:x") );
+    }
+
+    /**
+     * Check that the trie is compiled once per prefix map.
+     */
+    @Test
+    public void shouldCompileOncePerPrefixMap()
+    {
+        final Map<String, String> prefixes = createPrefixes();
+
+        Assert.assertSame( PrefixTrie.get(prefixes), PrefixTrie.get(prefixes) );
+        Assert.assertNotSame( PrefixTrie.get(prefixes),
+                              PrefixTrie.get(createPrefixes()) );
+    }
+
+}
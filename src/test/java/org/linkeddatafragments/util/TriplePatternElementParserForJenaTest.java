@@ -0,0 +1,67 @@
+package org.linkeddatafragments.util;
+
+import org.apache.jena.datatypes.xsd.XSDDatatype;
+import org.apache.jena.rdf.model.Literal;
+import org.apache.jena.rdf.model.RDFNode;
+import org.apache.jena.rdf.model.ResourceFactory;
+import org.junit.Assert;
+import org.junit.Test;
+import org.linkeddatafragments.fragments.tpf.ITriplePatternElement;
+
+/**
+ * Test cases for the parser of triple pattern elements
+ */
+public class TriplePatternElementParserForJenaTest
+{
+    private final TriplePatternElementParserForJena parser =
+                               TriplePatternElementParserForJena.getInstance();
+
+    /**
+     * Check that literals are parsed like {@link RDFTermParser#STRINGPATTERN}.
+     */
+    @Test
+    public void shouldParseLiterals()
+    {
+        Assert.assertEquals( ResourceFactory.createPlainLiteral("a \"b\" c"),
+                             parser.parseIntoRDFNode("\"a \"b\" c\"") );
+        Assert.assertEquals( ResourceFactory.createLangLiteral("Gent", "nl"),
+                             parser.parseIntoRDFNode("\"Gent\"@nl") );
+        Assert.assertEquals( ResourceFactory.createLangLiteral("x\"@en", "nl"),
+                             parser.parseIntoRDFNode("\"x\"@en\"@nl") );
+
+        final Literal typed = (Literal) parser.parseIntoRDFNode(
+                        "\"42\"^^<" + XSDDatatype.XSDinteger.getURI() + ">" );
+        Assert.assertEquals( 42, typed.getInt() );
+        Assert.assertEquals( typed, parser.parseIntoRDFNode(
+                        "\"42\"^^" + XSDDatatype.XSDinteger.getURI() ) );
+
+        Assert.assertEquals( CommonResources.INVALID_URI,
+                             parser.parseIntoRDFNode("\"a") );
+        Assert.assertEquals( CommonResources.INVALID_URI,
+                             parser.parseIntoRDFNode("\"a\"x") );
+        Assert.assertEquals( CommonResources.INVALID_URI,
+                             parser.parseIntoRDFNode("\"a\"^^<b<c>") );
+        Assert.assertEquals( CommonResources.INVALID_URI,
+                             parser.parseIntoRDFNode("\"a\nb\"") );
+    }
+
+    /**
+     * Check that a parameter is parsed once.
+     */
+    @Test
+    public void shouldReuseParsedElements()
+    {
+        final ITriplePatternElement<RDFNode,String,String> element =
+                parser.parseIntoTriplePatternElement( "http://example.org/s" );
+        Assert.assertFalse( element.isVariable() );
+        Assert.assertEquals( "http://example.org/s",
+                             element.asConstantTerm().asResource().getURI() );
+        Assert.assertSame( element,
+                parser.parseIntoTriplePatternElement("http://example.org/s") );
+
+        Assert.assertTrue(
+                parser.parseIntoTriplePatternElement("?x").isNamedVariable() );
+        Assert.assertSame( parser.parseIntoTriplePatternElement("?x"),
+                           parser.parseIntoTriplePatternElement("?x") );
+    }
+}
@@ -0,0 +1,97 @@
+package org.linkeddatafragments.views;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.DatasetFactory;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.RDFNode;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.junit.Assert;
+import org.junit.Test;
+import org.linkeddatafragments.fragments.ILinkedDataFragmentRequest;
+import org.linkeddatafragments.fragments.tpf.TriplePatternFragmentImpl;
+import org.linkeddatafragments.fragments.tpf.TriplePatternFragmentRequestImpl;
+import org.linkeddatafragments.util.CommonResources;
+import org.linkeddatafragments.util.TriplePatternElementParserForJena;
+
+/**
+ * Test cases for the writer of batch responses
+ */
+public class BatchWriterTest {
+
+    private final static String DATASET = "http://example.org/dataset";
+
+    private static ILinkedDataFragmentRequest createRequest(String subject) {
+        final TriplePatternElementParserForJena parser = TriplePatternElementParserForJena.getInstance();
+        return new TriplePatternFragmentRequestImpl<RDFNode,String,String>(
+                DATASET + "?subject=" + subject, DATASET, false, 1L,
+                parser.parseIntoTriplePatternElement(subject),
+                parser.parseIntoTriplePatternElement(null),
+                parser.parseIntoTriplePatternElement(null));
+    }
+
+    /**
+     * Check that each fragment is written into the graph of its URL.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void shouldWriteFragmentsIntoGraphs() throws Exception {
+        final StreamingRdfWriterImplTest.BufferedServletOutputStream out =
+                new StreamingRdfWriterImplTest.BufferedServletOutputStream();
+        final BatchWriter writer = new BatchWriter(out);
+        for (int i = 0; i < 3; i++) {
+            final ILinkedDataFragmentRequest request = createRequest("http://example.org/s" + i);
+            final Model triples = ModelFactory.createDefaultModel();
+            for (int j = 0; j <= i; j++) {
+                triples.add(triples.createResource("http://example.org/s" + i),
+                            triples.createProperty("http://purl.org/dc/terms/title"),
+                            "Title " + j);
+            }
+            writer.write(request, new TriplePatternFragmentImpl(triples, i + 1,
+                    request.getFragmentURL(), DATASET, 1L, true));
+        }
+        writer.close();
+
+        final Dataset dataset = DatasetFactory.create();
+        RDFDataMgr.read(dataset, new ByteArrayInputStream(out.buffer.toByteArray()), Lang.NQUADS);
+        Assert.assertTrue(dataset.getDefaultModel().isEmpty());
+        for (int i = 0; i < 3; i++) {
+            final String graph = DATASET + "?subject=http://example.org/s" + i;
+            Assert.assertTrue(graph, dataset.containsNamedModel(graph));
+            final Model model = dataset.getNamedModel(graph);
+            Assert.assertEquals(i + 1, model.listStatements(
+                    model.createResource("http://example.org/s" + i), null, (RDFNode) null).toList().size());
+        }
+    }
+
+    /**
+     * Check that an error is written into the graph of its fragment URL.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void shouldWriteErrorsIntoGraphs() throws Exception {
+        final StreamingRdfWriterImplTest.BufferedServletOutputStream out =
+                new StreamingRdfWriterImplTest.BufferedServletOutputStream();
+        final BatchWriter writer = new BatchWriter(out);
+        final ILinkedDataFragmentRequest request = createRequest("http://example.org/s0");
+        writer.writeError(request, 400, new IllegalArgumentException("Unsupported"));
+        writer.close();
+
+        final Dataset dataset = DatasetFactory.create();
+        RDFDataMgr.read(dataset, new ByteArrayInputStream(out.buffer.toByteArray()), Lang.NQUADS);
+        final Model model = dataset.getNamedModel(request.getFragmentURL());
+        final List<Resource> errors = model.listResourcesWithProperty(
+                CommonResources.RDF_TYPE, CommonResources.HYDRA_ERROR).toList();
+        Assert.assertEquals(1, errors.size());
+        Assert.assertEquals(400, errors.get(0).getProperty(CommonResources.HYDRA_STATUSCODE).getInt());
+        Assert.assertEquals("Unsupported",
+                errors.get(0).getProperty(CommonResources.HYDRA_DESCRIPTION).getString());
+    }
+}
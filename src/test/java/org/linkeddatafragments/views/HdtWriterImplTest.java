@@ -0,0 +1,98 @@
+package org.linkeddatafragments.views;
+
+import java.io.ByteArrayInputStream;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.jena.datatypes.xsd.XSDDatatype;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.Property;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.rdf.model.StmtIterator;
+import org.junit.Assert;
+import org.junit.Test;
+import org.linkeddatafragments.datasource.IDataSource;
+import org.linkeddatafragments.fragments.ILinkedDataFragment;
+import org.linkeddatafragments.fragments.tpf.TriplePatternFragmentImpl;
+import org.linkeddatafragments.fragments.tpf.TriplePatternFragmentRequestImpl;
+import org.linkeddatafragments.util.TriplePatternElementParserForJena;
+import org.rdfhdt.hdt.hdt.HDT;
+import org.rdfhdt.hdt.hdt.HDTManager;
+import org.rdfhdt.hdt.triples.IteratorTripleString;
+import org.rdfhdt.hdt.triples.TripleString;
+
+/**
+ * Test cases for the HDT writer
+ */
+public class HdtWriterImplTest {
+
+    /**
+     * Check that hdt-java reads the same triples back from the HDT file as
+     * the metadata, controls and triples of the fragment.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void shouldReadFragmentBackWithHdtJava() throws Exception {
+        final ILinkedDataFragmentWriter writer = LinkedDataFragmentWriterFactory.create(
+                new HashMap<String, String>(), new HashMap<String, IDataSource>(),
+                LinkedDataFragmentWriterFactory.HDT);
+        Assert.assertTrue(writer instanceof HdtWriterImpl);
+
+        final Model triples = ModelFactory.createDefaultModel();
+        final Property title = triples.createProperty("http://purl.org/dc/terms/title");
+        final Property issued = triples.createProperty("http://purl.org/dc/terms/issued");
+        for (int j = 0; j < 10; j++) {
+            final Resource s = triples.createResource("http://example.org/s" + j);
+            triples.add(s, title, "Title " + j);
+            triples.add(s, title, triples.createLiteral("Titel " + j, "nl"));
+            triples.add(s, issued, triples.createTypedLiteral("2016-0" + (j % 9 + 1) + "-01",
+                                                              XSDDatatype.XSDdate));
+            triples.add(s, triples.createProperty("http://purl.org/dc/terms/creator"),
+                        triples.createResource());
+        }
+        final ILinkedDataFragment fragment = new TriplePatternFragmentImpl(triples, 40L,
+                "http://example.org/dataset", "http://example.org/dataset", 1L, true);
+        final TriplePatternElementParserForJena parser = TriplePatternElementParserForJena.getInstance();
+        final TriplePatternFragmentRequestImpl<?,?,?> request =
+                new TriplePatternFragmentRequestImpl<>(
+                        "http://example.org/dataset", "http://example.org/dataset", false, 1L,
+                        parser.parseIntoTriplePatternElement(null),
+                        parser.parseIntoTriplePatternElement(null),
+                        parser.parseIntoTriplePatternElement(null));
+
+        final StreamingRdfWriterImplTest.BufferedServletOutputStream out =
+                new StreamingRdfWriterImplTest.BufferedServletOutputStream();
+        writer.writeFragment(out, null, fragment, request);
+
+        final Set<String> expected = new HashSet<>();
+        add(expected, fragment.getMetadata());
+        add(expected, fragment.getControls());
+        add(expected, fragment.getTriples());
+
+        final Set<String> parsed = new HashSet<>();
+        final HDT hdt = HDTManager.loadHDT(new ByteArrayInputStream(out.buffer.toByteArray()));
+        try {
+            final IteratorTripleString it = hdt.search("", "", "");
+            while (it.hasNext()) {
+                final TripleString t = it.next();
+                parsed.add(t.getSubject() + " " + t.getPredicate() + " " + t.getObject());
+            }
+        } finally {
+            hdt.close();
+        }
+        Assert.assertEquals(expected, parsed);
+    }
+
+    private static void add(Set<String> strings, StmtIterator statements) {
+        while (statements.hasNext()) {
+            final Triple t = statements.next().asTriple();
+            strings.add(HdtWriterImpl.toHdtString(t.getSubject()) + " "
+                        + HdtWriterImpl.toHdtString(t.getPredicate()) + " "
+                        + HdtWriterImpl.toHdtString(t.getObject()));
+        }
+    }
+}
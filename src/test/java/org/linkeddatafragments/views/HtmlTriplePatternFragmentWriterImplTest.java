@@ -0,0 +1,96 @@
+package org.linkeddatafragments.views;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.RDFNode;
+import org.junit.Assert;
+import org.junit.Test;
+import org.linkeddatafragments.datasource.DataSourceBase;
+import org.linkeddatafragments.datasource.IDataSource;
+import org.linkeddatafragments.datasource.IFragmentRequestProcessor;
+import org.linkeddatafragments.datasource.index.IndexDataSource;
+import org.linkeddatafragments.fragments.IFragmentRequestParser;
+import org.linkeddatafragments.fragments.tpf.ITriplePatternElement;
+import org.linkeddatafragments.fragments.tpf.ITriplePatternFragment;
+import org.linkeddatafragments.fragments.tpf.TriplePatternElementFactory;
+import org.linkeddatafragments.fragments.tpf.TriplePatternFragmentImpl;
+import org.linkeddatafragments.fragments.tpf.TriplePatternFragmentRequestImpl;
+
+/**
+ * Test cases for the HTML writer
+ */
+public class HtmlTriplePatternFragmentWriterImplTest {
+
+    private static IDataSource createDataSource(String title) {
+        return new DataSourceBase(title, "Description of " + title) {
+            @Override
+            public IFragmentRequestParser getRequestParser() {
+                return null;
+            }
+
+            @Override
+            public IFragmentRequestProcessor getRequestProcessor() {
+                return null;
+            }
+        };
+    }
+
+    /**
+     * Check that the triples of a fragment and the datasources are rendered.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void shouldRenderFragment() throws Exception {
+        final Map<String, IDataSource> datasources = new LinkedHashMap<>();
+        datasources.put("first", createDataSource("First ✓ dataset"));
+        datasources.put("second", createDataSource("Second dataset"));
+
+        final HtmlTriplePatternFragmentWriterImpl writer =
+                new HtmlTriplePatternFragmentWriterImpl(new HashMap<String, String>(), datasources);
+
+        final Model triples = ModelFactory.createDefaultModel();
+        for (int i = 0; i < 10; i++) {
+            triples.add(triples.createResource("http://example.org/s" + i),
+                        triples.createProperty("http://purl.org/dc/terms/title"),
+                        "Title " + i);
+        }
+        final ITriplePatternFragment fragment = new TriplePatternFragmentImpl(triples, 10L,
+                "http://example.org/first", "http://example.org/first", 1L, true);
+
+        final TriplePatternElementFactory<RDFNode,String,String> factory =
+                new TriplePatternElementFactory<>();
+        final ITriplePatternElement<RDFNode,String,String> variable =
+                factory.createUnspecifiedVariable();
+        final TriplePatternFragmentRequestImpl<RDFNode,String,String> request =
+                new TriplePatternFragmentRequestImpl<>("http://example.org/first",
+                        "http://example.org/first", false, 1L, variable, variable, variable);
+
+        for (int i = 0; i < 2; i++) {
+            final StreamingRdfWriterImplTest.BufferedServletOutputStream out =
+                    new StreamingRdfWriterImplTest.BufferedServletOutputStream();
+            writer.writeFragment(out, datasources.get("first"), fragment, request);
+
+            final String html = new String(out.buffer.toByteArray(), StandardCharsets.UTF_8);
+            Assert.assertTrue(html.contains("First ✓ dataset"));
+            Assert.assertTrue(html.contains("Showing triples 1 to 10"));
+            for (int j = 0; j < 10; j++) {
+                Assert.assertTrue(html.contains("http://example.org/s" + j));
+            }
+        }
+
+        // the index lists all datasources
+        final StreamingRdfWriterImplTest.BufferedServletOutputStream out =
+                new StreamingRdfWriterImplTest.BufferedServletOutputStream();
+        writer.writeFragment(out, new IndexDataSource("http://example.org/", datasources),
+                             fragment, request);
+        final String html = new String(out.buffer.toByteArray(), StandardCharsets.UTF_8);
+        Assert.assertTrue(html.contains("First ✓ dataset"));
+        Assert.assertTrue(html.contains("Second dataset"));
+    }
+}
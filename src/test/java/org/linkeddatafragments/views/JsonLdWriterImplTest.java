@@ -0,0 +1,68 @@
+package org.linkeddatafragments.views;
+
+import java.io.ByteArrayInputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.jena.datatypes.xsd.XSDDatatype;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.junit.Assert;
+import org.junit.Test;
+import org.linkeddatafragments.datasource.IDataSource;
+import org.linkeddatafragments.fragments.ILinkedDataFragment;
+import org.linkeddatafragments.fragments.tpf.TriplePatternFragmentImpl;
+import org.linkeddatafragments.util.CommonResources;
+
+/**
+ * Test cases for the streaming JSON-LD writer
+ */
+public class JsonLdWriterImplTest {
+
+    /**
+     * Check that the written JSON-LD contains the same graph as the fragment.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void shouldWriteFragment() throws Exception {
+        final Map<String, String> prefixes = new HashMap<>();
+        prefixes.put("dc", "http://purl.org/dc/terms/");
+        prefixes.put("hydra", "http://www.w3.org/ns/hydra/core#");
+        prefixes.put("xsd", "http://www.w3.org/2001/XMLSchema#");
+        final Map<String, IDataSource> datasources = new HashMap<>();
+
+        final Model triples = ModelFactory.createDefaultModel();
+        for (int i = 0; i < 5; i++) {
+            final Resource s = triples.createResource("http://example.org/s" + i);
+            s.addProperty(triples.createProperty("http://purl.org/dc/terms/title"), "Title \"" + i + "\"", "en");
+            s.addProperty(triples.createProperty("http://purl.org/dc/terms/title"), "Titel " + i, "de");
+            s.addProperty(CommonResources.RDF_TYPE, triples.createResource("http://example.org/Thing"));
+            s.addLiteral(triples.createProperty("http://example.org/size"),
+                         triples.createTypedLiteral("" + i, XSDDatatype.XSDinteger));
+            s.addProperty(triples.createProperty("http://example.org/p"), "plain");
+        }
+        final ILinkedDataFragment fragment = new TriplePatternFragmentImpl(triples, 25L,
+                "http://example.org/dataset?subject=x", "http://example.org/dataset",
+                2L, false);
+
+        final ILinkedDataFragmentWriter writer =
+                LinkedDataFragmentWriterFactory.create(prefixes, datasources, Lang.JSONLD.getHeaderString());
+        Assert.assertTrue(writer instanceof JsonLdWriterImpl);
+        final StreamingRdfWriterImplTest.BufferedServletOutputStream out =
+                new StreamingRdfWriterImplTest.BufferedServletOutputStream();
+        writer.writeFragment(out, null, fragment, null);
+
+        final Model parsed = ModelFactory.createDefaultModel();
+        RDFDataMgr.read(parsed, new ByteArrayInputStream(out.buffer.toByteArray()), Lang.JSONLD);
+
+        final Model expected = ModelFactory.createDefaultModel();
+        expected.add(fragment.getMetadata());
+        expected.add(fragment.getControls());
+        expected.add(fragment.getTriples());
+        Assert.assertTrue("graphs differ", parsed.isIsomorphicWith(expected));
+    }
+}
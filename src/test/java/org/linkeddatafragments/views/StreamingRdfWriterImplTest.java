@@ -0,0 +1,126 @@
+package org.linkeddatafragments.views;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.riot.RDFLanguages;
+import org.junit.Assert;
+import org.junit.Test;
+import org.linkeddatafragments.datasource.IDataSource;
+import org.linkeddatafragments.fragments.ILinkedDataFragment;
+import org.linkeddatafragments.fragments.tpf.TriplePatternFragmentImpl;
+
+/**
+ * Test cases for the streaming RDF writer
+ */
+public class StreamingRdfWriterImplTest {
+
+    /**
+     * Collects the written bytes
+     */
+    static class BufferedServletOutputStream extends ServletOutputStream {
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+        @Override
+        public void write(int b) {
+            buffer.write(b);
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener listener) {
+        }
+    }
+
+    private static ILinkedDataFragment createFragment() {
+        final Model triples = ModelFactory.createDefaultModel();
+        for (int i = 0; i < 10; i++) {
+            triples.add(triples.createResource("http://example.org/s" + i),
+                        triples.createProperty("http://purl.org/dc/terms/title"),
+                        "Title \"" + i + "\"\n", "en");
+        }
+        return new TriplePatternFragmentImpl(triples, 25L,
+                "http://example.org/dataset?subject=x", "http://example.org/dataset",
+                1L, false);
+    }
+
+    private static Model merge(ILinkedDataFragment fragment) {
+        final Model model = ModelFactory.createDefaultModel();
+        model.add(fragment.getMetadata());
+        model.add(fragment.getControls());
+        model.add(fragment.getTriples());
+        return model;
+    }
+
+    /**
+     * Check that every streamed format contains the same graph as the
+     * fragment.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void shouldStreamFragment() throws Exception {
+        final Map<String, String> prefixes = new HashMap<>();
+        prefixes.put("dc", "http://purl.org/dc/terms/");
+        prefixes.put("hydra", "http://www.w3.org/ns/hydra/core#");
+        final Map<String, IDataSource> datasources = new HashMap<>();
+
+        for (Lang lang : new Lang[] { Lang.NQUADS, Lang.RDFTHRIFT }) {
+            final String mimeType = lang.getHeaderString();
+            Assert.assertTrue(StreamingRdfWriterImpl.supports(mimeType));
+
+            final ILinkedDataFragmentWriter writer =
+                    new StreamingRdfWriterImpl(prefixes, datasources, mimeType);
+
+            final ILinkedDataFragment fragment = createFragment();
+            final BufferedServletOutputStream out = new BufferedServletOutputStream();
+            writer.writeFragment(out, null, fragment, null);
+
+            final Model parsed = ModelFactory.createDefaultModel();
+            RDFDataMgr.read(parsed, new ByteArrayInputStream(out.buffer.toByteArray()),
+                            RDFLanguages.contentTypeToLang(mimeType));
+            Assert.assertTrue(mimeType + " differs", parsed.isIsomorphicWith(merge(fragment)));
+        }
+
+        for (Lang lang : new Lang[] { Lang.NTRIPLES, Lang.TURTLE, Lang.RDFXML }) {
+            Assert.assertFalse(StreamingRdfWriterImpl.supports(lang.getHeaderString()));
+        }
+    }
+
+    /**
+     * Check that N-Triples with a cached search form contain the same graph
+     * as the fragment.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void shouldWriteNTriples() throws Exception {
+        final ILinkedDataFragmentWriter writer = LinkedDataFragmentWriterFactory.create(
+                new HashMap<String, String>(), new HashMap<String, IDataSource>(),
+                Lang.NTRIPLES.getHeaderString());
+        Assert.assertTrue(writer instanceof NTriplesWriterImpl);
+
+        for (int i = 0; i < 2; i++) {
+            final ILinkedDataFragment fragment = createFragment();
+            final BufferedServletOutputStream out = new BufferedServletOutputStream();
+            writer.writeFragment(out, null, fragment, null);
+
+            final Model parsed = ModelFactory.createDefaultModel();
+            RDFDataMgr.read(parsed, new ByteArrayInputStream(out.buffer.toByteArray()),
+                            Lang.NTRIPLES);
+            Assert.assertTrue("N-Triples differ", parsed.isIsomorphicWith(merge(fragment)));
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package org.linkeddatafragments.views;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.sparql.graph.GraphFactory;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test cases for the export writer
+ */
+public class TripleExportWriterTest {
+
+    private static Graph createGraph(int size) {
+        final Graph graph = GraphFactory.createDefaultGraph();
+        final Node p = NodeFactory.createURI("http://purl.org/dc/terms/title");
+        for (int i = 0; i < size; i++) {
+            graph.add(new Triple(NodeFactory.createURI("http://example.org/s" + i), p,
+                                 NodeFactory.createLiteral("Title " + i)));
+        }
+        return graph;
+    }
+
+    /**
+     * Check that N-Triples is the default and RDF Thrift is used if preferred.
+     */
+    @Test
+    public void shouldNegotiateMimeType() {
+        Assert.assertEquals(TripleExportWriter.NTRIPLES, TripleExportWriter.getMimeType(null));
+        Assert.assertEquals(TripleExportWriter.NTRIPLES, TripleExportWriter.getMimeType("*/*"));
+        Assert.assertEquals(TripleExportWriter.NTRIPLES, TripleExportWriter.getMimeType("text/html"));
+        Assert.assertEquals(TripleExportWriter.THRIFT,
+                TripleExportWriter.getMimeType("application/rdf+thrift, application/n-triples;q=0.5"));
+    }
+
+    /**
+     * Check that all triples are written, up to the limit.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void shouldWriteTriples() throws Exception {
+        final Graph graph = createGraph(1000);
+
+        for (Lang lang : new Lang[] { Lang.NTRIPLES, Lang.RDFTHRIFT }) {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final long count = TripleExportWriter.write(out, graph.find(Node.ANY, Node.ANY, Node.ANY),
+                                                        Long.MAX_VALUE, lang.getHeaderString());
+            Assert.assertEquals(1000, count);
+
+            final Graph parsed = GraphFactory.createDefaultGraph();
+            RDFDataMgr.read(parsed, new ByteArrayInputStream(out.toByteArray()), lang);
+            Assert.assertTrue(lang + " differs", parsed.isIsomorphicWith(graph));
+
+            final ByteArrayOutputStream limited = new ByteArrayOutputStream();
+            Assert.assertEquals(10, TripleExportWriter.write(limited,
+                    graph.find(Node.ANY, Node.ANY, Node.ANY), 10, lang.getHeaderString()));
+            final Graph part = GraphFactory.createDefaultGraph();
+            RDFDataMgr.read(part, new ByteArrayInputStream(limited.toByteArray()), lang);
+            Assert.assertEquals(10, part.size());
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package org.linkeddatafragments.views;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.junit.Assert;
+import org.junit.Test;
+import org.linkeddatafragments.datasource.IDataSource;
+import org.linkeddatafragments.fragments.ILinkedDataFragment;
+import org.linkeddatafragments.fragments.tpf.TriplePatternFragmentImpl;
+
+/**
+ * Test cases for the Turtle writer
+ */
+public class TurtleWriterImplTest {
+
+    /**
+     * Check that the Turtle contains the same graph as the fragment, with
+     * IRIs abbreviated by the configured prefixes.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void shouldWriteFragment() throws Exception {
+        final Map<String, String> prefixes = new HashMap<>();
+        prefixes.put("dc", "http://purl.org/dc/terms/");
+        prefixes.put("ex", "http://example.org/");
+        prefixes.put("hydra", "http://www.w3.org/ns/hydra/core#");
+
+        final ILinkedDataFragmentWriter writer = LinkedDataFragmentWriterFactory.create(
+                prefixes, new HashMap<String, IDataSource>(), Lang.TURTLE.getHeaderString());
+        Assert.assertTrue(writer instanceof TurtleWriterImpl);
+
+        for (int i = 0; i < 2; i++) {
+            final Model triples = ModelFactory.createDefaultModel();
+            for (int j = 0; j < 10; j++) {
+                triples.add(triples.createResource("http://example.org/s" + j),
+                            triples.createProperty("http://purl.org/dc/terms/title"),
+                            "Title " + j);
+            }
+            final ILinkedDataFragment fragment = new TriplePatternFragmentImpl(triples, 10L,
+                    "http://example.org/dataset", "http://example.org/dataset", 1L, true);
+
+            final StreamingRdfWriterImplTest.BufferedServletOutputStream out =
+                    new StreamingRdfWriterImplTest.BufferedServletOutputStream();
+            writer.writeFragment(out, null, fragment, null);
+
+            final String turtle = new String(out.buffer.toByteArray(), StandardCharsets.UTF_8);
+            Assert.assertTrue(turtle.contains("@prefix dc: <http://purl.org/dc/terms/> ."));
+            Assert.assertTrue(turtle.contains("ex:s1"));
+            Assert.assertTrue(turtle.contains("dc:title"));
+            Assert.assertFalse(turtle.contains("<http://purl.org/dc/terms/title>"));
+
+            final Model parsed = ModelFactory.createDefaultModel();
+            RDFDataMgr.read(parsed, new ByteArrayInputStream(out.buffer.toByteArray()), Lang.TURTLE);
+            final Model expected = ModelFactory.createDefaultModel();
+            expected.add(fragment.getMetadata());
+            expected.add(fragment.getControls());
+            expected.add(fragment.getTriples());
+            Assert.assertTrue("Turtle differs", parsed.isIsomorphicWith(expected));
+        }
+    }
+}
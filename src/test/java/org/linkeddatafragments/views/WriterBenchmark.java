@@ -0,0 +1,148 @@
+package org.linkeddatafragments.views;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.riot.Lang;
+import org.linkeddatafragments.datasource.IDataSource;
+import org.linkeddatafragments.fragments.ILinkedDataFragment;
+import org.linkeddatafragments.fragments.tpf.TriplePatternFragmentImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks of the fragment writers against the RIOT writer that
+ * serves the other formats, for a page of 100 triples. They are not run
+ * by the tests; run them with
+ *
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=cp.txt
+ * java -cp target/test-classes:target/classes:$(cat cp.txt) \
+ *      org.openjdk.jmh.Main WriterBenchmark -prof gc
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class WriterBenchmark {
+
+    /**
+     * Discards the written bytes
+     */
+    static class NullServletOutputStream extends ServletOutputStream {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener listener) {
+        }
+    }
+
+    private final ServletOutputStream out = new NullServletOutputStream();
+
+    private ILinkedDataFragment fragment;
+
+    private ILinkedDataFragmentWriter riotNTriples;
+    private ILinkedDataFragmentWriter nTriples;
+    private ILinkedDataFragmentWriter riotJsonLd;
+    private ILinkedDataFragmentWriter jsonLd;
+
+    /**
+     * Creates the page and the writers.
+     *
+     * @throws Exception
+     */
+    @Setup
+    public void setUp() throws Exception {
+        final Model triples = ModelFactory.createDefaultModel();
+        for (int i = 0; i < 50; i++) {
+            final Resource s = triples.createResource("http://example.org/dataset/d" + i);
+            triples.add(s, triples.createProperty("http://purl.org/dc/terms/title"),
+                        "Dataset " + i + " about \"Ghent\"", "en");
+            triples.add(s, triples.createProperty("http://www.w3.org/ns/dcat#keyword"),
+                        triples.createResource("http://example.org/keyword/k" + (i % 7)));
+        }
+        fragment = new TriplePatternFragmentImpl(triples, 1000L,
+                "http://example.org/dataset?predicate=x", "http://example.org/dataset",
+                2L, false);
+
+        final Map<String, String> prefixes = new HashMap<>();
+        prefixes.put("dc", "http://purl.org/dc/terms/");
+        prefixes.put("dcat", "http://www.w3.org/ns/dcat#");
+        prefixes.put("hydra", "http://www.w3.org/ns/hydra/core#");
+        final Map<String, IDataSource> datasources = new HashMap<>();
+        riotNTriples = new RdfWriterImpl(prefixes, datasources, Lang.NTRIPLES.getHeaderString());
+        nTriples = LinkedDataFragmentWriterFactory.create(prefixes, datasources,
+                                                          Lang.NTRIPLES.getHeaderString());
+        riotJsonLd = new RdfWriterImpl(prefixes, datasources, Lang.JSONLD.getHeaderString());
+        jsonLd = LinkedDataFragmentWriterFactory.create(prefixes, datasources,
+                                                        Lang.JSONLD.getHeaderString());
+    }
+
+    /**
+     * N-Triples through a model and RIOT
+     *
+     * @throws Exception
+     */
+    @Benchmark
+    public void riotNTriples() throws Exception {
+        riotNTriples.writeFragment(out, null, fragment, null);
+    }
+
+    /**
+     * N-Triples with {@link NTriplesWriterImpl}
+     *
+     * @throws Exception
+     */
+    @Benchmark
+    public void nTriples() throws Exception {
+        nTriples.writeFragment(out, null, fragment, null);
+    }
+
+    /**
+     * JSON-LD through a model and RIOT
+     *
+     * @throws Exception
+     */
+    @Benchmark
+    public void riotJsonLd() throws Exception {
+        riotJsonLd.writeFragment(out, null, fragment, null);
+    }
+
+    /**
+     * JSON-LD with {@link JsonLdWriterImpl}
+     *
+     * @throws Exception
+     */
+    @Benchmark
+    public void jsonLd() throws Exception {
+        jsonLd.writeFragment(out, null, fragment, null);
+    }
+}